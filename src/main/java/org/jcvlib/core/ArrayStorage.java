@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+/**
+ * Storage based on Java <code>byte[]</code> array. Default storage for all images.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+final class ArrayStorage extends Storage {
+
+    private final byte[]  array;
+
+    private final boolean isOwner;
+
+    /**
+     * Create storage with given size.
+     */
+    ArrayStorage(final int size) {
+        this(new byte[size], true);
+    }
+
+    /**
+     * Create storage based on given array. It is <strong>NOT COPY</strong> of given array.
+     */
+    ArrayStorage(final byte[] array) {
+        this(array, false);
+    }
+
+    private ArrayStorage(final byte[] array, final boolean isOwner) {
+        this.array = array;
+        this.isOwner = isOwner;
+    }
+
+    /**
+     * Return <code>true</code> if array was created by this storage, so nobody else can reference it.
+     */
+    boolean isOwner() {
+        return this.isOwner;
+    }
+
+    @Override
+    public long getSize() {
+        return this.array.length;
+    }
+
+    @Override
+    public int get(final long index) {
+        return this.array[(int) index] & 0xFF;
+    }
+
+    @Override
+    public void set(final long index, final byte value) {
+        this.array[(int) index] = value;
+    }
+
+    @Override
+    public void get(final long index, final int stride, final int[] dst, final int offset, final int length) {
+        int pos = (int) index;
+        for (int i = offset; i < offset + length; ++i) {
+            dst[i] = this.array[pos] & 0xFF;
+            pos += stride;
+        }
+    }
+
+    @Override
+    public void set(final long index, final int stride, final int[] src, final int offset, final int length) {
+        int pos = (int) index;
+        for (int i = offset; i < offset + length; ++i) {
+            this.array[pos] = Color.IntToUByte(src[i]);
+            pos += stride;
+        }
+    }
+
+    @Override
+    public void get(final long index, final byte[] dst, final int offset, final int length) {
+        System.arraycopy(this.array, (int) index, dst, offset, length);
+    }
+
+    @Override
+    public void set(final long index, final byte[] src, final int offset, final int length) {
+        System.arraycopy(src, offset, this.array, (int) index, length);
+    }
+
+    @Override
+    public void copyTo(final long index, final Storage target, final long targetIndex, final long length) {
+        target.set(targetIndex, this.array, (int) index, (int) length);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Storage based on {@link ByteBuffer}. Useful to wrap direct buffers (decoded video frames, native memory) without
+ * copying and to keep large images out of the Java heap.
+ * <p>
+ * Only absolute methods of buffer are used, so position and limit of given buffer are never changed.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+final class BufferStorage extends Storage {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Create storage based on given buffer. Values from position <code>0</code> to the capacity of buffer will be
+     * used. It is <strong>NOT COPY</strong> of given buffer.
+     */
+    BufferStorage(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public long getSize() {
+        return this.buffer.capacity();
+    }
+
+    @Override
+    public int get(final long index) {
+        return this.buffer.get((int) index) & 0xFF;
+    }
+
+    @Override
+    public void set(final long index, final byte value) {
+        this.buffer.put((int) index, value);
+    }
+
+    @Override
+    public void get(final long index, final int stride, final int[] dst, final int offset, final int length) {
+        int pos = (int) index;
+        for (int i = offset; i < offset + length; ++i) {
+            dst[i] = this.buffer.get(pos) & 0xFF;
+            pos += stride;
+        }
+    }
+
+    @Override
+    public void set(final long index, final int stride, final int[] src, final int offset, final int length) {
+        int pos = (int) index;
+        for (int i = offset; i < offset + length; ++i) {
+            this.buffer.put(pos, Color.IntToUByte(src[i]));
+            pos += stride;
+        }
+    }
+
+    @Override
+    public void get(final long index, final byte[] dst, final int offset, final int length) {
+        // Duplicate have own position, so parallel copying is safe.
+        final ByteBuffer view = this.buffer.duplicate();
+        view.position((int) index);
+        view.get(dst, offset, length);
+    }
+
+    @Override
+    public void set(final long index, final byte[] src, final int offset, final int length) {
+        final ByteBuffer view = this.buffer.duplicate();
+        view.position((int) index);
+        view.put(src, offset, length);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+/**
+ * Fast non-cryptographic hash of byte arrays. Implements 64-bit version of xxHash algorithm.
+ * <p>
+ * Used by {@link Image#hashCode()} and {@link Image#contentHash()}. Hash of long data can be calculated by parts:
+ * result of previous part uses as a seed for next part.
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="https://github.com/Cyan4973/xxHash">xxHash -- Extremely fast non-cryptographic hash algorithm</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+final class ContentHash {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private ContentHash() {
+        // Static methods only.
+    }
+
+    /**
+     * Return hash of first <code>length</code> bytes of given array.
+     */
+    static long hash(final byte[] data, final int length, final long seed) {
+        int pos = 0;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + ContentHash.PRIME_1 + ContentHash.PRIME_2;
+            long v2 = seed + ContentHash.PRIME_2;
+            long v3 = seed;
+            long v4 = seed - ContentHash.PRIME_1;
+
+            final int limit = length - 32;
+            do {
+                v1 = round(v1, readLong(data, pos));
+                v2 = round(v2, readLong(data, pos + 8));
+                v3 = round(v3, readLong(data, pos + 16));
+                v4 = round(v4, readLong(data, pos + 24));
+                pos += 32;
+            } while (pos <= limit);
+
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + ContentHash.PRIME_5;
+        }
+
+        h += length;
+
+        // Tail.
+        while (pos + 8 <= length) {
+            h ^= round(0, readLong(data, pos));
+            h = Long.rotateLeft(h, 27) * ContentHash.PRIME_1 + ContentHash.PRIME_4;
+            pos += 8;
+        }
+        if (pos + 4 <= length) {
+            h ^= (readInt(data, pos) & 0xFFFFFFFFL) * ContentHash.PRIME_1;
+            h = Long.rotateLeft(h, 23) * ContentHash.PRIME_2 + ContentHash.PRIME_3;
+            pos += 4;
+        }
+        while (pos < length) {
+            h ^= (data[pos] & 0xFF) * ContentHash.PRIME_5;
+            h = Long.rotateLeft(h, 11) * ContentHash.PRIME_1;
+            ++pos;
+        }
+
+        // Avalanche.
+        h ^= h >>> 33;
+        h *= ContentHash.PRIME_2;
+        h ^= h >>> 29;
+        h *= ContentHash.PRIME_3;
+        h ^= h >>> 32;
+
+        return h;
+    }
+
+    private static long round(final long acc, final long input) {
+        return Long.rotateLeft(acc + input * ContentHash.PRIME_2, 31) * ContentHash.PRIME_1;
+    }
+
+    private static long mergeRound(final long acc, final long value) {
+        return (acc ^ round(0, value)) * ContentHash.PRIME_1 + ContentHash.PRIME_4;
+    }
+
+    private static long readLong(final byte[] data, final int pos) {
+        return readInt(data, pos) & 0xFFFFFFFFL | (long) readInt(data, pos + 4) << 32;
+    }
+
+    private static int readInt(final byte[] data, final int pos) {
+        return data[pos] & 0xFF | (data[pos + 1] & 0xFF) << 8 | (data[pos + 2] & 0xFF) << 16 | data[pos + 3] << 24;
+    }
+}
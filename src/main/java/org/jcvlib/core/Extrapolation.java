@@ -66,15 +66,18 @@ public enum Extrapolation {
 
         @Override
         protected int translatePosition(final int xy, final int wh) {
-            if (xy < 0) {
-                return -xy - 1;
+            if (xy >= 0 && xy < wh) {
+                return super.translatePosition(xy, wh);
             }
 
-            if (xy >= wh) {
-                return wh - (xy - wh) - 1;
+            // Pattern is repeated with period of two images, so far positions are reflected many times.
+            final int period = 2 * wh;
+            int position = xy % period;
+            if (position < 0) {
+                position += period;
             }
 
-            return super.translatePosition(xy, wh);
+            return position < wh ? position : period - position - 1;
         }
     },
 
@@ -85,15 +88,14 @@ public enum Extrapolation {
 
         @Override
         protected int translatePosition(final int xy, final int wh) {
-            if (xy < 0) {
-                return wh + xy;
+            if (xy >= 0 && xy < wh) {
+                return super.translatePosition(xy, wh);
             }
 
-            if (xy >= wh) {
-                return xy - wh;
-            }
+            // Far positions are wrapped many times.
+            final int position = xy % wh;
 
-            return super.translatePosition(xy, wh);
+            return position < 0 ? position + wh : position;
         }
     };
 
@@ -114,4 +116,33 @@ public enum Extrapolation {
         return image.getUnsafe(translatePosition(x, image.getWidth()), translatePosition(y, image.getHeight()),
                 channel);
     }
+
+    /**
+     * Return source positions for all positions that can be covered by kernel with given size and anchor when it moves
+     * along the line with given size: element <code>i</code> contains translated position
+     * <code>i - anchor</code>. Positions that are outside of line after translation (for {@link #ZERO}) are marked as
+     * <code>-1</code>.
+     * <p>
+     * Uses into filters to calculate border values without checks for each pixel. Kernel can be larger than line:
+     * {@link #REFLECT} and {@link #WRAP} are repeated as many times as needed, so other methods never give
+     * <code>-1</code>.
+     * </p>
+     *
+     * @param size
+     *            Width or Height of image.
+     * @param kernelSize
+     *            Width or Height of kernel.
+     * @param anchor
+     *            X or Y position of anchor into kernel.
+     * @return Array with <code>size + kernelSize - 1</code> elements.
+     */
+    public int[] translatePositions(final int size, final int kernelSize, final int anchor) {
+        final int[] map = new int[size + kernelSize - 1];
+        for (int i = 0; i < map.length; ++i) {
+            final int position = translatePosition(i - anchor, size);
+            map[i] = position >= 0 && position < size ? position : -1;
+        }
+
+        return map;
+    }
 }
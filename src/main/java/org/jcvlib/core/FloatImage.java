@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.util.Arrays;
+
+import org.jcvlib.parallel.Parallel;
+
+/**
+ * Image with 32-bit floating point values.
+ * <p>
+ * Useful for intermediate results of algorithms (gradients, accumulators, results of convolution), where rounding to
+ * unsigned bytes of {@link Image} lose precision. Values are not limited by any interval. Sub-images and layers are
+ * <strong>NOT COPY</strong> of values, as for {@link Image}.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public final class FloatImage extends PrimitiveImage {
+
+    private final float[] source;
+
+    /**
+     * Create new image with {@link Layout#ROW_MAJOR} layout filled by <code>0.0</code>.
+     *
+     * @param width
+     *            Width of image (in pixels).
+     * @param height
+     *            Height of image (in pixels).
+     * @param numOfChannels
+     *            Number of channels in current image.
+     */
+    public FloatImage(final int width, final int height, final int numOfChannels) {
+        this(width, height, numOfChannels, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Create new image filled by <code>0.0</code>.
+     *
+     * @param width
+     *            Width of image (in pixels).
+     * @param height
+     *            Height of image (in pixels).
+     * @param numOfChannels
+     *            Number of channels in current image.
+     * @param layout
+     *            Order of pixels into the source array.
+     */
+    public FloatImage(final int width, final int height, final int numOfChannels, final Layout layout) {
+        super(width, height, numOfChannels, layout);
+
+        this.source = new float[getSourceSize()];
+    }
+
+    private FloatImage(final FloatImage base, final int subImageX, final int subImageY, final int subImageWidth,
+            final int subImageHeight, final int subImageLayerStart, final int subImageLayerLength) {
+        super(base, subImageX, subImageY, subImageWidth, subImageHeight, subImageLayerStart, subImageLayerLength);
+
+        this.source = base.source;
+    }
+
+    /**
+     * Create new image with same size and number of channels as given image and copy values from it.
+     */
+    public static FloatImage fromImage(final Image image) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+
+        /*
+         * Perform transformation.
+         */
+        final FloatImage result = new FloatImage(image.getWidth(), image.getHeight(), image.getNumOfChannels());
+
+        Parallel.rows(image, (y, worker) -> {
+            final int[] row = new int[image.getWidth() * image.getNumOfChannels()];
+            image.getRow(y, row);
+
+            int pos = result.calculateArrayPosition(0, y, 0);
+            for (int i = 0; i < row.length; ++i) {
+                result.source[pos++] = row[i];
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Put rounded values of current image into given image. Values out of interval <code>[0, 255]</code> will be
+     * truncated.
+     */
+    public void toImage(final Image result) {
+        /*
+         * Verify parameters.
+         */
+        verifyIsSameSize(result);
+
+        /*
+         * Perform transformation.
+         */
+        Parallel.pixels(result, (x, y, worker) -> {
+            for (int channel = 0; channel < getNumOfChannels(); ++channel) {
+                result.setUnsafe(x, y, channel, JCV.round(getUnsafe(x, y, channel)));
+            }
+        });
+    }
+
+    /**
+     * Return new {@link Image} with rounded values of current image. Values out of interval <code>[0, 255]</code> will
+     * be truncated.
+     */
+    public Image toImage() {
+        final Image result = new Image(getWidth(), getHeight(), getNumOfChannels());
+
+        toImage(result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #get(int, int, int)}, but not check position of value. Useful for group operations.
+     */
+    public float getUnsafe(final int x, final int y, final int channel) {
+        return this.source[calculateArrayPosition(x, y, channel)];
+    }
+
+    /**
+     * Return value of selected channel from selected pixel.
+     */
+    public float get(final int x, final int y, final int channel) {
+        verifyPosition(x, y, channel);
+
+        return getUnsafe(x, y, channel);
+    }
+
+    /**
+     * Same as {@link #set(int, int, int, float)}, but not check position of value. Useful for group operations.
+     */
+    public void setUnsafe(final int x, final int y, final int channel, final float value) {
+        this.source[calculateArrayPosition(x, y, channel)] = value;
+    }
+
+    /**
+     * Set value of selected channel of selected pixel.
+     */
+    public void set(final int x, final int y, final int channel, final float value) {
+        verifyPosition(x, y, channel);
+
+        setUnsafe(x, y, channel, value);
+    }
+
+    /**
+     * Copy values of all channels from row <code>y</code> into given array. Values of channels are interleaved:
+     * <code>dst[numOfChannels * x + channel]</code>.
+     */
+    public void getRow(final int y, final float[] dst) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(dst);
+        verifyRow(y, dst.length);
+
+        /*
+         * Copy values.
+         */
+        int pos = calculateArrayPosition(0, y, 0);
+        if (isContinuousRow()) {
+            System.arraycopy(this.source, pos, dst, 0, getWidth() * getNumOfChannels());
+        } else {
+            for (int x = 0; x < getWidth(); ++x) {
+                System.arraycopy(this.source, pos, dst, getNumOfChannels() * x, getNumOfChannels());
+                pos += this.strideX;
+            }
+        }
+    }
+
+    /**
+     * Copy values of all channels from given array into row <code>y</code>. Values of channels should be interleaved
+     * as in {@link #getRow(int, float[])}.
+     */
+    public void setRow(final int y, final float[] src) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(src);
+        verifyRow(y, src.length);
+
+        /*
+         * Copy values.
+         */
+        int pos = calculateArrayPosition(0, y, 0);
+        if (isContinuousRow()) {
+            System.arraycopy(src, 0, this.source, pos, getWidth() * getNumOfChannels());
+        } else {
+            for (int x = 0; x < getWidth(); ++x) {
+                System.arraycopy(src, getNumOfChannels() * x, this.source, pos, getNumOfChannels());
+                pos += this.strideX;
+            }
+        }
+    }
+
+    /**
+     * Set given value to all channels of all pixels of current image.
+     */
+    public void fill(final float value) {
+        final float[] row = new float[getWidth() * getNumOfChannels()];
+        Arrays.fill(row, value);
+
+        for (int y = 0; y < getHeight(); ++y) {
+            setRow(y, row);
+        }
+    }
+
+    /**
+     * Return <code>true</code> if current image and given image use same source array.
+     */
+    public boolean isSameSource(final FloatImage image) {
+        return image != null && this.source == image.source;
+    }
+
+    /**
+     * Copy values of current image into given image. Images should have same size and number of channels.
+     */
+    public void copyTo(final FloatImage target) {
+        /*
+         * Verify parameters.
+         */
+        verifyIsSameSize(target);
+
+        /*
+         * Copy values.
+         */
+        final float[] row = new float[getWidth() * getNumOfChannels()];
+        for (int y = 0; y < getHeight(); ++y) {
+            getRow(y, row);
+            target.setRow(y, row);
+        }
+    }
+
+    /**
+     * Create new image with same size, number of channels and layout as current image filled by <code>0.0</code>.
+     */
+    public FloatImage makeSame() {
+        return new FloatImage(getWidth(), getHeight(), getNumOfChannels(), getLayout());
+    }
+
+    /**
+     * Return copy of current image. It will be a <strong>REAL COPY</strong> of current image or sub-image!
+     */
+    public FloatImage makeCopy() {
+        final FloatImage copy = makeSame();
+
+        copyTo(copy);
+
+        return copy;
+    }
+
+    /**
+     * Return sub-image based on current source. It is <strong>NOT COPY</strong> current image.
+     */
+    public FloatImage makeSubImage(final int x, final int y, final int width, final int height) {
+        verifySubImage(x, y, width, height);
+
+        return new FloatImage(this, this.subImageX + x, this.subImageY + y, width, height, this.subImageLayerStart,
+                this.subImageLayerLength);
+    }
+
+    /**
+     * Return image with channels from <code>startChannel</code> to <code>startChannel + sizeLayer</code> of current
+     * image. It is <strong>NOT COPY</strong> of current image.
+     */
+    public FloatImage makeLayer(final int startChannel, final int sizeLayer) {
+        verifyLayer(startChannel, sizeLayer);
+
+        return new FloatImage(this, this.subImageX, this.subImageY, this.subImageWidth, this.subImageHeight,
+                this.subImageLayerStart + startChannel, sizeLayer);
+    }
+
+    /**
+     * Return single channel image with given channel of current image. It is <strong>NOT COPY</strong> of current
+     * image.
+     */
+    public FloatImage makeChannel(final int channel) {
+        return makeLayer(channel, 1);
+    }
+
+    @Override
+    public int hashCode() {
+        final float[] row = new float[getWidth() * getNumOfChannels()];
+
+        int hash = 31 * (31 * getWidth() + getHeight()) + getNumOfChannels();
+        for (int y = 0; y < getHeight(); ++y) {
+            getRow(y, row);
+            hash = 31 * hash + Arrays.hashCode(row);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Return <code>true</code> if given object is an image with same size, number of channels and values.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof FloatImage)) {
+            return false;
+        }
+
+        final FloatImage image = (FloatImage) object;
+        if (image == this) {
+            return true;
+        }
+        if (getWidth() != image.getWidth() || getHeight() != image.getHeight()
+                || getNumOfChannels() != image.getNumOfChannels()) {
+            return false;
+        }
+
+        final float[] row1 = new float[getWidth() * getNumOfChannels()];
+        final float[] row2 = new float[row1.length];
+        for (int y = 0; y < getHeight(); ++y) {
+            getRow(y, row1);
+            image.getRow(y, row2);
+
+            if (!Arrays.equals(row1, row2)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -18,10 +18,12 @@
  */
 package org.jcvlib.core;
 
+import java.nio.ByteBuffer;
 import java.text.MessageFormat;
+import java.util.Arrays;
 
+import org.jcvlib.parallel.ExecutionContext;
 import org.jcvlib.parallel.Parallel;
-import org.jparfor.JParFor;
 
 import Jama.Matrix;
 
@@ -32,10 +34,13 @@ import Jama.Matrix;
  */
 public class Image {
 
-    private final byte[] source;
+    private final Storage source;
     private final int    sourceWidth;
     private final int    sourceHeight;
     private final int    sourceNumOfChannels;
+    private final Layout layout;
+    private final int    strideX;
+    private final int    strideY;
 
     /*
      * Will be used for sub-image moving.
@@ -49,7 +54,7 @@ public class Image {
     private final int    subImageLayerLength;
 
     /**
-     * Create new empty image.
+     * Create new empty image with {@link Layout#ROW_MAJOR} layout.
      *
      * @param width
      *            Width of image (in pixels).
@@ -59,12 +64,52 @@ public class Image {
      *            Number of channels in current image.
      */
     public Image(final int width, final int height, final int numOfChannels) {
+        this(width, height, numOfChannels, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Create new empty image.
+     *
+     * @param width
+     *            Width of image (in pixels).
+     * @param height
+     *            Height of image (in pixels).
+     * @param numOfChannels
+     *            Number of channels in current image.
+     * @param layout
+     *            Order of pixels into the source array.
+     */
+    public Image(final int width, final int height, final int numOfChannels, final Layout layout) {
+        this(new ArrayStorage(Image.calculateSourceSize(width, height, numOfChannels)), width, height, numOfChannels,
+                layout);
+    }
+
+    /**
+     * Create new image based on given storage. It is <strong>NOT COPY</strong> of values from storage.
+     *
+     * @param storage
+     *            Storage of values. Should contain at least <code>width * height * numOfChannels</code> values.
+     * @param width
+     *            Width of image (in pixels).
+     * @param height
+     *            Height of image (in pixels).
+     * @param numOfChannels
+     *            Number of channels in current image.
+     * @param layout
+     *            Order of pixels into the storage.
+     */
+    public Image(final Storage storage, final int width, final int height, final int numOfChannels,
+            final Layout layout) {
         /*
          * Verify parameters.
          */
-        if (numOfChannels <= 0) {
-            throw new IllegalArgumentException(
-                    MessageFormat.format("Value of \"numOfChannels\" (= {0}) must be more than 0!", numOfChannels));
+        Image.verifyNumOfChannels(numOfChannels);
+        JCV.verifyIsNotNull(storage);
+        JCV.verifyIsNotNull(layout);
+        if (storage.getSize() < (long) width * height * numOfChannels) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Storage with size {0} can not contain image {1} with {2} channels!", storage.getSize(),
+                    JCV.getSizeString(width, height), numOfChannels));
         }
 
         /*
@@ -73,7 +118,10 @@ public class Image {
         this.sourceWidth = width;
         this.sourceHeight = height;
         this.sourceNumOfChannels = numOfChannels;
-        this.source = new byte[this.sourceWidth * this.sourceHeight * this.sourceNumOfChannels];
+        this.source = storage;
+        this.layout = layout;
+        this.strideX = layout.getStrideX(width, height, numOfChannels);
+        this.strideY = layout.getStrideY(width, height, numOfChannels);
 
         this.subImageX = 0;
         this.subImageY = 0;
@@ -83,13 +131,15 @@ public class Image {
         this.subImageLayerLength = this.sourceNumOfChannels;
     }
 
-    private Image(final byte[] source, final int sourceWidth, final int sourceHeight, final int sourceNumOfChannels,
-            final int subImageX, final int subImageY, final int subImageWidth, final int subImageHeight,
-            final int subImageLayerStart, final int subImageLayerLength) {
-        this.source = source;
-        this.sourceWidth = sourceWidth;
-        this.sourceHeight = sourceHeight;
-        this.sourceNumOfChannels = sourceNumOfChannels;
+    private Image(final Image base, final int subImageX, final int subImageY, final int subImageWidth,
+            final int subImageHeight, final int subImageLayerStart, final int subImageLayerLength) {
+        this.source = base.source;
+        this.sourceWidth = base.sourceWidth;
+        this.sourceHeight = base.sourceHeight;
+        this.sourceNumOfChannels = base.sourceNumOfChannels;
+        this.layout = base.layout;
+        this.strideX = base.strideX;
+        this.strideY = base.strideY;
 
         this.subImageX = subImageX;
         this.subImageY = subImageY;
@@ -99,6 +149,94 @@ public class Image {
         this.subImageLayerLength = subImageLayerLength;
     }
 
+    private static void verifyNumOfChannels(final int numOfChannels) {
+        if (numOfChannels <= 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"numOfChannels\" (= {0}) must be more than 0!", numOfChannels));
+        }
+    }
+
+    /**
+     * Return number of values that needed to store image with given size.
+     */
+    private static int calculateSourceSize(final int width, final int height, final int numOfChannels) {
+        Image.verifyNumOfChannels(numOfChannels);
+
+        final long size = (long) width * height * numOfChannels;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Image {0} with {1} channels is too large for Java array! Use other storage.",
+                    JCV.getSizeString(width, height), numOfChannels));
+        }
+
+        return (int) size;
+    }
+
+    /**
+     * Create new image based on given buffer with {@link Layout#ROW_MAJOR} layout. Values from current position of
+     * buffer to its limit will be used. It is <strong>NOT COPY</strong> of given buffer: all changes of the image will
+     * be visible into the buffer and vice versa.
+     * <p>
+     * Useful to wrap decoded video frames or native memory. Direct buffers also allow to keep big images out of the
+     * Java heap.
+     * </p>
+     */
+    public static Image wrap(final ByteBuffer buffer, final int width, final int height, final int numOfChannels) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(buffer);
+
+        /*
+         * Create a new object.
+         */
+        return new Image(new BufferStorage(buffer.slice()), width, height, numOfChannels, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Create new image based on given array with {@link Layout#ROW_MAJOR} layout. It is <strong>NOT COPY</strong> of
+     * given array.
+     */
+    public static Image wrap(final byte[] array, final int width, final int height, final int numOfChannels) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(array);
+
+        /*
+         * Create a new object.
+         */
+        return new Image(new ArrayStorage(array), width, height, numOfChannels, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Create new empty image with {@link Layout#ROW_MAJOR} layout into direct buffer (out of the Java heap).
+     */
+    public static Image allocateDirect(final int width, final int height, final int numOfChannels) {
+        return Image.wrap(ByteBuffer.allocateDirect(Image.calculateSourceSize(width, height, numOfChannels)), width,
+                height, numOfChannels);
+    }
+
+    /**
+     * Write all changes into the underlying device, if current image is based on memory-mapped file. Do nothing for
+     * images into the memory.
+     */
+    public void flush() {
+        this.source.flush();
+    }
+
+    /**
+     * Write all changes and unmap file, if current image is based on memory-mapped file. Do nothing for images into
+     * the memory.
+     * <p>
+     * Source is shared, so current image and all images with the same source (sub-images, layers) <strong>can not be
+     * used after closing</strong>. Image should not be closed while other threads use it.
+     * </p>
+     */
+    public void close() {
+        this.source.close();
+    }
+
     /**
      * Return width of image (in pixels).
      */
@@ -127,6 +265,13 @@ public class Image {
         return this.subImageLayerLength;
     }
 
+    /**
+     * Return order of pixels into the source array of current image.
+     */
+    public Layout getLayout() {
+        return this.layout;
+    }
+
     /**
      * Verify given point.
      */
@@ -169,26 +314,16 @@ public class Image {
     /**
      * Return position in source array for given point and channel.
      */
-    private int calculateArrayPosition(final int x, final int y, final int channel) {
-        return this.sourceNumOfChannels * (this.sourceHeight * x + y) + channel;
-    }
-
-    private void calculateImagePosition(final int arrayPosition, final int[] vals) {
-        // X.
-        vals[0] = arrayPosition / (getHeight() * getNumOfChannels());
-        // Y.
-        final int t = arrayPosition - getNumOfChannels() * getHeight() * vals[0];
-        vals[1] = t / getNumOfChannels();
-        // Channel.
-        vals[2] = t % getNumOfChannels();
+    private long calculateArrayPosition(final int x, final int y, final int channel) {
+        return (long) this.strideX * x + (long) this.strideY * y + channel;
     }
 
     /**
      * Same as {@link #get(int, int, int)}, but not check position of color value. Useful for group operations.
      */
     public int getUnsafe(final int x, final int y, final int channel) {
-        return Color.UByteToInt(this.source[calculateArrayPosition(this.subImageX + x, this.subImageY + y,
-                this.subImageLayerStart + channel)]);
+        return this.source
+                .get(calculateArrayPosition(this.subImageX + x, this.subImageY + y, this.subImageLayerStart + channel));
     }
 
     /**
@@ -244,8 +379,9 @@ public class Image {
      * Same as {@link #set(int, int, int, int)}, but not check position of color value. Useful for group operations.
      */
     public void setUnsafe(final int x, final int y, final int channel, final int value) {
-        this.source[calculateArrayPosition(this.subImageX + x, this.subImageY + y,
-                this.subImageLayerStart + channel)] = Color.IntToUByte(value);
+        this.source.set(
+                calculateArrayPosition(this.subImageX + x, this.subImageY + y, this.subImageLayerStart + channel),
+                Color.IntToUByte(value));
     }
 
     /**
@@ -302,6 +438,241 @@ public class Image {
         set(pos.getX(), pos.getY(), color);
     }
 
+    /**
+     * Verify that given array can contain defined number of values from given offset.
+     */
+    private void verifyArray(final int[] values, final int offset, final int length) {
+        JCV.verifyIsNotNull(values);
+
+        if (offset < 0 || offset + length > values.length) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Array with length {0} can not contain {1} values from position {2}!", values.length, length,
+                    offset));
+        }
+    }
+
+    /**
+     * Verify horizontal span of pixels.
+     */
+    private void verifySpan(final int x, final int y, final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"length\" (= {0}) must be more or equals than 0!", length));
+        }
+
+        verifyPoint(x, y);
+        if (length > 0) {
+            verifyPoint(x + length - 1, y);
+        }
+    }
+
+    /**
+     * Return <code>true</code> if given image uses same storage as current image (for example, it is sub-image or
+     * layer of current image). Changes of one of these images can change values of other image.
+     */
+    public boolean isSameSource(final Image image) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+
+        /*
+         * Check.
+         */
+        return this.source == image.source;
+    }
+
+    /**
+     * Return <code>true</code> if current image is whole image based on own Java array (not wrapped array of caller)
+     * and can be reused by {@link ImagePool}.
+     */
+    boolean isPoolable() {
+        return this.source instanceof ArrayStorage && ((ArrayStorage) this.source).isOwner() && this.layout == Layout.ROW_MAJOR && this.subImageX == 0
+                && this.subImageY == 0 && this.subImageWidth == this.sourceWidth
+                && this.subImageHeight == this.sourceHeight && this.subImageLayerStart == 0
+                && this.subImageLayerLength == this.sourceNumOfChannels;
+    }
+
+    /**
+     * Return <code>true</code> if all channels of each row of current image are stored into the source array one after
+     * another.
+     */
+    private boolean isContinuousRow() {
+        return this.strideX == this.sourceNumOfChannels && this.subImageLayerLength == this.sourceNumOfChannels;
+    }
+
+    /**
+     * Return <code>true</code> if all values of current image are stored into the source array as one block without
+     * gaps.
+     */
+    private boolean isContinuous() {
+        if (this.subImageLayerLength != this.sourceNumOfChannels) {
+            return false;
+        }
+
+        return this.strideX == this.sourceNumOfChannels && this.strideY == this.strideX * this.subImageWidth
+                || this.strideY == this.sourceNumOfChannels && this.strideX == this.strideY * this.subImageHeight;
+    }
+
+    /**
+     * Copy values of all channels from row <code>y</code> into given array. Values of channels are interleaved:
+     * <code>dst[numOfChannels * x + channel]</code>.
+     * <p>
+     * Position is checked only once, so it is faster than call {@link #get(int, int, int)} for each value.
+     * </p>
+     */
+    public void getRow(final int y, final int[] dst) {
+        /*
+         * Verify parameters.
+         */
+        verifySpan(0, y, getWidth());
+        verifyArray(dst, 0, getWidth() * getNumOfChannels());
+
+        /*
+         * Copy values.
+         */
+        long pos = calculateArrayPosition(this.subImageX, this.subImageY + y, this.subImageLayerStart);
+        if (isContinuousRow()) {
+            this.source.get(pos, 1, dst, 0, getWidth() * getNumOfChannels());
+        } else {
+            for (int x = 0; x < getWidth(); ++x) {
+                this.source.get(pos, 1, dst, getNumOfChannels() * x, getNumOfChannels());
+                pos += this.strideX;
+            }
+        }
+    }
+
+    /**
+     * Copy values of all channels from given array into row <code>y</code>. Values of channels should be interleaved
+     * as in {@link #getRow(int, int[])}.
+     * <p>
+     * Values out of interval <code>[0, 255]</code> will be truncated as in {@link #set(int, int, int, int)}.
+     * </p>
+     */
+    public void setRow(final int y, final int[] src) {
+        /*
+         * Verify parameters.
+         */
+        verifySpan(0, y, getWidth());
+        verifyArray(src, 0, getWidth() * getNumOfChannels());
+
+        /*
+         * Copy values.
+         */
+        long pos = calculateArrayPosition(this.subImageX, this.subImageY + y, this.subImageLayerStart);
+        if (isContinuousRow()) {
+            this.source.set(pos, 1, src, 0, getWidth() * getNumOfChannels());
+        } else {
+            for (int x = 0; x < getWidth(); ++x) {
+                this.source.set(pos, 1, src, getNumOfChannels() * x, getNumOfChannels());
+                pos += this.strideX;
+            }
+        }
+    }
+
+    /**
+     * Copy <code>length</code> values of selected channel from pixels <code>(x, y)</code>, <code>(x + 1, y)</code>, ...
+     * into given array from position <code>dstOffset</code>.
+     */
+    public void getSpan(final int x, final int y, final int length, final int channel, final int[] dst,
+            final int dstOffset) {
+        /*
+         * Verify parameters.
+         */
+        verifySpan(x, y, length);
+        verifyChannel(channel);
+        verifyArray(dst, dstOffset, length);
+
+        /*
+         * Copy values.
+         */
+        this.source.get(
+                calculateArrayPosition(this.subImageX + x, this.subImageY + y, this.subImageLayerStart + channel),
+                this.strideX, dst, dstOffset, length);
+    }
+
+    /**
+     * Same as {@link #getSpan(int, int, int, int, int[], int)}, but copy values into the begin of given array.
+     */
+    public void getSpan(final int x, final int y, final int length, final int channel, final int[] dst) {
+        getSpan(x, y, length, channel, dst, 0);
+    }
+
+    /**
+     * Copy <code>length</code> values from given array (from position <code>srcOffset</code>) into selected channel of
+     * pixels <code>(x, y)</code>, <code>(x + 1, y)</code>, ...
+     * <p>
+     * Values out of interval <code>[0, 255]</code> will be truncated as in {@link #set(int, int, int, int)}.
+     * </p>
+     */
+    public void setSpan(final int x, final int y, final int length, final int channel, final int[] src,
+            final int srcOffset) {
+        /*
+         * Verify parameters.
+         */
+        verifySpan(x, y, length);
+        verifyChannel(channel);
+        verifyArray(src, srcOffset, length);
+
+        /*
+         * Copy values.
+         */
+        this.source.set(
+                calculateArrayPosition(this.subImageX + x, this.subImageY + y, this.subImageLayerStart + channel),
+                this.strideX, src, srcOffset, length);
+    }
+
+    /**
+     * Same as {@link #setSpan(int, int, int, int, int[], int)}, but copy values from the begin of given array.
+     */
+    public void setSpan(final int x, final int y, final int length, final int channel, final int[] src) {
+        setSpan(x, y, length, channel, src, 0);
+    }
+
+    /**
+     * Copy all values of selected channel into given array row by row: <code>dst[width * y + x]</code>.
+     */
+    public void getPlane(final int channel, final int[] dst) {
+        /*
+         * Verify parameters.
+         */
+        verifyChannel(channel);
+        verifyArray(dst, 0, getWidth() * getHeight());
+
+        /*
+         * Copy values.
+         */
+        for (int y = 0; y < getHeight(); ++y) {
+            final long pos = calculateArrayPosition(this.subImageX, this.subImageY + y,
+                    this.subImageLayerStart + channel);
+            this.source.get(pos, this.strideX, dst, getWidth() * y, getWidth());
+        }
+    }
+
+    /**
+     * Copy all values of selected channel from given array. Values should be placed as in
+     * {@link #getPlane(int, int[])}.
+     * <p>
+     * Values out of interval <code>[0, 255]</code> will be truncated as in {@link #set(int, int, int, int)}.
+     * </p>
+     */
+    public void setPlane(final int channel, final int[] src) {
+        /*
+         * Verify parameters.
+         */
+        verifyChannel(channel);
+        verifyArray(src, 0, getWidth() * getHeight());
+
+        /*
+         * Copy values.
+         */
+        for (int y = 0; y < getHeight(); ++y) {
+            final long pos = calculateArrayPosition(this.subImageX, this.subImageY + y,
+                    this.subImageLayerStart + channel);
+            this.source.set(pos, this.strideX, src, getWidth() * y, getWidth());
+        }
+    }
+
     /**
      * Extrapolate image uses selected extrapolation type. Uses into filters.
      *
@@ -362,50 +733,108 @@ public class Image {
     }
 
     public void foreach(final ParallelValueOperation runner) {
-        JParFor.exec(getSize().calculateN() * getNumOfChannels(), (arrayPosition, nThread) -> {
-            final int[] xyc = new int[3];
-            calculateImagePosition(arrayPosition, xyc);
-            set(xyc[0], xyc[1], xyc[2], runner.execute(get(xyc[0], xyc[1], xyc[2])));
+        Parallel.pixels(this, (x, y, worker) -> {
+            for (int channel = 0; channel < getNumOfChannels(); ++channel) {
+                set(x, y, channel, runner.execute(get(x, y, channel)));
+            }
         });
     }
 
+    /**
+     * Same as {@link #noneLinearFilter(Image, int, int, Point, int, Extrapolation, KernelOperation)}, but run only one
+     * iteration.
+     * <p>
+     * Source image is not copied: for pixels where kernel is fully inside of image, aperture is a sub-image of current
+     * image. Only for pixels on thin border bands aperture values are collected into small buffer using
+     * {@link Extrapolation#translatePositions(int, int, int)}. So operator <strong>should not change values of
+     * aperture</strong>, see {@link KernelOperation#execute(Image, Color)}.
+     * </p>
+     */
     public void noneLinearFilter(final Image result, final int width, final int height, final Point anchor,
             final Extrapolation extrapolation, final KernelOperation operator) {
-        // Create extend image.
-        final Image sourceExtend = new Image(getWidth() + width - 1, getHeight() + height - 1, getNumOfChannels());
-
-        // Fill extend image.
-        Parallel.pixels(sourceExtend, (x, y, worker) -> {
-            for (int channel = 0; channel < sourceExtend.getNumOfChannels(); ++channel) {
-                sourceExtend.setUnsafe(x, y, channel,
-                        get(x - anchor.getX(), y - anchor.getY(), channel, extrapolation));
-            }
-        });
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsSameSize(this, result);
+        JCV.verifyIsNotNull(anchor);
+        verifyPoint(anchor.getX(), anchor.getY(), width, height);
+        JCV.verifyIsNotNull(extrapolation);
+        JCV.verifyIsNotNull(operator);
+
+        /*
+         * Perform transformation.
+         */
+        if (isSameSource(result)) {
+            // Apertures should not see already filtered values.
+            noneLinearFilter(result, width, height, anchor, 1, extrapolation, operator);
+            return;
+        }
+
+        // Interior region where kernel is fully inside of image.
+        final int interiorStartX = anchor.getX();
+        final int interiorStartY = anchor.getY();
+        final int interiorEndX = getWidth() - (width - anchor.getX() - 1);
+        final int interiorEndY = getHeight() - (height - anchor.getY() - 1);
+        final boolean hasInterior = interiorStartX < interiorEndX && interiorStartY < interiorEndY;
+
+        // Translated positions for border bands. Value -1 means pixel outside of image.
+        final int[] mapX = extrapolation.translatePositions(getWidth(), width, anchor.getX());
+        final int[] mapY = extrapolation.translatePositions(getHeight(), height, anchor.getY());
 
         // Initialize apertures.
-        final Image[] apertures = new Image[Parallel.getNumOfWorkers()];
+        final ImagePool pool = ImagePool.getDefault();
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final Image[] apertures = new Image[context.getNumOfWorkers()];
+        final Image[] borderApertures = new Image[context.getNumOfWorkers()];
         for (int i = 0; i < apertures.length; ++i) {
-            apertures[i] = sourceExtend.makeSubImage(0, 0, width, height);
+            if (hasInterior) {
+                apertures[i] = makeSubImage(0, 0, width, height);
+            }
+            borderApertures[i] = pool.acquire(width, height, getNumOfChannels());
         }
         // Initialize colors.
-        final Color[] colors = new Color[Parallel.getNumOfWorkers()];
-        for (int i = 0; i < apertures.length; ++i) {
+        final Color[] colors = new Color[context.getNumOfWorkers()];
+        for (int i = 0; i < colors.length; ++i) {
             colors[i] = new Color(result.getNumOfChannels());
         }
 
-        // Run operator for each pixel from extended image.
-        Parallel.pixels(this, (x, y, worker) -> {
-            final Image aperture = apertures[worker];
-            final Color color = colors[worker];
-
-            // Update position.
-            aperture.subImageX = x;
-            aperture.subImageY = y;
+        // Run operator for each pixel.
+        context.pixels(this, (x, y, worker) -> {
+            final Image aperture;
+            if (x >= interiorStartX && x < interiorEndX && y >= interiorStartY && y < interiorEndY) {
+                aperture = apertures[worker];
+
+                // Update position.
+                aperture.subImageX = this.subImageX + x - interiorStartX;
+                aperture.subImageY = this.subImageY + y - interiorStartY;
+            } else {
+                aperture = borderApertures[worker];
+
+                // Collect values.
+                for (int j = 0; j < height; ++j) {
+                    final int sourceY = mapY[y + j];
+                    for (int i = 0; i < width; ++i) {
+                        final int sourceX = mapX[x + i];
+                        for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                            if (sourceX < 0 || sourceY < 0) {
+                                aperture.setUnsafe(i, j, channel, Color.MIN_VALUE);
+                            } else {
+                                aperture.setUnsafe(i, j, channel, getUnsafe(sourceX, sourceY, channel));
+                            }
+                        }
+                    }
+                }
+            }
 
             // Execute.
+            final Color color = colors[worker];
             operator.execute(aperture, color);
             result.set(x, y, color);
         });
+
+        for (final Image borderAperture : borderApertures) {
+            pool.release(borderAperture);
+        }
     }
 
     /**
@@ -427,6 +856,10 @@ public class Image {
      * Some filters need kernel with only odd sizes and anchor only in the center (for example, Gaussian blur).
      * </p>
      * <p>
+     * Aperture is a live view of the source image where it is possible, so it is <strong>read-only</strong> for
+     * operator.
+     * </p>
+     * <p>
      * <h6>Links:</h6>
      * <ol>
      * <li><a href="http://en.wikipedia.org/wiki/Nonlinear_filter">Nonlinear filter -- Wikipedia</a>.</li>
@@ -464,7 +897,16 @@ public class Image {
         /*
          * Perform transformation.
          */
-        Image currentSource = makeCopy();
+        if (iterations == 1 && !isSameSource(result)) {
+            noneLinearFilter(result, width, height, anchor, extrapolation, operator);
+            return;
+        }
+
+        final ImagePool pool = ImagePool.getDefault();
+        final Image buffer = pool.acquireSame(this);
+        copyTo(buffer);
+
+        Image currentSource = buffer;
         Image currentResult = result;
         Image temp;
         for (int i = 0; i < iterations; ++i) {
@@ -477,7 +919,11 @@ public class Image {
             currentResult = temp;
         }
 
-        currentSource.copyTo(result);
+        if (currentSource != result) {
+            currentSource.copyTo(result);
+        }
+
+        pool.release(buffer);
     }
 
     /**
@@ -561,7 +1007,76 @@ public class Image {
     }
 
     /**
-     * Create <strong>empty</strong> image with size, number of channels and source type as in given image.
+     * Same as {@link #convolve(Kernel, int)}, but not check size of kernel and channel. Useful for group operations.
+     */
+    public double convolveUnsafe(final Kernel kernel, final int channel) {
+        long rowPos = calculateArrayPosition(this.subImageX, this.subImageY, this.subImageLayerStart + channel);
+
+        if (kernel.isInteger()) {
+            final int[] values = kernel.intValues();
+
+            long sum = 0;
+            int i = 0;
+            for (int y = 0; y < kernel.getHeight(); ++y) {
+                long pos = rowPos;
+                for (int x = 0; x < kernel.getWidth(); ++x) {
+                    sum += values[i++] * this.source.get(pos);
+                    pos += this.strideX;
+                }
+                rowPos += this.strideY;
+            }
+
+            return sum;
+        } else {
+            final float[] values = kernel.values();
+
+            double sum = 0.0;
+            int i = 0;
+            for (int y = 0; y < kernel.getHeight(); ++y) {
+                long pos = rowPos;
+                for (int x = 0; x < kernel.getWidth(); ++x) {
+                    sum += values[i++] * this.source.get(pos);
+                    pos += this.strideX;
+                }
+                rowPos += this.strideY;
+            }
+
+            return sum;
+        }
+    }
+
+    /**
+     * Convolve selected channel of current image with given kernel. Unlike {@link #convolve(Matrix)} this method does
+     * not allocate any memory.
+     * <p>
+     * <h6>Links:</h6>
+     * <ol>
+     * <li><a href="http://en.wikipedia.org/wiki/Convolution">Convolution -- Wikipedia</a>.</li>
+     * </ol>
+     * </p>
+     *
+     * @return Result of convolution for given channel.
+     */
+    public double convolve(final Kernel kernel, final int channel) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(kernel);
+        if (getWidth() != kernel.getWidth() || getHeight() != kernel.getHeight()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Kernel should have same size (= {0}) as image (= {1})!", kernel.getSize(), getSize()));
+        }
+        verifyChannel(channel);
+
+        /*
+         * Perform operation.
+         */
+        return convolveUnsafe(kernel, channel);
+    }
+
+    /**
+     * Create <strong>empty</strong> image with size and number of channels as in given image. New image is always
+     * stored into the Java heap, even if current image is based on direct buffer or memory-mapped file.
      * <p>
      * <strong>Values from given image will be not copied!</strong>
      * </p>
@@ -570,6 +1085,13 @@ public class Image {
         return new Image(getWidth(), getHeight(), getNumOfChannels());
     }
 
+    /**
+     * Create <strong>empty</strong> image with size and number of channels as in given image, but with given layout.
+     */
+    public Image makeSame(final Layout layout) {
+        return new Image(getWidth(), getHeight(), getNumOfChannels(), layout);
+    }
+
     /**
      * Copy values from current to given image. <strong>Given image should have SAME size as current image.</strong>
      */
@@ -587,6 +1109,24 @@ public class Image {
         /*
          * Copy values.
          */
+        // Both images are one block with same order of values.
+        if (isContinuous() && target.isContinuous() && this.strideX == target.strideX
+                && this.strideY == target.strideY) {
+            this.source.copyTo(calculateArrayPosition(this.subImageX, this.subImageY, 0), target.source,
+                    target.calculateArrayPosition(target.subImageX, target.subImageY, 0),
+                    (long) getWidth() * getHeight() * getNumOfChannels());
+            return;
+        }
+
+        // Rows of both images are continuous (for example sub-images).
+        if (isContinuousRow() && target.isContinuousRow()) {
+            final int rowLength = getWidth() * getNumOfChannels();
+            Parallel.rows(this, (y, worker) -> this.source.copyTo(
+                    calculateArrayPosition(this.subImageX, this.subImageY + y, 0), target.source,
+                    target.calculateArrayPosition(target.subImageX, target.subImageY + y, 0), rowLength));
+            return;
+        }
+
         Parallel.pixels(this, (x, y, worker) -> {
             for (int channel = 0; channel < getNumOfChannels(); ++channel) {
                 target.setUnsafe(x, y, channel, getUnsafe(x, y, channel));
@@ -598,7 +1138,14 @@ public class Image {
      * Return copy of current image. It will be a <strong>REAL COPY</strong> of current image or sub-image!
      */
     public Image makeCopy() {
-        final Image copy = makeSame();
+        return makeCopy(getLayout());
+    }
+
+    /**
+     * Return copy of current image with given layout. Useful for conversion between layouts.
+     */
+    public Image makeCopy(final Layout layout) {
+        final Image copy = makeSame(layout);
 
         copyTo(copy);
 
@@ -619,8 +1166,8 @@ public class Image {
         /*
          * Create new object.
          */
-        return new Image(this.source, this.sourceWidth, this.sourceHeight, this.sourceNumOfChannels, this.subImageX + x,
-                this.subImageY + y, width, height, this.subImageLayerStart, this.subImageLayerLength);
+        return new Image(this, this.subImageX + x, this.subImageY + y, width, height, this.subImageLayerStart,
+                this.subImageLayerLength);
     }
 
     /**
@@ -648,8 +1195,8 @@ public class Image {
         /*
          * Create new object.
          */
-        return new Image(this.source, this.sourceWidth, this.sourceHeight, this.sourceNumOfChannels, this.subImageX,
-                this.subImageY, this.subImageWidth, this.sourceHeight, startChannel, sizeLayer);
+        return new Image(this, this.subImageX, this.subImageY, this.subImageWidth, this.subImageHeight,
+                this.subImageLayerStart + startChannel, sizeLayer);
     }
 
     /**
@@ -664,25 +1211,56 @@ public class Image {
     public Image makeChannel(final int numChannel) {
         return makeLayer(numChannel, 1);
     }
-    
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        for (int x = 0; x < getWidth(); ++x) {
-            for (int y = 0; y < getHeight(); ++y) {
+
+    /**
+     * Copy all values of row <code>y</code> into given array in order of {@link #getRow(int, int[])}.
+     */
+    private void getRowBytes(final int y, final byte[] dst) {
+        long pos = calculateArrayPosition(this.subImageX, this.subImageY + y, this.subImageLayerStart);
+        if (isContinuousRow()) {
+            this.source.get(pos, dst, 0, dst.length);
+        } else {
+            int i = 0;
+            for (int x = 0; x < getWidth(); ++x) {
                 for (int channel = 0; channel < getNumOfChannels(); ++channel) {
-                    result = (prime * result) + get(x, y, channel);
+                    dst[i++] = (byte) this.source.get(pos + channel);
                 }
+                pos += this.strideX;
             }
         }
-        return result;
+    }
+
+    /**
+     * Return 64-bit hash of values of current image (xxHash of all rows one by one).
+     * <p>
+     * Hash depends only on size, number of channels and values, so it is same for copies with other layout or storage
+     * and for sub-images with same values. Useful for caching of results.
+     * </p>
+     */
+    public long contentHash() {
+        final byte[] row = new byte[getWidth() * getNumOfChannels()];
+
+        long hash = 31L * (31L * getWidth() + getHeight()) + getNumOfChannels();
+        for (int y = 0; y < getHeight(); ++y) {
+            getRowBytes(y, row);
+            hash = ContentHash.hash(row, row.length, hash);
+        }
+
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        final long hash = contentHash();
+
+        return (int) (hash ^ hash >>> 32);
     }
 
     /**
      * Return <code>true</code> if current image equivalent to object from parameter and <code>false</code> otherwise.
      * <p>
-     * Uses {@link JCV#PRECISION} by default.
+     * Images are equal if they have same size, number of channels and values. Layout, storage and position of
+     * sub-image are not compared.
      * </p>
      */
     @Override
@@ -714,14 +1292,15 @@ public class Image {
             return false;
         }
 
-        // Compare values.
-        for (int x = 0; x < getWidth(); ++x) {
-            for (int y = 0; y < getHeight(); ++y) {
-                for (int channel = 0; channel < getNumOfChannels(); ++channel) {
-                    if (get(x, y, channel) != image.get(x, y, channel)) {
-                        return false;
-                    }
-                }
+        // Compare values row by row.
+        final byte[] row1 = new byte[getWidth() * getNumOfChannels()];
+        final byte[] row2 = new byte[row1.length];
+        for (int y = 0; y < getHeight(); ++y) {
+            getRowBytes(y, row1);
+            image.getRowBytes(y, row2);
+
+            if (!Arrays.equals(row1, row2)) {
+                return false;
             }
         }
 
@@ -758,6 +1337,10 @@ public class Image {
         sb.append(this.subImageLayerLength);
         sb.append("\n");
 
+        sb.append("    Layout:          ");
+        sb.append(this.layout);
+        sb.append("\n");
+
         return sb.toString();
     }
 }
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.text.MessageFormat;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of images with same size and number of channels. Allows to reuse images between operations instead of
+ * allocation of new images for each frame.
+ * <p>
+ * Example of usage: <code><pre>
+ * ...
+ * final Image temp = pool.acquire(width, height, numOfChannels);
+ * try {
+ *     // Use temporary image.
+ * } finally {
+ *     pool.release(temp);
+ * }
+ * ...
+ * </pre></code>
+ * </p>
+ * <p>
+ * This class is thread-safe. Pool is bounded: if released value does not fit into the maximal size, least recently
+ * released values of other sizes are dropped (oldest first) and collected by GC. So pool follows changes of frame
+ * size. Queues of values are changed only into atomic operations of map for given key, so queues which become empty
+ * are removed and pool does not grow for many different sizes of frames.
+ * </p>
+ * <p>
+ * Also pool keeps <code>float[]</code> buffers for intermediate results of filters, which need whole frame with
+ * higher precision than image has, see {@link #acquireBuffer(int)}. Buffers share maximal size with images.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ImagePool {
+
+    /**
+     * Maximal size of default pool: 64 MB (about 10 RGB frames 1920 x 1080).
+     */
+    public static final long                                    MAX_SIZE_DEFAULT = 64L * 1024L * 1024L;
+
+    private static final ImagePool                              defaultPool      = new ImagePool(
+            ImagePool.MAX_SIZE_DEFAULT);
+
+    private final long                                          maxSize;
+
+    private final AtomicLong                                    size             = new AtomicLong();
+
+    /**
+     * Counter of releases, used as time of release to find least recently released values.
+     */
+    private final AtomicLong                                    clock            = new AtomicLong();
+
+    /**
+     * Queues of pooled values: images by {@link ImagePool.Key} and buffers by their length. Most recently released
+     * value is the first one into the queue.
+     */
+    private final ConcurrentMap<Object, Deque<ImagePool.Entry>> values           = new ConcurrentHashMap<>();
+
+    /**
+     * Key of images with same size and number of channels.
+     */
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final int numOfChannels;
+
+        Key(final int width, final int height, final int numOfChannels) {
+            this.width = width;
+            this.height = height;
+            this.numOfChannels = numOfChannels;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = (prime * result) + this.width;
+            result = (prime * result) + this.height;
+            result = (prime * result) + this.numOfChannels;
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof ImagePool.Key)) {
+                return false;
+            }
+
+            final ImagePool.Key key = (ImagePool.Key) object;
+            return this.width == key.width && this.height == key.height && this.numOfChannels == key.numOfChannels;
+        }
+    }
+
+    /**
+     * Pooled image or buffer with its size and time of release.
+     */
+    private static final class Entry {
+
+        private final Object value;
+        private final long   size;
+        private final long   time;
+
+        Entry(final Object value, final long size, final long time) {
+            this.value = value;
+            this.size = size;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Create new pool.
+     *
+     * @param maxSize
+     *            Maximal size of all images into the pool (in bytes).
+     */
+    public ImagePool(final long maxSize) {
+        /*
+         * Verify parameters.
+         */
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"maxSize\" (= {0}) must be more or equals than 0!", maxSize));
+        }
+
+        /*
+         * Create a new object.
+         */
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return pool that used by default for temporary images into the library.
+     */
+    public static ImagePool getDefault() {
+        return ImagePool.defaultPool;
+    }
+
+    /**
+     * Return maximal size of all images into the pool (in bytes).
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Return current size of all images into the pool (in bytes).
+     */
+    public long getSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Return image with given size and number of channels. Return image from pool if it is possible and create new
+     * image otherwise.
+     * <p>
+     * <strong>Returned image can contain values from previous usage!</strong>
+     * </p>
+     */
+    public Image acquire(final int width, final int height, final int numOfChannels) {
+        final Image image = (Image) poll(new ImagePool.Key(width, height, numOfChannels));
+
+        return image == null ? new Image(width, height, numOfChannels) : image;
+    }
+
+    /**
+     * Same as {@link #acquire(int, int, int)}, but uses size and number of channels of given image.
+     */
+    public Image acquireSame(final Image image) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+
+        /*
+         * Return image.
+         */
+        return acquire(image.getWidth(), image.getHeight(), image.getNumOfChannels());
+    }
+
+    /**
+     * Return given image into the pool.
+     * <p>
+     * Only images created by {@link Image#Image(int, int, int)} (not sub-images, layers, images with other layouts,
+     * images based on wrapped arrays or on custom storages) can be reused, other images are ignored. So array of
+     * caller is never given to other caller. Image which is already into the pool is ignored too, so repeated
+     * release does not give same image to two callers of {@link #acquire(int, int, int)}. <strong>Given image and all
+     * its sub-images should not be used after releasing!</strong>
+     * </p>
+     */
+    public void release(final Image image) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+
+        /*
+         * Return image into the pool.
+         */
+        if (!image.isPoolable()) {
+            return;
+        }
+
+        offer(new ImagePool.Key(image.getWidth(), image.getHeight(), image.getNumOfChannels()), image,
+                (long) image.getWidth() * image.getHeight() * image.getNumOfChannels());
+    }
+
+    /**
+     * Return buffer with given length. Return buffer from pool if it is possible and create new buffer otherwise.
+     * <p>
+     * <strong>Returned buffer can contain values from previous usage!</strong>
+     * </p>
+     */
+    public float[] acquireBuffer(final int length) {
+        /*
+         * Verify parameters.
+         */
+        if (length < 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Length of buffer (= {0}) must be more or equals than 0!", length));
+        }
+
+        /*
+         * Return buffer.
+         */
+        final float[] buffer = (float[]) poll(length);
+
+        return buffer == null ? new float[length] : buffer;
+    }
+
+    /**
+     * Return given buffer into the pool. Buffer which is already into the pool is ignored. <strong>Given buffer should
+     * not be used after releasing!</strong>
+     */
+    public void release(final float[] buffer) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(buffer);
+
+        /*
+         * Return buffer into the pool.
+         */
+        offer(buffer.length, buffer, (long) Float.BYTES * buffer.length);
+    }
+
+    /**
+     * Remove all images and buffers from the pool.
+     */
+    public void clear() {
+        for (final Object key : this.values.keySet()) {
+            this.values.computeIfPresent(key, (k, queue) -> {
+                for (final ImagePool.Entry entry : queue) {
+                    this.size.addAndGet(-entry.size);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Remove most recently released value with given key from the pool. Return <code>null</code> if there is no such
+     * value.
+     */
+    private Object poll(final Object key) {
+        final ImagePool.Entry[] found = new ImagePool.Entry[1];
+        this.values.computeIfPresent(key, (k, queue) -> {
+            found[0] = queue.pollFirst();
+            return queue.isEmpty() ? null : queue;
+        });
+
+        if (found[0] == null) {
+            return null;
+        }
+
+        this.size.addAndGet(-found[0].size);
+        return found[0].value;
+    }
+
+    /**
+     * Put value into the pool. Least recently released values with other keys are dropped if there is not enough
+     * space.
+     */
+    private void offer(final Object key, final Object value, final long valueSize) {
+        if (valueSize > this.maxSize || ImagePool.contains(this.values.get(key), value)) {
+            return;
+        }
+
+        while (this.size.addAndGet(valueSize) > this.maxSize) {
+            this.size.addAndGet(-valueSize);
+            if (!evictOldest(key)) {
+                // Pool is full of values with same key.
+                return;
+            }
+        }
+
+        this.values.compute(key, (k, queue) -> {
+            final Deque<ImagePool.Entry> result = queue == null ? new ConcurrentLinkedDeque<>() : queue;
+            if (ImagePool.contains(result, value)) {
+                // Already released by other thread.
+                this.size.addAndGet(-valueSize);
+            } else {
+                result.offerFirst(new ImagePool.Entry(value, valueSize, this.clock.incrementAndGet()));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Drop least recently released value with key other than given one. Return <code>false</code> if there are no
+     * such values.
+     */
+    private boolean evictOldest(final Object excludedKey) {
+        Object oldestKey = null;
+        ImagePool.Entry oldest = null;
+        for (final Map.Entry<Object, Deque<ImagePool.Entry>> item : this.values.entrySet()) {
+            final ImagePool.Entry last = item.getValue().peekLast();
+            if (last != null && !excludedKey.equals(item.getKey()) && (oldest == null || last.time < oldest.time)) {
+                oldestKey = item.getKey();
+                oldest = last;
+            }
+        }
+
+        if (oldest == null) {
+            return false;
+        }
+
+        final ImagePool.Entry candidate = oldest;
+        this.values.computeIfPresent(oldestKey, (k, queue) -> {
+            // Value could be already acquired by other thread.
+            if (queue.removeLastOccurrence(candidate)) {
+                this.size.addAndGet(-candidate.size);
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return true;
+    }
+
+    /**
+     * Return <code>true</code> if given queue contains given value (same object).
+     */
+    private static boolean contains(final Deque<ImagePool.Entry> queue, final Object value) {
+        if (queue == null) {
+            return false;
+        }
+
+        for (final ImagePool.Entry entry : queue) {
+            if (entry.value == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import Jama.Matrix;
+
+/**
+ * Immutable kernel (matrix of coefficients) for linear filters.
+ * <p>
+ * Values are stored into flat <code>float[]</code> array by rows: value <code>(x, y)</code> placed into position
+ * <code>width * y + x</code>. Anchor, integer form of values and decomposition for separable kernels are calculated once
+ * on creation, so kernel can be used into hot loops without any additional checks.
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="http://en.wikipedia.org/wiki/Kernel_(image_processing)">Kernel (image processing) -- Wikipedia</a>.
+ * </li>
+ * <li><a href="http://en.wikipedia.org/wiki/Separable_filter">Separable filter -- Wikipedia</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public final class Kernel {
+
+    /**
+     * Default number of fractional bits for fixed-point form of kernel (= 14).
+     */
+    public static final int FIXED_POINT_SHIFT_DEFAULT = 14;
+
+    /**
+     * Maximal value that can be exactly represented as a <code>float</code> integer.
+     */
+    private static final float MAX_EXACT_INTEGER = 1 << 24;
+
+    /**
+     * Relative precision for separability detection.
+     */
+    private static final float SEPARABLE_PRECISION = 1e-6f;
+
+    private final int     width;
+
+    private final int     height;
+
+    private final Point   anchor;
+
+    private final float[] values;
+
+    private final int[]   intValues;
+
+    private final boolean integer;
+
+    private final float[] separableX;
+
+    private final float[] separableY;
+
+    /**
+     * Create kernel with anchor in the center.
+     *
+     * @param width
+     *            Width of kernel.
+     * @param height
+     *            Height of kernel.
+     * @param values
+     *            Values of kernel by rows. Array will be copied.
+     */
+    public Kernel(final int width, final int height, final float[] values) {
+        this(width, height, values, JCV.calculateCenter(width, height));
+    }
+
+    /**
+     * Create kernel.
+     *
+     * @param width
+     *            Width of kernel.
+     * @param height
+     *            Height of kernel.
+     * @param values
+     *            Values of kernel by rows. Array will be copied.
+     * @param anchor
+     *            Relative position of a filtered point within the kernel.
+     */
+    public Kernel(final int width, final int height, final float[] values, final Point anchor) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(values);
+        JCV.verifyIsNotNull(anchor);
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(MessageFormat.format("Size of kernel (= {0}) must be more than 0!",
+                    JCV.getSizeString(width, height)));
+        }
+        if (values.length != width * height) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Kernel {0} should have {1} values, but have {2}!",
+                            JCV.getSizeString(width, height), width * height, values.length));
+        }
+        if (anchor.getX() < 0 || anchor.getX() >= width || anchor.getY() < 0 || anchor.getY() >= height) {
+            throw new IllegalArgumentException(MessageFormat.format("Anchor {0} should be inside of kernel {1}!",
+                    anchor, JCV.getSizeString(width, height)));
+        }
+
+        /*
+         * Create a new object.
+         */
+        this.width = width;
+        this.height = height;
+        this.anchor = anchor;
+        this.values = values.clone();
+
+        // Integer form.
+        this.intValues = new int[this.values.length];
+        boolean isInteger = true;
+        for (int i = 0; i < this.values.length; ++i) {
+            final float value = this.values[i];
+            if (value != (float) Math.rint(value) || Math.abs(value) > Kernel.MAX_EXACT_INTEGER) {
+                isInteger = false;
+            }
+            this.intValues[i] = Math.round(value);
+        }
+        this.integer = isInteger;
+
+        // Decomposition of separable kernel.
+        final float[][] decomposition = decompose(width, height, this.values);
+        if (decomposition == null) {
+            this.separableX = null;
+            this.separableY = null;
+        } else {
+            this.separableX = decomposition[0];
+            this.separableY = decomposition[1];
+        }
+    }
+
+    /**
+     * Find vectors <code>X</code> and <code>Y</code> such that <code>K(x, y) = X(x) * Y(y)</code>. Return
+     * <code>null</code> if kernel is not separable.
+     */
+    private static float[][] decompose(final int width, final int height, final float[] values) {
+        // Find pivot: value with maximal absolute value.
+        int pivot = 0;
+        for (int i = 1; i < values.length; ++i) {
+            if (Math.abs(values[i]) > Math.abs(values[pivot])) {
+                pivot = i;
+            }
+        }
+        final float max = Math.abs(values[pivot]);
+        if (max == 0.0f) {
+            return null;
+        }
+        final int pivotX = pivot % width;
+        final int pivotY = pivot / width;
+
+        // Use row and column of pivot as vectors.
+        final float[] x = new float[width];
+        for (int i = 0; i < width; ++i) {
+            x[i] = values[width * pivotY + i] / values[pivot];
+        }
+        final float[] y = new float[height];
+        for (int j = 0; j < height; ++j) {
+            y[j] = values[width * j + pivotX];
+        }
+
+        // Verify all values.
+        for (int j = 0; j < height; ++j) {
+            for (int i = 0; i < width; ++i) {
+                if (Math.abs(values[width * j + i] - x[i] * y[j]) > Kernel.SEPARABLE_PRECISION * max) {
+                    return null;
+                }
+            }
+        }
+
+        return new float[][] { x, y };
+    }
+
+    /**
+     * Create kernel from given matrix (rows of matrix are rows of kernel) with anchor in the center.
+     */
+    public static Kernel fromMatrix(final Matrix matrix) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(matrix);
+
+        /*
+         * Create kernel.
+         */
+        final int width = matrix.getColumnDimension();
+        final int height = matrix.getRowDimension();
+
+        final float[] values = new float[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                values[width * y + x] = (float) matrix.get(y, x);
+            }
+        }
+
+        return new Kernel(width, height, values);
+    }
+
+    /**
+     * Create kernel with given size where all values are <code>1</code>.
+     */
+    public static Kernel ones(final int width, final int height) {
+        final float[] values = new float[Math.max(width, 0) * Math.max(height, 0)];
+        Arrays.fill(values, 1.0f);
+
+        return new Kernel(width, height, values);
+    }
+
+    /**
+     * Create kernel as a product of given vectors: <code>K(x, y) = kernelX(x) * kernelY(y)</code>.
+     */
+    public static Kernel separable(final float[] kernelX, final float[] kernelY) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(kernelX);
+        JCV.verifyIsNotNull(kernelY);
+
+        /*
+         * Create kernel.
+         */
+        final float[] values = new float[kernelX.length * kernelY.length];
+        for (int y = 0; y < kernelY.length; ++y) {
+            for (int x = 0; x < kernelX.length; ++x) {
+                values[kernelX.length * y + x] = kernelX[x] * kernelY[y];
+            }
+        }
+
+        return new Kernel(kernelX.length, kernelY.length, values);
+    }
+
+    /**
+     * Return width of kernel.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Return height of kernel.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Return size of kernel.
+     */
+    public Size getSize() {
+        return new Size(this.width, this.height);
+    }
+
+    /**
+     * Return anchor of kernel.
+     */
+    public Point getAnchor() {
+        return this.anchor;
+    }
+
+    /**
+     * Return value from given position.
+     */
+    public float get(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            throw new IllegalArgumentException(MessageFormat.format("Position {0} is out of kernel {1}!",
+                    JCV.getPointString(x, y), JCV.getSizeString(this.width, this.height)));
+        }
+
+        return this.values[this.width * y + x];
+    }
+
+    /**
+     * Return copy of all values by rows.
+     */
+    public float[] getValues() {
+        return this.values.clone();
+    }
+
+    /**
+     * Return sum of all values.
+     */
+    public double getSum() {
+        double sum = 0.0;
+        for (final float value : this.values) {
+            sum += value;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Return <code>true</code> if all values of kernel are integers. In this case {@link #getIntValues()} return exact
+     * values.
+     */
+    public boolean isInteger() {
+        return this.integer;
+    }
+
+    /**
+     * Return copy of values by rows rounded to integers.
+     */
+    public int[] getIntValues() {
+        return this.intValues.clone();
+    }
+
+    /**
+     * Return values by rows in fixed-point form: each value multiplied by <code>2<sup>shift</sup></code> and rounded.
+     * Result of convolution with these values should be shifted right on <code>shift</code> bits.
+     */
+    public int[] getFixedPointValues(final int shift) {
+        /*
+         * Verify parameters.
+         */
+        if (shift < 0 || shift > 30) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"shift\" (= {0}) must be in interval 0..30!", shift));
+        }
+
+        /*
+         * Calculate values.
+         */
+        final int[] fixed = new int[this.values.length];
+        for (int i = 0; i < fixed.length; ++i) {
+            fixed[i] = (int) Math.round((double) this.values[i] * (1 << shift));
+        }
+
+        return fixed;
+    }
+
+    /**
+     * Same as {@link #getFixedPointValues(int)}, but uses {@link #FIXED_POINT_SHIFT_DEFAULT} as default shift.
+     */
+    public int[] getFixedPointValues() {
+        return getFixedPointValues(Kernel.FIXED_POINT_SHIFT_DEFAULT);
+    }
+
+    /**
+     * Return <code>true</code> if kernel can be represented as product of 2 vectors (see {@link #getSeparableX()} and
+     * {@link #getSeparableY()}).
+     */
+    public boolean isSeparable() {
+        return this.separableX != null;
+    }
+
+    /**
+     * Return horizontal vector of separable kernel (with length <code>width</code>) or <code>null</code> if kernel is
+     * not separable.
+     */
+    public float[] getSeparableX() {
+        return this.separableX == null ? null : this.separableX.clone();
+    }
+
+    /**
+     * Return vertical vector of separable kernel (with length <code>height</code>) or <code>null</code> if kernel is
+     * not separable.
+     */
+    public float[] getSeparableY() {
+        return this.separableY == null ? null : this.separableY.clone();
+    }
+
+    /**
+     * Return values for hot loops without copying. <strong>Should not be changed!</strong>
+     */
+    float[] values() {
+        return this.values;
+    }
+
+    /**
+     * Return integer values for hot loops without copying. <strong>Should not be changed!</strong>
+     */
+    int[] intValues() {
+        return this.intValues;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * this.width + this.height) + this.anchor.hashCode()) + Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof Kernel)) {
+            return false;
+        }
+
+        final Kernel kernel = (Kernel) object;
+
+        return this.width == kernel.width && this.height == kernel.height && this.anchor.equals(kernel.anchor)
+                && Arrays.equals(this.values, kernel.values);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("Kernel ");
+        sb.append(JCV.getSizeString(this.width, this.height));
+        sb.append(", anchor ");
+        sb.append(this.anchor);
+        sb.append(":\n");
+        for (int y = 0; y < this.height; ++y) {
+            for (int x = 0; x < this.width; ++x) {
+                sb.append(String.format("%10.4f ", this.values[this.width * y + x]));
+            }
+            sb.append("\n");
+        }
+
+        return sb.toString();
+    }
+}
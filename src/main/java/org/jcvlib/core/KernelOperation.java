@@ -26,8 +26,14 @@ package org.jcvlib.core;
 public interface KernelOperation {
 
     /**
+     * Calculate result for current aperture.
+     * <p>
+     * <strong>Aperture is read-only!</strong> It can be a sub-image of the source image (not a copy), so changes of its
+     * values would change the source while filter is running. Aperture is valid only into this call.
+     * </p>
+     *
      * @param aperture
-     *            Apply some operations based on this image.
+     *            Apply some operations based on this image. Should not be changed.
      * @param result
      *            Save result in this object.
      */
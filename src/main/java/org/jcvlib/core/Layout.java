@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+/**
+ * Order of pixels into the source array of {@link Image}. Channels of each pixel are always interleaved.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public enum Layout {
+    /**
+     * Pixels of each row are stored one after another: <code>numOfChannels * (width * y + x) + channel</code>.
+     * <p>
+     * Neighbor pixels by X are neighbors into memory. This is default layout, because all loops into the
+     * {@link org.jcvlib.parallel.Parallel} walk by rows.
+     * </p>
+     */
+    ROW_MAJOR {
+
+        @Override
+        protected int getStrideX(final int width, final int height, final int numOfChannels) {
+            return numOfChannels;
+        }
+
+        @Override
+        protected int getStrideY(final int width, final int height, final int numOfChannels) {
+            return numOfChannels * width;
+        }
+    },
+
+    /**
+     * Pixels of each column are stored one after another: <code>numOfChannels * (height * x + y) + channel</code>.
+     */
+    COLUMN_MAJOR {
+
+        @Override
+        protected int getStrideX(final int width, final int height, final int numOfChannels) {
+            return numOfChannels * height;
+        }
+
+        @Override
+        protected int getStrideY(final int width, final int height, final int numOfChannels) {
+            return numOfChannels;
+        }
+    };
+
+    /**
+     * Return distance into the source array between pixels <code>(x, y)</code> and <code>(x + 1, y)</code>.
+     */
+    protected abstract int getStrideX(final int width, final int height, final int numOfChannels);
+
+    /**
+     * Return distance into the source array between pixels <code>(x, y)</code> and <code>(x, y + 1)</code>.
+     */
+    protected abstract int getStrideY(final int width, final int height, final int numOfChannels);
+}
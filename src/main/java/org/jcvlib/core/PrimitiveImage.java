@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.text.MessageFormat;
+
+/**
+ * Base class for images with values of primitive types other than unsigned byte ({@link ShortImage},
+ * {@link FloatImage}).
+ * <p>
+ * Contains geometry of the source array and of the current sub-image or layer. Semantic of sub-images, layers and
+ * layouts is same as for {@link Image}.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+abstract class PrimitiveImage {
+
+    final int    sourceWidth;
+    final int    sourceHeight;
+    final int    sourceNumOfChannels;
+    final Layout layout;
+    final int    strideX;
+    final int    strideY;
+
+    final int    subImageX;
+    final int    subImageY;
+    final int    subImageWidth;
+    final int    subImageHeight;
+
+    final int    subImageLayerStart;
+    final int    subImageLayerLength;
+
+    PrimitiveImage(final int width, final int height, final int numOfChannels, final Layout layout) {
+        /*
+         * Verify parameters.
+         */
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(MessageFormat.format("Size of image (= {0}) must be more than 0!",
+                    JCV.getSizeString(width, height)));
+        }
+        if (numOfChannels <= 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"numOfChannels\" (= {0}) must be more than 0!", numOfChannels));
+        }
+        if ((long) width * height * numOfChannels > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Image {0} with {1} channels is too large for Java array!",
+                            JCV.getSizeString(width, height), numOfChannels));
+        }
+        JCV.verifyIsNotNull(layout);
+
+        /*
+         * Create a new object.
+         */
+        this.sourceWidth = width;
+        this.sourceHeight = height;
+        this.sourceNumOfChannels = numOfChannels;
+        this.layout = layout;
+        this.strideX = layout.getStrideX(width, height, numOfChannels);
+        this.strideY = layout.getStrideY(width, height, numOfChannels);
+
+        this.subImageX = 0;
+        this.subImageY = 0;
+        this.subImageWidth = width;
+        this.subImageHeight = height;
+        this.subImageLayerStart = 0;
+        this.subImageLayerLength = numOfChannels;
+    }
+
+    PrimitiveImage(final PrimitiveImage base, final int subImageX, final int subImageY, final int subImageWidth,
+            final int subImageHeight, final int subImageLayerStart, final int subImageLayerLength) {
+        this.sourceWidth = base.sourceWidth;
+        this.sourceHeight = base.sourceHeight;
+        this.sourceNumOfChannels = base.sourceNumOfChannels;
+        this.layout = base.layout;
+        this.strideX = base.strideX;
+        this.strideY = base.strideY;
+
+        this.subImageX = subImageX;
+        this.subImageY = subImageY;
+        this.subImageWidth = subImageWidth;
+        this.subImageHeight = subImageHeight;
+        this.subImageLayerStart = subImageLayerStart;
+        this.subImageLayerLength = subImageLayerLength;
+    }
+
+    /**
+     * Return width of image.
+     */
+    public int getWidth() {
+        return this.subImageWidth;
+    }
+
+    /**
+     * Return height of image.
+     */
+    public int getHeight() {
+        return this.subImageHeight;
+    }
+
+    /**
+     * Return size of image.
+     */
+    public Size getSize() {
+        return new Size(getWidth(), getHeight());
+    }
+
+    /**
+     * Return number of channels.
+     */
+    public int getNumOfChannels() {
+        return this.subImageLayerLength;
+    }
+
+    /**
+     * Return order of pixels into the source array.
+     */
+    public Layout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Return number of values into the source array.
+     */
+    int getSourceSize() {
+        return this.sourceWidth * this.sourceHeight * this.sourceNumOfChannels;
+    }
+
+    /**
+     * Return position in source array for given point and channel of current image.
+     */
+    int calculateArrayPosition(final int x, final int y, final int channel) {
+        return this.strideX * (this.subImageX + x) + this.strideY * (this.subImageY + y) + this.subImageLayerStart
+                + channel;
+    }
+
+    /**
+     * Return <code>true</code> if all channels of each row of current image are stored into the source array one after
+     * another.
+     */
+    boolean isContinuousRow() {
+        return this.strideX == this.sourceNumOfChannels && this.subImageLayerLength == this.sourceNumOfChannels;
+    }
+
+    void verifyPosition(final int x, final int y, final int channel) {
+        if (x < 0 || x >= getWidth()) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"x\" (= {0}) must in interval 0..{1}!", x, getWidth() - 1));
+        }
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Value of \"y\" (= {0}) must in interval 0..{1}!", y, getHeight() - 1));
+        }
+        if (channel < 0 || channel >= getNumOfChannels()) {
+            throw new IllegalArgumentException(MessageFormat
+                    .format("Value of \"channel\" (= {0}) must in interval 0..{1}!", channel, getNumOfChannels() - 1));
+        }
+    }
+
+    void verifyRow(final int y, final int arrayLength) {
+        verifyPosition(0, y, 0);
+        if (arrayLength < getWidth() * getNumOfChannels()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Array with length {0} can not contain row with {1} values!", arrayLength,
+                    getWidth() * getNumOfChannels()));
+        }
+    }
+
+    void verifySubImage(final int x, final int y, final int width, final int height) {
+        if (x < 0 || y < 0 || width < 1 || height < 1 || getWidth() < x + width || getHeight() < y + height) {
+            throw new IllegalArgumentException("Can not create sub-image with defined size!");
+        }
+    }
+
+    void verifyLayer(final int startChannel, final int sizeLayer) {
+        if (startChannel < 0 || sizeLayer < 1 || startChannel + sizeLayer > getNumOfChannels()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Can not create layer from channel {0} with {1} channels from image with {2} channels!",
+                    startChannel, sizeLayer, getNumOfChannels()));
+        }
+    }
+
+    void verifyIsSameSize(final PrimitiveImage image) {
+        JCV.verifyIsNotNull(image);
+
+        if (getWidth() != image.getWidth() || getHeight() != image.getHeight()
+                || getNumOfChannels() != image.getNumOfChannels()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Image {0} with {1} channels must have same size as current image {2} with {3} channels!",
+                    image.getSize(), image.getNumOfChannels(), getSize(), getNumOfChannels()));
+        }
+    }
+
+    void verifyIsSameSize(final Image image) {
+        JCV.verifyIsNotNull(image);
+
+        if (getWidth() != image.getWidth() || getHeight() != image.getHeight()
+                || getNumOfChannels() != image.getNumOfChannels()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Image {0} with {1} channels must have same size as current image {2} with {3} channels!",
+                    image.getSize(), image.getNumOfChannels(), getSize(), getNumOfChannels()));
+        }
+    }
+
+    /**
+     * Return string with some internal information about this image.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(getClass().getSimpleName());
+        sb.append(":");
+        sb.append("\n");
+
+        sb.append("    Hash:            ");
+        sb.append(hashCode());
+        sb.append("\n");
+
+        sb.append("    Source size:     ");
+        sb.append(new Size(this.sourceWidth, this.sourceHeight));
+        sb.append("\n");
+
+        sb.append("    Current image:   ");
+        sb.append(JCV.getRectangleString(this.subImageX, this.subImageY, this.subImageWidth, this.subImageHeight));
+        sb.append("\n");
+
+        sb.append("    Start channel:   ");
+        sb.append(this.subImageLayerStart);
+        sb.append("\n");
+
+        sb.append("    Size layer:      ");
+        sb.append(this.subImageLayerLength);
+        sb.append("\n");
+
+        sb.append("    Layout:          ");
+        sb.append(this.layout);
+        sb.append("\n");
+
+        return sb.toString();
+    }
+}
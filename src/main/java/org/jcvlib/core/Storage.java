@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+/**
+ * Storage of unsigned byte values that used as a source of {@link Image}.
+ * <p>
+ * Image does not know where values are placed: into Java array, into direct buffer or into memory-mapped file. All
+ * positions are <code>long</code> values to support storages that are larger than 2 GB.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public abstract class Storage {
+
+    /**
+     * Size of temporary buffer for copying between storages (= 64 KB).
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Return number of bytes into this storage.
+     */
+    public abstract long getSize();
+
+    /**
+     * Return unsigned value in interval <code>[0, 255]</code> from given position.
+     */
+    public abstract int get(long index);
+
+    /**
+     * Set value to given position.
+     */
+    public abstract void set(long index, byte value);
+
+    /**
+     * Copy <code>length</code> values from positions <code>index</code>, <code>index + stride</code>, ... into given
+     * array from position <code>offset</code>. Each value will be in interval <code>[0, 255]</code>.
+     */
+    public void get(final long index, final int stride, final int[] dst, final int offset, final int length) {
+        long pos = index;
+        for (int i = offset; i < offset + length; ++i) {
+            dst[i] = get(pos);
+            pos += stride;
+        }
+    }
+
+    /**
+     * Copy <code>length</code> values from given array (from position <code>offset</code>) into positions
+     * <code>index</code>, <code>index + stride</code>, ... Values will be truncated to interval <code>[0, 255]</code>.
+     */
+    public void set(final long index, final int stride, final int[] src, final int offset, final int length) {
+        long pos = index;
+        for (int i = offset; i < offset + length; ++i) {
+            set(pos, Color.IntToUByte(src[i]));
+            pos += stride;
+        }
+    }
+
+    /**
+     * Copy <code>length</code> bytes from position <code>index</code> into given array from position
+     * <code>offset</code>.
+     */
+    public void get(final long index, final byte[] dst, final int offset, final int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[offset + i] = (byte) get(index + i);
+        }
+    }
+
+    /**
+     * Copy <code>length</code> bytes from given array (from position <code>offset</code>) into this storage from
+     * position <code>index</code>.
+     */
+    public void set(final long index, final byte[] src, final int offset, final int length) {
+        for (int i = 0; i < length; ++i) {
+            set(index + i, src[offset + i]);
+        }
+    }
+
+    /**
+     * Copy <code>length</code> bytes from position <code>index</code> into given storage from position
+     * <code>targetIndex</code>.
+     */
+    public void copyTo(final long index, final Storage target, final long targetIndex, final long length) {
+        final byte[] buffer = new byte[(int) Math.min(length, Storage.COPY_BUFFER_SIZE)];
+
+        long done = 0;
+        while (done < length) {
+            final int size = (int) Math.min(length - done, buffer.length);
+
+            get(index + done, buffer, 0, size);
+            target.set(targetIndex + done, buffer, 0, size);
+
+            done += size;
+        }
+    }
+
+    /**
+     * Write all changes into the underlying device. Do nothing for storages into the memory.
+     */
+    public void flush() {
+        // Do nothing by default.
+    }
+
+    /**
+     * Release underlying resources (for example, unmap file). Storage and all images based on it can not be used
+     * after closing. Do nothing for storages into the memory.
+     */
+    public void close() {
+        // Do nothing by default.
+    }
+}
@@ -46,16 +46,31 @@ public class ColorConvert {
      * @return Image with Grayscale color scheme. This image have 1 channel.
      */
     public static Image fromRGBtoGray(final Image image) {
+        final Image result = new Image(image.getWidth(), image.getHeight(), 1);
+
+        ColorConvert.fromRGBtoGray(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromRGBtoGray(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 1 channel. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromRGBtoGray(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 3);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 1);
 
         /*
          * Perform transformation.
          */
-        final Image result = new Image(image.getWidth(), image.getHeight(), 1);
-
         Parallel.pixels(image, (x, y, worker) -> {
             //@formatter:off
             final double gray =
@@ -69,8 +84,6 @@ public class ColorConvert {
 
             result.set(x, y, 0, JCV.round(gray));
         });
-
-        return result;
     }
 
     /**
@@ -89,22 +102,35 @@ public class ColorConvert {
      * @return Image with RGB color scheme. This image have 3 channels.
      */
     public static Image fromGrayToRGB(final Image image) {
+        final Image result = new Image(image.getWidth(), image.getHeight(), 3);
+
+        ColorConvert.fromGrayToRGB(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromGrayToRGB(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 3 channels. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromGrayToRGB(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 1);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 3);
 
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
         for (int channel = 0; channel < result.getNumOfChannels(); ++channel) {
             final int proxyChannel = channel;
             Parallel.pixels(image, (x, y, worker) -> result.set(x, y, proxyChannel, image.get(x, y, 0)));
         }
-
-        return result;
     }
 
     /**
@@ -130,16 +156,31 @@ public class ColorConvert {
      * @return Image with HSL color scheme. This image have 3 channels.
      */
     public static Image fromRGBtoHSL(final Image image) {
+        final Image result = image.makeSame();
+
+        ColorConvert.fromRGBtoHSL(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromRGBtoHSL(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 3 channels. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromRGBtoHSL(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 3);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 3);
 
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
         Parallel.pixels(image, (x, y, worker) -> {
             // Initialization.
             final double R = image.get(x, y, 0);
@@ -198,8 +239,6 @@ public class ColorConvert {
             result.set(x, y, 1, JCV.round(S));
             result.set(x, y, 2, JCV.round(L));
         });
-
-        return result;
     }
 
     /**
@@ -223,16 +262,31 @@ public class ColorConvert {
      * @return Image with RGB color scheme. This image have 3 channels.
      */
     public static Image fromHSLtoRGB(final Image image) {
+        final Image result = image.makeSame();
+
+        ColorConvert.fromHSLtoRGB(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromHSLtoRGB(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 3 channels. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromHSLtoRGB(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 3);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 3);
 
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
         Parallel.pixels(image, (x, y, worker) -> {
             // Initialization.
             final double H = image.get(x, y, 0);
@@ -284,8 +338,6 @@ public class ColorConvert {
             result.set(x, y, 1, JCV.round(G));
             result.set(x, y, 2, JCV.round(B));
         });
-
-        return result;
     }
 
     /**
@@ -309,16 +361,31 @@ public class ColorConvert {
      * @return Image with HSV color scheme. This image have 3 channels.
      */
     public static Image fromRGBtoHSV(final Image image) {
+        final Image result = image.makeSame();
+
+        ColorConvert.fromRGBtoHSV(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromRGBtoHSV(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 3 channels. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromRGBtoHSV(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 3);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 3);
 
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
         Parallel.pixels(image, (x, y, worker) -> {
             // Initialization.
             final double R = image.get(x, y, 0);
@@ -368,8 +435,6 @@ public class ColorConvert {
             result.set(x, y, 1, JCV.round(S));
             result.set(x, y, 2, JCV.round(V));
         });
-
-        return result;
     }
 
     /**
@@ -393,16 +458,31 @@ public class ColorConvert {
      * @return Image with RGB color scheme. This image have 3 channels.
      */
     public static Image fromHSVtoRGB(final Image image) {
+        final Image result = image.makeSame();
+
+        ColorConvert.fromHSVtoRGB(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #fromHSVtoRGB(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size as a source image and 3 channels. Can be a sub-image or
+     *            same image as a source.
+     */
+    public static void fromHSVtoRGB(final Image image, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyNumOfChannels(image, 3);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyNumOfChannels(result, 3);
 
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
         Parallel.pixels(image, (x, y, worker) -> {
             // Initialization.
             final double H = image.get(x, y, 0);
@@ -445,7 +525,5 @@ public class ColorConvert {
             result.set(x, y, 1, JCV.round(G));
             result.set(x, y, 2, JCV.round(B));
         });
-
-        return result;
     }
 }
@@ -436,48 +436,74 @@ public class Misc {
      * </p>
      */
     public static Image sum(final Image image1, final Image image2) {
+        final Image result = image1.makeSame();
+
+        Misc.sum(image1, image2, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #sum(Image, Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source images. Can be a sub-image
+     *            or same image as one of the source images.
+     */
+    public static void sum(final Image image1, final Image image2, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyIsSameSize(image1, image2);
         JCV.verifyIsSameChannels(image1, image2);
+        JCV.verifyIsSameSize(image1, result);
+        JCV.verifyIsSameChannels(image1, result);
 
         /*
          * Perform operation.
          */
-        final Image result = image1.makeSame();
-
-        Parallel.pixels(result, (x, y, worker) -> {
-            for (int channel = 0; channel < result.getNumOfChannels(); ++channel) {
+        Parallel.pixels(image1, (x, y, worker) -> {
+            for (int channel = 0; channel < image1.getNumOfChannels(); ++channel) {
                 result.set(x, y, channel, image1.get(x, y, channel) + image2.get(x, y, channel));
             }
         });
-
-        return result;
     }
 
     /**
      * Absolute value of difference between 2 images.
      */
     public static Image absDiff(final Image image1, final Image image2) {
+        final Image result = image1.makeSame();
+
+        Misc.absDiff(image1, image2, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #absDiff(Image, Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source images. Can be a sub-image
+     *            or same image as one of the source images.
+     */
+    public static void absDiff(final Image image1, final Image image2, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyIsSameSize(image1, image2);
         JCV.verifyIsSameChannels(image1, image2);
+        JCV.verifyIsSameSize(image1, result);
+        JCV.verifyIsSameChannels(image1, result);
 
         /*
          * Perform operation.
          */
-        final Image result = image1.makeSame();
-
         Parallel.pixels(image1, (x, y, worker) -> {
             for (int channel = 0; channel < image1.getNumOfChannels(); ++channel) {
                 result.set(x, y, channel, Math.abs(image1.get(x, y, channel) - image2.get(x, y, channel)));
             }
         });
-
-        return result;
     }
 
     /**
@@ -494,24 +520,37 @@ public class Misc {
      * </p>
      */
     public static Image minus(final Image image1, final Image image2) {
+        final Image result = image1.makeSame();
+
+        Misc.minus(image1, image2, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #minus(Image, Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source images. Can be a sub-image
+     *            or same image as one of the source images.
+     */
+    public static void minus(final Image image1, final Image image2, final Image result) {
         /*
          * Verify parameters.
          */
         JCV.verifyIsSameSize(image1, image2);
         JCV.verifyIsSameChannels(image1, image2);
+        JCV.verifyIsSameSize(image1, result);
+        JCV.verifyIsSameChannels(image1, result);
 
         /*
          * Perform operation.
          */
-        final Image result = image1.makeSame();
-
-        Parallel.pixels(result, (x, y, worker) -> {
+        Parallel.pixels(image1, (x, y, worker) -> {
             for (int channel = 0; channel < image1.getNumOfChannels(); ++channel) {
                 result.set(x, y, channel, image1.get(x, y, channel) - image2.get(x, y, channel));
             }
         });
-
-        return result;
     }
 
     /**
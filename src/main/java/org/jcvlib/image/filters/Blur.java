@@ -23,13 +23,11 @@ import java.util.Arrays;
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Extrapolation;
 import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
 import org.jcvlib.core.JCV;
 import org.jcvlib.core.Point;
 import org.jcvlib.core.Size;
-import org.jcvlib.image.Misc;
-import org.jcvlib.parallel.Parallel;
-
-import Jama.Matrix;
+import org.jcvlib.parallel.ExecutionContext;
 
 /**
  * Smoothing methods.
@@ -46,6 +44,11 @@ public enum Blur {
     /**
      * Box blur.
      * <p>
+     * Uses running sums: each row is summed by sliding window and then sums of rows are updated by sliding window by
+     * Y. So it takes <code>O(1)</code> operations per pixel for any kernel size. Sums of rows are kept only for
+     * current window of each worker, so memory does not depend on height of image.
+     * </p>
+     * <p>
      * <h6>Links:</h6>
      * <ol>
      * <li><a href="http://en.wikipedia.org/wiki/Box_blur">Box blur -- Wikipedia</a>.</li>
@@ -55,19 +58,77 @@ public enum Blur {
     BOX {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            // Create a kernel.
-            final Matrix box = new Matrix(kernelSize.getHeight(), kernelSize.getWidth());
-            for (int x = 0; x < box.getColumnDimension(); ++x) {
-                for (int y = 0; y < box.getRowDimension(); ++y) {
-                    box.set(y, x, 1.0);
-                }
+        protected void run(final Image image, final Image result, final Size kernelSize,
+                final Extrapolation extrapolation) {
+            final int numOfChannels = image.getNumOfChannels();
+            final int rowLength = image.getWidth() * numOfChannels;
+            final int kernelWidth = kernelSize.getWidth();
+            final int kernelHeight = kernelSize.getHeight();
+            final int n = kernelSize.calculateN();
+            final Point anchor = JCV.calculateCenter(kernelWidth, kernelHeight);
+
+            final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelWidth, anchor.getX());
+            final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelHeight, anchor.getY());
+
+            // Buffers for each worker. Ring contains sums by rows for extended rows from (y - 1) to
+            // (y + kernelHeight - 1), so sums of each row are calculated once for continuous chunk of rows of worker.
+            final ExecutionContext context = ExecutionContext.getCurrent();
+            final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+            final int[][] extendRows = new int[context.getNumOfWorkers()][mapX.length * numOfChannels];
+            final int[][][] rings = new int[context.getNumOfWorkers()][kernelHeight + 1][rowLength];
+            final int[][] ringRows = new int[context.getNumOfWorkers()][kernelHeight + 1];
+            final int[][] sumRows = new int[context.getNumOfWorkers()][rowLength];
+            final int[][] resultRows = new int[context.getNumOfWorkers()][rowLength];
+            final int[] lastY = new int[context.getNumOfWorkers()];
+            Arrays.fill(lastY, -2);
+            for (final int[] ringRow : ringRows) {
+                Arrays.fill(ringRow, -1);
             }
-            final double div = kernelSize.calculateN();
-            final double offset = Color.MIN_VALUE;
 
-            // Apply filter.
-            return Filters.linearFilter(image, box, div, offset, extrapolation);
+            final ImagePool pool = ImagePool.getDefault();
+            final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+            context.rows(target, (y, worker) -> {
+                final int[] sourceRow = sourceRows[worker];
+                final int[] extendRow = extendRows[worker];
+                final int[][] ring = rings[worker];
+                final int[] ringRow = ringRows[worker];
+                final int[] sumRow = sumRows[worker];
+                final int[] resultRow = resultRows[worker];
+
+                if (lastY[worker] == y - 1) {
+                    // Slide window from previous row of this worker.
+                    final int[] removeRow = ring[Blur.loadSums(image, mapX, mapY, kernelWidth, y - 1, sourceRow,
+                            extendRow, ringRow, ring)];
+                    final int[] addRow = ring[Blur.loadSums(image, mapX, mapY, kernelWidth, y + kernelHeight - 1,
+                            sourceRow, extendRow, ringRow, ring)];
+                    for (int pos = 0; pos < rowLength; ++pos) {
+                        sumRow[pos] += addRow[pos] - removeRow[pos];
+                    }
+                } else {
+                    // Calculate window from scratch.
+                    Arrays.fill(sumRow, 0);
+                    for (int j = 0; j < kernelHeight; ++j) {
+                        final int[] row = ring[Blur.loadSums(image, mapX, mapY, kernelWidth, y + j, sourceRow,
+                                extendRow, ringRow, ring)];
+                        for (int pos = 0; pos < rowLength; ++pos) {
+                            sumRow[pos] += row[pos];
+                        }
+                    }
+                }
+                lastY[worker] = y;
+
+                // Average with rounding (all sums are not negative).
+                for (int pos = 0; pos < rowLength; ++pos) {
+                    resultRow[pos] = (2 * sumRow[pos] + n) / (2 * n);
+                }
+                target.setRow(y, resultRow);
+            });
+
+            if (target != result) {
+                target.copyTo(result);
+                pool.release(target);
+            }
         }
     },
 
@@ -83,143 +144,448 @@ public enum Blur {
     GAUSSIAN {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return Filters.gaussianBlur(image, kernelSize, Filters.getSigma(kernelSize.getWidth()),
+        protected void run(final Image image, final Image result, final Size kernelSize,
+                final Extrapolation extrapolation) {
+            Filters.gaussianBlur(image, result, kernelSize, Filters.getSigma(kernelSize.getWidth()),
                     Filters.getSigma(kernelSize.getHeight()), extrapolation);
         }
     },
 
+    /**
+     * Recursive (IIR) approximation of {@link #GAUSSIAN} blur with same Gaussian function. Cost does not depend on
+     * kernel size, so it is preferred for large kernels.
+     * <p>
+     * <h6>Links:</h6>
+     * <ol>
+     * <li><a href="https://doi.org/10.1016/0165-1684(95)00020-E">I.T. Young, L.J. van Vliet. Recursive implementation
+     * of the Gaussian filter</a>.</li>
+     * </ol>
+     * </p>
+     */
+    GAUSSIAN_RECURSIVE {
+
+        @Override
+        protected void run(final Image image, final Image result, final Size kernelSize,
+                final Extrapolation extrapolation) {
+            // Gaussian kernel uses 'sigma' value as variance.
+            Filters.gaussianBlurRecursive(image, result, Math.sqrt(Filters.getSigma(kernelSize.getWidth())),
+                    Math.sqrt(Filters.getSigma(kernelSize.getHeight())), extrapolation);
+        }
+    },
+
     /**
      * Median filter.
      * <p>
+     * Uses sliding histogram for each row (Huang algorithm): when kernel moves to the next pixel only one column of
+     * kernel is removed from histogram and one column is added. Median is found by two-level histogram (as in
+     * Perreault and Hebert algorithm). So it takes <code>O(kernelHeight)</code> operations per pixel. Each channel is
+     * processed independently.
+     * </p>
+     * <p>
      * <h6>Links:</h6>
      * <ol>
      * <li><a href="http://en.wikipedia.org/wiki/Median_filter">Median filter -- Wikipedia</a>.</li>
+     * <li><a href="https://doi.org/10.1109/TASSP.1979.1163188">T. Huang, G. Yang, G. Tang. A fast two-dimensional
+     * median filtering algorithm</a>.</li>
+     * <li><a href="https://doi.org/10.1109/TIP.2007.902329">S. Perreault, P. Hebert. Median Filtering in Constant
+     * Time</a>.</li>
      * </ol>
      * </p>
      */
     MEDIAN {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            final Point kernelCenter = JCV.calculateCenter(kernelSize.getWidth(), kernelSize.getHeight());
-            final Image result = image.makeSame();
-
-            Parallel.pixels(image, (x, y, worker) -> {
-                final int shiftX = x - kernelCenter.getX();
-                final int shiftY = y - kernelCenter.getY();
-
-                // Copy content into temporary array.
-                final int[] tempArr = new int[kernelSize.calculateN()];
-                for (int lx = 0; lx < kernelSize.getWidth(); ++lx) {
-                    for (int ly = 0; ly < kernelSize.getHeight(); ++ly) {
-                        for (int channel1 = 0; channel1 < image.getNumOfChannels(); ++channel1) {
-                            tempArr[lx * kernelSize.getHeight() + ly] = image.get(shiftX + lx, shiftY + ly, channel1,
-                                    extrapolation);
+        protected void run(final Image image, final Image result, final Size kernelSize,
+                final Extrapolation extrapolation) {
+            final int numOfChannels = image.getNumOfChannels();
+            final int rowLength = image.getWidth() * numOfChannels;
+            final int kernelWidth = kernelSize.getWidth();
+            final int kernelHeight = kernelSize.getHeight();
+            final Point kernelCenter = JCV.calculateCenter(kernelWidth, kernelHeight);
+            // Position of median into sorted kernel values.
+            final int half = (kernelSize.calculateN() - 1) / 2;
+
+            final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelWidth, kernelCenter.getX());
+            final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelHeight, kernelCenter.getY());
+
+            // Values of source image should not be changed during processing.
+            final ImagePool pool = ImagePool.getDefault();
+            final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+            // Buffers for each worker.
+            final ExecutionContext context = ExecutionContext.getCurrent();
+            final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+            final int[][][] extendRows = new int[context.getNumOfWorkers()][kernelHeight][mapX.length
+                    * numOfChannels];
+            final int[][] histograms = new int[context.getNumOfWorkers()][Color.MAX_VALUE + 1];
+            final int[][] coarseHistograms = new int[context.getNumOfWorkers()][(Color.MAX_VALUE >> Blur.coarseShift)
+                    + 1];
+            final int[][] resultRows = new int[context.getNumOfWorkers()][rowLength];
+
+            context.rows(image, (y, worker) -> {
+                final int[] sourceRow = sourceRows[worker];
+                final int[][] window = extendRows[worker];
+                final int[] histogram = histograms[worker];
+                final int[] coarseHistogram = coarseHistograms[worker];
+                final int[] resultRow = resultRows[worker];
+
+                // Collect rows of kernel extended by border values.
+                for (int j = 0; j < kernelHeight; ++j) {
+                    final int[] extendRow = window[j];
+                    if (mapY[y + j] < 0) {
+                        Arrays.fill(extendRow, Color.MIN_VALUE);
+                        continue;
+                    }
+
+                    image.getRow(mapY[y + j], sourceRow);
+                    for (int i = 0; i < mapX.length; ++i) {
+                        final int x = mapX[i];
+                        for (int channel = 0; channel < numOfChannels; ++channel) {
+                            extendRow[numOfChannels * i + channel] = x < 0 ? Color.MIN_VALUE
+                                    : sourceRow[numOfChannels * x + channel];
                         }
                     }
                 }
 
-                // Sort temporary array.
-                Arrays.sort(tempArr);
+                for (int channel = 0; channel < numOfChannels; ++channel) {
+                    // Histogram of first kernel.
+                    Arrays.fill(histogram, 0);
+                    Arrays.fill(coarseHistogram, 0);
+                    for (int j = 0; j < kernelHeight; ++j) {
+                        for (int i = 0; i < kernelWidth; ++i) {
+                            final int value = window[j][numOfChannels * i + channel];
+                            ++histogram[value];
+                            ++coarseHistogram[value >> Blur.coarseShift];
+                        }
+                    }
+                    resultRow[channel] = findMedian(histogram, coarseHistogram, half);
+
+                    for (int x = 1; x < image.getWidth(); ++x) {
+                        // Move kernel: remove left column and add right column.
+                        final int removePos = numOfChannels * (x - 1) + channel;
+                        final int addPos = numOfChannels * (x + kernelWidth - 1) + channel;
+                        for (int j = 0; j < kernelHeight; ++j) {
+                            final int removeValue = window[j][removePos];
+                            --histogram[removeValue];
+                            --coarseHistogram[removeValue >> Blur.coarseShift];
+
+                            final int addValue = window[j][addPos];
+                            ++histogram[addValue];
+                            ++coarseHistogram[addValue >> Blur.coarseShift];
+                        }
 
-                // Return middle element.
-                for (int channel2 = 0; channel2 < image.getNumOfChannels(); ++channel2) {
-                    result.set(x, y, channel2, tempArr[(tempArr.length - 1) / 2]);
+                        resultRow[numOfChannels * x + channel] = findMedian(histogram, coarseHistogram, half);
+                    }
                 }
+
+                target.setRow(y, resultRow);
             });
 
-            return result;
+            if (target != result) {
+                target.copyTo(result);
+                pool.release(target);
+            }
         }
     },
 
     /**
      * Kuwahara blur.
      * <p>
+     * Kernel is split into four quadrants (center row and column are not included) and each value of result is mean of
+     * quadrant with minimal variance. Sums of values and squares of values of quadrant give mean and variance, so each
+     * source row is converted into prefix sums (one-dimensional integral image) and prefix sums of rows of top and
+     * bottom quadrants are updated by sliding window by Y. So it takes <code>O(1)</code> operations per pixel for any
+     * kernel size.
+     * </p>
+     * <p>
      * <h6>Links:</h6>
      * <ol>
      * <li><a href="http://rsbweb.nih.gov/ij/plugins/kuwahara.html">Kuwahara Filter</a>.</li>
+     * <li><a href="http://en.wikipedia.org/wiki/Summed_area_table">Summed area table -- Wikipedia</a>.</li>
      * </ol>
      * </p>
      */
     KUWAHARA {
 
-        /**
-         * Calculate variance of sub-rectangle of kernel.
-         * <p>
-         * Used into {@link #kuwaharaBlur(Image, Size, int)}.
-         * </p>
-         */
-        private double[] variance(final Image aperture, final Color average) {
-            final double[] result = new double[aperture.getNumOfChannels()];
-            for (int i = 0; i < aperture.getNumOfChannels(); ++i) {
-                result[i] = 0.0;
+        @Override
+        protected void run(final Image image, final Image result, final Size kernelSize,
+                final Extrapolation extrapolation) {
+            final int kernelWidth = kernelSize.getWidth();
+            final int kernelHeight = kernelSize.getHeight();
+            // Quadrants are empty or have only one value.
+            if (kernelSize.calculateN() <= 9 || kernelWidth < 3 || kernelHeight < 3) {
+                image.copyTo(result);
+                return;
+            }
+
+            final int numOfChannels = image.getNumOfChannels();
+            final int rowLength = image.getWidth() * numOfChannels;
+            final Point kernelCenter = JCV.calculateCenter(kernelWidth, kernelHeight);
+            final int quadrantHeight = kernelCenter.getY();
+            // Distance between prefix sums of first and last columns of quadrant.
+            final int quadrantLength = numOfChannels * kernelCenter.getX();
+            // Distance between first columns of left and right quadrants.
+            final int rightOffset = quadrantLength + numOfChannels;
+            final long n = kernelCenter.getX() * quadrantHeight;
+
+            /*
+             * Rounded mean of quadrant is floor((2 * sum + n) / (2 * n)), where numerator is less than 2^bits. Division
+             * is replaced by multiplication by magic = ceil(2^shift / (2 * n)) and shift, which gives exact result for
+             * shift = bits + ceil(log2(2 * n)). Product does not overflow if numerator has at most 30 bits.
+             */
+            final int numeratorBits = 64 - Long.numberOfLeadingZeros((2 * Color.MAX_VALUE + 1) * n);
+            final int shift = numeratorBits > 30 ? -1 : numeratorBits + 64 - Long.numberOfLeadingZeros(2 * n - 1);
+            final long magic = shift < 0 ? 0 : ((1L << shift) + 2 * n - 1) / (2 * n);
+
+            final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelWidth, kernelCenter.getX());
+            final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelHeight, kernelCenter.getY());
+
+            // Values of source image should not be changed during processing.
+            final ImagePool pool = ImagePool.getDefault();
+            final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+            // Buffers for each worker. Ring contains prefix sums of last extended rows, which are reused by next rows.
+            final int prefixLength = (mapX.length + 1) * numOfChannels;
+            final ExecutionContext context = ExecutionContext.getCurrent();
+            final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+            final long[][][] sumRings = new long[context.getNumOfWorkers()][kernelHeight + 1][prefixLength];
+            final long[][][] squareRings = new long[context.getNumOfWorkers()][kernelHeight + 1][prefixLength];
+            final int[][] ringRows = new int[context.getNumOfWorkers()][kernelHeight + 1];
+            for (final int[] rows : ringRows) {
+                Arrays.fill(rows, -1);
             }
+            final long[][] topSums = new long[context.getNumOfWorkers()][prefixLength];
+            final long[][] topSquares = new long[context.getNumOfWorkers()][prefixLength];
+            final long[][] bottomSums = new long[context.getNumOfWorkers()][prefixLength];
+            final long[][] bottomSquares = new long[context.getNumOfWorkers()][prefixLength];
+            final int[][] resultRows = new int[context.getNumOfWorkers()][rowLength];
+            final int[] lastY = new int[context.getNumOfWorkers()];
+            Arrays.fill(lastY, -2);
+
+            context.rows(target, (y, worker) -> {
+                final int[] sourceRow = sourceRows[worker];
+                final int[] rows = ringRows[worker];
+                final long[][] sumRing = sumRings[worker];
+                final long[][] squareRing = squareRings[worker];
+                final long[] topSum = topSums[worker];
+                final long[] topSquare = topSquares[worker];
+                final long[] bottomSum = bottomSums[worker];
+                final long[] bottomSquare = bottomSquares[worker];
+                final int[] resultRow = resultRows[worker];
 
-            for (int x = 0; x < aperture.getWidth(); ++x) {
-                for (int y = 0; y < aperture.getHeight(); ++y) {
-                    for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
-                        final double value = average.get(channel) - aperture.get(x, y, channel);
-                        result[channel] += value * value;
+                if (lastY[worker] == y - 1) {
+                    // Slide quadrants from previous row of this worker.
+                    final int removeTop = Blur.loadPrefixes(image, mapX, mapY, y - 1, sourceRow, rows, sumRing,
+                            squareRing);
+                    final int addTop = Blur.loadPrefixes(image, mapX, mapY, y + quadrantHeight - 1, sourceRow, rows,
+                            sumRing, squareRing);
+                    final int removeBottom = Blur.loadPrefixes(image, mapX, mapY, y + quadrantHeight, sourceRow,
+                            rows, sumRing, squareRing);
+                    final int addBottom = Blur.loadPrefixes(image, mapX, mapY, y + kernelHeight - 1, sourceRow,
+                            rows, sumRing, squareRing);
+                    for (int pos = 0; pos < prefixLength; ++pos) {
+                        topSum[pos] += sumRing[addTop][pos] - sumRing[removeTop][pos];
+                        topSquare[pos] += squareRing[addTop][pos] - squareRing[removeTop][pos];
+                        bottomSum[pos] += sumRing[addBottom][pos] - sumRing[removeBottom][pos];
+                        bottomSquare[pos] += squareRing[addBottom][pos] - squareRing[removeBottom][pos];
                     }
+                } else {
+                    // Calculate quadrants from scratch.
+                    Arrays.fill(topSum, 0);
+                    Arrays.fill(topSquare, 0);
+                    Arrays.fill(bottomSum, 0);
+                    Arrays.fill(bottomSquare, 0);
+                    for (int j = 0; j < quadrantHeight; ++j) {
+                        final int top = Blur.loadPrefixes(image, mapX, mapY, y + j, sourceRow, rows, sumRing,
+                                squareRing);
+                        final int bottom = Blur.loadPrefixes(image, mapX, mapY, y + quadrantHeight + 1 + j, sourceRow,
+                                rows, sumRing, squareRing);
+                        for (int pos = 0; pos < prefixLength; ++pos) {
+                            topSum[pos] += sumRing[top][pos];
+                            topSquare[pos] += squareRing[top][pos];
+                            bottomSum[pos] += sumRing[bottom][pos];
+                            bottomSquare[pos] += squareRing[bottom][pos];
+                        }
+                    }
+                }
+                lastY[worker] = y;
+
+                // Quadrants: top-left, top-right, bottom-left and bottom-right. First one wins on equal variance.
+                for (int pos = 0; pos < rowLength; ++pos) {
+                    final int right = pos + rightOffset;
+                    final long sum0 = topSum[pos + quadrantLength] - topSum[pos];
+                    final long sum1 = topSum[right + quadrantLength] - topSum[right];
+                    final long sum2 = bottomSum[pos + quadrantLength] - bottomSum[pos];
+                    final long sum3 = bottomSum[right + quadrantLength] - bottomSum[right];
+                    final long mean0 = Blur.roundMean(sum0, n, magic, shift);
+                    final long mean1 = Blur.roundMean(sum1, n, magic, shift);
+                    final long mean2 = Blur.roundMean(sum2, n, magic, shift);
+                    final long mean3 = Blur.roundMean(sum3, n, magic, shift);
+
+                    // Sum of squared deviations from rounded mean: SUM((mean - value)^2).
+                    final long variance0 = topSquare[pos + quadrantLength] - topSquare[pos]
+                            - mean0 * (2 * sum0 - n * mean0);
+                    final long variance1 = topSquare[right + quadrantLength] - topSquare[right]
+                            - mean1 * (2 * sum1 - n * mean1);
+                    final long variance2 = bottomSquare[pos + quadrantLength] - bottomSquare[pos]
+                            - mean2 * (2 * sum2 - n * mean2);
+                    final long variance3 = bottomSquare[right + quadrantLength] - bottomSquare[right]
+                            - mean3 * (2 * sum3 - n * mean3);
+
+                    long minVariance = variance0;
+                    long minMean = mean0;
+                    if (variance1 < minVariance) {
+                        minVariance = variance1;
+                        minMean = mean1;
+                    }
+                    if (variance2 < minVariance) {
+                        minVariance = variance2;
+                        minMean = mean2;
+                    }
+                    if (variance3 < minVariance) {
+                        minMean = mean3;
+                    }
+                    resultRow[pos] = (int) minMean;
                 }
+                target.setRow(y, resultRow);
+            });
+
+            if (target != result) {
+                target.copyTo(result);
+                pool.release(target);
             }
+        }
+    };
+
+    /**
+     * Values into coarse histogram are <code>value >> coarseShift</code>.
+     */
+    private static final int coarseShift = 4;
+
+    protected abstract void run(final Image image, final Image result, final Size kernelSize,
+            final Extrapolation extrapolation);
+
+    /**
+     * Return value with given position into sorted values from histogram. Coarse histogram is used to skip empty
+     * ranges.
+     * <p>
+     * Used into {@link #MEDIAN}.
+     * </p>
+     */
+    private static int findMedian(final int[] histogram, final int[] coarseHistogram, final int position) {
+        int less = 0;
 
-            return result;
+        int bin = 0;
+        while (less + coarseHistogram[bin] <= position) {
+            less += coarseHistogram[bin];
+            ++bin;
         }
 
-        @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            if (kernelSize.calculateN() > 9) {
-                final Point kernelCenter = JCV.calculateCenter(kernelSize.getWidth(), kernelSize.getHeight());
-                final Image result = image.makeSame();
-
-                image.noneLinearFilter(result, kernelSize.getWidth(), kernelSize.getHeight(), kernelCenter, 1,
-                        extrapolation, (aperture, result1) -> {
-                            final Image[] windows = new Image[4];
-
-                            final Color[] mean = new Color[windows.length];
-                            final double[][] variance = new double[windows.length][aperture.getNumOfChannels()];
-
-                            final Size windowSize = new Size(kernelCenter.getX(), kernelCenter.getY());
-
-                            // Create sub-images.
-                            windows[0] = aperture.makeSubImage(0, 0, windowSize.getWidth(), windowSize.getHeight());
-                            windows[1] = aperture.makeSubImage(kernelCenter.getX() + 1, 0, windowSize.getWidth(),
-                                    windowSize.getHeight());
-                            windows[2] = aperture.makeSubImage(0, kernelCenter.getY() + 1, windowSize.getWidth(),
-                                    windowSize.getHeight());
-                            windows[3] = aperture.makeSubImage(kernelCenter.getX() + 1, kernelCenter.getY() + 1,
-                                    windowSize.getWidth(), windowSize.getHeight());
-
-                            // Calculate average and variance.
-                            for (int i1 = 0; i1 < windows.length; ++i1) {
-                                mean[i1] = Misc.calculateMean(windows[i1]);
-                                variance[i1] = variance(windows[i1], mean[i1]);
-                            }
-
-                            // Found min of variance.
-                            for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
-                                int minPos = 0;
-                                double minVal = variance[minPos][channel];
-                                for (int i2 = 1; i2 < 4; ++i2) {
-                                    if (variance[i2][channel] < minVal) {
-                                        minVal = variance[i2][channel];
-                                        minPos = i2;
-                                    }
-                                }
-
-                                // Different values for different channels.
-                                result1.set(channel, mean[minPos].get(channel));
-                            }
-                        });
-
-                return result;
-            } else {
-                return image;
+        int value = bin << Blur.coarseShift;
+        while (less + histogram[value] <= position) {
+            less += histogram[value];
+            ++value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Return <code>floor((2 * sum + n) / (2 * n))</code> (rounded mean of <code>n</code> values with given sum) using
+     * multiplication by <code>magic</code> and shift or division if <code>shift</code> is negative.
+     * <p>
+     * Used into {@link #KUWAHARA}.
+     * </p>
+     */
+    private static long roundMean(final long sum, final long n, final long magic, final int shift) {
+        final long numerator = 2 * sum + n;
+
+        return shift < 0 ? numerator / (2 * n) : (numerator * magic) >>> shift;
+    }
+
+    /**
+     * Return position into ring of prefix sums of values and squares of values for given row of extended image.
+     * Prefix sums are calculated only if ring does not contain this row.
+     * <p>
+     * Used into {@link #KUWAHARA}.
+     * </p>
+     */
+    private static int loadPrefixes(final Image image, final int[] mapX, final int[] mapY, final int row,
+            final int[] sourceRow, final int[] ringRows, final long[][] sumRing, final long[][] squareRing) {
+        final int slot = row % ringRows.length;
+        if (ringRows[slot] == row) {
+            return slot;
+        }
+
+        final int numOfChannels = image.getNumOfChannels();
+        final int sourceY = mapY[row];
+        if (sourceY >= 0) {
+            image.getRow(sourceY, sourceRow);
+        }
+
+        final long[] sums = sumRing[slot];
+        final long[] squares = squareRing[slot];
+        for (int i = 0; i < mapX.length; ++i) {
+            final int x = mapX[i];
+            for (int channel = 0; channel < numOfChannels; ++channel) {
+                final int pos = numOfChannels * i + channel;
+                final long value = sourceY < 0 || x < 0 ? Color.MIN_VALUE : sourceRow[numOfChannels * x + channel];
+                sums[pos + numOfChannels] = sums[pos] + value;
+                squares[pos + numOfChannels] = squares[pos] + value * value;
             }
         }
-    };
+        ringRows[slot] = row;
+
+        return slot;
+    }
+
+    /**
+     * Return position into ring of sums by sliding window of given row of extended image. Sums are calculated only if
+     * ring does not contain this row.
+     * <p>
+     * Used into {@link #BOX}.
+     * </p>
+     */
+    private static int loadSums(final Image image, final int[] mapX, final int[] mapY, final int kernelWidth,
+            final int row, final int[] sourceRow, final int[] extendRow, final int[] ringRows, final int[][] ring) {
+        final int slot = row % ringRows.length;
+        if (ringRows[slot] == row) {
+            return slot;
+        }
+        ringRows[slot] = row;
+
+        final int[] sums = ring[slot];
+        final int sourceY = mapY[row];
+        if (sourceY < 0) {
+            Arrays.fill(sums, 0);
+            return slot;
+        }
+
+        // Extend row by border values.
+        final int numOfChannels = image.getNumOfChannels();
+        image.getRow(sourceY, sourceRow);
+        for (int i = 0; i < mapX.length; ++i) {
+            final int x = mapX[i];
+            for (int channel = 0; channel < numOfChannels; ++channel) {
+                extendRow[numOfChannels * i + channel] = x < 0 ? Color.MIN_VALUE
+                        : sourceRow[numOfChannels * x + channel];
+            }
+        }
+
+        // Sliding window.
+        for (int channel = 0; channel < numOfChannels; ++channel) {
+            int sum = 0;
+            for (int i = 0; i < kernelWidth; ++i) {
+                sum += extendRow[numOfChannels * i + channel];
+            }
+            sums[channel] = sum;
+        }
+        final int windowLength = numOfChannels * kernelWidth;
+        for (int pos = numOfChannels; pos < sums.length; ++pos) {
+            sums[pos] = sums[pos - numOfChannels] + extendRow[pos - numOfChannels + windowLength]
+                    - extendRow[pos - numOfChannels];
+        }
 
-    protected abstract Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation);
+        return slot;
+    }
 }
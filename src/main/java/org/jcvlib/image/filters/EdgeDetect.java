@@ -18,7 +18,7 @@
  */
 package org.jcvlib.image.filters;
 
-import Jama.Matrix;
+import org.jcvlib.core.Kernel;
 
 /**
  * Edge detection methods.
@@ -44,23 +44,23 @@ public enum EdgeDetect {
     ROBERTS {
 
         @Override
-        protected Matrix getMatrixKernelX() {
+        protected Kernel getKernelX() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {  1.0,  0.0,  0.0 },
-                {  0.0, -1.0,  0.0 },
-                {  0.0,  0.0,  0.0 }
+            return new Kernel(3, 3, new float[] {
+                 1.0f,  0.0f,  0.0f,
+                 0.0f, -1.0f,  0.0f,
+                 0.0f,  0.0f,  0.0f
             });
             //@formatter:on
         }
 
         @Override
-        protected Matrix getMatrixKernelY() {
+        protected Kernel getKernelY() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {  0.0,  0.0,  0.0 },
-                {  0.0,  0.0, -1.0 },
-                {  0.0,  1.0,  0.0 }
+            return new Kernel(3, 3, new float[] {
+                 0.0f,  0.0f,  0.0f,
+                 0.0f,  0.0f, -1.0f,
+                 0.0f,  1.0f,  0.0f
             });
             //@formatter:on
         }
@@ -78,23 +78,23 @@ public enum EdgeDetect {
     PREWITT {
 
         @Override
-        protected Matrix getMatrixKernelX() {
+        protected Kernel getKernelX() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                { -1.0,  0.0,  1.0 },
-                { -1.0,  0.0,  1.0 },
-                { -1.0,  0.0,  1.0 }
+            return new Kernel(3, 3, new float[] {
+                -1.0f,  0.0f,  1.0f,
+                -1.0f,  0.0f,  1.0f,
+                -1.0f,  0.0f,  1.0f
             });
             //@formatter:on
         }
 
         @Override
-        protected Matrix getMatrixKernelY() {
+        protected Kernel getKernelY() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {  1.0,  1.0,  1.0 },
-                {  0.0,  0.0,  0.0 },
-                { -1.0, -1.0, -1.0 }
+            return new Kernel(3, 3, new float[] {
+                 1.0f,  1.0f,  1.0f,
+                 0.0f,  0.0f,  0.0f,
+                -1.0f, -1.0f, -1.0f
             });
             //@formatter:on
         }
@@ -112,23 +112,23 @@ public enum EdgeDetect {
     SOBEL {
 
         @Override
-        protected Matrix getMatrixKernelX() {
+        protected Kernel getKernelX() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                { -1.0,  0.0,  1.0 },
-                { -2.0,  0.0,  2.0 },
-                { -1.0,  0.0,  1.0 }
+            return new Kernel(3, 3, new float[] {
+                -1.0f,  0.0f,  1.0f,
+                -2.0f,  0.0f,  2.0f,
+                -1.0f,  0.0f,  1.0f
             });
             //@formatter:on
         }
 
         @Override
-        protected Matrix getMatrixKernelY() {
+        protected Kernel getKernelY() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                { -1.0, -2.0, -1.0 },
-                {  0.0,  0.0,  0.0 },
-                {  1.0,  2.0,  1.0 }
+            return new Kernel(3, 3, new float[] {
+                -1.0f, -2.0f, -1.0f,
+                 0.0f,  0.0f,  0.0f,
+                 1.0f,  2.0f,  1.0f
             });
             //@formatter:on
         }
@@ -147,23 +147,23 @@ public enum EdgeDetect {
     SCHARR {
 
         @Override
-        protected Matrix getMatrixKernelX() {
+        protected Kernel getKernelX() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {   3.0,   0.0,  -3.0 },
-                {  10.0,   0.0, -10.0 },
-                {   3.0,   0.0,  -3.0 }
+            return new Kernel(3, 3, new float[] {
+                  3.0f,   0.0f,  -3.0f,
+                 10.0f,   0.0f, -10.0f,
+                  3.0f,   0.0f,  -3.0f
             });
             //@formatter:on
         }
 
         @Override
-        protected Matrix getMatrixKernelY() {
+        protected Kernel getKernelY() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {   3.0,  10.0,   3.0 },
-                {   0.0,   0.0,   0.0 },
-                {  -3.0, -10.0,  -3.0 }
+            return new Kernel(3, 3, new float[] {
+                  3.0f,  10.0f,   3.0f,
+                  0.0f,   0.0f,   0.0f,
+                 -3.0f, -10.0f,  -3.0f
             });
             //@formatter:on
         }
@@ -182,23 +182,23 @@ public enum EdgeDetect {
     LAPLACIAN {
 
         @Override
-        protected Matrix getMatrixKernelX() {
+        protected Kernel getKernelX() {
             //@formatter:off
-            return new Matrix(new double[][]{
-                {   0.0,   1.0,   0.0 },
-                {   1.0,  -4.0,   1.0 },
-                {   0.0,   1.0,   0.0 }
+            return new Kernel(3, 3, new float[] {
+                 0.0f,  1.0f,  0.0f,
+                 1.0f, -4.0f,  1.0f,
+                 0.0f,  1.0f,  0.0f
             });
             //@formatter:on
         }
 
         @Override
-        protected Matrix getMatrixKernelY() {
-            return LAPLACIAN.getMatrixKernelX();
+        protected Kernel getKernelY() {
+            return LAPLACIAN.getKernelX();
         }
     };
 
-    protected abstract Matrix getMatrixKernelX();
+    protected abstract Kernel getKernelX();
 
-    protected abstract Matrix getMatrixKernelY();
+    protected abstract Kernel getKernelY();
 }
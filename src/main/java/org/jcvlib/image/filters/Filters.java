@@ -18,13 +18,21 @@
  */
 package org.jcvlib.image.filters;
 
+import java.text.MessageFormat;
+import java.util.Arrays;
+
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.FloatImage;
 import org.jcvlib.core.Histogram;
 import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
 import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
 import org.jcvlib.core.Point;
 import org.jcvlib.core.Size;
+import org.jcvlib.parallel.ExecutionContext;
+import org.jcvlib.parallel.Parallel;
 
 import Jama.Matrix;
 
@@ -40,6 +48,11 @@ public class Filters {
      */
     private static final double sigmaSizeCoeff = 6.0;
 
+    /**
+     * Number of neighbor columns that are processed together by recursive filters by Y.
+     */
+    private static final int recursiveStripWidth = 32;
+
     /**
      * Convolves an image with the kernel. Common-used method for apply linear matrix filter.
      * <p>
@@ -93,10 +106,25 @@ public class Filters {
      */
     public static Image linearFilter(final Image image, final Matrix kernel, final double div, final double offset,
             final Extrapolation extrapolation) {
+        final Image result = image.makeSame();
+
+        Filters.linearFilter(image, result, kernel, div, offset, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #linearFilter(Image, Matrix, double, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void linearFilter(final Image image, final Image result, final Matrix kernel, final double div,
+            final double offset, final Extrapolation extrapolation) {
         /*
          * Verify parameters.
          */
-        JCV.verifyIsNotNull(image);
         JCV.verifyIsNotNull(kernel);
         JCV.verifyOddSize(kernel.getColumnDimension());
         JCV.verifyOddSize(kernel.getRowDimension());
@@ -104,18 +132,55 @@ public class Filters {
         /*
          * Perform transformation.
          */
+        Filters.linearFilter(image, result, Kernel.fromMatrix(kernel), div, offset, extrapolation);
+    }
+
+    /**
+     * Same as {@link #linearFilter(Image, Matrix, double, double, Extrapolation)}, but uses {@link Kernel}. Anchor of
+     * kernel defines position of filtered point, so kernel can have any size.
+     */
+    public static Image linearFilter(final Image image, final Kernel kernel, final double div, final double offset,
+            final Extrapolation extrapolation) {
         final Image result = image.makeSame();
 
-        image.noneLinearFilter(result, kernel.getColumnDimension(), kernel.getRowDimension(),
-                JCV.calculateCenter(kernel.getColumnDimension(), kernel.getRowDimension()), 1, extrapolation,
+        Filters.linearFilter(image, result, kernel, div, offset, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #linearFilter(Image, Kernel, double, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void linearFilter(final Image image, final Image result, final Kernel kernel, final double div,
+            final double offset, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(kernel);
+
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Perform transformation.
+         */
+        if (FourierConvolution.isPreferred(kernel)) {
+            FourierConvolution.linearFilter(image, result, kernel, div, offset, extrapolation);
+            return;
+        }
+
+        image.noneLinearFilter(result, kernel.getWidth(), kernel.getHeight(), kernel.getAnchor(), 1, extrapolation,
                 (aperture, result1) -> {
-                    final double[] sum = aperture.convolve(kernel);
                     for (int channel = 0; channel < result1.getNumOfChannels(); ++channel) {
-                        result1.set(channel, JCV.round(sum[channel] / div + offset));
+                        result1.set(channel, JCV.round(aperture.convolveUnsafe(kernel, channel) / div + offset));
                     }
                 });
-
-        return result;
     }
 
     /**
@@ -140,11 +205,228 @@ public class Filters {
      */
     public static Image separableFilter(final Image image, final Matrix kernelFirst, final Matrix kernelSecond,
             final double div, final double offset, final Extrapolation extrapolation) {
-        // First iteration.
-        final Image result = Filters.linearFilter(image, kernelFirst, div, offset, extrapolation);
+        final Image result = image.makeSame();
+
+        Filters.separableFilter(image, result, kernelFirst, kernelSecond, div, offset, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #separableFilter(Image, Matrix, Matrix, double, double, Extrapolation)}, but put result into
+     * given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void separableFilter(final Image image, final Image result, final Matrix kernelFirst,
+            final Matrix kernelSecond, final double div, final double offset, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(kernelFirst);
+        JCV.verifyIsNotNull(kernelSecond);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Perform transformation.
+         */
+        final Matrix kernelX;
+        final Matrix kernelY;
+        if (kernelFirst.getRowDimension() == 1 && kernelSecond.getColumnDimension() == 1) {
+            kernelX = kernelFirst;
+            kernelY = kernelSecond;
+        } else if (kernelFirst.getColumnDimension() == 1 && kernelSecond.getRowDimension() == 1) {
+            kernelX = kernelSecond;
+            kernelY = kernelFirst;
+        } else {
+            // Kernels are not 1-D vectors: apply them one by one.
+            final ImagePool pool = ImagePool.getDefault();
+            final Image temp = pool.acquireSame(image);
+
+            // First iteration.
+            Filters.linearFilter(image, temp, kernelFirst, div, offset, extrapolation);
+
+            // Second iteration.
+            Filters.linearFilter(temp, result, kernelSecond, div, offset, extrapolation);
+
+            pool.release(temp);
+            return;
+        }
+        JCV.verifyOddSize(kernelX.getColumnDimension());
+        JCV.verifyOddSize(kernelY.getRowDimension());
+
+        /*
+         * Both steps are performed without rounding between them:
+         *     (K2 * ((K1 * I) / div + offset)) / div + offset =
+         *         = (K1 * K2 * I) / div^2 + offset * sum(K2) / div + offset
+         */
+        final float[] valuesX = Kernel.fromMatrix(kernelX).getValues();
+        final float[] valuesY = Kernel.fromMatrix(kernelY).getValues();
+
+        double sumSecond = 0.0;
+        for (final float value : kernelSecond == kernelX ? valuesX : valuesY) {
+            sumSecond += value;
+        }
+
+        Filters.separableFilter(image, result, valuesX, (valuesX.length - 1) / 2, valuesY, (valuesY.length - 1) / 2,
+                1.0 / (div * div), offset * sumSecond / div + offset, extrapolation);
+    }
+
+    /**
+     * Same as {@link #linearFilter(Image, Kernel, double, double, Extrapolation)}, but kernel should be separable (see
+     * {@link Kernel#isSeparable()}) and image is processed by two 1-D passes: horizontal and vertical. It takes
+     * <code>O(width + height)</code> operations per pixel instead of <code>O(width * height)</code>.
+     * <p>
+     * Result can differ from {@link #linearFilter(Image, Kernel, double, double, Extrapolation)} by rounding error.
+     * </p>
+     */
+    public static Image separableFilter(final Image image, final Kernel kernel, final double div, final double offset,
+            final Extrapolation extrapolation) {
+        final Image result = image.makeSame();
+
+        Filters.separableFilter(image, result, kernel, div, offset, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #separableFilter(Image, Kernel, double, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void separableFilter(final Image image, final Image result, final Kernel kernel, final double div,
+            final double offset, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(kernel);
+        JCV.verifyIsNotNull(extrapolation);
+        if (!kernel.isSeparable()) {
+            throw new IllegalArgumentException("Kernel " + kernel.toString() + " is not separable!");
+        }
+
+        /*
+         * Perform transformation.
+         */
+        Filters.separableFilter(image, result, kernel.getSeparableX(), kernel.getAnchor().getX(),
+                kernel.getSeparableY(), kernel.getAnchor().getY(), 1.0 / div, offset, extrapolation);
+    }
+
+    /**
+     * Separable filter engine: <code>result = scale * (kernelY * (kernelX * image)) + offset</code>.
+     * <p>
+     * First pass convolves each row with <code>kernelX</code> into <code>float</code> row buffers (border values are
+     * taken from {@link Extrapolation#translatePositions(int, int, int)}). Second pass sums buffers of neighbor rows
+     * with weights from <code>kernelY</code>. Buffers of rows are kept into ring of <code>kernelY.length</code> rows
+     * for each worker, so memory does not depend on height of image. Intermediate values are never rounded or
+     * truncated. If source and result are same image, result is written into pooled image and then copied.
+     * </p>
+     */
+    private static void separableFilter(final Image image, final Image result, final float[] kernelX,
+            final int anchorX, final float[] kernelY, final int anchorY, final double scale, final double offset,
+            final Extrapolation extrapolation) {
+        final int numOfChannels = image.getNumOfChannels();
+        final int rowLength = image.getWidth() * numOfChannels;
+
+        final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelX.length, anchorX);
+        final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelY.length, anchorY);
+
+        // Buffers for each worker. Ring contains results of horizontal pass for extended rows from y to
+        // (y + kernelY.length - 1), so each row is convolved once for continuous chunk of rows of worker.
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+        final float[][] extendRows = new float[context.getNumOfWorkers()][mapX.length * numOfChannels];
+        final float[][][] rings = new float[context.getNumOfWorkers()][kernelY.length][rowLength];
+        final int[][] ringRows = new int[context.getNumOfWorkers()][kernelY.length];
+        final float[][] sumRows = new float[context.getNumOfWorkers()][rowLength];
+        final int[][] resultRows = new int[context.getNumOfWorkers()][rowLength];
+        for (final int[] ringRow : ringRows) {
+            Arrays.fill(ringRow, -1);
+        }
+
+        final ImagePool pool = ImagePool.getDefault();
+        final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+        context.rows(target, (y, worker) -> {
+            final float[][] ring = rings[worker];
+            final int[] ringRow = ringRows[worker];
+            final float[] sumRow = sumRows[worker];
+            final int[] resultRow = resultRows[worker];
+            Arrays.fill(sumRow, 0.0f);
+
+            // Vertical pass over rows of horizontal pass.
+            for (int j = 0; j < kernelY.length; ++j) {
+                if (mapY[y + j] < 0) {
+                    continue;
+                }
+
+                final float k = kernelY[j];
+                final float[] row = ring[Filters.loadConvolved(image, kernelX, mapX, mapY, y + j, sourceRows[worker],
+                        extendRows[worker], ringRow, ring)];
+                for (int pos = 0; pos < rowLength; ++pos) {
+                    sumRow[pos] += k * row[pos];
+                }
+            }
+
+            for (int pos = 0; pos < rowLength; ++pos) {
+                resultRow[pos] = JCV.round(scale * sumRow[pos] + offset);
+            }
+            target.setRow(y, resultRow);
+        });
+
+        if (target != result) {
+            target.copyTo(result);
+            pool.release(target);
+        }
+    }
+
+    /**
+     * Return position into ring of results of horizontal pass for given row of extended image (row should be inside
+     * of source image). Row is convolved only if ring does not contain it.
+     * <p>
+     * Used into {@link #separableFilter(Image, Image, float[], int, float[], int, double, double, Extrapolation)}.
+     * </p>
+     */
+    private static int loadConvolved(final Image image, final float[] kernelX, final int[] mapX, final int[] mapY,
+            final int row, final int[] sourceRow, final float[] extendRow, final int[] ringRows, final float[][] ring) {
+        final int slot = row % ringRows.length;
+        if (ringRows[slot] == row) {
+            return slot;
+        }
+        ringRows[slot] = row;
+
+        // Extend row by border values.
+        final int numOfChannels = image.getNumOfChannels();
+        image.getRow(mapY[row], sourceRow);
+        for (int i = 0; i < mapX.length; ++i) {
+            final int x = mapX[i];
+            for (int channel = 0; channel < numOfChannels; ++channel) {
+                extendRow[numOfChannels * i + channel] = x < 0 ? 0.0f : sourceRow[numOfChannels * x + channel];
+            }
+        }
+
+        // Convolve.
+        final float[] convolved = ring[slot];
+        Arrays.fill(convolved, 0.0f);
+        for (int i = 0; i < kernelX.length; ++i) {
+            final float k = kernelX[i];
+            final int shift = numOfChannels * i;
+            for (int pos = 0; pos < convolved.length; ++pos) {
+                convolved[pos] += k * extendRow[shift + pos];
+            }
+        }
 
-        // Second iteration.
-        return Filters.linearFilter(result, kernelSecond, div, offset, extrapolation);
+        return slot;
     }
 
     /**
@@ -170,9 +452,30 @@ public class Filters {
      */
     public static Image threshold(final Image image, final int threshold, final Threshold thresholdMethod,
             final int maxVal) {
+        final Image result = image.makeSame();
+
+        Filters.threshold(image, result, threshold, thresholdMethod, maxVal);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #threshold(Image, int, Threshold, int)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void threshold(final Image image, final Image result, final int threshold,
+            final Threshold thresholdMethod, final int maxVal) {
         /*
          * Verify parameters.
          */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(thresholdMethod);
+
         if (threshold < Color.MIN_VALUE || threshold > Color.MAX_VALUE) {
             throw new IllegalArgumentException(
                     "Parameter 'threshold' (=" + Double.toString(threshold) + ") must be in interval ["
@@ -188,11 +491,12 @@ public class Filters {
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
-        result.foreach(value -> thresholdMethod.run(value, threshold, maxVal));
-
-        return result;
+        Parallel.pixels(image, (x, y, worker) -> {
+            for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                result.setUnsafe(x, y, channel,
+                        thresholdMethod.run(image.getUnsafe(x, y, channel), threshold, maxVal));
+            }
+        });
     }
 
     /**
@@ -203,6 +507,15 @@ public class Filters {
         return Filters.threshold(image, threshold, thresholdMethod, Color.MAX_VALUE);
     }
 
+    /**
+     * Same as {@link #threshold(Image, Image, int, Threshold, int)}, but uses {@link Color#MAX_VALUE} as default
+     * maximal value.
+     */
+    public static void threshold(final Image image, final Image result, final int threshold,
+            final Threshold thresholdMethod) {
+        Filters.threshold(image, result, threshold, thresholdMethod, Color.MAX_VALUE);
+    }
+
     /**
      * Adaptive threshold.
      * <p>
@@ -227,11 +540,31 @@ public class Filters {
      */
     public static Image adapriveThreshold(final Image image, final int blockSize,
             final ThresholdAdaptive thresholdMethod, final int C, final int maxVal) {
+        final Image result = image.makeSame();
+
+        Filters.adapriveThreshold(image, result, blockSize, thresholdMethod, C, maxVal);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #adapriveThreshold(Image, int, ThresholdAdaptive, int, int)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void adapriveThreshold(final Image image, final Image result, final int blockSize,
+            final ThresholdAdaptive thresholdMethod, final int C, final int maxVal) {
         /*
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(thresholdMethod);
 
+        JCV.verifyOddSize(blockSize);
         if (C < Color.MIN_VALUE || C > Color.MAX_VALUE) {
             throw new IllegalArgumentException(String.format("Parameter 'C' (=%s) should be in interval 0..255!", C));
         }
@@ -239,41 +572,36 @@ public class Filters {
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
-
-        final Point apertureCenter = JCV.calculateCenter(blockSize, blockSize);
-        image.noneLinearFilter(result, blockSize, blockSize, apertureCenter, 1, Extrapolation.REPLICATE,
-                (aperture, result1) -> {
-                    for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
-                        /*
-                         * Find threshold value.
-                         */
-                        int sum = 0;
-                        for (int x = 0; x < aperture.getWidth(); ++x) {
-                            for (int y = 0; y < aperture.getHeight(); ++y) {
-                                sum += aperture.get(x, y, channel)
-                                        * thresholdMethod.getMatrixCoeff(blockSize).get(y, x);
-                            }
-                        }
-
-                        /*
-                         * Apply threshold.
-                         */
-                        int threshold = sum - C;
-                        if (threshold < Color.MIN_VALUE) {
-                            threshold = Color.MIN_VALUE;
-                        }
-                        if (threshold > Color.MAX_VALUE) {
-                            threshold = Color.MAX_VALUE;
-                        }
-
-                        final int val = aperture.get(apertureCenter.getX(), apertureCenter.getY(), channel);
+        // Mean values are calculated for whole image at once by fast blur.
+        final ImagePool pool = ImagePool.getDefault();
+        final Image mean = pool.acquireSame(image);
+        thresholdMethod.calculateMean(image, mean, blockSize);
+
+        // If source and result images share same source, rows of result are saved into image with mean values.
+        final Image target = image.isSameSource(result) ? mean : result;
+        final Threshold threshold = thresholdMethod.getThresholdMethod();
+        final int rowLength = image.getWidth() * image.getNumOfChannels();
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] rows = new int[context.getNumOfWorkers()][rowLength];
+        final int[][] means = new int[context.getNumOfWorkers()][rowLength];
+        context.rows(image, (y, worker) -> {
+            final int[] row = rows[worker];
+            final int[] meanRow = means[worker];
+            image.getRow(y, row);
+            mean.getRow(y, meanRow);
+
+            for (int i = 0; i < rowLength; ++i) {
+                final int thresholdValue = Math.max(meanRow[i] - C, Color.MIN_VALUE);
+                row[i] = threshold.run(row[i], thresholdValue, maxVal);
+            }
 
-                        result1.set(channel, thresholdMethod.getThresholdMethod().run(val, threshold, maxVal));
-                    }
-                });
+            target.setRow(y, row);
+        });
 
-        return result;
+        if (target != result) {
+            target.copyTo(result);
+        }
+        pool.release(mean);
     }
 
     /**
@@ -285,6 +613,15 @@ public class Filters {
         return Filters.adapriveThreshold(image, blockSize, thresholdMethod, C, Color.MAX_VALUE);
     }
 
+    /**
+     * Same as {@link #adapriveThreshold(Image, Image, int, ThresholdAdaptive, int, int)}, but uses
+     * {@link Color#MAX_VALUE} as default maximal value.
+     */
+    public static void adapriveThreshold(final Image image, final Image result, final int blockSize,
+            final ThresholdAdaptive thresholdMethod, final int C) {
+        Filters.adapriveThreshold(image, result, blockSize, thresholdMethod, C, Color.MAX_VALUE);
+    }
+
     /**
      * Calculate value for threshold by Otsu method.
      * <p>
@@ -386,10 +723,40 @@ public class Filters {
      */
     public static Image gradientFilter(final Image image, final Matrix derivativeX, final Matrix derivativeY,
             final double scale, final Extrapolation extrapolation) {
+        final Image result = image.makeSame();
+
+        Filters.gradientFilter(image, result, derivativeX, derivativeY, scale, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #gradientFilter(Image, Matrix, Matrix, double, Extrapolation)}, but uses {@link Kernel}.
+     */
+    public static Image gradientFilter(final Image image, final Kernel derivativeX, final Kernel derivativeY,
+            final double scale, final Extrapolation extrapolation) {
+        final Image result = image.makeSame();
+
+        Filters.gradientFilter(image, result, derivativeX, derivativeY, scale, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #gradientFilter(Image, Matrix, Matrix, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void gradientFilter(final Image image, final Image result, final Matrix derivativeX,
+            final Matrix derivativeY, final double scale, final Extrapolation extrapolation) {
         /*
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
         JCV.verifyIsSameSize(derivativeX, derivativeY);
         JCV.verifyOddSize(derivativeX.getColumnDimension());
         JCV.verifyOddSize(derivativeX.getRowDimension());
@@ -397,22 +764,243 @@ public class Filters {
         /*
          * Perform transformation.
          */
-        final Image result = image.makeSame();
+        Filters.gradientFilter(image, result, Kernel.fromMatrix(derivativeX), Kernel.fromMatrix(derivativeY), scale,
+                extrapolation);
+    }
 
-        image.noneLinearFilter(result, derivativeX.getColumnDimension(), derivativeX.getRowDimension(),
-                JCV.calculateCenter(derivativeX.getColumnDimension(), derivativeX.getRowDimension()), 1, extrapolation,
-                (aperture, result1) -> {
-                    final double[] Gx = aperture.convolve(derivativeX);
-                    final double[] Gy = aperture.convolve(derivativeY);
+    /**
+     * Same as {@link #gradientFilter(Image, Kernel, Kernel, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void gradientFilter(final Image image, final Image result, final Kernel derivativeX,
+            final Kernel derivativeY, final double scale, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(derivativeX);
+        JCV.verifyIsNotNull(derivativeY);
+        if (!derivativeX.getSize().equals(derivativeY.getSize())
+                || !derivativeX.getAnchor().equals(derivativeY.getAnchor())) {
+            throw new IllegalArgumentException(
+                    "Kernels 'derivativeX' and 'derivativeY' should have same size and anchor!");
+        }
 
-                    for (int channel = 0; channel < result1.getNumOfChannels(); ++channel) {
-                        // Calculate 'G' and multiply to scale parameter.
-                        result1.set(channel,
-                                JCV.round(scale * Math.sqrt(Gx[channel] * Gx[channel] + Gy[channel] * Gy[channel])));
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Perform transformation.
+         */
+        Filters.gradient(image, result, null, derivativeX, derivativeY, GradientMagnitude.L2, scale, extrapolation);
+    }
+
+    /**
+     * Same as {@link #gradientFilter(Image, Image, Kernel, Kernel, double, Extrapolation)}, but uses given method to
+     * calculate magnitude of gradient and also put direction of gradient into given image.
+     *
+     * @param magnitude
+     *            Image for magnitude of gradient. Should have same size and number of channels as a source image. Can
+     *            be a sub-image or same image as a source.
+     * @param direction
+     *            Image for direction of gradient: angle of vector <code>(Gx, Gy)</code> in radians from interval
+     *            <code>[-PI, PI]</code> (see {@link Math#atan2(double, double)}). Should have same size and number of
+     *            channels as a source image.
+     * @param magnitudeMethod
+     *            Method to calculate magnitude of gradient.
+     */
+    public static void gradientFilter(final Image image, final Image magnitude, final FloatImage direction,
+            final Kernel derivativeX, final Kernel derivativeY, final GradientMagnitude magnitudeMethod,
+            final double scale, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, magnitude);
+        JCV.verifyIsSameChannels(image, magnitude);
+        JCV.verifyIsNotNull(direction);
+        if (direction.getWidth() != image.getWidth() || direction.getHeight() != image.getHeight()
+                || direction.getNumOfChannels() != image.getNumOfChannels()) {
+            throw new IllegalArgumentException(
+                    "Image 'direction' should have same size and number of channels as a source image!");
+        }
+        JCV.verifyIsNotNull(derivativeX);
+        JCV.verifyIsNotNull(derivativeY);
+        if (!derivativeX.getSize().equals(derivativeY.getSize())
+                || !derivativeX.getAnchor().equals(derivativeY.getAnchor())) {
+            throw new IllegalArgumentException(
+                    "Kernels 'derivativeX' and 'derivativeY' should have same size and anchor!");
+        }
+        JCV.verifyIsNotNull(magnitudeMethod);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Perform transformation.
+         */
+        Filters.gradient(image, magnitude, direction, derivativeX, derivativeY, magnitudeMethod, scale,
+                extrapolation);
+    }
+
+    /**
+     * Calculate magnitude (and direction, if <code>direction</code> is not <code>null</code>) of gradient by one pass
+     * over source image.
+     * <p>
+     * Only non-zero values of kernels are used and both derivatives are accumulated by rows together. Extended source
+     * rows are saved into ring buffer, so each source row is read only once for each worker. Integer kernels (as all
+     * kernels of {@link EdgeDetect}) are processed by <code>int</code> arithmetic.
+     * </p>
+     */
+    private static void gradient(final Image image, final Image magnitude, final FloatImage direction,
+            final Kernel derivativeX, final Kernel derivativeY, final GradientMagnitude magnitudeMethod,
+            final double scale, final Extrapolation extrapolation) {
+        final int numOfChannels = image.getNumOfChannels();
+        final int rowLength = image.getWidth() * numOfChannels;
+        final int kernelWidth = derivativeX.getWidth();
+        final int kernelHeight = derivativeX.getHeight();
+        final Point anchor = derivativeX.getAnchor();
+
+        // Non-zero positions of kernels.
+        final float[] valuesX = derivativeX.getValues();
+        final float[] valuesY = derivativeY.getValues();
+        final int[] intValuesX = derivativeX.getIntValues();
+        final int[] intValuesY = derivativeY.getIntValues();
+        final int[] tapRows = new int[valuesX.length];
+        final int[] tapOffsets = new int[valuesX.length];
+        final int[] tapIndexes = new int[valuesX.length];
+        int numOfTaps = 0;
+        long sumX = 0;
+        long sumY = 0;
+        for (int i = 0; i < valuesX.length; ++i) {
+            if (valuesX[i] != 0.0f || valuesY[i] != 0.0f) {
+                tapRows[numOfTaps] = i / kernelWidth;
+                tapOffsets[numOfTaps] = numOfChannels * (i % kernelWidth);
+                tapIndexes[numOfTaps] = i;
+                ++numOfTaps;
+            }
+            sumX += Math.abs((long) intValuesX[i]);
+            sumY += Math.abs((long) intValuesY[i]);
+        }
+        final int taps = numOfTaps;
+        // Integer sums should not overflow.
+        final boolean isInteger = derivativeX.isInteger() && derivativeY.isInteger()
+                && Math.max(sumX, sumY) * Color.MAX_VALUE <= Integer.MAX_VALUE;
+
+        final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelWidth, anchor.getX());
+        final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelHeight, anchor.getY());
+
+        // Buffers for each worker.
+        final int lineLength = mapX.length * numOfChannels;
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+        final int[][][] rings = new int[context.getNumOfWorkers()][kernelHeight][lineLength];
+        final int[][] tags = new int[context.getNumOfWorkers()][kernelHeight];
+        final int[][] intsX = new int[context.getNumOfWorkers()][isInteger ? rowLength : 0];
+        final int[][] intsY = new int[context.getNumOfWorkers()][isInteger ? rowLength : 0];
+        final double[][] doublesX = new double[context.getNumOfWorkers()][isInteger ? 0 : rowLength];
+        final double[][] doublesY = new double[context.getNumOfWorkers()][isInteger ? 0 : rowLength];
+        final int[][] magnitudeRows = new int[context.getNumOfWorkers()][rowLength];
+        final float[][] directionRows = new float[context.getNumOfWorkers()][direction == null ? 0 : rowLength];
+        for (final int[] tag : tags) {
+            Arrays.fill(tag, -1);
+        }
+
+        final ImagePool pool = ImagePool.getDefault();
+        final Image target = image.isSameSource(magnitude) ? pool.acquireSame(magnitude) : magnitude;
+
+        context.rows(target, (y, worker) -> {
+            final int[][] ring = rings[worker];
+            final int[] magnitudeRow = magnitudeRows[worker];
+            final float[] directionRow = directionRows[worker];
+
+            // Extend source rows by border values.
+            for (int t = 0; t < taps; ++t) {
+                final int i = y + tapRows[t];
+                final int slot = i % kernelHeight;
+                if (tags[worker][slot] != i) {
+                    final int[] line = ring[slot];
+                    if (mapY[i] < 0) {
+                        Arrays.fill(line, Color.MIN_VALUE);
+                    } else {
+                        final int[] sourceRow = sourceRows[worker];
+                        image.getRow(mapY[i], sourceRow);
+                        for (int j = 0; j < mapX.length; ++j) {
+                            final int x = mapX[j];
+                            for (int channel = 0; channel < numOfChannels; ++channel) {
+                                line[numOfChannels * j + channel] = x < 0 ? Color.MIN_VALUE
+                                        : sourceRow[numOfChannels * x + channel];
+                            }
+                        }
                     }
-                });
+                    tags[worker][slot] = i;
+                }
+            }
 
-        return result;
+            if (isInteger) {
+                final int[] gx = intsX[worker];
+                final int[] gy = intsY[worker];
+                Arrays.fill(gx, 0);
+                Arrays.fill(gy, 0);
+                for (int t = 0; t < taps; ++t) {
+                    final int[] line = ring[(y + tapRows[t]) % kernelHeight];
+                    final int offset = tapOffsets[t];
+                    final int wx = intValuesX[tapIndexes[t]];
+                    final int wy = intValuesY[tapIndexes[t]];
+                    if (wx != 0) {
+                        for (int k = 0; k < rowLength; ++k) {
+                            gx[k] += wx * line[k + offset];
+                        }
+                    }
+                    if (wy != 0) {
+                        for (int k = 0; k < rowLength; ++k) {
+                            gy[k] += wy * line[k + offset];
+                        }
+                    }
+                }
+
+                magnitudeMethod.calculate(gx, gy, scale, magnitudeRow);
+                if (direction != null) {
+                    for (int k = 0; k < rowLength; ++k) {
+                        directionRow[k] = (float) Math.atan2(gy[k], gx[k]);
+                    }
+                }
+            } else {
+                final double[] gx = doublesX[worker];
+                final double[] gy = doublesY[worker];
+                Arrays.fill(gx, 0.0);
+                Arrays.fill(gy, 0.0);
+                for (int t = 0; t < taps; ++t) {
+                    final int[] line = ring[(y + tapRows[t]) % kernelHeight];
+                    final int offset = tapOffsets[t];
+                    final double wx = valuesX[tapIndexes[t]];
+                    final double wy = valuesY[tapIndexes[t]];
+                    for (int k = 0; k < rowLength; ++k) {
+                        gx[k] += wx * line[k + offset];
+                        gy[k] += wy * line[k + offset];
+                    }
+                }
+
+                magnitudeMethod.calculate(gx, gy, scale, magnitudeRow);
+                if (direction != null) {
+                    for (int k = 0; k < rowLength; ++k) {
+                        directionRow[k] = (float) Math.atan2(gy[k], gx[k]);
+                    }
+                }
+            }
+
+            target.setRow(y, magnitudeRow);
+            if (direction != null) {
+                direction.setRow(y, directionRow);
+            }
+        });
+
+        if (target != magnitude) {
+            target.copyTo(magnitude);
+            pool.release(target);
+        }
     }
 
     /**
@@ -440,13 +1028,76 @@ public class Filters {
      */
     public static Image edgeDetection(final Image image, final EdgeDetect edgeDetectionMethod, final double scale,
             final Extrapolation extrapolation) {
-        return Filters.gradientFilter(image, edgeDetectionMethod.getMatrixKernelX(),
-                edgeDetectionMethod.getMatrixKernelY(), scale, extrapolation);
+        final Image result = image.makeSame();
+
+        Filters.edgeDetection(image, result, edgeDetectionMethod, scale, extrapolation);
+
+        return result;
     }
 
     /**
-     * Same {@link #edgeDetection(Image, EdgeDetect, double, Extrapolation)}, but uses <code>1.0</code> as default scale
-     * and {@link Extrapolation#REFLECT} as default extrapolation method.
+     * Same as {@link #edgeDetection(Image, EdgeDetect, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void edgeDetection(final Image image, final Image result, final EdgeDetect edgeDetectionMethod,
+            final double scale, final Extrapolation extrapolation) {
+        JCV.verifyIsNotNull(edgeDetectionMethod);
+
+        Filters.gradientFilter(image, result, edgeDetectionMethod.getKernelX(), edgeDetectionMethod.getKernelY(),
+                scale, extrapolation);
+    }
+
+    /**
+     * Same as {@link #edgeDetection(Image, Image, EdgeDetect, double, Extrapolation)}, but uses given method to
+     * calculate magnitude of gradient.
+     *
+     * @param magnitudeMethod
+     *            Method to calculate magnitude of gradient. {@link GradientMagnitude#L1} is faster, but depends on
+     *            direction of edges.
+     */
+    public static void edgeDetection(final Image image, final Image result, final EdgeDetect edgeDetectionMethod,
+            final GradientMagnitude magnitudeMethod, final double scale, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(edgeDetectionMethod);
+        JCV.verifyIsNotNull(magnitudeMethod);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Perform transformation.
+         */
+        Filters.gradient(image, result, null, edgeDetectionMethod.getKernelX(), edgeDetectionMethod.getKernelY(),
+                magnitudeMethod, scale, extrapolation);
+    }
+
+    /**
+     * Same as {@link #edgeDetection(Image, Image, EdgeDetect, GradientMagnitude, double, Extrapolation)}, but also put
+     * direction of gradient into given image.
+     *
+     * @param direction
+     *            Image for direction of gradient: angle of vector <code>(Gx, Gy)</code> in radians from interval
+     *            <code>[-PI, PI]</code> (see {@link Math#atan2(double, double)}). Should have same size and number of
+     *            channels as a source image.
+     */
+    public static void edgeDetection(final Image image, final Image magnitude, final FloatImage direction,
+            final EdgeDetect edgeDetectionMethod, final GradientMagnitude magnitudeMethod, final double scale,
+            final Extrapolation extrapolation) {
+        JCV.verifyIsNotNull(edgeDetectionMethod);
+
+        Filters.gradientFilter(image, magnitude, direction, edgeDetectionMethod.getKernelX(),
+                edgeDetectionMethod.getKernelY(), magnitudeMethod, scale, extrapolation);
+    }
+
+    /**
+     * Same {@link #edgeDetection(Image, EdgeDetect, double, Extrapolation)}, but uses <code>1.0</code> as default scale
+     * and {@link Extrapolation#REFLECT} as default extrapolation method.
      */
     public static Image edgeDetection(final Image image, final EdgeDetect edgeDetectionMethod) {
         return Filters.edgeDetection(image, edgeDetectionMethod, 1.0, Extrapolation.REFLECT);
@@ -461,6 +1112,15 @@ public class Filters {
         return Filters.edgeDetection(image, EdgeDetect.SOBEL, 1.0, Extrapolation.REFLECT);
     }
 
+    /**
+     * Same {@link #edgeDetection(Image, Image, EdgeDetect, double, Extrapolation)}, but uses {@link EdgeDetect#SOBEL}
+     * as default edge detection method, <code>1.0</code> as default scale and {@link Extrapolation#REFLECT} as default
+     * extrapolation method.
+     */
+    public static void edgeDetection(final Image image, final Image result) {
+        Filters.edgeDetection(image, result, EdgeDetect.SOBEL, 1.0, Extrapolation.REFLECT);
+    }
+
     /**
      * Discrete Laplace operator.
      * <p>
@@ -479,8 +1139,22 @@ public class Filters {
      *         image.
      */
     public static Image laplacian(final Image image, final Extrapolation extrapolation) {
-        return Filters.linearFilter(image, EdgeDetect.LAPLACIAN.getMatrixKernelX(), -1.0, Color.MIN_VALUE,
-                extrapolation);
+        final Image result = image.makeSame();
+
+        Filters.laplacian(image, result, extrapolation);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #laplacian(Image, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void laplacian(final Image image, final Image result, final Extrapolation extrapolation) {
+        Filters.linearFilter(image, result, EdgeDetect.LAPLACIAN.getKernelX(), -1.0, Color.MIN_VALUE, extrapolation);
     }
 
     /**
@@ -504,11 +1178,26 @@ public class Filters {
      * Invert values into image: each value V invert to <code>({@link Color#MAX_VALUE} - V)</code>.
      */
     public static Image invert(final Image image) {
-        final Matrix invertKernel = new Matrix(new double[][] { { -1.0 } });
+        final Image result = image.makeSame();
+
+        Filters.invert(image, result);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #invert(Image)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void invert(final Image image, final Image result) {
+        final Kernel invertKernel = new Kernel(1, 1, new float[] { -1.0f });
         final double div = 1.0;
         final double offset = Color.MAX_VALUE;
 
-        return Filters.linearFilter(image, invertKernel, div, offset, Extrapolation.REFLECT);
+        Filters.linearFilter(image, result, invertKernel, div, offset, Extrapolation.REFLECT);
     }
 
     /**
@@ -613,6 +1302,22 @@ public class Filters {
      */
     public static Image gaussianBlur(final Image image, final Size kernelSize, final double sigmaX, final double sigmaY,
             final Extrapolation extrapolationMethod) {
+        final Image result = image.makeSame();
+
+        Filters.gaussianBlur(image, result, kernelSize, sigmaX, sigmaY, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #gaussianBlur(Image, Size, double, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void gaussianBlur(final Image image, final Image result, final Size kernelSize, final double sigmaX,
+            final double sigmaY, final Extrapolation extrapolationMethod) {
         /*
          * Verify parameters.
          */
@@ -621,12 +1326,249 @@ public class Filters {
         /*
          * Perform transformation.
          */
-        final Matrix gaussianKernelX = Filters.getGaussianKernel(kernelSize.getWidth(), sigmaX);
-        final Matrix gaussianKernelY = Filters.getGaussianKernel(kernelSize.getHeight(), sigmaY).transpose();
+        final Matrix gaussianKernelX = Filters.getGaussianKernel(kernelSize.getWidth(), sigmaX).transpose();
+        final Matrix gaussianKernelY = Filters.getGaussianKernel(kernelSize.getHeight(), sigmaY);
         final double div = 1.0;
         final double offset = Color.MIN_VALUE;
 
-        return Filters.separableFilter(image, gaussianKernelX, gaussianKernelY, div, offset, extrapolationMethod);
+        Filters.separableFilter(image, result, gaussianKernelX, gaussianKernelY, div, offset, extrapolationMethod);
+    }
+
+    /**
+     * Recursive (IIR) Gaussian blur. Image is processed by forward and backward recursive filters of 3rd order by X and
+     * by Y, so it takes <code>O(1)</code> operations per pixel for any <code>sigma</code>. Result approximates
+     * convolution with Gaussian kernel.
+     * <p>
+     * Border values are extended by given extrapolation method on <code>3 * sigma</code> pixels (but not more than
+     * size of image) before filtering.
+     * </p>
+     * <p>
+     * Columns are filtered first by strips with fixed width and rounded result is kept into result image, then rows
+     * are filtered in place. So besides result only buffers for one row and one strip per worker are used, and
+     * result can be memory-mapped image larger than the Java heap.
+     * </p>
+     * <p>
+     * <h6>Links:</h6>
+     * <ol>
+     * <li><a href="https://doi.org/10.1016/0165-1684(95)00020-E">I.T. Young, L.J. van Vliet. Recursive implementation
+     * of the Gaussian filter</a>.</li>
+     * </ol>
+     * </p>
+     *
+     * @param image
+     *            Source image.
+     * @param sigmaX
+     *            Standard deviation by X dimension. Values less than <code>0.5</code> means no blur by X.
+     * @param sigmaY
+     *            Standard deviation by Y dimension. Values less than <code>0.5</code> means no blur by Y.
+     * @param extrapolationMethod
+     *            Extrapolation method.
+     * @return Image with result of applying Gaussian blur filter. Have same size, number of channels and type as a
+     *         source image.
+     */
+    public static Image gaussianBlurRecursive(final Image image, final double sigmaX, final double sigmaY,
+            final Extrapolation extrapolationMethod) {
+        final Image result = image.makeSame();
+
+        Filters.gaussianBlurRecursive(image, result, sigmaX, sigmaY, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #gaussianBlurRecursive(Image, double, double, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void gaussianBlurRecursive(final Image image, final Image result, final double sigmaX,
+            final double sigmaY, final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(extrapolationMethod);
+        if (Double.isNaN(sigmaX) || Double.isNaN(sigmaY)) {
+            throw new IllegalArgumentException("Parameters 'sigmaX' and 'sigmaY' should be numbers!");
+        }
+
+        /*
+         * Perform transformation.
+         */
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int numOfChannels = image.getNumOfChannels();
+
+        final double[] coeffX = Filters.getRecursiveGaussianCoeff(sigmaX);
+        final double[] coeffY = Filters.getRecursiveGaussianCoeff(sigmaY);
+
+        final int padX = coeffX == null ? 0 : Math.min(JCV.roundUp(Filters.sigmaSizeCoeff / 2.0 * sigmaX), width);
+        final int padY = coeffY == null ? 0 : Math.min(JCV.roundUp(Filters.sigmaSizeCoeff / 2.0 * sigmaY), height);
+        final int[] mapX = extrapolationMethod.translatePositions(width, 2 * padX + 1, padX);
+        final int[] mapY = extrapolationMethod.translatePositions(height, 2 * padY + 1, padY);
+
+        // Buffers for each worker. Column of strip is longer than row of image, so sizes are checked into long.
+        final int rowLength = width * numOfChannels;
+        final int stripWidth = Math.min(Filters.recursiveStripWidth, width);
+        final long lineLength = (long) (mapX.length + 6) * numOfChannels;
+        final long stripBufferLength = (long) (mapY.length + 6) * stripWidth * numOfChannels;
+        if (lineLength > Integer.MAX_VALUE || stripBufferLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Image {0} with {1} channels is too large for recursive filter!", JCV.getSizeString(width, height),
+                    numOfChannels));
+        }
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] rowBuffers = new int[context.getNumOfWorkers()][rowLength];
+        final double[][] linesX = new double[context.getNumOfWorkers()][(int) lineLength];
+        final double[][] strips = new double[context.getNumOfWorkers()][(int) stripBufferLength];
+
+        /*
+         * Filter columns. Neighbor columns are processed together by strips, so all memory accesses are sequential.
+         * Each strip is read from source into own buffer before it is written, so result can be same image as source
+         * and only result image is used to keep intermediate values between passes.
+         */
+        if (coeffY != null) {
+            final int numOfStrips = (width + stripWidth - 1) / stripWidth;
+            context.indexes(numOfStrips, stripWidth * numOfChannels * height, (strip, worker) -> {
+                final int[] stripRow = rowBuffers[worker];
+                final double[] buffer = strips[worker];
+                final int x = strip * stripWidth;
+                final int length = numOfChannels * Math.min(stripWidth, width - x);
+                final Image sourceStrip = image.makeSubImage(x, 0, length / numOfChannels, height);
+                final Image resultStrip = result.makeSubImage(x, 0, length / numOfChannels, height);
+
+                // Extend strip by border values.
+                for (int i = 0; i < mapY.length; ++i) {
+                    final int offset = length * (i + 3);
+                    if (mapY[i] < 0) {
+                        Arrays.fill(buffer, offset, offset + length, 0.0);
+                    } else {
+                        sourceStrip.getRow(mapY[i], stripRow);
+                        for (int pos = 0; pos < length; ++pos) {
+                            buffer[offset + pos] = stripRow[pos];
+                        }
+                    }
+                }
+
+                Filters.filterRecursive(buffer, length, mapY.length, coeffY);
+
+                for (int y = 0; y < height; ++y) {
+                    final int offset = length * (padY + y + 3);
+                    for (int pos = 0; pos < length; ++pos) {
+                        // Same as rounding for not negative values, negative values are truncated to 0 anyway.
+                        stripRow[pos] = (int) (buffer[offset + pos] + 0.5);
+                    }
+                    resultStrip.setRow(y, stripRow);
+                }
+            });
+        }
+
+        /*
+         * Filter rows.
+         */
+        final Image rowsSource = coeffY == null ? image : result;
+        context.rows(result, (y, worker) -> {
+            final int[] row = rowBuffers[worker];
+            final double[] line = linesX[worker];
+            rowsSource.getRow(y, row);
+
+            if (coeffX == null) {
+                if (rowsSource != result) {
+                    result.setRow(y, row);
+                }
+                return;
+            }
+
+            // Extend row by border values. Channels are processed as parallel lines.
+            for (int i = 0; i < mapX.length; ++i) {
+                final int offset = numOfChannels * (i + 3);
+                for (int channel = 0; channel < numOfChannels; ++channel) {
+                    line[offset + channel] = mapX[i] < 0 ? 0.0 : row[numOfChannels * mapX[i] + channel];
+                }
+            }
+
+            Filters.filterRecursive(line, numOfChannels, mapX.length, coeffX);
+
+            final int offset = numOfChannels * (padX + 3);
+            for (int pos = 0; pos < rowLength; ++pos) {
+                row[pos] = (int) (line[offset + pos] + 0.5);
+            }
+            result.setRow(y, row);
+        });
+    }
+
+    /**
+     * Return coefficients <code>{B, b1 / b0, b2 / b0, b3 / b0}</code> of recursive Gaussian filter for given standard
+     * deviation or <code>null</code> if filter is not needed.
+     * <p>
+     * Used into {@link #gaussianBlurRecursive(Image, Image, double, double, Extrapolation)}.
+     * </p>
+     */
+    private static double[] getRecursiveGaussianCoeff(final double sigma) {
+        if (sigma < 0.5) {
+            return null;
+        }
+
+        final double q;
+        if (sigma >= 2.5) {
+            q = 0.98711 * sigma - 0.96330;
+        } else {
+            q = 3.97156 - 4.14554 * Math.sqrt(1.0 - 0.26891 * sigma);
+        }
+        final double q2 = q * q;
+        final double q3 = q2 * q;
+
+        final double b0 = 1.57825 + 2.44413 * q + 1.4281 * q2 + 0.422205 * q3;
+        final double b1 = 2.44413 * q + 2.85619 * q2 + 1.26661 * q3;
+        final double b2 = -(1.4281 * q2 + 1.26661 * q3);
+        final double b3 = 0.422205 * q3;
+
+        return new double[] { 1.0 - (b1 + b2 + b3) / b0, b1 / b0, b2 / b0, b3 / b0 };
+    }
+
+    /**
+     * Apply forward and backward recursive filters in-place to <code>numOfLines</code> parallel lines at once: element
+     * <code>i</code> of line <code>j</code> is placed into <code>data[numOfLines * (i + 3) + j]</code>. First and last
+     * <code>3</code> elements of each line are used as boundary values: they are considered equal to first and last
+     * element of line.
+     */
+    private static void filterRecursive(final double[] data, final int numOfLines, final int length,
+            final double[] coeff) {
+        if (coeff == null) {
+            return;
+        }
+        final double B = coeff[0];
+        final double c1 = coeff[1];
+        final double c2 = coeff[2];
+        final double c3 = coeff[3];
+
+        final int first = 3 * numOfLines;
+        final int last = numOfLines * (length + 2);
+
+        // Forward.
+        for (int j = 0; j < numOfLines; ++j) {
+            data[j] = data[j + numOfLines] = data[j + 2 * numOfLines] = data[j + first];
+        }
+        for (int p = first; p <= last; p += numOfLines) {
+            for (int j = p; j < p + numOfLines; ++j) {
+                data[j] = B * data[j] + c1 * data[j - numOfLines] + c2 * data[j - 2 * numOfLines]
+                        + c3 * data[j - 3 * numOfLines];
+            }
+        }
+
+        // Backward.
+        for (int j = last; j < last + numOfLines; ++j) {
+            data[j + numOfLines] = data[j + 2 * numOfLines] = data[j + 3 * numOfLines] = data[j];
+        }
+        for (int p = last; p >= first; p -= numOfLines) {
+            for (int j = p; j < p + numOfLines; ++j) {
+                data[j] = B * data[j] + c1 * data[j + numOfLines] + c2 * data[j + 2 * numOfLines]
+                        + c3 * data[j + 3 * numOfLines];
+            }
+        }
     }
 
     /**
@@ -649,6 +1591,32 @@ public class Filters {
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+
+        /*
+         * Run.
+         */
+        final Image result = image.makeSame();
+
+        Filters.blur(image, result, kernelSize, blurMethod, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #blur(Image, Size, Blur, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void blur(final Image image, final Image result, final Size kernelSize, final Blur blurMethod,
+            final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
         JCV.verifyIsNotNull(kernelSize);
         JCV.verifyOddSize(kernelSize.getWidth());
         JCV.verifyOddSize(kernelSize.getHeight());
@@ -658,7 +1626,15 @@ public class Filters {
         /*
          * Run.
          */
-        return blurMethod.run(image, kernelSize, extrapolationMethod);
+        blurMethod.run(image, result, kernelSize, extrapolationMethod);
+    }
+
+    /**
+     * Same as {@link #blur(Image, Image, Size, Blur, Extrapolation)}, but using {@link Extrapolation#REPLICATE} as
+     * default extrapolation method.
+     */
+    public static void blur(final Image image, final Image result, final Size kernelSize, final Blur blurMethod) {
+        Filters.blur(image, result, kernelSize, blurMethod, Extrapolation.REPLICATE);
     }
 
     /**
@@ -695,13 +1671,39 @@ public class Filters {
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+
+        /*
+         * Run.
+         */
+        final Image result = image.makeSame();
+
+        Filters.sharpen(image, result, sharpenMethod, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #sharpen(Image, Sharpen, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void sharpen(final Image image, final Image result, final Sharpen sharpenMethod,
+            final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
         JCV.verifyIsNotNull(sharpenMethod);
         JCV.verifyIsNotNull(extrapolationMethod);
 
         /*
          * Run.
          */
-        return sharpenMethod.run(image, extrapolationMethod);
+        sharpenMethod.run(image, result, extrapolationMethod);
     }
 
     /**
@@ -751,8 +1753,94 @@ public class Filters {
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+
+        /*
+         * Perform transformation.
+         */
+        final Image result = image.makeSame();
+
+        Filters.morphology(image, result, kernelSize, morphologyMethod, iterations, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #morphology(Image, Size, Morphology, int, Extrapolation)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void morphology(final Image image, final Image result, final Size kernelSize,
+            final Morphology morphologyMethod, final int iterations, final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(kernelSize);
         JCV.verifyOddSize(kernelSize.getWidth());
         JCV.verifyOddSize(kernelSize.getHeight());
+
+        /*
+         * Perform transformation.
+         */
+        Filters.morphology(image, result, StructuringElement.rectangle(kernelSize.getWidth(), kernelSize.getHeight()),
+                morphologyMethod, iterations, extrapolationMethod);
+    }
+
+    /**
+     * Morphology transformation with given structuring element (for example, ellipse or cross).
+     * <p>
+     * Structuring element is processed by horizontal runs, so dilation and erosion by element with <code>N</code>
+     * runs take about <code>O(N)</code> operations per pixel independently of length of runs.
+     * </p>
+     *
+     * @param image
+     *            Source image.
+     * @param element
+     *            Structuring element.
+     * @param morphologyMethod
+     *            Morphology method.
+     * @param iterations
+     *            Number of applying this filter to source image.
+     * @param extrapolationMethod
+     *            Extrapolation method.
+     * @return Image with result of applying morphology filter. Have same size, number of channels and type as a source
+     *         image.
+     */
+    public static Image morphology(final Image image, final StructuringElement element,
+            final Morphology morphologyMethod, final int iterations, final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+
+        /*
+         * Perform transformation.
+         */
+        final Image result = image.makeSame();
+
+        Filters.morphology(image, result, element, morphologyMethod, iterations, extrapolationMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #morphology(Image, StructuringElement, Morphology, int, Extrapolation)}, but put result into
+     * given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void morphology(final Image image, final Image result, final StructuringElement element,
+            final Morphology morphologyMethod, final int iterations, final Extrapolation extrapolationMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+        JCV.verifyIsNotNull(element);
         JCV.verifyIsNotNull(morphologyMethod);
         if (iterations <= 0) {
             throw new IllegalArgumentException("Number of iterations should be more than 0!");
@@ -762,13 +1850,53 @@ public class Filters {
         /*
          * Perform transformation.
          */
-        Image result = image;
+        if (Filters.canFuseIterations(image, element, morphologyMethod, iterations, extrapolationMethod)) {
+            // Dilation (erosion) by rectangle repeated N times is same as one dilation (erosion) by rectangle with N
+            // times larger radius.
+            final StructuringElement fused = StructuringElement.rectangle(
+                    iterations * (element.getWidth() - 1) + 1, iterations * (element.getHeight() - 1) + 1,
+                    new Point(iterations * element.getAnchor().getX(), iterations * element.getAnchor().getY()));
+            morphologyMethod.run(image, result, fused, extrapolationMethod);
+            return;
+        }
 
-        for (int i = 0; i < iterations; ++i) {
-            result = morphologyMethod.run(result, kernelSize, extrapolationMethod);
+        morphologyMethod.run(image, result, element, extrapolationMethod);
+        for (int i = 1; i < iterations; ++i) {
+            morphologyMethod.run(result, result, element, extrapolationMethod);
         }
+    }
 
-        return result;
+    /**
+     * Return <code>true</code> if several iterations of morphology operation can be replaced by one iteration with
+     * larger kernel.
+     * <p>
+     * It is true for dilation and erosion by rectangle. For {@link Extrapolation#REFLECT} and
+     * {@link Extrapolation#WRAP} radius of larger kernel should not be more than size of image, because these
+     * extrapolations reflect (wrap) positions only once. Also reflection mirrors the rectangle, so for
+     * {@link Extrapolation#REFLECT} anchor should be in the center of rectangle.
+     * </p>
+     */
+    private static boolean canFuseIterations(final Image image, final StructuringElement element,
+            final Morphology morphologyMethod, final int iterations, final Extrapolation extrapolationMethod) {
+        if (iterations == 1 || morphologyMethod != Morphology.DILATE && morphologyMethod != Morphology.ERODE
+                || !element.isRectangle()) {
+            return false;
+        }
+
+        if (extrapolationMethod == Extrapolation.ZERO || extrapolationMethod == Extrapolation.REPLICATE) {
+            return true;
+        }
+
+        final Point anchor = element.getAnchor();
+        if (extrapolationMethod == Extrapolation.REFLECT && (2 * anchor.getX() + 1 != element.getWidth()
+                || 2 * anchor.getY() + 1 != element.getHeight())) {
+            return false;
+        }
+
+        final int radiusX = Math.max(anchor.getX(), element.getWidth() - 1 - anchor.getX());
+        final int radiusY = Math.max(anchor.getY(), element.getHeight() - 1 - anchor.getY());
+
+        return (long) iterations * radiusX <= image.getWidth() && (long) iterations * radiusY <= image.getHeight();
     }
 
     /**
@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image.filters;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.core.Point;
+import org.jcvlib.parallel.ExecutionContext;
+
+/**
+ * Linear filter by Fast Fourier Transform.
+ * <p>
+ * Image is divided by tiles. For each tile block of source image (tile extended by kernel size using extrapolation)
+ * is transformed by 2-D FFT, multiplied by spectrum of kernel and transformed back (overlap-save method), so each tile
+ * takes <code>O(log(N))</code> operations per pixel instead of <code>O(kernelWidth * kernelHeight)</code> for direct
+ * convolution. Tiles are independent, so they are processed in parallel without any synchronization. Two channels are
+ * processed by one complex transform (as real and imaginary parts), because kernel is real.
+ * </p>
+ * <p>
+ * Spectra of last used kernels are cached, so repeated filtering by same kernel does not transform kernel again. Each
+ * worker has own plan (twiddle factors and buffers).
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="http://en.wikipedia.org/wiki/Fast_Fourier_transform">Fast Fourier transform -- Wikipedia</a>.</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Overlap%E2%80%93save_method">Overlap-save method -- Wikipedia</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+final class FourierConvolution {
+
+    /**
+     * Kernels with at least this number of values use FFT (from <code>[11 x 11]</code>). On smaller kernels direct
+     * convolution is faster, because it does not need transforms of tiles.
+     */
+    private static final int minKernelArea = 11 * 11;
+
+    /**
+     * Minimal size of FFT for each dimension.
+     */
+    private static final int minTransformSize = 32;
+
+    /**
+     * Maximal number of cached spectra of kernels.
+     */
+    private static final int maxCachedSpectra = 16;
+
+    private static final Map<SpectrumKey, double[][]> spectra = new LinkedHashMap<SpectrumKey, double[][]>(16,
+            0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<SpectrumKey, double[][]> eldest) {
+            return size() > FourierConvolution.maxCachedSpectra;
+        }
+    };
+
+    private FourierConvolution() {
+        // Static methods only.
+    }
+
+    /**
+     * Return <code>true</code> if convolution with given kernel by FFT is faster than direct convolution.
+     */
+    static boolean isPreferred(final Kernel kernel) {
+        return kernel.getWidth() * kernel.getHeight() >= FourierConvolution.minKernelArea;
+    }
+
+    /**
+     * Same as {@link Filters#linearFilter(Image, Image, Kernel, double, double, Extrapolation)}, but uses FFT.
+     */
+    static void linearFilter(final Image image, final Image result, final Kernel kernel, final double div,
+            final double offset, final Extrapolation extrapolation) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int numOfChannels = image.getNumOfChannels();
+        final int kernelWidth = kernel.getWidth();
+        final int kernelHeight = kernel.getHeight();
+        final Point anchor = kernel.getAnchor();
+
+        final int sizeX = FourierConvolution.getTransformSize(kernelWidth, width);
+        final int sizeY = FourierConvolution.getTransformSize(kernelHeight, height);
+        final int tileWidth = sizeX - kernelWidth + 1;
+        final int tileHeight = sizeY - kernelHeight + 1;
+
+        final double[][] spectrum = FourierConvolution.getSpectrum(kernel, sizeX, sizeY);
+        // Sums of integer kernel are integers, so errors of FFT can be removed before division.
+        final boolean isInteger = kernel.isInteger();
+
+        final int[] mapX = extrapolation.translatePositions(width, kernelWidth, anchor.getX());
+        final int[] mapY = extrapolation.translatePositions(height, kernelHeight, anchor.getY());
+
+        // Plans for each worker.
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final Plan[] plans = new Plan[context.getNumOfWorkers()];
+        for (int i = 0; i < plans.length; ++i) {
+            plans[i] = new Plan(sizeX, sizeY, width);
+        }
+
+        final ImagePool pool = ImagePool.getDefault();
+        final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+        context.tiles(image, tileWidth, tileHeight, (x0, y0, outputWidth, outputHeight, worker) -> {
+            final Plan plan = plans[worker];
+            final int blockWidth = outputWidth + kernelWidth - 1;
+
+            // Interval of source columns which are used by tile.
+            int first = width;
+            int last = -1;
+            for (int i = x0; i < x0 + blockWidth; ++i) {
+                if (mapX[i] >= 0) {
+                    first = Math.min(first, mapX[i]);
+                    last = Math.max(last, mapX[i]);
+                }
+            }
+            final int spanLength = last - first + 1;
+            final int blockHeight = outputHeight + kernelHeight - 1;
+
+            for (int channel = 0; channel < numOfChannels; channel += 2) {
+                final boolean hasPair = channel + 1 < numOfChannels;
+
+                // Fill block: first channel into real part and second one into imaginary part.
+                plan.clear();
+                for (int j = 0; j < blockHeight; ++j) {
+                    final int sourceY = mapY[y0 + j];
+                    if (sourceY < 0 || spanLength <= 0) {
+                        continue;
+                    }
+
+                    final int pos = sizeX * j;
+                    image.getSpan(first, sourceY, spanLength, channel, plan.span);
+                    for (int i = 0; i < blockWidth; ++i) {
+                        final int x = mapX[x0 + i];
+                        plan.re[pos + i] = x < 0 ? 0.0 : plan.span[x - first];
+                    }
+                    if (hasPair) {
+                        image.getSpan(first, sourceY, spanLength, channel + 1, plan.span);
+                        for (int i = 0; i < blockWidth; ++i) {
+                            final int x = mapX[x0 + i];
+                            plan.im[pos + i] = x < 0 ? 0.0 : plan.span[x - first];
+                        }
+                    }
+                }
+
+                // Valid values of cyclic convolution starts from position (kernelWidth - 1, kernelHeight - 1).
+                plan.convolve(spectrum, blockHeight, kernelHeight - 1, outputHeight);
+
+                for (int j = 0; j < outputHeight; ++j) {
+                    final int pos = sizeX * (kernelHeight - 1 + j) + kernelWidth - 1;
+                    FourierConvolution.round(plan.re, pos, outputWidth, isInteger, div, offset, plan.output);
+                    target.setSpan(x0, y0 + j, outputWidth, channel, plan.output);
+                    if (hasPair) {
+                        FourierConvolution.round(plan.im, pos, outputWidth, isInteger, div, offset, plan.output);
+                        target.setSpan(x0, y0 + j, outputWidth, channel + 1, plan.output);
+                    }
+                }
+            }
+        });
+
+        if (target != result) {
+            target.copyTo(result);
+            pool.release(target);
+        }
+    }
+
+    /**
+     * Put <code>length</code> sums from position <code>pos</code> divided by <code>div</code> and added
+     * <code>offset</code> into <code>output</code>.
+     */
+    private static void round(final double[] sums, final int pos, final int length, final boolean isInteger,
+            final double div, final double offset, final int[] output) {
+        for (int i = 0; i < length; ++i) {
+            final double sum = isInteger ? Math.rint(sums[pos + i]) : sums[pos + i];
+            output[i] = JCV.round(sum / div + offset);
+        }
+    }
+
+    /**
+     * Return size of FFT (power of 2) for one dimension. It should be not less than kernel size and about 2 times more,
+     * so most values of each tile are valid, but not much more than extended image.
+     */
+    private static int getTransformSize(final int kernelSize, final int imageSize) {
+        final int preferred = Math.max(2 * kernelSize, FourierConvolution.minTransformSize);
+        final int max = Math.max(imageSize + kernelSize - 1, kernelSize);
+
+        final int size = Math.min(preferred, max);
+
+        return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Return spectrum of flipped kernel (convolution with flipped kernel is correlation with kernel, as in linear
+     * filter) placed into block with given size. Spectrum is divided by number of values of block to normalize inverse
+     * transform.
+     */
+    private static synchronized double[][] getSpectrum(final Kernel kernel, final int sizeX, final int sizeY) {
+        final SpectrumKey key = new SpectrumKey(kernel, sizeX, sizeY);
+        double[][] spectrum = FourierConvolution.spectra.get(key);
+        if (spectrum != null) {
+            return spectrum;
+        }
+
+        final Plan plan = new Plan(sizeX, sizeY, 0);
+        final double scale = 1.0 / (sizeX * sizeY);
+        for (int y = 0; y < kernel.getHeight(); ++y) {
+            for (int x = 0; x < kernel.getWidth(); ++x) {
+                plan.re[sizeX * (kernel.getHeight() - 1 - y) + kernel.getWidth() - 1 - x] = scale * kernel.get(x, y);
+            }
+        }
+        plan.transform(kernel.getHeight());
+
+        spectrum = new double[][] { plan.re, plan.im };
+        FourierConvolution.spectra.put(key, spectrum);
+
+        return spectrum;
+    }
+
+    /**
+     * Key of cached spectrum.
+     */
+    private static final class SpectrumKey {
+
+        private final Kernel kernel;
+
+        private final int    sizeX;
+
+        private final int    sizeY;
+
+        SpectrumKey(final Kernel kernel, final int sizeX, final int sizeY) {
+            this.kernel = kernel;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.kernel.hashCode() + this.sizeX) + this.sizeY;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof SpectrumKey)) {
+                return false;
+            }
+
+            final SpectrumKey key = (SpectrumKey) object;
+
+            return this.sizeX == key.sizeX && this.sizeY == key.sizeY && this.kernel.equals(key.kernel);
+        }
+    }
+
+    /**
+     * Radix-2 FFT with given size.
+     */
+    private static final class Transform {
+
+        private final int      size;
+
+        private final int[]    reverse;
+
+        private final double[] cos;
+
+        private final double[] sin;
+
+        Transform(final int size) {
+            this.size = size;
+
+            // Bit-reversed positions.
+            this.reverse = new int[size];
+            final int bits = Integer.numberOfTrailingZeros(size);
+            for (int i = 0; i < size; ++i) {
+                this.reverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            }
+
+            // Twiddle factors.
+            this.cos = new double[size / 2];
+            this.sin = new double[size / 2];
+            for (int i = 0; i < size / 2; ++i) {
+                this.cos[i] = Math.cos(2.0 * Math.PI * i / size);
+                this.sin[i] = Math.sin(2.0 * Math.PI * i / size);
+            }
+        }
+
+        /**
+         * Transform values <code>[pos, pos + size)</code> in-place. Inverse transform is not normalized.
+         */
+        void run(final double[] re, final double[] im, final int pos, final boolean isInverse) {
+            for (int i = 0; i < this.size; ++i) {
+                final int j = this.reverse[i];
+                if (j > i) {
+                    final double tr = re[pos + i];
+                    re[pos + i] = re[pos + j];
+                    re[pos + j] = tr;
+                    final double ti = im[pos + i];
+                    im[pos + i] = im[pos + j];
+                    im[pos + j] = ti;
+                }
+            }
+
+            final double sign = isInverse ? 1.0 : -1.0;
+            for (int length = 2; length <= this.size; length <<= 1) {
+                final int half = length >> 1;
+                final int step = this.size / length;
+                for (int k = 0; k < half; ++k) {
+                    final double wr = this.cos[k * step];
+                    final double wi = sign * this.sin[k * step];
+                    for (int a = pos + k; a < pos + this.size; a += length) {
+                        final int b = a + half;
+                        final double tr = wr * re[b] - wi * im[b];
+                        final double ti = wr * im[b] + wi * re[b];
+                        re[b] = re[a] - tr;
+                        im[b] = im[a] - ti;
+                        re[a] += tr;
+                        im[a] += ti;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms and buffers of one worker for blocks with given size.
+     */
+    private static final class Plan {
+
+        private final int       sizeX;
+
+        private final int       sizeY;
+
+        private final Transform transformX;
+
+        private final Transform transformY;
+
+        final double[]          re;
+
+        final double[]          im;
+
+        private final double[]  lineRe;
+
+        private final double[]  lineIm;
+
+        final int[]             span;
+
+        final int[]             output;
+
+        Plan(final int sizeX, final int sizeY, final int width) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.transformX = new Transform(sizeX);
+            this.transformY = sizeY == sizeX ? this.transformX : new Transform(sizeY);
+
+            this.re = new double[sizeX * sizeY];
+            this.im = new double[sizeX * sizeY];
+            this.lineRe = new double[sizeY];
+            this.lineIm = new double[sizeY];
+            this.span = new int[width];
+            this.output = new int[sizeX];
+        }
+
+        /**
+         * Fill block by zeros.
+         */
+        void clear() {
+            Arrays.fill(this.re, 0.0);
+            Arrays.fill(this.im, 0.0);
+        }
+
+        /**
+         * Forward 2-D transform of block, where only first <code>numOfRows</code> rows have non-zero values.
+         */
+        void transform(final int numOfRows) {
+            for (int y = 0; y < numOfRows; ++y) {
+                this.transformX.run(this.re, this.im, this.sizeX * y, false);
+            }
+            for (int x = 0; x < this.sizeX; ++x) {
+                getColumn(x);
+                this.transformY.run(this.lineRe, this.lineIm, 0, false);
+                setColumn(x, 0, this.sizeY);
+            }
+        }
+
+        /**
+         * Cyclic convolution of block with kernel by its spectrum. Only rows
+         * <code>[firstRow, firstRow + numOfRows)</code> of result are calculated.
+         */
+        void convolve(final double[][] spectrum, final int numOfSourceRows, final int firstRow,
+                final int numOfRows) {
+            transform(numOfSourceRows);
+
+            // Multiply spectra.
+            final double[] kernelRe = spectrum[0];
+            final double[] kernelIm = spectrum[1];
+            for (int i = 0; i < this.re.length; ++i) {
+                final double r = this.re[i] * kernelRe[i] - this.im[i] * kernelIm[i];
+                final double m = this.re[i] * kernelIm[i] + this.im[i] * kernelRe[i];
+                this.re[i] = r;
+                this.im[i] = m;
+            }
+
+            // Inverse transform only for required rows.
+            for (int x = 0; x < this.sizeX; ++x) {
+                getColumn(x);
+                this.transformY.run(this.lineRe, this.lineIm, 0, true);
+                setColumn(x, firstRow, numOfRows);
+            }
+            for (int y = firstRow; y < firstRow + numOfRows; ++y) {
+                this.transformX.run(this.re, this.im, this.sizeX * y, true);
+            }
+        }
+
+        private void getColumn(final int x) {
+            for (int y = 0, pos = x; y < this.sizeY; ++y, pos += this.sizeX) {
+                this.lineRe[y] = this.re[pos];
+                this.lineIm[y] = this.im[pos];
+            }
+        }
+
+        private void setColumn(final int x, final int firstRow, final int numOfRows) {
+            for (int y = firstRow, pos = this.sizeX * firstRow + x; y < firstRow + numOfRows; ++y, pos +=
+                    this.sizeX) {
+                this.re[pos] = this.lineRe[y];
+                this.im[pos] = this.lineIm[y];
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image.filters;
+
+/**
+ * Methods to calculate magnitude of gradient <code>G</code> from its derivatives <code>Gx</code> and
+ * <code>Gy</code>.
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="http://en.wikipedia.org/wiki/Image_gradient">Image gradient -- Wikipedia</a>.</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Norm_(mathematics)">Norm (mathematics) -- Wikipedia</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public enum GradientMagnitude {
+    /**
+     * Euclidean norm: <code>G = SQRT(Gx<sup>2</sup> + Gy<sup>2</sup>)</code>.
+     */
+    L2 {
+
+        @Override
+        protected void calculate(final int[] gx, final int[] gy, final double scale, final int[] result) {
+            for (int i = 0; i < result.length; ++i) {
+                final double x = gx[i];
+                final double y = gy[i];
+                result[i] = (int) (scale * Math.sqrt(x * x + y * y) + 0.5);
+            }
+        }
+
+        @Override
+        protected void calculate(final double[] gx, final double[] gy, final double scale, final int[] result) {
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (int) (scale * Math.sqrt(gx[i] * gx[i] + gy[i] * gy[i]) + 0.5);
+            }
+        }
+    },
+
+    /**
+     * Manhattan norm: <code>G = |Gx| + |Gy|</code>. Does not need square root, but depends on direction of gradient
+     * (up to <code>SQRT(2)</code> times more than {@link #L2} for diagonal edges).
+     */
+    L1 {
+
+        @Override
+        protected void calculate(final int[] gx, final int[] gy, final double scale, final int[] result) {
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (int) (scale * (Math.abs(gx[i]) + Math.abs(gy[i])) + 0.5);
+            }
+        }
+
+        @Override
+        protected void calculate(final double[] gx, final double[] gy, final double scale, final int[] result) {
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = (int) (scale * (Math.abs(gx[i]) + Math.abs(gy[i])) + 0.5);
+            }
+        }
+    };
+
+    /**
+     * Put rounded magnitudes of gradients multiplied by <code>scale</code> into <code>result</code>.
+     */
+    protected abstract void calculate(final int[] gx, final int[] gy, final double scale, final int[] result);
+
+    /**
+     * Same as {@link #calculate(int[], int[], double, int[])}, but for non-integer derivatives.
+     */
+    protected abstract void calculate(final double[] gx, final double[] gy, final double scale, final int[] result);
+}
@@ -18,12 +18,15 @@
  */
 package org.jcvlib.image.filters;
 
+import java.util.Arrays;
+
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Extrapolation;
 import org.jcvlib.core.Image;
-import org.jcvlib.core.JCV;
-import org.jcvlib.core.Size;
+import org.jcvlib.core.ImagePool;
+import org.jcvlib.core.Point;
 import org.jcvlib.image.Misc;
+import org.jcvlib.parallel.ExecutionContext;
 
 /**
  * Image morphology methods.
@@ -49,28 +52,9 @@ public enum Morphology {
     DILATE {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            final Image result = image.makeSame();
-
-            image.noneLinearFilter(result, kernelSize.getWidth(), kernelSize.getHeight(),
-                    JCV.calculateCenter(kernelSize.getWidth(), kernelSize.getHeight()), 1, extrapolation,
-                    (aperture, max) -> {
-                        // Initialize.
-                        max.fill(Color.MIN_VALUE);
-
-                        // Find maximum.
-                        for (int x = 0; x < aperture.getWidth(); ++x) {
-                            for (int y = 0; y < aperture.getHeight(); ++y) {
-                                for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
-                                    if (max.get(channel) < aperture.get(x, y, channel)) {
-                                        max.set(channel, aperture.get(x, y, channel));
-                                    }
-                                }
-                            }
-                        }
-                    });
-
-            return result;
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            Morphology.dilateOrErode(image, result, element, extrapolation, true);
         }
     },
 
@@ -86,28 +70,9 @@ public enum Morphology {
     ERODE {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            final Image result = image.makeSame();
-
-            image.noneLinearFilter(result, kernelSize.getWidth(), kernelSize.getHeight(),
-                    JCV.calculateCenter(kernelSize.getWidth(), kernelSize.getHeight()), 1, extrapolation,
-                    (aperture, min) -> {
-                        // Initialize.
-                        min.fill(Color.MAX_VALUE);
-
-                        // Find minimum.
-                        for (int x = 0; x < aperture.getWidth(); ++x) {
-                            for (int y = 0; y < aperture.getHeight(); ++y) {
-                                for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
-                                    if (min.get(channel) > aperture.get(x, y, channel)) {
-                                        min.set(channel, aperture.get(x, y, channel));
-                                    }
-                                }
-                            }
-                        }
-                    });
-
-            return result;
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            Morphology.dilateOrErode(image, result, element, extrapolation, false);
         }
     },
 
@@ -126,8 +91,15 @@ public enum Morphology {
     OPEN {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return DILATE.run(ERODE.run(image, kernelSize, extrapolation), kernelSize, extrapolation);
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image eroded = pool.acquireSame(image);
+
+            ERODE.run(image, eroded, element, extrapolation);
+            DILATE.run(eroded, result, element, extrapolation);
+
+            pool.release(eroded);
         }
     },
 
@@ -146,8 +118,15 @@ public enum Morphology {
     CLOSE {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return ERODE.run(DILATE.run(image, kernelSize, extrapolation), kernelSize, extrapolation);
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image dilated = pool.acquireSame(image);
+
+            DILATE.run(image, dilated, element, extrapolation);
+            ERODE.run(dilated, result, element, extrapolation);
+
+            pool.release(dilated);
         }
     },
 
@@ -166,9 +145,18 @@ public enum Morphology {
     GRADIENT {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return Misc.absDiff(DILATE.run(image, kernelSize, extrapolation),
-                    ERODE.run(image, kernelSize, extrapolation));
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image dilated = pool.acquireSame(image);
+            final Image eroded = pool.acquireSame(image);
+
+            DILATE.run(image, dilated, element, extrapolation);
+            ERODE.run(image, eroded, element, extrapolation);
+            Misc.absDiff(dilated, eroded, result);
+
+            pool.release(eroded);
+            pool.release(dilated);
         }
     },
 
@@ -187,8 +175,15 @@ public enum Morphology {
     WHITE_TOP_HAT {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return Misc.minus(image, OPEN.run(image, kernelSize, extrapolation));
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image opened = pool.acquireSame(image);
+
+            OPEN.run(image, opened, element, extrapolation);
+            Misc.minus(image, opened, result);
+
+            pool.release(opened);
         }
     },
 
@@ -207,10 +202,339 @@ public enum Morphology {
     BLACK_TOP_HAT {
 
         @Override
-        protected Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation) {
-            return Misc.minus(CLOSE.run(image, kernelSize, extrapolation), image);
+        protected void run(final Image image, final Image result, final StructuringElement element,
+                final Extrapolation extrapolation) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image closed = pool.acquireSame(image);
+
+            CLOSE.run(image, closed, element, extrapolation);
+            Misc.minus(closed, image, result);
+
+            pool.release(closed);
         }
     };
 
-    protected abstract Image run(final Image image, final Size kernelSize, final Extrapolation extrapolation);
+    /**
+     * Number of neighbor columns that are processed together by Y.
+     */
+    private static final int stripWidth = 32;
+
+    protected abstract void run(final Image image, final Image result, final StructuringElement element,
+            final Extrapolation extrapolation);
+
+    /**
+     * Dilation or erosion with given structuring element. Rectangle elements are processed by rows and columns
+     * independently, other elements are processed by runs.
+     *
+     * @param isMax
+     *            Find maximum (dilation) if <code>true</code> or minimum (erosion) if <code>false</code>.
+     */
+    private static void dilateOrErode(final Image image, final Image result, final StructuringElement element,
+            final Extrapolation extrapolation, final boolean isMax) {
+        if (element.isRectangle()) {
+            Morphology.rectangle(image, result, element, extrapolation, isMax);
+        } else {
+            Morphology.runs(image, result, element, extrapolation, isMax);
+        }
+    }
+
+    /**
+     * Dilation or erosion with rectangle structuring element.
+     * <p>
+     * Rectangle is decomposed into horizontal and vertical lines and maximum (minimum) by each line is found by van
+     * Herk / Gil-Werman algorithm, so it takes about 3 comparisons per pixel for each direction for any kernel size.
+     * </p>
+     * <p>
+     * <h6>Links:</h6>
+     * <ol>
+     * <li><a href="https://doi.org/10.1016/0167-8655(92)90069-C">M. van Herk. A fast algorithm for local minimum and
+     * maximum filters on rectangular and octagonal kernels</a>.</li>
+     * <li><a href="https://doi.org/10.1109/34.206956">J. Gil, M. Werman. Computing 2-D min, median, and max
+     * filters</a>.</li>
+     * </ol>
+     * </p>
+     *
+     * @param isMax
+     *            Find maximum (dilation) if <code>true</code> or minimum (erosion) if <code>false</code>.
+     */
+    private static void rectangle(final Image image, final Image result, final StructuringElement element,
+            final Extrapolation extrapolation, final boolean isMax) {
+        final int numOfChannels = image.getNumOfChannels();
+        final int rowLength = image.getWidth() * numOfChannels;
+        final int kernelWidth = element.getWidth();
+        final int kernelHeight = element.getHeight();
+        final Point anchor = element.getAnchor();
+
+        final int[] mapX = extrapolation.translatePositions(image.getWidth(), kernelWidth, anchor.getX());
+        final int[] mapY = extrapolation.translatePositions(image.getHeight(), kernelHeight, anchor.getY());
+
+        // Buffers for each worker.
+        final int stripLength = Math.min(Morphology.stripWidth * numOfChannels, rowLength);
+        final int bufferLength = Math.max(mapX.length * numOfChannels, mapY.length * stripLength);
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+        final int[][] lines = new int[context.getNumOfWorkers()][bufferLength];
+        final int[][] prefixes = new int[context.getNumOfWorkers()][bufferLength];
+        final int[][] suffixes = new int[context.getNumOfWorkers()][bufferLength];
+
+        /*
+         * Filter rows. Maximum (minimum) of values is a value too, so rows are kept into pooled image.
+         */
+        final ImagePool pool = ImagePool.getDefault();
+        final Image rows = pool.acquireSame(image);
+        try {
+            context.rows(image, (y, worker) -> {
+                final int[] sourceRow = sourceRows[worker];
+                final int[] line = lines[worker];
+                image.getRow(y, sourceRow);
+
+                // Extend row by border values. Channels are processed as parallel lines.
+                for (int i = 0; i < mapX.length; ++i) {
+                    final int x = mapX[i];
+                    for (int channel = 0; channel < numOfChannels; ++channel) {
+                        line[numOfChannels * i + channel] = x < 0 ? Color.MIN_VALUE
+                                : sourceRow[numOfChannels * x + channel];
+                    }
+                }
+
+                // Windows are calculated only from prefixes and suffixes, so line can be reused for them.
+                Morphology.filterLines(line, numOfChannels, mapX.length, kernelWidth, isMax, prefixes[worker],
+                        suffixes[worker], line);
+                rows.setRow(y, line);
+            });
+
+            /*
+             * Filter columns. Neighbor columns are processed together by strips, so all memory accesses are
+             * sequential. Source is already read, so result can be same image as a source.
+             */
+            final int numOfStrips = (rowLength + stripLength - 1) / stripLength;
+            context.indexes(numOfStrips, stripLength * image.getHeight(), (strip, worker) -> {
+                final int[] stripRow = sourceRows[worker];
+                final int[] line = lines[worker];
+                final int start = strip * stripLength;
+                final int length = Math.min(stripLength, rowLength - start);
+                final Image rowsStrip = rows.makeSubImage(start / numOfChannels, 0, length / numOfChannels,
+                        image.getHeight());
+                final Image resultStrip = result.makeSubImage(start / numOfChannels, 0, length / numOfChannels,
+                        image.getHeight());
+
+                // Extend strip by border values.
+                for (int i = 0; i < mapY.length; ++i) {
+                    if (mapY[i] < 0) {
+                        Arrays.fill(line, length * i, length * (i + 1), Color.MIN_VALUE);
+                    } else {
+                        rowsStrip.getRow(mapY[i], stripRow);
+                        System.arraycopy(stripRow, 0, line, length * i, length);
+                    }
+                }
+
+                Morphology.filterLines(line, length, mapY.length, kernelHeight, isMax, prefixes[worker],
+                        suffixes[worker], line);
+
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    System.arraycopy(line, length * y, stripRow, 0, length);
+                    resultStrip.setRow(y, stripRow);
+                }
+            });
+        } finally {
+            pool.release(rows);
+        }
+    }
+
+    /**
+     * Dilation or erosion with arbitrary structuring element.
+     * <p>
+     * Element is processed by horizontal runs. For each source row maximums (minimums) of windows with length
+     * <code>1, 2, 4, ..., 2<sup>k</sup></code> are calculated once and window with any length <code>L</code> is
+     * covered by two overlapped windows with length <code>2<sup>k</sup> &lt;= L</code>. So result for each pixel
+     * takes about 2 comparisons for each run instead of one comparison for each selected value of element.
+     * </p>
+     * <p>
+     * <h6>Links:</h6>
+     * <ol>
+     * <li><a href="https://en.wikipedia.org/wiki/Range_minimum_query">Range minimum query -- Wikipedia</a>.</li>
+     * </ol>
+     * </p>
+     *
+     * @param isMax
+     *            Find maximum (dilation) if <code>true</code> or minimum (erosion) if <code>false</code>.
+     */
+    private static void runs(final Image image, final Image result, final StructuringElement element,
+            final Extrapolation extrapolation, final boolean isMax) {
+        final int numOfChannels = image.getNumOfChannels();
+        final int rowLength = image.getWidth() * numOfChannels;
+        final Point anchor = element.getAnchor();
+        final int[] runRows = element.runRows();
+        final int[] runStarts = element.runStarts();
+        final int[] runLengths = element.runLengths();
+
+        final int[] mapX = extrapolation.translatePositions(image.getWidth(), element.getWidth(), anchor.getX());
+        final int[] mapY = extrapolation.translatePositions(image.getHeight(), element.getHeight(), anchor.getY());
+
+        // Level of windows and shift of the second window for each run.
+        int maxLength = 1;
+        for (final int length : runLengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        final int numOfLevels = 32 - Integer.numberOfLeadingZeros(maxLength);
+        final int[] runLevels = new int[runLengths.length];
+        final int[] runShifts = new int[runLengths.length];
+        for (int r = 0; r < runLengths.length; ++r) {
+            runLevels[r] = 31 - Integer.numberOfLeadingZeros(runLengths[r]);
+            runShifts[r] = numOfChannels * (runLengths[r] - (1 << runLevels[r]));
+        }
+
+        // Buffers for each worker. Tables for last source rows are saved into ring buffer, so each row of element
+        // reuses tables which are calculated for previous rows of result.
+        final int lineLength = mapX.length * numOfChannels;
+        final int ringSize = element.getHeight();
+        final ExecutionContext context = ExecutionContext.getCurrent();
+        final int[][] sourceRows = new int[context.getNumOfWorkers()][rowLength];
+        final int[][][] tables = new int[context.getNumOfWorkers()][ringSize * numOfLevels][lineLength];
+        final int[][] tags = new int[context.getNumOfWorkers()][ringSize];
+        final int[][] accumulators = new int[context.getNumOfWorkers()][rowLength];
+        for (final int[] tag : tags) {
+            Arrays.fill(tag, -1);
+        }
+
+        final ImagePool pool = ImagePool.getDefault();
+        final Image target = image.isSameSource(result) ? pool.acquireSame(result) : result;
+
+        context.rows(target, (y, worker) -> {
+            final int[][] table = tables[worker];
+            final int[] accumulator = accumulators[worker];
+            Arrays.fill(accumulator, isMax ? Color.MIN_VALUE : Color.MAX_VALUE);
+
+            for (int r = 0; r < runRows.length; ++r) {
+                // Position of source row into extended image and its slot into ring buffer.
+                final int i = y + runRows[r];
+                final int slot = i % ringSize;
+                if (tags[worker][slot] != i) {
+                    Morphology.fillTable(image, mapX, mapY[i], isMax, sourceRows[worker], table, numOfLevels * slot,
+                            numOfLevels);
+                    tags[worker][slot] = i;
+                }
+
+                final int[] window = table[numOfLevels * slot + runLevels[r]];
+                final int offset = numOfChannels * runStarts[r];
+                final int shift = offset + runShifts[r];
+                if (isMax) {
+                    for (int k = 0; k < rowLength; ++k) {
+                        accumulator[k] = Math.max(accumulator[k], Math.max(window[k + offset], window[k + shift]));
+                    }
+                } else {
+                    for (int k = 0; k < rowLength; ++k) {
+                        accumulator[k] = Math.min(accumulator[k], Math.min(window[k + offset], window[k + shift]));
+                    }
+                }
+            }
+
+            target.setRow(y, accumulator);
+        });
+
+        if (target != result) {
+            target.copyTo(result);
+            pool.release(target);
+        }
+    }
+
+    /**
+     * Fill table of maximums (minimums) for source row <code>sourceY</code> extended by border values (<code>-1</code>
+     * means row out of image). Line <code>table[first + level]</code> contains maximums (minimums) of windows with
+     * length <code>2<sup>level</sup></code>, channels are processed as parallel lines.
+     */
+    private static void fillTable(final Image image, final int[] mapX, final int sourceY, final boolean isMax,
+            final int[] sourceRow, final int[][] table, final int first, final int numOfLevels) {
+        final int numOfChannels = image.getNumOfChannels();
+        final int lineLength = mapX.length * numOfChannels;
+
+        // Extend row by border values.
+        final int[] line = table[first];
+        if (sourceY < 0) {
+            Arrays.fill(line, Color.MIN_VALUE);
+        } else {
+            image.getRow(sourceY, sourceRow);
+            for (int i = 0; i < mapX.length; ++i) {
+                final int x = mapX[i];
+                for (int channel = 0; channel < numOfChannels; ++channel) {
+                    line[numOfChannels * i + channel] = x < 0 ? Color.MIN_VALUE
+                            : sourceRow[numOfChannels * x + channel];
+                }
+            }
+        }
+
+        // Window with length 2^level is union of two windows with length 2^(level - 1).
+        for (int level = 1; level < numOfLevels; ++level) {
+            final int[] prev = table[first + level - 1];
+            final int[] next = table[first + level];
+            final int shift = numOfChannels << (level - 1);
+            if (isMax) {
+                for (int k = 0; k < lineLength - shift; ++k) {
+                    next[k] = Math.max(prev[k], prev[k + shift]);
+                }
+            } else {
+                for (int k = 0; k < lineLength - shift; ++k) {
+                    next[k] = Math.min(prev[k], prev[k + shift]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find maximum (minimum) into sliding window with given size for <code>numOfLines</code> parallel lines: element
+     * <code>i</code> of line <code>j</code> is placed into <code>data[numOfLines * i + j]</code>. Line with
+     * <code>length</code> elements gives <code>length - size + 1</code> results.
+     * <p>
+     * Each line is divided by blocks with given size. For each block prefix and suffix maximums are calculated, so
+     * maximum of any window is maximum of suffix of one block and prefix of the next one.
+     * </p>
+     */
+    private static void filterLines(final int[] data, final int numOfLines, final int length, final int size,
+            final boolean isMax, final int[] prefix, final int[] suffix, final int[] result) {
+        final int total = numOfLines * length;
+
+        // Prefixes.
+        for (int i = 0; i < length; ++i) {
+            final int p = numOfLines * i;
+            if (i % size == 0) {
+                System.arraycopy(data, p, prefix, p, numOfLines);
+            } else if (isMax) {
+                for (int k = p; k < p + numOfLines; ++k) {
+                    prefix[k] = Math.max(prefix[k - numOfLines], data[k]);
+                }
+            } else {
+                for (int k = p; k < p + numOfLines; ++k) {
+                    prefix[k] = Math.min(prefix[k - numOfLines], data[k]);
+                }
+            }
+        }
+
+        // Suffixes.
+        for (int i = length - 1; i >= 0; --i) {
+            final int p = numOfLines * i;
+            if (i == length - 1 || (i + 1) % size == 0) {
+                System.arraycopy(data, p, suffix, p, numOfLines);
+            } else if (isMax) {
+                for (int k = p; k < p + numOfLines; ++k) {
+                    suffix[k] = Math.max(suffix[k + numOfLines], data[k]);
+                }
+            } else {
+                for (int k = p; k < p + numOfLines; ++k) {
+                    suffix[k] = Math.min(suffix[k + numOfLines], data[k]);
+                }
+            }
+        }
+
+        // Windows.
+        final int shift = numOfLines * (size - 1);
+        if (isMax) {
+            for (int k = 0; k < total - shift; ++k) {
+                result[k] = Math.max(suffix[k], prefix[k + shift]);
+            }
+        } else {
+            for (int k = 0; k < total - shift; ++k) {
+                result[k] = Math.min(suffix[k], prefix[k + shift]);
+            }
+        }
+    }
 }
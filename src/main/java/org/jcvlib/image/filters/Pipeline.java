@@ -0,0 +1,1103 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jcvlib.core.Color;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.core.Point;
+import org.jcvlib.core.Size;
+import org.jcvlib.parallel.ExecutionContext;
+import org.jcvlib.parallel.Parallel;
+
+/**
+ * Lazy chain of filters.
+ * <p>
+ * Methods of pipeline only collect operations, image is processed by {@link #run(Image, Image)}, so one pipeline
+ * can be reused for many images (for example, for frames of video). For example: <code><pre>
+ * final Pipeline pipeline = new Pipeline()
+ *         .blur(new Size(5, 5), Blur.GAUSSIAN, Extrapolation.REPLICATE)
+ *         .threshold(100, Threshold.BINARY);
+ * pipeline.run(image, result);
+ * </pre></code>
+ * </p>
+ * <p>
+ * Compatible operations are fused into one pass. Image is split into tiles which buffers fit into L2 cache and each
+ * tile passes through all neighbor operations of the pass (linear filters, box and Gaussian blur, dilation, erosion,
+ * ...), so intermediate results live only into tile buffers instead of full images. Each operation also calculates
+ * border of tile that is needed by next operations. Point-wise operations (threshold, lookup tables) are composed
+ * into one lookup table and applied to output of previous operation. Operations without tile implementation (see
+ * {@link #apply(Operation)}) are performed on whole images and split pipeline into passes.
+ * </p>
+ * <p>
+ * Result is the same as result of calling methods of {@link Filters} one by one: intermediate values are rounded and
+ * truncated to interval <code>[0, 255]</code> and border values for each operation are taken by its own extrapolation
+ * from result of previous operation.
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="https://en.wikipedia.org/wiki/Loop_fission_and_fusion">Loop fission and fusion -- Wikipedia</a>.</li>
+ * <li><a href="https://en.wikipedia.org/wiki/Loop_nest_optimization">Loop nest optimization -- Wikipedia</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public final class Pipeline {
+
+    /**
+     * Operation that processes whole image.
+     */
+    public interface Operation {
+
+        /**
+         * Process source image and put result into given image with same size and number of channels.
+         */
+        void run(Image image, Image result);
+    }
+
+    /**
+     * Number of buffers for one tile: block of source values with border, two blocks of results and temporary values
+     * of operation.
+     */
+    private static final int numOfBuffers = 4;
+
+    /**
+     * Maximal sum of extents of fused operations by each direction. Borders of tiles are calculated for each
+     * operation, so next operation starts new pass if borders become too large.
+     */
+    private static final int maxHalo      = 64;
+
+    private final List<Pass> passes       = new ArrayList<>();
+
+    /**
+     * Apply lookup table to each value: <code>value := table[value]</code>.
+     *
+     * @param table
+     *            Table with 256 values. Values out of interval <code>[0, 255]</code> will be truncated. Array will be
+     *            copied.
+     * @return This pipeline.
+     */
+    public Pipeline lookup(final int[] table) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(table);
+        if (table.length != Color.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("Lookup table should have " + Integer.toString(Color.MAX_VALUE + 1)
+                    + " values, but have " + Integer.toString(table.length) + "!");
+        }
+
+        /*
+         * Add operation.
+         */
+        final int[] values = new int[table.length];
+        for (int value = 0; value < values.length; ++value) {
+            values[value] = Pipeline.truncate(table[value]);
+        }
+        addTable(values);
+
+        return this;
+    }
+
+    /**
+     * Same as {@link Filters#threshold(Image, Image, int, Threshold, int)}.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline threshold(final int threshold, final Threshold thresholdMethod, final int maxVal) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(thresholdMethod);
+        if (threshold < Color.MIN_VALUE || threshold > Color.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Parameter 'threshold' (=" + Double.toString(threshold) + ") must be in interval ["
+                            + Double.toString(Color.MIN_VALUE) + ", " + Double.toString(Color.MAX_VALUE) + "]!");
+        }
+        if (maxVal < Color.MIN_VALUE || maxVal > Color.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Parameter 'max' (=" + Double.toString(maxVal) + ") must be in interval ["
+                            + Double.toString(Color.MIN_VALUE) + ", " + Double.toString(Color.MAX_VALUE) + "]!");
+        }
+
+        /*
+         * Add operation.
+         */
+        final int[] table = new int[Color.MAX_VALUE + 1];
+        for (int value = 0; value < table.length; ++value) {
+            table[value] = thresholdMethod.run(value, threshold, maxVal);
+        }
+        addTable(table);
+
+        return this;
+    }
+
+    /**
+     * Same as {@link #threshold(int, Threshold, int)}, but uses {@link Color#MAX_VALUE} as default maximal value.
+     */
+    public Pipeline threshold(final int threshold, final Threshold thresholdMethod) {
+        return threshold(threshold, thresholdMethod, Color.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link Filters#invert(Image, Image)}.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline invert() {
+        final int[] table = new int[Color.MAX_VALUE + 1];
+        for (int value = 0; value < table.length; ++value) {
+            table[value] = Color.MAX_VALUE - value;
+        }
+        addTable(table);
+
+        return this;
+    }
+
+    /**
+     * Same as {@link Filters#linearFilter(Image, Image, Kernel, double, double, Extrapolation)}. Kernels that are
+     * processed by FFT are not fused.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline linearFilter(final Kernel kernel, final double div, final double offset,
+            final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(kernel);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Add operation.
+         */
+        if (FourierConvolution.isPreferred(kernel)) {
+            return apply((image, result) -> Filters.linearFilter(image, result, kernel, div, offset, extrapolation));
+        }
+        addStage(new KernelStage(kernel, div, offset, false, extrapolation));
+
+        return this;
+    }
+
+    /**
+     * Same as {@link Filters#blur(Image, Image, Size, Blur, Extrapolation)}. Only {@link Blur#BOX} and
+     * {@link Blur#GAUSSIAN} are fused.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline blur(final Size kernelSize, final Blur blurMethod, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(kernelSize);
+        JCV.verifyOddSize(kernelSize.getWidth());
+        JCV.verifyOddSize(kernelSize.getHeight());
+        JCV.verifyIsNotNull(blurMethod);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Add operation.
+         */
+        switch (blurMethod) {
+            case BOX:
+                addStage(new BoxStage(kernelSize, extrapolation));
+                break;
+
+            case GAUSSIAN:
+                // Same kernels as into Filters.gaussianBlur(...).
+                final float[] kernelX = Kernel.fromMatrix(Filters
+                        .getGaussianKernel(kernelSize.getWidth(), Filters.getSigma(kernelSize.getWidth())).transpose())
+                        .getValues();
+                final float[] kernelY = Kernel.fromMatrix(Filters.getGaussianKernel(kernelSize.getHeight(),
+                        Filters.getSigma(kernelSize.getHeight()))).getValues();
+                addStage(new SeparableStage(kernelX, kernelY, 1.0, Color.MIN_VALUE, extrapolation));
+                break;
+
+            default:
+                apply((image, result) -> Filters.blur(image, result, kernelSize, blurMethod, extrapolation));
+                break;
+        }
+
+        return this;
+    }
+
+    /**
+     * Same as {@link Filters#morphology(Image, Image, StructuringElement, Morphology, int, Extrapolation)} with one
+     * iteration. {@link Morphology#WHITE_TOP_HAT} and {@link Morphology#BLACK_TOP_HAT} are not fused.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline morphology(final StructuringElement element, final Morphology morphologyMethod,
+            final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(element);
+        JCV.verifyIsNotNull(morphologyMethod);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Add operation.
+         */
+        switch (morphologyMethod) {
+            case DILATE:
+            case ERODE:
+            case GRADIENT:
+                addStage(new MorphologyStage(element, morphologyMethod, extrapolation));
+                break;
+
+            case OPEN:
+                addStage(new MorphologyStage(element, Morphology.ERODE, extrapolation));
+                addStage(new MorphologyStage(element, Morphology.DILATE, extrapolation));
+                break;
+
+            case CLOSE:
+                addStage(new MorphologyStage(element, Morphology.DILATE, extrapolation));
+                addStage(new MorphologyStage(element, Morphology.ERODE, extrapolation));
+                break;
+
+            default:
+                apply((image, result) -> Filters.morphology(image, result, element, morphologyMethod, 1,
+                        extrapolation));
+                break;
+        }
+
+        return this;
+    }
+
+    /**
+     * Same as {@link Filters#sharpen(Image, Image, Sharpen, Extrapolation)}.
+     *
+     * @return This pipeline.
+     */
+    public Pipeline sharpen(final Sharpen sharpenMethod, final Extrapolation extrapolation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(sharpenMethod);
+        JCV.verifyIsNotNull(extrapolation);
+
+        /*
+         * Add operation. Extrapolation methods are the same as into Sharpen.
+         */
+        switch (sharpenMethod) {
+            case LAPLACIAN:
+                // Laplacian with truncated result is added to source value.
+                addStage(new KernelStage(EdgeDetect.LAPLACIAN.getKernelX(), -1.0, Color.MIN_VALUE, true,
+                        Extrapolation.REPLICATE));
+                break;
+
+            case MODERN:
+                addStage(new KernelStage(Sharpen.getModernKernel(), 1.0, Color.MIN_VALUE, false,
+                        Extrapolation.REFLECT));
+                break;
+
+            default:
+                apply((image, result) -> Filters.sharpen(image, result, sharpenMethod, extrapolation));
+                break;
+        }
+
+        return this;
+    }
+
+    /**
+     * Add operation on whole image. Such operation is not fused: results of previous operations are saved into
+     * temporary image.
+     *
+     * @param operation
+     *            Operation. Source and result images will be different images.
+     * @return This pipeline.
+     */
+    public Pipeline apply(final Operation operation) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(operation);
+
+        /*
+         * Add operation.
+         */
+        this.passes.add(new OperationPass(operation));
+
+        return this;
+    }
+
+    /**
+     * Return number of passes over whole image: each pass contains fused operations or one operation on whole image.
+     */
+    public int getNumOfPasses() {
+        return this.passes.size();
+    }
+
+    /**
+     * Apply all operations of pipeline to given image.
+     *
+     * @param image
+     *            Source image.
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public void run(final Image image, final Image result) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsSameChannels(image, result);
+
+        /*
+         * Perform transformation.
+         */
+        if (this.passes.isEmpty()) {
+            image.copyTo(result);
+            return;
+        }
+
+        // Source and result of each pass are different images.
+        final ImagePool pool = ImagePool.getDefault();
+        Image source = image;
+        for (int i = 0; i < this.passes.size(); ++i) {
+            final boolean isLast = i == this.passes.size() - 1;
+            final Image target = isLast && !result.isSameSource(source) ? result : pool.acquireSame(image);
+
+            this.passes.get(i).run(source, target);
+
+            if (source != image) {
+                pool.release(source);
+            }
+            source = target;
+        }
+
+        if (source != result) {
+            source.copyTo(result);
+            pool.release(source);
+        }
+    }
+
+    /**
+     * Same as {@link #run(Image, Image)}, but return a new image with result.
+     */
+    public Image run(final Image image) {
+        final Image result = image.makeSame();
+
+        run(image, result);
+
+        return result;
+    }
+
+    /**
+     * Compose point-wise operation with last operation of pipeline.
+     */
+    private void addTable(final int[] table) {
+        final Pass last = this.passes.isEmpty() ? null : this.passes.get(this.passes.size() - 1);
+        if (!(last instanceof FusedPass)) {
+            final FusedPass pass = new FusedPass();
+            pass.table = table;
+            this.passes.add(pass);
+            return;
+        }
+
+        final FusedPass pass = (FusedPass) last;
+        if (pass.stages.isEmpty()) {
+            pass.table = Pipeline.compose(pass.table, table);
+        } else {
+            final Stage stage = pass.stages.get(pass.stages.size() - 1);
+            stage.table = Pipeline.compose(stage.table, table);
+        }
+    }
+
+    /**
+     * Add neighbor operation to last pass or start new pass if it can not be fused.
+     */
+    private void addStage(final Stage stage) {
+        final Pass last = this.passes.isEmpty() ? null : this.passes.get(this.passes.size() - 1);
+        if (last instanceof FusedPass && ((FusedPass) last).canFuse(stage)) {
+            ((FusedPass) last).stages.add(stage);
+            return;
+        }
+
+        final FusedPass pass = new FusedPass();
+        pass.stages.add(stage);
+        this.passes.add(pass);
+    }
+
+    /**
+     * Return table for <code>second(first(value))</code>. First table can be <code>null</code>.
+     */
+    private static int[] compose(final int[] first, final int[] second) {
+        if (first == null) {
+            return second;
+        }
+
+        final int[] table = new int[first.length];
+        for (int value = 0; value < table.length; ++value) {
+            table[value] = second[first[value]];
+        }
+
+        return table;
+    }
+
+    private static int truncate(final int value) {
+        return Math.min(Math.max(value, Color.MIN_VALUE), Color.MAX_VALUE);
+    }
+
+    /**
+     * One pass over whole image.
+     */
+    private abstract static class Pass {
+
+        /**
+         * Process source image into different result image.
+         */
+        protected abstract void run(Image image, Image result);
+    }
+
+    /**
+     * Operation on whole image.
+     */
+    private static class OperationPass extends Pass {
+
+        private final Operation operation;
+
+        OperationPass(final Operation operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        protected void run(final Image image, final Image result) {
+            this.operation.run(image, result);
+        }
+    }
+
+    /**
+     * Fused operations: lookup table for source values and neighbor operations (each of them can have own lookup
+     * table for result) which are performed tile by tile.
+     */
+    private static class FusedPass extends Pass {
+
+        private final List<Stage> stages = new ArrayList<>();
+
+        /**
+         * Lookup table for source values or <code>null</code>.
+         */
+        private int[] table;
+
+        /**
+         * Return <code>true</code> if given operation can read result of previous operations from tile buffers.
+         * Extrapolation {@link Extrapolation#WRAP} takes border values from opposite side of image, so it is fused
+         * only with source image.
+         */
+        boolean canFuse(final Stage stage) {
+            if (this.stages.isEmpty()) {
+                return true;
+            }
+            if (stage.extrapolation == Extrapolation.WRAP) {
+                return false;
+            }
+
+            int haloX = stage.left + stage.right;
+            int haloY = stage.top + stage.bottom;
+            for (final Stage current : this.stages) {
+                haloX += current.left + current.right;
+                haloY += current.top + current.bottom;
+            }
+
+            return haloX <= Pipeline.maxHalo && haloY <= Pipeline.maxHalo;
+        }
+
+        @Override
+        protected void run(final Image image, final Image result) {
+            if (this.stages.isEmpty()) {
+                final int[] table = this.table;
+                final ExecutionContext context = ExecutionContext.getCurrent();
+                final int[][] rows = new int[context.getNumOfWorkers()][image.getWidth() * image.getNumOfChannels()];
+                context.rows(image, (y, worker) -> {
+                    final int[] row = rows[worker];
+                    image.getRow(y, row);
+                    for (int pos = 0; pos < row.length; ++pos) {
+                        row[pos] = table[row[pos]];
+                    }
+                    result.setRow(y, row);
+                });
+                return;
+            }
+
+            final int width = image.getWidth();
+            final int height = image.getHeight();
+            final Stage[] stages = this.stages.toArray(new Stage[this.stages.size()]);
+
+            // Maps of positions for each stage and sizes of tiles.
+            final int[][] mapsX = new int[stages.length][];
+            final int[][] mapsY = new int[stages.length][];
+            int haloX = 0;
+            int haloY = 0;
+            for (int i = 0; i < stages.length; ++i) {
+                final Stage stage = stages[i];
+                mapsX[i] = stage.extrapolation.translatePositions(width, stage.left + stage.right + 1, stage.left);
+                mapsY[i] = stage.extrapolation.translatePositions(height, stage.top + stage.bottom + 1, stage.top);
+                haloX += stage.left + stage.right;
+                haloY += stage.top + stage.bottom;
+            }
+            // Source block, result blocks and temporary values of each stage are not larger than tile with borders.
+            final int tileSize = Parallel.getTileSize(Pipeline.numOfBuffers, Math.max(haloX, haloY));
+            final int capacity = (tileSize + haloX) * (tileSize + haloY);
+
+            final ExecutionContext context = ExecutionContext.getCurrent();
+            final Workspace[] workspaces = new Workspace[context.getNumOfWorkers()];
+            for (int i = 0; i < workspaces.length; ++i) {
+                workspaces[i] = new Workspace(capacity, stages.length);
+            }
+
+            context.tiles(image, tileSize, tileSize, (x, y, tileWidth, tileHeight, worker) -> {
+                final Workspace workspace = workspaces[worker];
+
+                workspace.locate(stages, mapsX, mapsY, x, y, tileWidth, tileHeight);
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    final int[] output = runTile(image, channel, stages, mapsX, mapsY, workspace);
+                    for (int j = 0; j < tileHeight; ++j) {
+                        result.setSpan(x, y + j, tileWidth, channel, output, tileWidth * j);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Run all stages for one channel of tile and return buffer with result.
+         */
+        private int[] runTile(final Image image, final int channel, final Stage[] stages, final int[][] mapsX,
+                final int[][] mapsY, final Workspace workspace) {
+            int[] input = null;
+            for (int i = 0; i < stages.length; ++i) {
+                final Stage stage = stages[i];
+                final int regionX = workspace.regionsX[i];
+                final int regionY = workspace.regionsY[i];
+                final int regionWidth = workspace.regionWidths[i];
+                final int regionHeight = workspace.regionHeights[i];
+                final int blockWidth = regionWidth + stage.left + stage.right;
+                final int blockHeight = regionHeight + stage.top + stage.bottom;
+
+                // Collect values of block (result region with borders).
+                final int[] block = workspace.block;
+                if (i == 0) {
+                    gather(image, channel, mapsX[i], mapsY[i], regionX, regionY, blockWidth, blockHeight, block);
+                } else {
+                    gather(input, workspace.regionsX[i - 1], workspace.regionsY[i - 1], workspace.regionWidths[i - 1],
+                            mapsX[i], mapsY[i], regionX, regionY, blockWidth, blockHeight, block);
+                }
+
+                // Filter block and truncate result.
+                final int[] output = workspace.outputs[i % 2];
+                stage.run(block, regionWidth, regionHeight, output, workspace);
+                final int size = regionWidth * regionHeight;
+                if (stage.table == null) {
+                    for (int pos = 0; pos < size; ++pos) {
+                        output[pos] = Pipeline.truncate(output[pos]);
+                    }
+                } else {
+                    for (int pos = 0; pos < size; ++pos) {
+                        output[pos] = stage.table[Pipeline.truncate(output[pos])];
+                    }
+                }
+                input = output;
+            }
+
+            return input;
+        }
+
+        /**
+         * Collect block of source image. Positions which are continuous into source image are copied by spans.
+         */
+        private void gather(final Image image, final int channel, final int[] mapX, final int[] mapY,
+                final int regionX, final int regionY, final int blockWidth, final int blockHeight,
+                final int[] block) {
+            for (int j = 0; j < blockHeight; ++j) {
+                final int sourceY = mapY[regionY + j];
+                final int offset = blockWidth * j;
+                if (sourceY < 0) {
+                    Arrays.fill(block, offset, offset + blockWidth, Color.MIN_VALUE);
+                    continue;
+                }
+
+                int i = 0;
+                while (i < blockWidth) {
+                    final int sourceX = mapX[regionX + i];
+                    if (sourceX < 0) {
+                        block[offset + i] = Color.MIN_VALUE;
+                        ++i;
+                        continue;
+                    }
+
+                    int length = 1;
+                    while (i + length < blockWidth && mapX[regionX + i + length] == sourceX + length) {
+                        ++length;
+                    }
+                    image.getSpan(sourceX, sourceY, length, channel, block, offset + i);
+                    if (this.table != null) {
+                        for (int pos = offset + i; pos < offset + i + length; ++pos) {
+                            block[pos] = this.table[block[pos]];
+                        }
+                    }
+                    i += length;
+                }
+            }
+        }
+
+        /**
+         * Collect block from result of previous stage, which contains all positions of block after translation.
+         */
+        private void gather(final int[] input, final int inputX, final int inputY, final int inputWidth,
+                final int[] mapX, final int[] mapY, final int regionX, final int regionY, final int blockWidth,
+                final int blockHeight, final int[] block) {
+            for (int j = 0; j < blockHeight; ++j) {
+                final int sourceY = mapY[regionY + j];
+                final int offset = blockWidth * j;
+                if (sourceY < 0) {
+                    Arrays.fill(block, offset, offset + blockWidth, Color.MIN_VALUE);
+                    continue;
+                }
+
+                final int rowOffset = inputWidth * (sourceY - inputY) - inputX;
+                for (int i = 0; i < blockWidth; ++i) {
+                    final int sourceX = mapX[regionX + i];
+                    block[offset + i] = sourceX < 0 ? Color.MIN_VALUE : input[rowOffset + sourceX];
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers of one worker.
+     */
+    private static class Workspace {
+
+        private final int[]   block;
+
+        private final int[][] outputs;
+
+        private final int[]   ints;
+
+        private final int[]   moreInts;
+
+        private final float[] floats;
+
+        /**
+         * Regions of image which are calculated by each stage for current tile.
+         */
+        private final int[]   regionsX;
+
+        private final int[]   regionsY;
+
+        private final int[]   regionWidths;
+
+        private final int[]   regionHeights;
+
+        Workspace(final int capacity, final int numOfStages) {
+            this.block = new int[capacity];
+            this.outputs = new int[2][capacity];
+            this.ints = new int[capacity];
+            this.moreInts = new int[capacity];
+            this.floats = new float[capacity];
+
+            this.regionsX = new int[numOfStages];
+            this.regionsY = new int[numOfStages];
+            this.regionWidths = new int[numOfStages];
+            this.regionHeights = new int[numOfStages];
+        }
+
+        /**
+         * Calculate regions of all stages from the last one: region of previous stage should contain all positions
+         * which are read by next stage after translation by its extrapolation.
+         */
+        void locate(final Stage[] stages, final int[][] mapsX, final int[][] mapsY, final int x, final int y,
+                final int width, final int height) {
+            final int last = stages.length - 1;
+            this.regionsX[last] = x;
+            this.regionsY[last] = y;
+            this.regionWidths[last] = width;
+            this.regionHeights[last] = height;
+
+            for (int i = last; i > 0; --i) {
+                final Stage stage = stages[i];
+                locate(mapsX[i], this.regionsX[i], this.regionWidths[i] + stage.left + stage.right, this.regionsX,
+                        this.regionWidths, i - 1);
+                locate(mapsY[i], this.regionsY[i], this.regionHeights[i] + stage.top + stage.bottom, this.regionsY,
+                        this.regionHeights, i - 1);
+            }
+        }
+
+        /**
+         * Put minimal interval which contains translated positions <code>[start, start + length)</code> into given
+         * position of arrays.
+         */
+        private static void locate(final int[] map, final int start, final int length, final int[] starts,
+                final int[] lengths, final int index) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = start; i < start + length; ++i) {
+                if (map[i] >= 0) {
+                    min = Math.min(min, map[i]);
+                    max = Math.max(max, map[i]);
+                }
+            }
+
+            starts[index] = min;
+            lengths[index] = max - min + 1;
+        }
+    }
+
+    /**
+     * Neighbor operation, that calculates result for region of tile from block of values with borders.
+     */
+    private abstract static class Stage {
+
+        /**
+         * Number of columns (rows) of block before and after each position of result.
+         */
+        protected final int           left;
+
+        protected final int           top;
+
+        protected final int           right;
+
+        protected final int           bottom;
+
+        protected final Extrapolation extrapolation;
+
+        /**
+         * Lookup table for result or <code>null</code>.
+         */
+        protected int[]               table;
+
+        Stage(final int width, final int height, final Point anchor, final Extrapolation extrapolation) {
+            this.left = anchor.getX();
+            this.top = anchor.getY();
+            this.right = width - anchor.getX() - 1;
+            this.bottom = height - anchor.getY() - 1;
+            this.extrapolation = extrapolation;
+        }
+
+        /**
+         * Calculate result with size <code>width x height</code> from block with size
+         * <code>(left + width + right) x (top + height + bottom)</code>. Values of result will be truncated later.
+         */
+        protected abstract void run(int[] block, int width, int height, int[] output, Workspace workspace);
+    }
+
+    /**
+     * Convolution with kernel with same arithmetic as {@link Filters#linearFilter(Image, Image, Kernel, double, double,
+     * Extrapolation)}.
+     */
+    private static class KernelStage extends Stage {
+
+        private final Kernel  kernel;
+
+        private final int[]   intValues;
+
+        private final float[] values;
+
+        private final double  div;
+
+        private final double  offset;
+
+        /**
+         * Add truncated result to value at anchor.
+         */
+        private final boolean isAddSource;
+
+        KernelStage(final Kernel kernel, final double div, final double offset, final boolean isAddSource,
+                final Extrapolation extrapolation) {
+            super(kernel.getWidth(), kernel.getHeight(), kernel.getAnchor(), extrapolation);
+
+            this.kernel = kernel;
+            this.values = kernel.getValues();
+            this.intValues = new int[this.values.length];
+            for (int i = 0; i < this.values.length; ++i) {
+                this.intValues[i] = (int) this.values[i];
+            }
+            this.div = div;
+            this.offset = offset;
+            this.isAddSource = isAddSource;
+        }
+
+        @Override
+        protected void run(final int[] block, final int width, final int height, final int[] output,
+                final Workspace workspace) {
+            final int blockWidth = width + this.left + this.right;
+            final int kernelWidth = this.kernel.getWidth();
+            final int kernelHeight = this.kernel.getHeight();
+            final boolean isInteger = this.kernel.isInteger();
+
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    final double sum;
+                    if (isInteger) {
+                        long intSum = 0;
+                        int i = 0;
+                        for (int j = 0; j < kernelHeight; ++j) {
+                            final int pos = blockWidth * (y + j) + x;
+                            for (int k = 0; k < kernelWidth; ++k) {
+                                intSum += this.intValues[i++] * block[pos + k];
+                            }
+                        }
+                        sum = intSum;
+                    } else {
+                        double floatSum = 0.0;
+                        int i = 0;
+                        for (int j = 0; j < kernelHeight; ++j) {
+                            final int pos = blockWidth * (y + j) + x;
+                            for (int k = 0; k < kernelWidth; ++k) {
+                                floatSum += this.values[i++] * block[pos + k];
+                            }
+                        }
+                        sum = floatSum;
+                    }
+
+                    int value = JCV.round(sum / this.div + this.offset);
+                    if (this.isAddSource) {
+                        value = Pipeline.truncate(value) + block[blockWidth * (y + this.top) + x + this.left];
+                    }
+                    output[width * y + x] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Separable convolution with same arithmetic as {@link Filters#separableFilter(Image, Image, Kernel, double,
+     * double, Extrapolation)}: sums by rows and columns are not rounded.
+     */
+    private static class SeparableStage extends Stage {
+
+        private final float[] kernelX;
+
+        private final float[] kernelY;
+
+        private final double  scale;
+
+        private final double  offset;
+
+        SeparableStage(final float[] kernelX, final float[] kernelY, final double scale, final double offset,
+                final Extrapolation extrapolation) {
+            super(kernelX.length, kernelY.length, new Point((kernelX.length - 1) / 2, (kernelY.length - 1) / 2),
+                    extrapolation);
+
+            this.kernelX = kernelX;
+            this.kernelY = kernelY;
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        @Override
+        protected void run(final int[] block, final int width, final int height, final int[] output,
+                final Workspace workspace) {
+            final int blockWidth = width + this.left + this.right;
+            final int blockHeight = height + this.top + this.bottom;
+
+            // Convolve rows.
+            final float[] rows = workspace.floats;
+            Arrays.fill(rows, 0, width * blockHeight, 0.0f);
+            for (int j = 0; j < blockHeight; ++j) {
+                for (int i = 0; i < this.kernelX.length; ++i) {
+                    final float k = this.kernelX[i];
+                    final int shift = blockWidth * j + i;
+                    final int rowPos = width * j;
+                    for (int x = 0; x < width; ++x) {
+                        rows[rowPos + x] += k * block[shift + x];
+                    }
+                }
+            }
+
+            // Convolve columns.
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    float sum = 0.0f;
+                    for (int j = 0; j < this.kernelY.length; ++j) {
+                        sum += this.kernelY[j] * rows[width * (y + j) + x];
+                    }
+                    output[width * y + x] = JCV.round(this.scale * sum + this.offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Box blur with same arithmetic as {@link Blur#BOX}.
+     */
+    private static class BoxStage extends Stage {
+
+        private final int kernelWidth;
+
+        private final int kernelHeight;
+
+        BoxStage(final Size kernelSize, final Extrapolation extrapolation) {
+            super(kernelSize.getWidth(), kernelSize.getHeight(),
+                    JCV.calculateCenter(kernelSize.getWidth(), kernelSize.getHeight()), extrapolation);
+
+            this.kernelWidth = kernelSize.getWidth();
+            this.kernelHeight = kernelSize.getHeight();
+        }
+
+        @Override
+        protected void run(final int[] block, final int width, final int height, final int[] output,
+                final Workspace workspace) {
+            final int blockWidth = width + this.left + this.right;
+            final int blockHeight = height + this.top + this.bottom;
+            final int n = this.kernelWidth * this.kernelHeight;
+
+            // Sliding sums by rows.
+            final int[] rows = workspace.ints;
+            for (int j = 0; j < blockHeight; ++j) {
+                final int pos = blockWidth * j;
+                int sum = 0;
+                for (int i = 0; i < this.kernelWidth; ++i) {
+                    sum += block[pos + i];
+                }
+                rows[width * j] = sum;
+                for (int x = 1; x < width; ++x) {
+                    sum += block[pos + x + this.kernelWidth - 1] - block[pos + x - 1];
+                    rows[width * j + x] = sum;
+                }
+            }
+
+            // Sliding sums by columns and average with rounding (all sums are not negative).
+            final int[] sums = workspace.moreInts;
+            Arrays.fill(sums, 0, width, 0);
+            for (int j = 0; j < this.kernelHeight; ++j) {
+                for (int x = 0; x < width; ++x) {
+                    sums[x] += rows[width * j + x];
+                }
+            }
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    output[width * y + x] = (2 * sums[x] + n) / (2 * n);
+                }
+                if (y + 1 < height) {
+                    for (int x = 0; x < width; ++x) {
+                        sums[x] += rows[width * (y + this.kernelHeight) + x] - rows[width * y + x];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Dilation, erosion or morphological gradient with structuring element. Values of selected positions are scanned
+     * for each result: tiles are small, so it is enough for small elements. Rectangle elements are processed by rows
+     * and columns independently.
+     */
+    private static class MorphologyStage extends Stage {
+
+        private final StructuringElement element;
+
+        private final Morphology         morphologyMethod;
+
+        MorphologyStage(final StructuringElement element, final Morphology morphologyMethod,
+                final Extrapolation extrapolation) {
+            super(element.getWidth(), element.getHeight(), element.getAnchor(), extrapolation);
+
+            this.element = element;
+            this.morphologyMethod = morphologyMethod;
+        }
+
+        @Override
+        protected void run(final int[] block, final int width, final int height, final int[] output,
+                final Workspace workspace) {
+            final int blockWidth = width + this.left + this.right;
+            final int blockHeight = height + this.top + this.bottom;
+
+            if (this.element.isRectangle()) {
+                // Maximums and minimums by rows.
+                final int[] maxRows = workspace.ints;
+                final int[] minRows = workspace.moreInts;
+                for (int j = 0; j < blockHeight; ++j) {
+                    for (int x = 0; x < width; ++x) {
+                        final int pos = blockWidth * j + x;
+                        int max = Color.MIN_VALUE;
+                        int min = Color.MAX_VALUE;
+                        for (int i = 0; i < this.element.getWidth(); ++i) {
+                            max = Math.max(max, block[pos + i]);
+                            min = Math.min(min, block[pos + i]);
+                        }
+                        maxRows[width * j + x] = max;
+                        minRows[width * j + x] = min;
+                    }
+                }
+
+                // Maximums and minimums by columns.
+                for (int y = 0; y < height; ++y) {
+                    for (int x = 0; x < width; ++x) {
+                        int max = Color.MIN_VALUE;
+                        int min = Color.MAX_VALUE;
+                        for (int j = 0; j < this.element.getHeight(); ++j) {
+                            max = Math.max(max, maxRows[width * (y + j) + x]);
+                            min = Math.min(min, minRows[width * (y + j) + x]);
+                        }
+                        output[width * y + x] = result(max, min);
+                    }
+                }
+                return;
+            }
+
+            final int[] runRows = this.element.runRows();
+            final int[] runStarts = this.element.runStarts();
+            final int[] runLengths = this.element.runLengths();
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    int max = Color.MIN_VALUE;
+                    int min = Color.MAX_VALUE;
+                    for (int r = 0; r < runRows.length; ++r) {
+                        final int pos = blockWidth * (y + runRows[r]) + x + runStarts[r];
+                        for (int i = 0; i < runLengths[r]; ++i) {
+                            max = Math.max(max, block[pos + i]);
+                            min = Math.min(min, block[pos + i]);
+                        }
+                    }
+                    output[width * y + x] = result(max, min);
+                }
+            }
+        }
+
+        /**
+         * Return result of operation by maximum and minimum of selected values.
+         */
+        private int result(final int max, final int min) {
+            switch (this.morphologyMethod) {
+                case DILATE:
+                    return max;
+
+                case ERODE:
+                    return min;
+
+                default:
+                    // Morphological gradient.
+                    return max - min;
+            }
+        }
+    }
+}
@@ -21,10 +21,10 @@ package org.jcvlib.image.filters;
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Extrapolation;
 import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
+import org.jcvlib.core.Kernel;
 import org.jcvlib.image.Misc;
 
-import Jama.Matrix;
-
 /**
  * Image sharpen methods.
  *
@@ -51,8 +51,14 @@ public enum Sharpen {
     LAPLACIAN {
 
         @Override
-        protected Image run(final Image image, final Extrapolation extrapolationMethod) {
-            return Misc.sum(Filters.laplacian(image), image);
+        protected void run(final Image image, final Image result, final Extrapolation extrapolationMethod) {
+            final ImagePool pool = ImagePool.getDefault();
+            final Image laplacian = pool.acquireSame(image);
+
+            Filters.laplacian(image, laplacian, Extrapolation.REPLICATE);
+            Misc.sum(laplacian, image, result);
+
+            pool.release(laplacian);
         }
     },
 
@@ -62,20 +68,26 @@ public enum Sharpen {
     MODERN {
 
         @Override
-        protected Image run(final Image image, final Extrapolation extrapolationMethod) {
-            //@formatter:off
-            final Matrix modernSharpen = new Matrix(new double[][]{
-                    {  0.0, -1.0,  0.0 },
-                    { -1.0,  5.0, -1.0 },
-                    {  0.0, -1.0,  0.0 }
-                });
-            //@formatter:on
+        protected void run(final Image image, final Image result, final Extrapolation extrapolationMethod) {
             final double div = 1.0;
             final double offset = Color.MIN_VALUE;
 
-            return Filters.linearFilter(image, modernSharpen, div, offset, Extrapolation.REFLECT);
+            Filters.linearFilter(image, result, Sharpen.getModernKernel(), div, offset, Extrapolation.REFLECT);
         }
     };
 
-    protected abstract Image run(final Image image, final Extrapolation extrapolationMethod);
+    protected abstract void run(final Image image, final Image result, final Extrapolation extrapolationMethod);
+
+    /**
+     * Return common-used sharpen matrix of {@link #MODERN}.
+     */
+    static Kernel getModernKernel() {
+        //@formatter:off
+        return new Kernel(3, 3, new float[] {
+                 0.0f, -1.0f,  0.0f,
+                -1.0f,  5.0f, -1.0f,
+                 0.0f, -1.0f,  0.0f
+            });
+        //@formatter:on
+    }
 }
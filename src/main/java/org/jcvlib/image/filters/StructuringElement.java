@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image.filters;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Point;
+import org.jcvlib.core.Size;
+
+/**
+ * Immutable structuring element (binary mask) for {@link Morphology}.
+ * <p>
+ * Mask is stored into flat <code>boolean[]</code> array by rows: value <code>(x, y)</code> placed into position
+ * <code>width * y + x</code>. On creation mask is compiled into horizontal runs (continuous sequences of selected
+ * values into one row), so dilation (erosion) by element reuses 1-D maximums (minimums) of source rows for each run
+ * instead of scan of the whole bounding box for each pixel.
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="http://en.wikipedia.org/wiki/Structuring_element">Structuring element -- Wikipedia</a>.</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Run-length_encoding">Run-length encoding -- Wikipedia</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public final class StructuringElement {
+
+    private final int       width;
+
+    private final int       height;
+
+    private final Point     anchor;
+
+    private final boolean[] mask;
+
+    private final boolean   rectangle;
+
+    private final int[]     runRows;
+
+    private final int[]     runStarts;
+
+    private final int[]     runLengths;
+
+    /**
+     * Create structuring element with anchor in the center.
+     *
+     * @param width
+     *            Width of element.
+     * @param height
+     *            Height of element.
+     * @param mask
+     *            Values of element by rows: <code>true</code> for selected positions. Array will be copied.
+     */
+    public StructuringElement(final int width, final int height, final boolean[] mask) {
+        this(width, height, mask, JCV.calculateCenter(width, height));
+    }
+
+    /**
+     * Create structuring element.
+     *
+     * @param width
+     *            Width of element.
+     * @param height
+     *            Height of element.
+     * @param mask
+     *            Values of element by rows: <code>true</code> for selected positions. Array will be copied.
+     * @param anchor
+     *            Relative position of a filtered point within the element.
+     */
+    public StructuringElement(final int width, final int height, final boolean[] mask, final Point anchor) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(mask);
+        JCV.verifyIsNotNull(anchor);
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Size of structuring element (= {0}) must be more than 0!", JCV.getSizeString(width, height)));
+        }
+        if (mask.length != width * height) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Structuring element {0} should have {1} values, but have {2}!",
+                            JCV.getSizeString(width, height), width * height, mask.length));
+        }
+        if (anchor.getX() < 0 || anchor.getX() >= width || anchor.getY() < 0 || anchor.getY() >= height) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Anchor {0} should be inside of structuring element {1}!", anchor,
+                    JCV.getSizeString(width, height)));
+        }
+
+        /*
+         * Create a new object.
+         */
+        this.width = width;
+        this.height = height;
+        this.anchor = anchor;
+        this.mask = mask.clone();
+
+        // Compile mask into runs.
+        final int[] rows = new int[mask.length];
+        final int[] starts = new int[mask.length];
+        final int[] lengths = new int[mask.length];
+        int numOfRuns = 0;
+        int numOfSelected = 0;
+        for (int y = 0; y < height; ++y) {
+            int x = 0;
+            while (x < width) {
+                if (!this.mask[width * y + x]) {
+                    ++x;
+                    continue;
+                }
+
+                final int start = x;
+                while (x < width && this.mask[width * y + x]) {
+                    ++x;
+                }
+
+                rows[numOfRuns] = y;
+                starts[numOfRuns] = start;
+                lengths[numOfRuns] = x - start;
+                ++numOfRuns;
+                numOfSelected += x - start;
+            }
+        }
+        if (numOfRuns == 0) {
+            throw new IllegalArgumentException("Structuring element should have at least one selected value!");
+        }
+
+        this.runRows = Arrays.copyOf(rows, numOfRuns);
+        this.runStarts = Arrays.copyOf(starts, numOfRuns);
+        this.runLengths = Arrays.copyOf(lengths, numOfRuns);
+        this.rectangle = numOfSelected == this.mask.length;
+    }
+
+    /**
+     * Create rectangle structuring element with anchor in the center, where all values are selected.
+     */
+    public static StructuringElement rectangle(final int width, final int height) {
+        return StructuringElement.rectangle(width, height,
+                JCV.calculateCenter(Math.max(width, 1), Math.max(height, 1)));
+    }
+
+    /**
+     * Create rectangle structuring element with given anchor, where all values are selected.
+     */
+    public static StructuringElement rectangle(final int width, final int height, final Point anchor) {
+        final boolean[] mask = new boolean[Math.max(width, 0) * Math.max(height, 0)];
+        Arrays.fill(mask, true);
+
+        return new StructuringElement(width, height, mask, anchor);
+    }
+
+    /**
+     * Create structuring element with anchor in the center, where selected values form an ellipse inscribed into
+     * rectangle with given size.
+     */
+    public static StructuringElement ellipse(final int width, final int height) {
+        if (width == 1 || height == 1) {
+            return StructuringElement.rectangle(width, height);
+        }
+
+        final boolean[] mask = new boolean[Math.max(width, 0) * Math.max(height, 0)];
+        final Point center = JCV.calculateCenter(Math.max(width, 1), Math.max(height, 1));
+        final double radiusX = width / 2;
+        final double radiusY = height / 2;
+        for (int y = 0; y < height; ++y) {
+            final double dy = (y - center.getY()) / radiusY;
+            if (Math.abs(dy) > 1.0) {
+                continue;
+            }
+
+            // Half of width of ellipse chord for current row.
+            final int dx = (int) Math.round(radiusX * Math.sqrt(1.0 - dy * dy));
+            final int start = Math.max(center.getX() - dx, 0);
+            final int end = Math.min(center.getX() + dx + 1, width);
+            Arrays.fill(mask, width * y + start, width * y + end, true);
+        }
+
+        return new StructuringElement(width, height, mask);
+    }
+
+    /**
+     * Create structuring element with anchor in the center, where selected values form a cross: row and column which
+     * contain the anchor.
+     */
+    public static StructuringElement cross(final int width, final int height) {
+        final boolean[] mask = new boolean[Math.max(width, 0) * Math.max(height, 0)];
+        final Point center = JCV.calculateCenter(Math.max(width, 1), Math.max(height, 1));
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                mask[width * y + x] = x == center.getX() || y == center.getY();
+            }
+        }
+
+        return new StructuringElement(width, height, mask);
+    }
+
+    /**
+     * Return width of element.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Return height of element.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Return size of element.
+     */
+    public Size getSize() {
+        return new Size(this.width, this.height);
+    }
+
+    /**
+     * Return anchor of element.
+     */
+    public Point getAnchor() {
+        return this.anchor;
+    }
+
+    /**
+     * Return <code>true</code> if given position is selected.
+     */
+    public boolean get(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            throw new IllegalArgumentException(MessageFormat.format("Position {0} is out of structuring element {1}!",
+                    JCV.getPointString(x, y), JCV.getSizeString(this.width, this.height)));
+        }
+
+        return this.mask[this.width * y + x];
+    }
+
+    /**
+     * Return copy of all values by rows.
+     */
+    public boolean[] getMask() {
+        return this.mask.clone();
+    }
+
+    /**
+     * Return <code>true</code> if all values of element are selected. Such element is separable and processed by
+     * rows and columns independently.
+     */
+    public boolean isRectangle() {
+        return this.rectangle;
+    }
+
+    /**
+     * Return number of horizontal runs of selected values.
+     */
+    public int getNumOfRuns() {
+        return this.runRows.length;
+    }
+
+    /**
+     * Return rows of runs for hot loops without copying. <strong>Should not be changed!</strong>
+     */
+    int[] runRows() {
+        return this.runRows;
+    }
+
+    /**
+     * Return first columns of runs for hot loops without copying. <strong>Should not be changed!</strong>
+     */
+    int[] runStarts() {
+        return this.runStarts;
+    }
+
+    /**
+     * Return lengths of runs for hot loops without copying. <strong>Should not be changed!</strong>
+     */
+    int[] runLengths() {
+        return this.runLengths;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * this.width + this.height) + this.anchor.hashCode()) + Arrays.hashCode(this.mask);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof StructuringElement)) {
+            return false;
+        }
+
+        final StructuringElement element = (StructuringElement) object;
+
+        return this.width == element.width && this.height == element.height && this.anchor.equals(element.anchor)
+                && Arrays.equals(this.mask, element.mask);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("Structuring element ");
+        sb.append(JCV.getSizeString(this.width, this.height));
+        sb.append(", anchor ");
+        sb.append(this.anchor);
+        sb.append(":\n");
+        for (int y = 0; y < this.height; ++y) {
+            for (int x = 0; x < this.width; ++x) {
+                sb.append(this.mask[this.width * y + x] ? '#' : '.');
+            }
+            sb.append("\n");
+        }
+
+        return sb.toString();
+    }
+}
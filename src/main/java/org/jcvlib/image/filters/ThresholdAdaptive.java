@@ -18,7 +18,9 @@
  */
 package org.jcvlib.image.filters;
 
-import Jama.Matrix;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Size;
 
 /**
  * Contains adaptive threshold methods.
@@ -35,14 +37,16 @@ import Jama.Matrix;
 public enum ThresholdAdaptive {
     /**
      * Calculate mean value for all pixels from aperture of current pixel. All values have same weight.
+     * <p>
+     * Mean is calculated by running sums (see {@link Blur#BOX}), so it takes <code>O(1)</code> operations per pixel for
+     * any size of block.
+     * </p>
      */
     MEAN {
 
         @Override
-        protected Matrix getMatrixCoeff(final int size) {
-            final Matrix coeff = new Matrix(size, size);
-            coeff.setMatrix(0, size - 1, 0, size - 1, new Matrix(size, size, 1.0 / (size * size - 1)));
-            return coeff;
+        protected void calculateMean(final Image image, final Image mean, final int size) {
+            Filters.blur(image, mean, new Size(size, size), Blur.BOX, Extrapolation.REPLICATE);
         }
 
         @Override
@@ -57,8 +61,8 @@ public enum ThresholdAdaptive {
     MEAN_INV {
 
         @Override
-        protected Matrix getMatrixCoeff(final int size) {
-            return MEAN.getMatrixCoeff(size);
+        protected void calculateMean(final Image image, final Image mean, final int size) {
+            MEAN.calculateMean(image, mean, size);
         }
 
         @Override
@@ -70,6 +74,10 @@ public enum ThresholdAdaptive {
     /**
      * Calculate mean value for all pixels from aperture of current pixel. All values have weight from Gaussian matrix.
      * <p>
+     * Mean is calculated by separable Gaussian blur (see {@link Blur#GAUSSIAN}), so it takes <code>O(size)</code>
+     * operations per pixel.
+     * </p>
+     * <p>
      * <h6>Links:</h6>
      * <ol>
      * <li><a href="http://en.wikipedia.org/wiki/Gaussian_blur">Gaussian blur -- Wikipedia</a>.</li>
@@ -79,11 +87,8 @@ public enum ThresholdAdaptive {
     GAUSSIAN {
 
         @Override
-        protected Matrix getMatrixCoeff(final int size) {
-            final Matrix coeff = new Matrix(size, size);
-            final Matrix gaussianKernel = Filters.getGaussianKernel(size);
-            coeff.setMatrix(0, size - 1, 0, size - 1, gaussianKernel.times(gaussianKernel.transpose()));
-            return coeff;
+        protected void calculateMean(final Image image, final Image mean, final int size) {
+            Filters.blur(image, mean, new Size(size, size), Blur.GAUSSIAN, Extrapolation.REPLICATE);
         }
 
         @Override
@@ -105,8 +110,8 @@ public enum ThresholdAdaptive {
     GAUSSIAN_INV {
 
         @Override
-        protected Matrix getMatrixCoeff(final int size) {
-            return GAUSSIAN.getMatrixCoeff(size);
+        protected void calculateMean(final Image image, final Image mean, final int size) {
+            GAUSSIAN.calculateMean(image, mean, size);
         }
 
         @Override
@@ -115,7 +120,10 @@ public enum ThresholdAdaptive {
         }
     };
 
-    protected abstract Matrix getMatrixCoeff(final int size);
+    /**
+     * Put into <code>mean</code> weighted mean value of aperture with given size for each pixel of source image.
+     */
+    protected abstract void calculateMean(final Image image, final Image mean, final int size);
 
     protected abstract Threshold getThresholdMethod();
 }
@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Image;
+import org.jcvlib.core.ImagePool;
 import org.jcvlib.core.Interpolation;
 import org.jcvlib.core.JCV;
 import org.jcvlib.core.Point;
@@ -71,6 +72,33 @@ public class Geometry {
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(newSize);
+
+        /*
+         * Perform operation.
+         */
+        final Image result = new Image(newSize.getWidth(), newSize.getHeight(), image.getNumOfChannels());
+
+        Geometry.wrapPerspectiveTransform(image, result, P, interpolation, fillColor);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #wrapPerspectiveTransform(Image, Matrix, Size, Interpolation, Color)}, but put result into given
+     * image. Size of result image uses as a new size.
+     *
+     * @param result
+     *            Image for result. Should have same number of channels as a source image. Can be a sub-image or same
+     *            image as a source.
+     */
+    public static void wrapPerspectiveTransform(final Image image, final Image result, final Matrix P,
+            final Interpolation interpolation, final Color fillColor) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameChannels(image, result);
         JCV.verifyIsNotNull(P);
         if (P.getRowDimension() != 3 || P.getColumnDimension() != 3) {
             throw new IllegalArgumentException(String.format("Matrix 'P' sould have size [3x3], but have [%sx%s]!",
@@ -80,26 +108,37 @@ public class Geometry {
         /*
          * Perform operation.
          */
-        final Image result = new Image(newSize.getWidth(), newSize.getHeight(), image.getNumOfChannels());
         final Matrix invP = P.inverse();
 
-        Parallel.pixels(result, (x, y, worker) -> {
-            for (int channel = 0; channel < result.getNumOfChannels(); ++channel) {
-                final double t = invP.get(2, 0) * x + invP.get(2, 1) * y + invP.get(2, 2);
-                final double nx = (invP.get(0, 0) * x + invP.get(0, 1) * y + invP.get(0, 2)) / t;
-                final double ny = (invP.get(1, 0) * x + invP.get(1, 1) * y + invP.get(1, 2)) / t;
+        // Source pixels are read from any position, so write into temporary image if both share same data.
+        final ImagePool pool = ImagePool.getDefault();
+        final Image target;
+        if (image.isSameSource(result)) {
+            target = pool.acquireSame(result);
+        } else {
+            target = result;
+        }
+
+        Parallel.pixels(target, (x, y, worker) -> {
+            final double t = invP.get(2, 0) * x + invP.get(2, 1) * y + invP.get(2, 2);
+            final double nx = (invP.get(0, 0) * x + invP.get(0, 1) * y + invP.get(0, 2)) / t;
+            final double ny = (invP.get(1, 0) * x + invP.get(1, 1) * y + invP.get(1, 2)) / t;
 
+            for (int channel = 0; channel < target.getNumOfChannels(); ++channel) {
                 double value;
                 if (nx < 0 || nx > image.getWidth() - 1 || ny < 0 || ny > image.getHeight() - 1) {
                     value = fillColor.get(channel);
                 } else {
                     value = image.get(nx, ny, channel, interpolation);
                 }
-                result.set(x, y, channel, JCV.round(value));
+                target.set(x, y, channel, JCV.round(value));
             }
         });
 
-        return result;
+        if (target != result) {
+            target.copyTo(result);
+            pool.release(target);
+        }
     }
 
     /**
@@ -192,6 +231,32 @@ public class Geometry {
          * Verify parameters.
          */
         JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(newSize);
+
+        /*
+         * Perform operation.
+         */
+        final Image result = new Image(newSize.getWidth(), newSize.getHeight(), image.getNumOfChannels());
+
+        Geometry.wrapAffineTransform(image, result, A, interpolation, fillColor);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #wrapAffineTransform(Image, Matrix, Size, Interpolation, Color)}, but put result into given
+     * image. Size of result image uses as a new size.
+     *
+     * @param result
+     *            Image for result. Should have same number of channels as a source image. Can be a sub-image or same
+     *            image as a source.
+     */
+    public static void wrapAffineTransform(final Image image, final Image result, final Matrix A,
+            final Interpolation interpolation, final Color fillColor) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
 
         JCV.verifyIsNotNull(A);
         if (A.getRowDimension() != 2 || A.getColumnDimension() != 3) {
@@ -207,7 +272,7 @@ public class Geometry {
         P.setMatrix(0, 1, 0, 2, A);
         P.setMatrix(2, 2, 0, 2, new Matrix(new double[][] { { 0.0, 0.0, 1.0 } }));
 
-        return Geometry.wrapPerspectiveTransform(image, P, newSize, interpolation, fillColor);
+        Geometry.wrapPerspectiveTransform(image, result, P, interpolation, fillColor);
     }
 
     /**
@@ -290,7 +355,32 @@ public class Geometry {
         /*
          * Perform operation.
          */
-        return Geometry.wrapAffineTransform(image, reflectionMethod.getMatrix(image.getSize()), image.getSize(),
+        final Image result = image.makeSame();
+
+        Geometry.reflect(image, result, reflectionMethod);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #reflect(Image, Reflection)}, but put result into given image.
+     *
+     * @param result
+     *            Image for result. Should have same size and number of channels as a source image. Can be a sub-image
+     *            or same image as a source.
+     */
+    public static void reflect(final Image image, final Image result, final Reflection reflectionMethod) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsSameSize(image, result);
+        JCV.verifyIsNotNull(reflectionMethod);
+
+        /*
+         * Perform operation.
+         */
+        Geometry.wrapAffineTransform(image, result, reflectionMethod.getMatrix(image.getSize()),
                 Interpolation.NEAREST_NEIGHBOR, new Color(image.getNumOfChannels(), Color.MIN_VALUE));
     }
 
@@ -371,12 +461,37 @@ public class Geometry {
         /*
          * Perform operation.
          */
-        final double scaleX = (double) newSize.getWidth() / (double) image.getWidth();
-        final double scaleY = (double) newSize.getHeight() / (double) image.getHeight();
+        final Image result = new Image(newSize.getWidth(), newSize.getHeight(), image.getNumOfChannels());
+
+        Geometry.resize(image, result, interpolation, fillColor);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #resize(Image, Size, Interpolation, Color)}, but put result into given image. Size of result
+     * image uses as a new size.
+     *
+     * @param result
+     *            Image for result. Should have same number of channels as a source image. Can be a sub-image.
+     */
+    public static void resize(final Image image, final Image result, final Interpolation interpolation,
+            final Color fillColor) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(result);
+
+        /*
+         * Perform operation.
+         */
+        final double scaleX = (double) result.getWidth() / (double) image.getWidth();
+        final double scaleY = (double) result.getHeight() / (double) image.getHeight();
 
         final Matrix A = new Matrix(new double[][] { { scaleX, 0.0, 0.0 }, { 0.0, scaleY, 0.0 } });
 
-        return Geometry.wrapAffineTransform(image, A, newSize, interpolation, fillColor);
+        Geometry.wrapAffineTransform(image, result, A, interpolation, fillColor);
     }
 
     /**
@@ -396,6 +511,14 @@ public class Geometry {
                 new Color(image.getNumOfChannels(), Color.MIN_VALUE));
     }
 
+    /**
+     * Same as {@link #resize(Image, Image, Interpolation, Color)}, but use <code>Image.INTERPOLATION_BILINEAR</code>
+     * and {@link Color#MIN_VALUE} as default.
+     */
+    public static void resize(final Image image, final Image result) {
+        Geometry.resize(image, result, Interpolation.BILINEAR, new Color(image.getNumOfChannels(), Color.MIN_VALUE));
+    }
+
     /**
      * Rotate image on some degree.
      *
@@ -21,11 +21,16 @@ package org.jcvlib.io;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.MessageFormat;
 
 import javax.imageio.ImageIO;
 
 import org.jcvlib.core.Image;
 import org.jcvlib.core.JCV;
+import org.jcvlib.core.Layout;
 import org.jcvlib.image.TypeConvert;
 
 import com.sixlegs.png.PngImage;
@@ -78,6 +83,21 @@ import com.sixlegs.png.PngImage;
  */
 public class ImageRW {
 
+    /**
+     * First bytes of raw image file: <code>JCVR</code>.
+     */
+    private static final int RAW_MAGIC       = 0x4A435652;
+
+    /**
+     * Version of raw image file format.
+     */
+    private static final int RAW_VERSION     = 1;
+
+    /**
+     * Size of header of raw image file. Pixel values start from the page boundary.
+     */
+    private static final int RAW_HEADER_SIZE = 4096;
+
     /**
      * Write image from disk.
      * <p>
@@ -241,4 +261,153 @@ public class ImageRW {
         final String fileFormat = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
         ImageRW.write(image, new File(fileName), fileFormat);
     }
+
+    /**
+     * Create new raw image file and map it into the memory.
+     * <p>
+     * Raw file contains header with size {@value #RAW_HEADER_SIZE} bytes (magic number <code>JCVR</code>, version of
+     * format, width, height and number of channels as big-endian <code>int</code> values) and pixel values in
+     * {@link Layout#ROW_MAJOR} order after it.
+     * </p>
+     * <p>
+     * Returned image is not stored into the Java heap. Pages of file are loaded by operation system only when they are
+     * touched, so image can be larger than RAM. All changes of image are written into the file; use
+     * {@link Image#flush()} to force writing and {@link Image#close()} to unmap file when image is not needed.
+     * </p>
+     * <p>
+     * Values are stored by rows, so process large images by bands of whole rows (see
+     * {@link Image#makeSubImage(int, int, int, int)}): tile touches pages of each of its rows. Images which are
+     * created by {@link Image#makeSame()}, {@link Image#makeCopy()} and by filters without given result image are
+     * stored into the Java heap, so to keep whole processing out of the heap pass mapped image (for example, other
+     * image created by this method) as result of filter.
+     * </p>
+     * <p>
+     * <strong>Limits:</strong> filters which write directly into given result (box, separable and recursive Gaussian
+     * blur) keep only few rows or strips per worker into the heap. But in-place calls (result is the same image as
+     * source), compound operations (for example, morphological opening) and dilation or erosion with rectangle
+     * element use temporary image with size of whole frame from {@link org.jcvlib.core.ImagePool}. Process image
+     * larger than the heap by such filters by bands of rows, which fit into the heap.
+     * </p>
+     *
+     * @param file
+     *            File for image. Will be overwritten if exists.
+     * @param width
+     *            Width of image (in pixels).
+     * @param height
+     *            Height of image (in pixels).
+     * @param numOfChannels
+     *            Number of channels in image.
+     */
+    public static Image createMapped(final File file, final int width, final int height, final int numOfChannels)
+            throws IOException {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(file);
+        if (width <= 0 || height <= 0 || numOfChannels <= 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Image size (= {0}) and number of channels (= {1}) must be more than 0!",
+                    JCV.getSizeString(width, height), numOfChannels));
+        }
+
+        /*
+         * Create file.
+         */
+        final long size = (long) width * height * numOfChannels;
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.setLength(ImageRW.RAW_HEADER_SIZE + size);
+
+            final FileChannel channel = raf.getChannel();
+
+            final ByteBuffer header = ByteBuffer.allocate(ImageRW.RAW_HEADER_SIZE);
+            header.putInt(ImageRW.RAW_MAGIC);
+            header.putInt(ImageRW.RAW_VERSION);
+            header.putInt(width);
+            header.putInt(height);
+            header.putInt(numOfChannels);
+            header.rewind();
+            channel.write(header, 0);
+
+            return new Image(new MappedStorage(channel, ImageRW.RAW_HEADER_SIZE, size, MappedStorage.REGION_SHIFT),
+                    width, height, numOfChannels, Layout.ROW_MAJOR);
+        }
+    }
+
+    /**
+     * Same as {@link #createMapped(File, int, int, int)}, but uses name of file.
+     */
+    public static Image createMapped(final String fileName, final int width, final int height,
+            final int numOfChannels) throws IOException {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(fileName);
+
+        /*
+         * Create image.
+         */
+        return ImageRW.createMapped(new File(fileName), width, height, numOfChannels);
+    }
+
+    /**
+     * Map existing raw image file (see {@link #createMapped(File, int, int, int)}) into the memory. All changes of
+     * returned image will be written into the file. Use {@link Image#close()} to unmap file when image is not needed.
+     * Same limits of filters as for {@link #createMapped(File, int, int, int)} are applied.
+     */
+    public static Image openMapped(final File file) throws IOException {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(file);
+
+        /*
+         * Open file.
+         */
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            final FileChannel channel = raf.getChannel();
+
+            final ByteBuffer header = ByteBuffer.allocate(ImageRW.RAW_HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read whole header.
+            }
+            header.rewind();
+
+            if (header.getInt() != ImageRW.RAW_MAGIC) {
+                throw new IOException(MessageFormat.format("File \"{0}\" is not raw image file!", file));
+            }
+            final int version = header.getInt();
+            if (version != ImageRW.RAW_VERSION) {
+                throw new IOException(
+                        MessageFormat.format("Unsupported version (= {0}) of raw image file \"{1}\"!", version, file));
+            }
+            final int width = header.getInt();
+            final int height = header.getInt();
+            final int numOfChannels = header.getInt();
+
+            final long size = (long) width * height * numOfChannels;
+            if (width <= 0 || height <= 0 || numOfChannels <= 0 || raf.length() < ImageRW.RAW_HEADER_SIZE + size) {
+                throw new IOException(MessageFormat.format("Raw image file \"{0}\" is corrupted!", file));
+            }
+
+            return new Image(new MappedStorage(channel, ImageRW.RAW_HEADER_SIZE, size, MappedStorage.REGION_SHIFT),
+                    width, height, numOfChannels, Layout.ROW_MAJOR);
+        }
+    }
+
+    /**
+     * Same as {@link #openMapped(File)}, but uses name of file.
+     */
+    public static Image openMapped(final String fileName) throws IOException {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(fileName);
+
+        /*
+         * Open image.
+         */
+        return ImageRW.openMapped(new File(fileName));
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.io;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.jcvlib.core.Storage;
+
+/**
+ * Storage based on memory-mapped file. Used for images that are larger than Java heap (or even than RAM).
+ * <p>
+ * One {@link MappedByteBuffer} can not be larger than 2 GB, so file is mapped by regions with size
+ * <code>2<sup>regionShift</sup></code> bytes. Regions are only reserved into the address space: operation system
+ * loads pages only when they are touched. Values are stored in {@link org.jcvlib.core.Layout#ROW_MAJOR} order, so
+ * band of whole rows touches continuous pages, but tile touches pages of each of its rows.
+ * </p>
+ * <p>
+ * Mapping is released by {@link #close()}. JVM does not have public method to unmap buffer, so internal cleaner of
+ * buffer is used if it is available; otherwise mapping is released by GC.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+final class MappedStorage extends Storage {
+
+    /**
+     * Default size of one mapped region: 2<sup>26</sup> bytes (= 64 MB).
+     */
+    static final int                    REGION_SHIFT = 26;
+
+    private volatile MappedByteBuffer[] regions;
+    private final long                  size;
+    private final int                   shift;
+    private final long                  mask;
+
+    /**
+     * Map <code>size</code> bytes of given channel from position <code>position</code>. Channel can be closed after
+     * creation of storage.
+     */
+    MappedStorage(final FileChannel channel, final long position, final long size, final int regionShift)
+            throws IOException {
+        this.size = size;
+        this.shift = regionShift;
+        this.mask = (1L << regionShift) - 1L;
+
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((size + this.mask) >>> regionShift)];
+        for (int i = 0; i < mapped.length; ++i) {
+            final long start = (long) i << regionShift;
+            final long length = Math.min(1L << regionShift, size - start);
+            mapped[i] = channel.map(MapMode.READ_WRITE, position + start, length);
+        }
+        this.regions = mapped;
+    }
+
+    @Override
+    public long getSize() {
+        return this.size;
+    }
+
+    @Override
+    public int get(final long index) {
+        return getRegion(index).get((int) (index & this.mask)) & 0xFF;
+    }
+
+    @Override
+    public void set(final long index, final byte value) {
+        getRegion(index).put((int) (index & this.mask), value);
+    }
+
+    @Override
+    public void get(final long index, final byte[] dst, final int offset, final int length) {
+        long pos = index;
+        int copied = 0;
+        while (copied < length) {
+            final ByteBuffer view = getView(pos);
+            final int n = Math.min(length - copied, view.remaining());
+            view.get(dst, offset + copied, n);
+
+            copied += n;
+            pos += n;
+        }
+    }
+
+    @Override
+    public void set(final long index, final byte[] src, final int offset, final int length) {
+        long pos = index;
+        int copied = 0;
+        while (copied < length) {
+            final ByteBuffer view = getView(pos);
+            final int n = Math.min(length - copied, view.remaining());
+            view.put(src, offset + copied, n);
+
+            copied += n;
+            pos += n;
+        }
+    }
+
+    /**
+     * Return view of region that contains given position. Position of view is set to given position.
+     */
+    private ByteBuffer getView(final long index) {
+        // Duplicate have own position, so parallel copying is safe.
+        final ByteBuffer view = getRegion(index).duplicate();
+        view.position((int) (index & this.mask));
+        return view;
+    }
+
+    /**
+     * Return region that contains given position.
+     */
+    private MappedByteBuffer getRegion(final long index) {
+        final MappedByteBuffer[] current = this.regions;
+        if (current == null) {
+            throw new IllegalStateException("Memory-mapped storage is closed!");
+        }
+
+        return current[(int) (index >>> this.shift)];
+    }
+
+    @Override
+    public void flush() {
+        final MappedByteBuffer[] current = this.regions;
+        if (current == null) {
+            throw new IllegalStateException("Memory-mapped storage is closed!");
+        }
+
+        for (final MappedByteBuffer region : current) {
+            region.force();
+        }
+    }
+
+    /**
+     * Write all changes into the file and unmap it. Repeated closing does nothing.
+     */
+    @Override
+    public synchronized void close() {
+        final MappedByteBuffer[] current = this.regions;
+        if (current == null) {
+            return;
+        }
+
+        for (final MappedByteBuffer region : current) {
+            region.force();
+        }
+        this.regions = null;
+
+        for (final MappedByteBuffer region : current) {
+            MappedStorage.unmap(region);
+        }
+    }
+
+    /**
+     * Unmap given buffer by its cleaner: <code>sun.misc.Unsafe.invokeCleaner</code> on Java 9 and later or
+     * <code>cleaner().clean()</code> on Java 8. If none of them is available, mapping will be released by GC.
+     */
+    private static void unmap(final MappedByteBuffer buffer) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            // Java 8 or restricted access.
+        }
+
+        try {
+            final Method getCleaner = buffer.getClass().getMethod("cleaner");
+            getCleaner.setAccessible(true);
+            final Object cleaner = getCleaner.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            // Mapping will be released by GC.
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Built-in executors for {@link ExecutionContext}.
+ * <p>
+ * Calling thread is always the first worker of loop, so dedicated pools have <code>numOfWorkers - 1</code> threads.
+ * Contexts with dedicated pools own them: use <code>try</code>-with-resources or call
+ * {@link ExecutionContext#close()}. Any other {@link Executor} can be used through
+ * {@link ExecutionContext#ExecutionContext(Executor, int, int)}.
+ * </p>
+ * <p>
+ * Example: <code><pre>
+ * try (ExecutionContext context = Backend.FIXED_THREAD_POOL.createContext(2, Parallel.MIN_SIZE_DEFAULT)) {
+ *     context.execute(() -&gt; Filters.blur(image, result, size, Blur.GAUSSIAN, Extrapolation.REPLICATE));
+ * }
+ * </pre></code>
+ * </p>
+ * <p>
+ * <h6>Links:</h6>
+ * <ol>
+ * <li><a href="https://docs.oracle.com/javase/8/docs/api/java/util/concurrent/ForkJoinPool.html">ForkJoinPool -- Java
+ * Platform SE 8</a>.</li>
+ * <li><a href="https://openjdk.org/jeps/444">JEP 444: Virtual Threads</a>.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public enum Backend {
+    /**
+     * Only calling thread: no thread hand-off at all. Given number of workers is ignored. Useful for small images and
+     * for servers, where each request already has own thread.
+     */
+    CALLER_RUNS {
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            return new ExecutionContext(Runnable::run, 1, minSize);
+        }
+    },
+
+    /**
+     * Shared pool of library (threads are created on demand). It is used by default context.
+     */
+    SHARED {
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            return new ExecutionContext(numOfWorkers, minSize);
+        }
+    },
+
+    /**
+     * Common {@link ForkJoinPool} of JVM, which is shared with parallel streams.
+     */
+    COMMON_FORK_JOIN_POOL {
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            return new ExecutionContext(ForkJoinPool.commonPool(), numOfWorkers, minSize);
+        }
+    },
+
+    /**
+     * Dedicated work-stealing {@link ForkJoinPool}.
+     */
+    FORK_JOIN_POOL {
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            return new ExecutionContext(new ForkJoinPool(Math.max(numOfWorkers - 1, 1)), numOfWorkers, minSize, true);
+        }
+    },
+
+    /**
+     * Dedicated pool with fixed number of daemon threads. Bounds CPU usage of context, for example, per tenant of
+     * server.
+     */
+    FIXED_THREAD_POOL {
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.max(numOfWorkers - 1, 1),
+                    ExecutionContext::newWorker);
+
+            return new ExecutionContext(executor, numOfWorkers, minSize, true);
+        }
+    },
+
+    /**
+     * New virtual thread for each task. Available on Java 21 (or on Java 19 and 20 with preview features), see
+     * {@link #isSupported()}.
+     */
+    VIRTUAL_THREADS {
+
+        @Override
+        public boolean isSupported() {
+            return Backend.getVirtualThreadsFactory() != null;
+        }
+
+        @Override
+        protected ExecutionContext create(final int numOfWorkers, final int minSize) {
+            final Method factory = Backend.getVirtualThreadsFactory();
+            if (factory == null) {
+                throw new UnsupportedOperationException(MessageFormat.format(
+                        "Virtual threads are not supported by Java {0}!", System.getProperty("java.version")));
+            }
+
+            try {
+                return new ExecutionContext((ExecutorService) factory.invoke(null), numOfWorkers, minSize, true);
+            } catch (final IllegalAccessException | InvocationTargetException e) {
+                throw new UnsupportedOperationException("Can not create executor of virtual threads!", e);
+            }
+        }
+    };
+
+    /**
+     * Return <code>true</code> if backend can be used into current JVM.
+     */
+    public boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Create new context which uses this backend.
+     *
+     * @param numOfWorkers
+     *            Maximal number of workers for one loop (include calling thread).
+     * @param minSize
+     *            Minimal number of elements of image for one worker.
+     */
+    public ExecutionContext createContext(final int numOfWorkers, final int minSize) {
+        /*
+         * Verify parameters.
+         */
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Number of workers (= {0}) must be more than 0!", numOfWorkers));
+        }
+        if (minSize < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Minimal size (= {0}) must be more than 0!", minSize));
+        }
+
+        /*
+         * Perform operation.
+         */
+        return create(numOfWorkers, minSize);
+    }
+
+    /**
+     * Create context for verified parameters.
+     */
+    protected abstract ExecutionContext create(final int numOfWorkers, final int minSize);
+
+    /**
+     * Return factory method of executor with virtual threads or <code>null</code> if current JVM can not use it.
+     */
+    private static Method getVirtualThreadsFactory() {
+        return VirtualThreads.factory;
+    }
+
+    /**
+     * Lazy holder of factory method of executor with virtual threads. Library is compiled for Java 8, so method is
+     * found by reflection. On Java 19 and 20 method exists, but works only with <code>--enable-preview</code>, so it is
+     * called once to check that executor can be really created.
+     */
+    private static final class VirtualThreads {
+
+        private static final Method factory = VirtualThreads.findFactory();
+
+        private static Method findFactory() {
+            try {
+                final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ((ExecutorService) method.invoke(null)).shutdown();
+                return method;
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+import java.text.MessageFormat;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+
+/**
+ * Immutable configuration of parallel processing: executor of tasks, number of workers and minimal number of
+ * elements for one worker.
+ * <p>
+ * All operations use context of current thread (see {@link #getCurrent()}) through {@link Parallel}. So independent
+ * pipelines can process images in one JVM with own contexts without interference:
+ * <code><pre>
+ * final ExecutionContext context = new ExecutionContext(executor, 2, Parallel.MIN_SIZE_DEFAULT);
+ * context.execute(() -&gt; {
+ *     // All operations into this block use 2 workers of given executor.
+ *     Filters.blur(image, result, size, Blur.GAUSSIAN, Extrapolation.REPLICATE);
+ * });
+ * </pre></code>
+ * </p>
+ * <p>
+ * This class is thread-safe. Configuration of context can not be changed after creation, so per-worker buffers
+ * allocated for {@link #getNumOfWorkers()} are valid for all loops of the same context. Default context can be
+ * replaced by other thread at any moment, so operation with per-worker buffers should take one snapshot of
+ * {@link #getCurrent()} and use it for both buffers and loops. Context does not own given
+ * executor: it should be shut down by creator. Only contexts created by {@link Backend} own their executors and shut
+ * them down on {@link #close()}.
+ * </p>
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public final class ExecutionContext implements AutoCloseable {
+
+    /**
+     * Executor of contexts without own executor. Threads are created on demand, so nested loops and several contexts
+     * never wait for free threads.
+     */
+    private static final ExecutorService                   sharedExecutor  = Executors
+            .newCachedThreadPool(ExecutionContext::newWorker);
+
+    private static final AtomicReference<ExecutionContext> defaultContext  = new AtomicReference<>(
+            new ExecutionContext(Runtime.getRuntime().availableProcessors(), Parallel.MIN_SIZE_DEFAULT));
+
+    private static final ThreadLocal<ExecutionContext>     currentContext  = new ThreadLocal<>();
+
+    /**
+     * Number of chunks of indexes for one worker: more chunks give better balance of load, less chunks give longer
+     * continuous runs of rows for each worker.
+     */
+    private static final int                               chunksPerWorker = 4;
+
+    private final Executor                                 executor;
+
+    private final int                                      numOfWorkers;
+
+    private final int                                      minSize;
+
+    private final boolean                                  isOwner;
+
+    private volatile boolean                               isClosed;
+
+    /**
+     * Create context which uses shared executor of library.
+     *
+     * @param numOfWorkers
+     *            Maximal number of workers for one loop (include calling thread).
+     * @param minSize
+     *            Minimal number of elements of image for one worker.
+     */
+    public ExecutionContext(final int numOfWorkers, final int minSize) {
+        this(ExecutionContext.sharedExecutor, numOfWorkers, minSize);
+    }
+
+    /**
+     * Create context.
+     *
+     * @param executor
+     *            Executor of tasks. Calling thread is always the first worker, so only
+     *            <code>numOfWorkers - 1</code> tasks are submitted for one loop.
+     * @param numOfWorkers
+     *            Maximal number of workers for one loop (include calling thread).
+     * @param minSize
+     *            Minimal number of elements of image for one worker.
+     */
+    public ExecutionContext(final Executor executor, final int numOfWorkers, final int minSize) {
+        this(executor, numOfWorkers, minSize, false);
+    }
+
+    /**
+     * Create context which shuts down given executor on {@link #close()}, if <code>isOwner</code> is <code>true</code>.
+     */
+    ExecutionContext(final Executor executor, final int numOfWorkers, final int minSize, final boolean isOwner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(executor);
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Number of workers (= {0}) must be more than 0!", numOfWorkers));
+        }
+        if (minSize < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Minimal size (= {0}) must be more than 0!", minSize));
+        }
+
+        /*
+         * Create a new object.
+         */
+        this.executor = executor;
+        this.numOfWorkers = numOfWorkers;
+        this.minSize = minSize;
+        this.isOwner = isOwner;
+    }
+
+    /**
+     * Return default context, which is used by threads without own context.
+     */
+    public static ExecutionContext getDefault() {
+        return ExecutionContext.defaultContext.get();
+    }
+
+    /**
+     * Replace default context. Loops which are already started continue to use previous one.
+     */
+    public static void setDefault(final ExecutionContext context) {
+        JCV.verifyIsNotNull(context);
+
+        ExecutionContext.defaultContext.set(context);
+    }
+
+    /**
+     * Atomically replace default context by result of given function, so concurrent changes are not lost.
+     */
+    static void updateDefault(final UnaryOperator<ExecutionContext> update) {
+        ExecutionContext.defaultContext.updateAndGet(update);
+    }
+
+    /**
+     * Return context of current thread: context of enclosing {@link #execute(Runnable)} or default context.
+     */
+    public static ExecutionContext getCurrent() {
+        final ExecutionContext context = ExecutionContext.currentContext.get();
+
+        return context == null ? ExecutionContext.getDefault() : context;
+    }
+
+    /**
+     * Return executor of tasks.
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Return maximal number of workers for one loop.
+     */
+    public int getNumOfWorkers() {
+        return this.numOfWorkers;
+    }
+
+    /**
+     * Return minimal number of elements of image for one worker.
+     */
+    public int getMinSize() {
+        return this.minSize;
+    }
+
+    /**
+     * Return copy of this context with given number of workers. Copy uses same executor, but does not own it.
+     */
+    public ExecutionContext withNumOfWorkers(final int numOfWorkers) {
+        return new ExecutionContext(this.executor, numOfWorkers, this.minSize);
+    }
+
+    /**
+     * Return copy of this context with given minimal number of elements for one worker. Copy uses same executor, but
+     * does not own it.
+     */
+    public ExecutionContext withMinSize(final int minSize) {
+        return new ExecutionContext(this.executor, this.numOfWorkers, minSize);
+    }
+
+    /**
+     * Run action into calling thread, so all operations inside of it use this context.
+     */
+    public void execute(final Runnable action) {
+        JCV.verifyIsNotNull(action);
+        verifyIsNotClosed();
+
+        final ExecutionContext previous = ExecutionContext.currentContext.get();
+        ExecutionContext.currentContext.set(this);
+        try {
+            action.run();
+        } finally {
+            ExecutionContext.restore(previous);
+        }
+    }
+
+    /**
+     * Close this context and shut down executor, if it was created for this context by {@link Backend}. Closed context
+     * throws {@link IllegalStateException} from {@link #execute(Runnable)} and loops. Loops which are already started
+     * are finished by calling thread. Repeated closing does nothing.
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+        if (this.isOwner && this.executor instanceof ExecutorService) {
+            ((ExecutorService) this.executor).shutdown();
+        }
+    }
+
+    /**
+     * Return <code>true</code> if {@link #close()} was called for this context.
+     */
+    public boolean isClosed() {
+        return this.isClosed;
+    }
+
+    /**
+     * Throw exception if context is closed.
+     */
+    private void verifyIsNotClosed() {
+        if (this.isClosed) {
+            throw new IllegalStateException(MessageFormat.format("{0} is closed!", this));
+        }
+    }
+
+    /**
+     * Parallel processing channels of image. See {@link Parallel#channels(Image, ChannelsLoop)}.
+     */
+    public void channels(final Image image, final ChannelsLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(runner);
+
+        /*
+         * Perform operation.
+         */
+        exec(image.getNumOfChannels(),
+                JCV.roundUp((double) this.minSize / (double) (image.getWidth() * image.getHeight())),
+                (channel, worker) -> runner.execute(channel));
+    }
+
+    /**
+     * Parallel processing pixels of image. See {@link Parallel#pixels(Image, PixelsLoop)}.
+     */
+    public void pixels(final Image image, final PixelsLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(runner);
+
+        /*
+         * Perform operation.
+         */
+        exec(image.getHeight(), this.minSize / image.getWidth() + 1, (y, worker) -> {
+            for (int x = 0; x < image.getWidth(); ++x) {
+                runner.execute(x, y, worker);
+            }
+        });
+    }
+
+    /**
+     * Parallel processing rows of image. See {@link Parallel#rows(Image, RowsLoop)}.
+     */
+    public void rows(final Image image, final RowsLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(runner);
+
+        /*
+         * Perform operation.
+         */
+        exec(image.getHeight(), this.minSize / image.getWidth() + 1, runner::execute);
+    }
+
+    /**
+     * Parallel processing columns of image. See {@link Parallel#columns(Image, ColumnsLoop)}.
+     */
+    public void columns(final Image image, final ColumnsLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(runner);
+
+        /*
+         * Perform operation.
+         */
+        exec(image.getWidth(), this.minSize / image.getHeight() + 1, runner::execute);
+    }
+
+    /**
+     * Parallel processing tiles of image. See {@link Parallel#tiles(Image, int, int, TileLoop)}.
+     */
+    public void tiles(final Image image, final int tileWidth, final int tileHeight, final TileLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(image);
+        JCV.verifyIsNotNull(runner);
+        if (tileWidth < 1 || tileHeight < 1) {
+            throw new IllegalArgumentException(MessageFormat.format("Size of tile (= {0}) must be more than 0!",
+                    JCV.getSizeString(tileWidth, tileHeight)));
+        }
+
+        /*
+         * Perform operation.
+         */
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int numOfTilesX = (width + tileWidth - 1) / tileWidth;
+        final int numOfTiles = numOfTilesX * ((height + tileHeight - 1) / tileHeight);
+        // Each worker should get at least minimal number of elements.
+        final int tilesPerWorker = JCV.roundUp((double) numOfTiles * (double) this.minSize / ((double) width * height));
+
+        exec(numOfTiles, tilesPerWorker, (tile, worker) -> {
+            final int x = tileWidth * (tile % numOfTilesX);
+            final int y = tileHeight * (tile / numOfTilesX);
+            runner.execute(x, y, Math.min(tileWidth, width - x), Math.min(tileHeight, height - y), worker);
+        });
+    }
+
+    /**
+     * Parallel processing of indexes. See {@link Parallel#indexes(int, int, IndexesLoop)}.
+     */
+    public void indexes(final int numOfIndexes, final int indexSize, final IndexesLoop runner) {
+        /*
+         * Verify parameters.
+         */
+        JCV.verifyIsNotNull(runner);
+        if (numOfIndexes < 0) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Number of indexes (= {0}) must be more or equals than 0!", numOfIndexes));
+        }
+        if (indexSize < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Size of index (= {0}) must be more than 0!", indexSize));
+        }
+
+        /*
+         * Perform operation.
+         */
+        exec(numOfIndexes, this.minSize / indexSize + 1, runner);
+    }
+
+    /**
+     * Execute loop for indexes from <code>0</code> to <code>n - 1</code>.
+     * <p>
+     * Calling thread is worker <code>0</code>, other workers are tasks of executor. Indexes are handed out dynamically
+     * by continuous chunks: each worker takes next free chunk after the current one is done and processes its indexes
+     * in order. So algorithms which reuse state of previous row of the same worker (sliding sums, rings of rows)
+     * restart only once per chunk, and there are still {@link #chunksPerWorker} chunks per worker to balance load.
+     * Calling thread waits only for chunks which are taken by other workers, so it never waits for tasks which are not
+     * started yet (for example, into busy fixed pool) or rejected by executor.
+     * </p>
+     *
+     * @param n
+     *            Number of indexes.
+     * @param minIterations
+     *            Minimal number of indexes for one worker.
+     * @param loop
+     *            Body of loop.
+     */
+    private void exec(final int n, final int minIterations, final IndexesLoop loop) {
+        verifyIsNotClosed();
+
+        final int workers = Math.min(this.numOfWorkers, n / Math.max(minIterations, 1));
+        if (workers <= 1) {
+            for (int i = 0; i < n; ++i) {
+                loop.execute(i, 0);
+            }
+            return;
+        }
+
+        final int chunkSize = JCV.roundUp((double) n / (double) (workers * ExecutionContext.chunksPerWorker));
+        final int numOfChunks = (n + chunkSize - 1) / chunkSize;
+
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(numOfChunks);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int worker = 1; worker < workers; ++worker) {
+            final int currentWorker = worker;
+            try {
+                this.executor.execute(() -> {
+                    final ExecutionContext previous = ExecutionContext.currentContext.get();
+                    ExecutionContext.currentContext.set(this);
+                    try {
+                        ExecutionContext.work(n, chunkSize, currentWorker, loop, next, done, error);
+                    } finally {
+                        ExecutionContext.restore(previous);
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                // Executor is shut down or full: calling thread takes all chunks which are not taken by other workers.
+                break;
+            }
+        }
+        ExecutionContext.work(n, chunkSize, 0, loop, next, done, error);
+
+        // Wait for chunks which are processed by other workers.
+        boolean isInterrupted = false;
+        while (done.getCount() > 0) {
+            try {
+                done.await();
+            } catch (final InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable throwable = error.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+    }
+
+    /**
+     * Take and process free chunks of indexes until all of them are taken. After first error the rest chunks are only
+     * marked as done.
+     */
+    private static void work(final int n, final int chunkSize, final int worker, final IndexesLoop loop,
+            final AtomicInteger next, final CountDownLatch done, final AtomicReference<Throwable> error) {
+        final int numOfChunks = (n + chunkSize - 1) / chunkSize;
+        for (int chunk = next.getAndIncrement(); chunk < numOfChunks; chunk = next.getAndIncrement()) {
+            try {
+                final int end = Math.min(chunk * chunkSize + chunkSize, n);
+                for (int i = chunk * chunkSize; i < end && error.get() == null; ++i) {
+                    loop.execute(i, worker);
+                }
+            } catch (final Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Create daemon thread for shared executor, so it does not prevent JVM from exit.
+     */
+    static Thread newWorker(final Runnable task) {
+        final Thread thread = new Thread(task, "jcvlib-worker");
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    /**
+     * Restore previous context of current thread.
+     */
+    private static void restore(final ExecutionContext previous) {
+        if (previous == null) {
+            ExecutionContext.currentContext.remove();
+        } else {
+            ExecutionContext.currentContext.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("Execution context: {0} workers, min size {1}, executor {2}", this.numOfWorkers,
+                this.minSize, this.executor);
+    }
+}
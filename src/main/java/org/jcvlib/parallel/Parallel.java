@@ -18,9 +18,9 @@
  */
 package org.jcvlib.parallel;
 
+import java.text.MessageFormat;
+
 import org.jcvlib.core.Image;
-import org.jcvlib.core.JCV;
-import org.jparfor.JParFor;
 
 /**
  * Class for parallelization image processing algorithms.
@@ -41,8 +41,16 @@ import org.jparfor.JParFor;
  *              // Do something.
  *          }
  *      });
+ * </pre></code> or <code><pre>
+ * // Image image = ...
+ * Parallel.tiles(image, tileSize, tileSize, (x, y, width, height, worker) -&gt; {
+ *         // Process block of values from (x, y) with given size.
+ *     });
  * </pre></code>
  * </p>
+ * <p>
+ * All loops use {@link ExecutionContext} of current thread (see {@link ExecutionContext#getCurrent()}).
+ * </p>
  *
  * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
  */
@@ -53,52 +61,55 @@ public class Parallel {
      */
     public static final int MIN_SIZE_DEFAULT = 160 * 120;
 
-    private static int      currentMinSize   = Parallel.MIN_SIZE_DEFAULT;
+    /**
+     * Size of cache (in bytes) which should contain buffers of one tile: 256 KB is L2 cache of one core for most CPU.
+     */
+    public static final int CACHE_SIZE       = 256 * 1024;
 
     /**
-     * Return minimal size for parallelization.
+     * Minimal size of tile by each dimension, because smaller tiles spend more time on borders than on values.
+     */
+    public static final int MIN_TILE_SIZE    = 16;
+
+    /**
+     * Return minimal size for parallelization of current context.
      */
     public static int getMinSize() {
-        return Parallel.currentMinSize;
+        return ExecutionContext.getCurrent().getMinSize();
     }
 
     /**
-     * Set min size for parallelization.
+     * Set min size for parallelization into default context. Operations which run into own context (see
+     * {@link ExecutionContext#execute(Runnable)}) are not affected.
      */
     public static void setMinSize(final int minSize) {
-        Parallel.currentMinSize = minSize;
+        ExecutionContext.updateDefault(context -> context.withMinSize(minSize));
     }
 
     /**
-     * Return number of worker that will be used.
+     * Return number of worker that will be used by current context.
+     * <p>
+     * Default context can be changed by other thread between this call and next loop. So operations with per-worker
+     * buffers should use one snapshot of {@link ExecutionContext#getCurrent()} to size buffers and to run loops.
+     * </p>
      */
     public static int getNumOfWorkers() {
-        return JParFor.getMaxWorkers();
+        return ExecutionContext.getCurrent().getNumOfWorkers();
     }
 
     /**
-     * Set number of workers that will be used.
+     * Set number of workers into default context. Operations which run into own context (see
+     * {@link ExecutionContext#execute(Runnable)}) are not affected.
      */
     public static void setNumOfWorkers(final int maxWork) {
-        JParFor.setMaxWorkers(maxWork);
+        ExecutionContext.updateDefault(context -> context.withNumOfWorkers(maxWork));
     }
 
     /**
      * Parallel processing channels of image.
      */
     public static void channels(final Image image, final ChannelsLoop runner) {
-        /*
-         * Verify parameters.
-         */
-        JCV.verifyIsNotNull(image);
-        JCV.verifyIsNotNull(runner);
-
-        /*
-         * Perform operation.
-         */
-        JParFor.setMinIterations(
-                JCV.roundUp((double) Parallel.getMinSize() / (double) (image.getWidth() * image.getHeight())));
-        JParFor.exec(image.getNumOfChannels(), (channel, nThread) -> runner.execute(channel));
+        ExecutionContext.getCurrent().channels(image, runner);
     }
 
     /**
@@ -110,20 +121,97 @@ public class Parallel {
      *            Object to process image on each loop step.
      */
     public static void pixels(final Image image, final PixelsLoop runner) {
+        ExecutionContext.getCurrent().pixels(image, runner);
+    }
+
+    /**
+     * Parallel processing rows of image. Useful for algorithms that process whole row at once.
+     *
+     * @param image
+     *            Source image.
+     * @param runner
+     *            Object to process image on each loop step.
+     */
+    public static void rows(final Image image, final RowsLoop runner) {
+        ExecutionContext.getCurrent().rows(image, runner);
+    }
+
+    /**
+     * Parallel processing columns of image. Useful for algorithms that process whole column at once (for example,
+     * recursive filters by Y).
+     *
+     * @param image
+     *            Source image.
+     * @param runner
+     *            Object to process image on each loop step.
+     */
+    public static void columns(final Image image, final ColumnsLoop runner) {
+        ExecutionContext.getCurrent().columns(image, runner);
+    }
+
+    /**
+     * Parallel processing indexes from <code>0</code> to <code>numOfIndexes - 1</code>. Useful for algorithms that
+     * split image into own parts (for example, strips of neighbor columns).
+     *
+     * @param numOfIndexes
+     *            Number of indexes.
+     * @param indexSize
+     *            Number of elements of image which are processed for one index.
+     * @param runner
+     *            Object to process image on each loop step.
+     */
+    public static void indexes(final int numOfIndexes, final int indexSize, final IndexesLoop runner) {
+        ExecutionContext.getCurrent().indexes(numOfIndexes, indexSize, runner);
+    }
+
+    /**
+     * Return size of square tile, so <code>numOfBuffers</code> buffers of <code>int</code> values for tile with border
+     * of given size by each side fit into {@link #CACHE_SIZE}. Tile is not smaller than {@link #MIN_TILE_SIZE}.
+     *
+     * @param numOfBuffers
+     *            Number of buffers (source, result and temporary values) which are used to process one tile.
+     * @param halo
+     *            Sum of border sizes by both sides of tile (for example, kernel size minus one).
+     */
+    public static int getTileSize(final int numOfBuffers, final int halo) {
         /*
          * Verify parameters.
          */
-        JCV.verifyIsNotNull(image);
-        JCV.verifyIsNotNull(runner);
+        if (numOfBuffers < 1) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Number of buffers (= {0}) must be more than 0!", numOfBuffers));
+        }
+        if (halo < 0) {
+            throw new IllegalArgumentException(MessageFormat.format("Size of border (= {0}) must be 0 or more!", halo));
+        }
 
         /*
          * Perform operation.
          */
-        JParFor.setMinIterations(JCV.roundUp(Parallel.getMinSize() / image.getWidth() + 1.0));
-        JParFor.exec(image.getHeight(), (y, nThread) -> {
-            for (int x = 0; x < image.getWidth(); ++x) {
-                runner.execute(x, y, nThread);
-            }
-        });
+        final int side = (int) Math.sqrt(Parallel.CACHE_SIZE / (Integer.BYTES * numOfBuffers));
+
+        return Math.max(side - halo, Parallel.MIN_TILE_SIZE);
+    }
+
+    /**
+     * Parallel processing tiles (rectangle blocks) of image. Useful for neighbourhood algorithms: block of tile with
+     * borders stays in cache of CPU, and all workers are busy until the last tile, even if tiles take different time.
+     * <p>
+     * Tiles are handed out dynamically: each worker takes next free tile (by rows of tiles) after the current one is
+     * done, so workers which got simple tiles process more of them. Number of workers is limited, so each of them
+     * gets at least {@link #getMinSize()} elements.
+     * </p>
+     *
+     * @param image
+     *            Source image.
+     * @param tileWidth
+     *            Width of tiles. Tiles on right border of image can be smaller.
+     * @param tileHeight
+     *            Height of tiles. Tiles on bottom border of image can be smaller.
+     * @param runner
+     *            Object to process image on each tile.
+     */
+    public static void tiles(final Image image, final int tileWidth, final int tileHeight, final TileLoop runner) {
+        ExecutionContext.getCurrent().tiles(image, tileWidth, tileHeight, runner);
     }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+/**
+ * Interface for executor of code in many workers for independent tiles (rectangle blocks) of image.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public interface TileLoop {
+
+    /**
+     * Perform some operations for tile with top-left corner <code>(x, y)</code> and given size. Tiles on right and
+     * bottom borders of image can be smaller than others.
+     */
+    void execute(int x, int y, int width, int height, int worker);
+}
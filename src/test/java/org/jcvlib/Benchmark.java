@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib;
+
+import java.util.Arrays;
+
+/**
+ * Simple helper for benchmarks. Benchmarks are not unit tests and should be run manually by <code>main</code> method.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class Benchmark {
+
+    /**
+     * Number of runs before measurement to warm up JIT.
+     */
+    public static final int WARMUP_DEFAULT = 5;
+
+    /**
+     * Number of measured runs.
+     */
+    public static final int RUNS_DEFAULT = 10;
+
+    /**
+     * Run given code several times, print and return median time of one run in milliseconds.
+     */
+    public static double measure(final String name, final Runnable code) {
+        for (int i = 0; i < Benchmark.WARMUP_DEFAULT; ++i) {
+            code.run();
+        }
+
+        final double[] times = new double[Benchmark.RUNS_DEFAULT];
+        for (int i = 0; i < times.length; ++i) {
+            final long start = System.nanoTime();
+            code.run();
+            times[i] = (System.nanoTime() - start) / 1000000.0;
+        }
+        Arrays.sort(times);
+        final double median = times[times.length / 2];
+
+        System.out.println(String.format("%-50s %10.3f ms", name, median));
+
+        return median;
+    }
+
+    /**
+     * Print ratio between 2 measured times.
+     */
+    public static void printSpeedup(final double baseline, final double current) {
+        System.out.println(String.format("%-50s %10.2f x", "Speedup:", baseline / current));
+        System.out.println();
+    }
+}
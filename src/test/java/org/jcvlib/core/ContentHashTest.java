@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link ContentHash}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ContentHashTest {
+
+    private static long hash(final String text) {
+        final byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+
+        return ContentHash.hash(data, data.length, 0);
+    }
+
+    /**
+     * Test method for: {@link ContentHash#hash(byte[], int, long)}. Compare with reference xxHash64 values.
+     */
+    @Test
+    public void testHash() {
+        Assert.assertEquals(0xEF46DB3751D8E999L, hash(""));
+        Assert.assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        Assert.assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+
+        // Only first bytes are used.
+        final byte[] data = new byte[] { 'a', 'b', 'c', 'd' };
+        Assert.assertEquals(hash("abc"), ContentHash.hash(data, 3, 0));
+        Assert.assertNotEquals(ContentHash.hash(data, 3, 0), ContentHash.hash(data, 3, 1));
+    }
+}
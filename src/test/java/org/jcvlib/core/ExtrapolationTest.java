@@ -197,4 +197,28 @@ public class ExtrapolationTest {
         // Center
         Assert.assertEquals(8, this.image.get(2, 1, 0, Extrapolation.WRAP));
     }
+
+    /**
+     * Test method for: {@link Extrapolation#translatePositions(int, int, int)} with kernel larger than image.
+     */
+    @Test
+    public void testTranslatePositions() {
+        // Image with 1 pixel and kernel with 5 pixels.
+        for (final Extrapolation extrapolation : new Extrapolation[] { Extrapolation.REPLICATE, Extrapolation.REFLECT,
+                Extrapolation.WRAP }) {
+            Assert.assertArrayEquals(new int[] { 0, 0, 0, 0, 0 }, extrapolation.translatePositions(1, 5, 2));
+        }
+        Assert.assertArrayEquals(new int[] { -1, -1, 0, -1, -1 }, Extrapolation.ZERO.translatePositions(1, 5, 2));
+
+        // Image with 2 pixels: "ab" is extended to "ab|ba|ab|ba" by reflection and to "ab|ab|ab" by wrapping.
+        Assert.assertArrayEquals(new int[] { 1, 1, 0, 0, 1, 1, 0, 0 },
+                Extrapolation.REFLECT.translatePositions(2, 7, 3));
+        Assert.assertArrayEquals(new int[] { 1, 0, 1, 0, 1, 0, 1, 0 }, Extrapolation.WRAP.translatePositions(2, 7, 3));
+        Assert.assertArrayEquals(new int[] { 0, 0, 0, 0, 1, 1, 1, 1 },
+                Extrapolation.REPLICATE.translatePositions(2, 7, 3));
+
+        // Far positions of image.
+        Assert.assertEquals(3, this.image.get(12, 0, 0, Extrapolation.REFLECT));
+        Assert.assertEquals(3, this.image.get(-8, 0, 0, Extrapolation.WRAP));
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link FloatImage}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class FloatImageTest {
+
+    private static FloatImage createImage(final Layout layout) {
+        final FloatImage image = new FloatImage(30, 20, 3, layout);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    image.set(x, y, channel, 0.5f * x - 1.25f * y + channel);
+                }
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Test method for: {@link FloatImage#get(int, int, int)}, {@link FloatImage#set(int, int, int, float)}.
+     */
+    @Test
+    public void testSetGet() {
+        final FloatImage image = createImage(Layout.ROW_MAJOR);
+
+        Assert.assertEquals(30, image.getWidth());
+        Assert.assertEquals(20, image.getHeight());
+        Assert.assertEquals(3, image.getNumOfChannels());
+        Assert.assertEquals(-7.5f, image.get(11, 12, 2), 0.0f);
+
+        // Values are not limited.
+        image.set(0, 0, 0, -1000.5f);
+        Assert.assertEquals(-1000.5f, image.get(0, 0, 0), 0.0f);
+
+        try {
+            image.get(30, 0, 0);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            new FloatImage(0, 10, 1);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link FloatImage#makeSubImage(int, int, int, int)}, {@link FloatImage#makeLayer(int, int)},
+     * {@link FloatImage#getRow(int, float[])}, {@link FloatImage#equals(Object)}.
+     */
+    @Test
+    public void testViews() {
+        final FloatImage image = createImage(Layout.ROW_MAJOR);
+        final FloatImage column = createImage(Layout.COLUMN_MAJOR);
+        Assert.assertEquals(image, column);
+        Assert.assertEquals(image.hashCode(), column.hashCode());
+
+        final FloatImage view = image.makeSubImage(5, 6, 10, 8).makeLayer(1, 2);
+        Assert.assertEquals(image.get(7, 9, 2), view.get(2, 3, 1), 0.0f);
+
+        // View shares values with source image.
+        view.set(0, 0, 0, 42.0f);
+        Assert.assertEquals(42.0f, image.get(5, 6, 1), 0.0f);
+        Assert.assertTrue(view.isSameSource(image));
+        Assert.assertNotEquals(image, column);
+
+        final float[] row = new float[view.getWidth() * view.getNumOfChannels()];
+        view.getRow(1, row);
+        Assert.assertEquals(image.get(5, 7, 1), row[0], 0.0f);
+        Assert.assertEquals(image.get(14, 7, 2), row[row.length - 1], 0.0f);
+
+        // Copy into other layout.
+        final FloatImage copy = new FloatImage(10, 8, 2, Layout.COLUMN_MAJOR);
+        view.copyTo(copy);
+        Assert.assertEquals(view, copy);
+        Assert.assertFalse(copy.isSameSource(image));
+
+        view.fill(1.5f);
+        Assert.assertEquals(1.5f, image.get(14, 13, 2), 0.0f);
+        Assert.assertEquals(7.0f, image.get(14, 13, 0) + 1.25f * 13, 0.0f);
+    }
+
+    /**
+     * Test method for: {@link FloatImage#fromImage(Image)}, {@link FloatImage#toImage()}.
+     */
+    @Test
+    public void testConvert() {
+        final Image image = new Image(20, 10, 2);
+        image.set(3, 4, 1, 200);
+
+        final FloatImage floatImage = FloatImage.fromImage(image);
+        Assert.assertEquals(200.0f, floatImage.get(3, 4, 1), 0.0f);
+        Assert.assertEquals(image, floatImage.toImage());
+
+        // Rounding and truncation.
+        floatImage.set(0, 0, 0, 10.6f);
+        floatImage.set(1, 0, 0, -3.0f);
+        floatImage.set(2, 0, 0, 300.0f);
+        final Image result = floatImage.toImage();
+        Assert.assertEquals(11, result.get(0, 0, 0));
+        Assert.assertEquals(Color.MIN_VALUE, result.get(1, 0, 0));
+        Assert.assertEquals(Color.MAX_VALUE, result.get(2, 0, 0));
+    }
+}
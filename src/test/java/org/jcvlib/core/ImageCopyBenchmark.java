@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.parallel.Parallel;
+
+/**
+ * Benchmark for {@link Image#copyTo(Image)}: compare copying by pixels with copying by blocks and rows.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ImageCopyBenchmark {
+
+    private static void copyByPixels(final Image image, final Image target) {
+        Parallel.pixels(image, (x, y, worker) -> {
+            for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                target.setUnsafe(x, y, channel, image.getUnsafe(x, y, channel));
+            }
+        });
+    }
+
+    private static void run(final String name, final int width, final int height) {
+        final Image image = new Image(width, height, 3);
+        final Image target = image.makeSame();
+
+        final double pixels = Benchmark.measure(name + ": copy by pixels", () -> copyByPixels(image, target));
+        final double blocks = Benchmark.measure(name + ": copyTo", () -> image.copyTo(target));
+        Benchmark.printSpeedup(pixels, blocks);
+
+        // Sub-images are copied by rows.
+        final Image frame = new Image(width + 64, height + 64, 3);
+        final Image view = frame.makeSubImage(32, 32, width, height);
+
+        final double viewPixels = Benchmark.measure(name + ": copy into sub-image by pixels",
+                () -> copyByPixels(image, view));
+        final double viewRows = Benchmark.measure(name + ": copyTo into sub-image", () -> image.copyTo(view));
+        Benchmark.printSpeedup(viewPixels, viewRows);
+    }
+
+    public static void main(final String[] args) {
+        run("1080p", 1920, 1080);
+        run("4K", 3840, 2160);
+    }
+}
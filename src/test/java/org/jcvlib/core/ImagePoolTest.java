@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ImagePool}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ImagePoolTest {
+
+    /**
+     * Test method for: {@link ImagePool#acquire(int, int, int)}, {@link ImagePool#release(Image)}.
+     */
+    @Test
+    public void testAcquireRelease() {
+        final ImagePool pool = new ImagePool(1024 * 1024);
+
+        final Image image1 = pool.acquire(100, 50, 3);
+        Assert.assertEquals(100, image1.getWidth());
+        Assert.assertEquals(50, image1.getHeight());
+        Assert.assertEquals(3, image1.getNumOfChannels());
+        Assert.assertEquals(0, pool.getSize());
+
+        pool.release(image1);
+        Assert.assertEquals(100 * 50 * 3, pool.getSize());
+
+        // Other size.
+        final Image image2 = pool.acquire(50, 100, 3);
+        Assert.assertNotSame(image1, image2);
+
+        // Same size.
+        Assert.assertSame(image1, pool.acquireSame(image1));
+        Assert.assertEquals(0, pool.getSize());
+
+        // Sub-images, layers and wrapped arrays can not be reused.
+        pool.release(image1.makeSubImage(0, 0, 10, 10));
+        pool.release(image1.makeChannel(0));
+        pool.release(Image.wrap(new byte[100 * 50 * 3], 100, 50, 3));
+        Assert.assertEquals(0, pool.getSize());
+
+        pool.release(image1);
+        pool.release(image2);
+        Assert.assertEquals(2 * 100 * 50 * 3, pool.getSize());
+
+        pool.clear();
+        Assert.assertEquals(0, pool.getSize());
+        Assert.assertNotSame(image1, pool.acquireSame(image1));
+    }
+
+    /**
+     * Test method for: {@link ImagePool#release(Image)}.
+     */
+    @Test
+    public void testDoubleRelease() {
+        final ImagePool pool = new ImagePool(1024 * 1024);
+
+        final Image image = pool.acquire(10, 20, 2);
+        pool.release(image);
+        pool.release(image);
+        Assert.assertEquals(10 * 20 * 2, pool.getSize());
+
+        Assert.assertSame(image, pool.acquireSame(image));
+        Assert.assertNotSame(image, pool.acquireSame(image));
+        Assert.assertEquals(0, pool.getSize());
+    }
+
+    /**
+     * Test method for: {@link ImagePool#acquireBuffer(int)}, {@link ImagePool#release(float[])}.
+     */
+    @Test
+    public void testBuffers() {
+        final ImagePool pool = new ImagePool(1024 * 1024);
+
+        final float[] buffer = pool.acquireBuffer(100);
+        Assert.assertEquals(100, buffer.length);
+
+        pool.release(buffer);
+        pool.release(buffer);
+        Assert.assertEquals(4 * 100, pool.getSize());
+
+        Assert.assertNotSame(buffer, pool.acquireBuffer(50));
+        Assert.assertSame(buffer, pool.acquireBuffer(100));
+        Assert.assertNotSame(buffer, pool.acquireBuffer(100));
+        Assert.assertEquals(0, pool.getSize());
+
+        pool.release(buffer);
+        pool.clear();
+        Assert.assertEquals(0, pool.getSize());
+
+        try {
+            pool.acquireBuffer(-1);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link ImagePool#release(Image)} into full pool.
+     */
+    @Test
+    public void testEviction() {
+        final ImagePool pool = new ImagePool(3 * 100 * 100 * 3);
+
+        final Image[] small = new Image[3];
+        for (int i = 0; i < small.length; ++i) {
+            small[i] = new Image(100, 100, 3);
+            pool.release(small[i]);
+        }
+        Assert.assertEquals(3 * 100 * 100 * 3, pool.getSize());
+
+        // Two least recently released images are dropped.
+        final Image large = new Image(120, 120, 3);
+        pool.release(large);
+        Assert.assertEquals(100 * 100 * 3 + 120 * 120 * 3, pool.getSize());
+        Assert.assertSame(large, pool.acquireSame(large));
+        Assert.assertSame(small[2], pool.acquireSame(small[2]));
+        Assert.assertNotSame(small[0], pool.acquireSame(small[0]));
+        Assert.assertEquals(0, pool.getSize());
+
+        // Value larger than pool is ignored.
+        pool.release(new Image(200, 200, 3));
+        Assert.assertEquals(0, pool.getSize());
+
+        // Buffers share size with images.
+        pool.release(small[0]);
+        pool.release(small[1]);
+        pool.release(small[2]);
+        final float[] buffer = new float[100 * 100];
+        pool.release(buffer);
+        Assert.assertEquals(100 * 100 * 3 + 4 * 100 * 100, pool.getSize());
+        Assert.assertSame(buffer, pool.acquireBuffer(buffer.length));
+        Assert.assertSame(small[2], pool.acquireSame(small[2]));
+        Assert.assertEquals(0, pool.getSize());
+    }
+
+    /**
+     * Test method for: {@link ImagePool#getMaxSize()}.
+     */
+    @Test
+    public void testMaxSize() {
+        final ImagePool pool = new ImagePool(2 * 10 * 10);
+        Assert.assertEquals(2 * 10 * 10, pool.getMaxSize());
+
+        pool.release(new Image(10, 10, 1));
+        pool.release(new Image(10, 10, 1));
+        pool.release(new Image(10, 10, 1));
+        Assert.assertEquals(2 * 10 * 10, pool.getSize());
+
+        try {
+            new ImagePool(-1);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.jcvlib.core;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import org.jcvlib.parallel.Parallel;
 import org.junit.Assert;
@@ -177,7 +178,7 @@ public class ImageTest extends TestSuite {
                 for (int y = 0; y < image.getHeight(); ++y) {
                     for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
                         try {
-                            final int pos = (int) calculateArrayPosition.invoke(image, x, y, channel);
+                            final int pos = (int) (long) calculateArrayPosition.invoke(image, x, y, channel);
 
                             final int[] xyc = new int[3];
                             calculateImagePosition.invoke(image, pos, xyc);
@@ -396,6 +397,58 @@ public class ImageTest extends TestSuite {
         }
     }
 
+    /**
+     * Test method for: {@link Image#noneLinearFilter(Image, int, int, Point, Extrapolation, KernelOperation)}.
+     * <p>
+     * Apertures on interior and on border bands should contain same values as direct extrapolation.
+     * </p>
+     */
+    @Test
+    public void testNonlinearFilterBorders() {
+        final Image base = new Image(13, 11, 2);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                base.set(x, y, 0, 1 + x + 13 * y);
+                base.set(x, y, 1, 200 - x - y);
+            }
+        }
+        final Image image = base.makeSubImage(2, 1, 9, 8);
+
+        final int width = 4;
+        final int height = 5;
+        final Point anchor = new Point(1, 3);
+        final int[] weights = new int[] { 1, 3, 7, 11 };
+        for (final Extrapolation extrapolation : Extrapolation.values()) {
+            final Image result = new Image(image.getWidth(), image.getHeight(), image.getNumOfChannels());
+            image.noneLinearFilter(result, width, height, anchor, 1, extrapolation, (aperture, color) -> {
+                for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                    int sum = 0;
+                    for (int x = 0; x < aperture.getWidth(); ++x) {
+                        for (int y = 0; y < aperture.getHeight(); ++y) {
+                            sum += weights[x] * (y + 1) * aperture.get(x, y, channel);
+                        }
+                    }
+                    color.set(channel, sum % 256);
+                }
+            });
+
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        int sum = 0;
+                        for (int i = 0; i < width; ++i) {
+                            for (int j = 0; j < height; ++j) {
+                                sum += weights[i] * (j + 1) * image.get(x - anchor.getX() + i, y - anchor.getY() + j,
+                                        channel, extrapolation);
+                            }
+                        }
+                        Assert.assertEquals(sum % 256, result.get(x, y, channel));
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Test method for: {@link Image#noneLinearFilter(Image, int, int, Point, int, Extrapolation, KernelOperation)}.
      */
@@ -583,6 +636,80 @@ public class ImageTest extends TestSuite {
         Assert.assertTrue(image.equals(copy));
     }
 
+    /**
+     * Test method for: {@link Image#equals(Object)}, {@link Image#hashCode()}, {@link Image#contentHash()} with other
+     * layouts, storages and sub-images.
+     */
+    @Test
+    public void testEqualsHashViews() {
+        final Image frame = new Image(70, 50, 4);
+        for (int x = 0; x < frame.getWidth(); ++x) {
+            for (int y = 0; y < frame.getHeight(); ++y) {
+                for (int channel = 0; channel < frame.getNumOfChannels(); ++channel) {
+                    frame.set(x, y, channel, (11 * x + 3 * y + 29 * channel) % 256);
+                }
+            }
+        }
+        final Image view = frame.makeSubImage(5, 7, 40, 30).makeLayer(1, 3);
+
+        final Image copy = view.makeCopy();
+        final Image column = view.makeCopy(Layout.COLUMN_MAJOR);
+        final Image direct = Image.allocateDirect(40, 30, 3);
+        view.copyTo(direct);
+
+        for (final Image image : new Image[] { copy, column, direct }) {
+            Assert.assertEquals(view, image);
+            Assert.assertEquals(image, view);
+            Assert.assertEquals(view.hashCode(), image.hashCode());
+            Assert.assertEquals(view.contentHash(), image.contentHash());
+        }
+
+        // Change one value.
+        column.set(39, 29, 2, column.get(39, 29, 2) + 1);
+        Assert.assertNotEquals(view, column);
+        Assert.assertNotEquals(view.contentHash(), column.contentHash());
+
+        // Same values, but other size.
+        Assert.assertNotEquals(new Image(10, 20, 1).contentHash(), new Image(20, 10, 1).contentHash());
+    }
+
+    /**
+     * Test method for: {@link Image#copyTo(Image)} with sub-images, layers and different layouts.
+     */
+    @Test
+    public void testCopyToViews() {
+        final Image image = new Image(60, 40, 3);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    image.set(x, y, channel, (3 * x + 5 * y + 7 * channel) % 256);
+                }
+            }
+        }
+
+        // Whole image into buffer storage.
+        final Image direct = Image.allocateDirect(60, 40, 3);
+        image.copyTo(direct);
+        Assert.assertEquals(image, direct);
+
+        // Sub-image into sub-image.
+        final Image frame = new Image(100, 80, 3);
+        final Image sub = image.makeSubImage(10, 5, 30, 20);
+        final Image view = frame.makeSubImage(50, 40, 30, 20);
+        sub.copyTo(view);
+        Assert.assertEquals(sub, view);
+        Assert.assertEquals(0, frame.get(49, 40, 0));
+        Assert.assertEquals(0, frame.get(50, 39, 0));
+        Assert.assertEquals(image.get(10, 5, 2), frame.get(50, 40, 2));
+
+        // Layer into other layout.
+        final Image layer = image.makeLayer(1, 2);
+        final Image column = new Image(60, 40, 2, Layout.COLUMN_MAJOR);
+        layer.copyTo(column);
+        Assert.assertEquals(layer, column);
+        Assert.assertEquals(image.get(59, 39, 2), column.get(59, 39, 1));
+    }
+
     /**
      * Test method for: {@link Image#copyTo(Image)}.
      */
@@ -784,4 +911,205 @@ public class ImageTest extends TestSuite {
             System.out.println("Exception message example:\n" + e.getMessage() + "\n");
         }
     }
+
+    /**
+     * Test method for: {@link Image#getLayout()}, {@link Image#makeCopy(Layout)}.
+     */
+    @Test
+    public void testLayout() {
+        final Image rowMajor = new Image(30, 20, 3);
+        final Image columnMajor = new Image(30, 20, 3, Layout.COLUMN_MAJOR);
+        Assert.assertEquals(Layout.ROW_MAJOR, rowMajor.getLayout());
+        Assert.assertEquals(Layout.COLUMN_MAJOR, columnMajor.getLayout());
+
+        for (int x = 0; x < rowMajor.getWidth(); ++x) {
+            for (int y = 0; y < rowMajor.getHeight(); ++y) {
+                for (int channel = 0; channel < rowMajor.getNumOfChannels(); ++channel) {
+                    rowMajor.set(x, y, channel, x + 7 * y + 50 * channel);
+                    columnMajor.set(x, y, channel, x + 7 * y + 50 * channel);
+                }
+            }
+        }
+        Assert.assertEquals(rowMajor, columnMajor);
+
+        // Conversion.
+        final Image converted = rowMajor.makeCopy(Layout.COLUMN_MAJOR);
+        Assert.assertEquals(Layout.COLUMN_MAJOR, converted.getLayout());
+        Assert.assertEquals(columnMajor, converted);
+        Assert.assertEquals(Layout.ROW_MAJOR, converted.makeCopy(Layout.ROW_MAJOR).getLayout());
+        Assert.assertEquals(rowMajor, converted.makeCopy(Layout.ROW_MAJOR));
+
+        // Views.
+        final Image rowMajorView = rowMajor.makeSubImage(5, 4, 10, 8).makeLayer(1, 2);
+        final Image columnMajorView = columnMajor.makeSubImage(5, 4, 10, 8).makeLayer(1, 2);
+        Assert.assertEquals(Layout.COLUMN_MAJOR, columnMajorView.getLayout());
+        Assert.assertEquals(10, columnMajorView.getWidth());
+        Assert.assertEquals(8, columnMajorView.getHeight());
+        Assert.assertEquals(rowMajorView, columnMajorView);
+        Assert.assertEquals(5 + 7 * 4 + 50 * 2, columnMajorView.get(0, 0, 1));
+
+        columnMajorView.makeChannel(1).set(1, 1, 0, 0);
+        Assert.assertEquals(0, columnMajor.get(6, 5, 2));
+    }
+
+    /**
+     * Test method for: {@link Image#getRow(int, int[])}, {@link Image#setRow(int, int[])},
+     * {@link Image#getSpan(int, int, int, int, int[])}, {@link Image#setSpan(int, int, int, int, int[])},
+     * {@link Image#getPlane(int, int[])}, {@link Image#setPlane(int, int[])}.
+     */
+    @Test
+    public void testRowSpanPlane() {
+        for (final Layout layout : Layout.values()) {
+            final Image source = new Image(20, 10, 3, layout);
+            for (int x = 0; x < source.getWidth(); ++x) {
+                for (int y = 0; y < source.getHeight(); ++y) {
+                    for (int channel = 0; channel < source.getNumOfChannels(); ++channel) {
+                        source.set(x, y, channel, x + 20 * y + channel);
+                    }
+                }
+            }
+            final Image image = source.makeSubImage(2, 3, 15, 6);
+            final Image layer = image.makeLayer(1, 2);
+
+            // Rows.
+            final int[] row = new int[image.getWidth() * image.getNumOfChannels()];
+            image.getRow(1, row);
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    Assert.assertEquals(image.get(x, 1, channel), row[image.getNumOfChannels() * x + channel]);
+                }
+            }
+
+            final int[] layerRow = new int[layer.getWidth() * layer.getNumOfChannels()];
+            layer.getRow(2, layerRow);
+            Assert.assertEquals(image.get(0, 2, 1), layerRow[0]);
+            Assert.assertEquals(image.get(1, 2, 2), layerRow[3]);
+
+            row[0] = -10;
+            row[1] = 300;
+            image.setRow(0, row);
+            Assert.assertEquals(Color.MIN_VALUE, source.get(2, 3, 0));
+            Assert.assertEquals(Color.MAX_VALUE, source.get(2, 3, 1));
+            Assert.assertEquals(image.get(5, 1, 2), image.get(5, 0, 2));
+
+            // Spans.
+            final int[] span = new int[7];
+            layer.getSpan(3, 4, 5, 1, span, 2);
+            for (int i = 0; i < 5; ++i) {
+                Assert.assertEquals(image.get(3 + i, 4, 2), span[2 + i]);
+            }
+
+            layer.setSpan(0, 5, 4, 0, new int[] { 1, 2, 3, 4 });
+            for (int i = 0; i < 4; ++i) {
+                Assert.assertEquals(i + 1, source.get(2 + i, 8, 1));
+            }
+            Assert.assertEquals(6 + 20 * 8, image.get(4, 5, 0));
+
+            // Planes.
+            final int[] plane = new int[layer.getWidth() * layer.getHeight()];
+            layer.getPlane(1, plane);
+            for (int x = 0; x < layer.getWidth(); ++x) {
+                for (int y = 0; y < layer.getHeight(); ++y) {
+                    Assert.assertEquals(layer.get(x, y, 1), plane[layer.getWidth() * y + x]);
+                }
+            }
+
+            plane[layer.getWidth() * 2 + 3] = 255;
+            layer.setPlane(0, plane);
+            Assert.assertEquals(255, image.get(3, 2, 1));
+            Assert.assertEquals(image.get(7, 4, 2), image.get(7, 4, 1));
+        }
+    }
+
+    /**
+     * Test method for: {@link Image#getRow(int, int[])}, {@link Image#getSpan(int, int, int, int, int[])}.
+     */
+    @Test
+    public void testRowSpanException() {
+        final Image image = new Image(20, 10, 3).makeSubImage(5, 5, 10, 5);
+
+        // Incorrect row.
+        try {
+            image.getRow(5, new int[30]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Small array.
+        try {
+            image.getRow(0, new int[29]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Span out of image.
+        try {
+            image.getSpan(5, 0, 6, 0, new int[10]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Incorrect channel.
+        try {
+            image.getSpan(0, 0, 5, 3, new int[10]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Image#wrap(ByteBuffer, int, int, int)}, {@link Image#wrap(byte[], int, int, int)},
+     * {@link Image#allocateDirect(int, int, int)}.
+     */
+    @Test
+    public void testWrap() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(10 + 20 * 10 * 3);
+        buffer.position(10);
+        final Image direct = Image.wrap(buffer, 20, 10, 3);
+        final Image array = Image.wrap(new byte[20 * 10 * 3], 20, 10, 3);
+        final Image allocated = Image.allocateDirect(20, 10, 3);
+        Assert.assertEquals(10, buffer.position());
+
+        for (final Image image : new Image[] { direct, array, allocated }) {
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        image.set(x, y, channel, x + 20 * y + channel);
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(array, direct);
+        Assert.assertEquals(array, allocated);
+        Assert.assertEquals(array.makeCopy(), direct.makeCopy());
+
+        // Values are placed into given buffer.
+        direct.set(1, 2, 0, 255);
+        Assert.assertEquals(255, buffer.get(10 + 3 * (20 * 2 + 1)) & 0xFF);
+        buffer.put(10 + 3 * (20 * 2 + 1) + 2, (byte) 7);
+        Assert.assertEquals(7, direct.get(1, 2, 2));
+
+        // Views.
+        final Image view = direct.makeSubImage(1, 2, 5, 5).makeChannel(2);
+        Assert.assertEquals(7, view.get(0, 0, 0));
+        view.fill(new Color(1, 100));
+        Assert.assertEquals(100, direct.get(5, 6, 2));
+        Assert.assertEquals(100, buffer.get(10 + 3 * (20 * 6 + 5) + 2) & 0xFF);
+
+        final int[] row = new int[5];
+        view.getRow(3, row);
+        Assert.assertArrayEquals(new int[] { 100, 100, 100, 100, 100 }, row);
+
+        // Too small buffer.
+        try {
+            Image.wrap(ByteBuffer.allocate(20 * 10 * 3 - 1), 20, 10, 3);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
 }
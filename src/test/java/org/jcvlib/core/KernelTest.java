@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Jama.Matrix;
+
+/**
+ * Test class for {@link Kernel}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class KernelTest {
+
+    //@formatter:off
+    private final float[] sobel = new float[] {
+            -1.0f, 0.0f, 1.0f,
+            -2.0f, 0.0f, 2.0f,
+            -1.0f, 0.0f, 1.0f
+        };
+
+    private final float[] laplacian = new float[] {
+            0.0f,  1.0f, 0.0f,
+            1.0f, -4.0f, 1.0f,
+            0.0f,  1.0f, 0.0f
+        };
+    //@formatter:on
+
+    /**
+     * Test method for: {@link Kernel#Kernel(int, int, float[], Point)}.
+     */
+    @Test
+    public void testCreateException() {
+        final Kernel kernel = new Kernel(3, 2, new float[6]);
+        Assert.assertEquals(JCV.calculateCenter(3, 2), kernel.getAnchor());
+        Assert.assertEquals(new Size(3, 2), kernel.getSize());
+
+        // Incorrect size.
+        try {
+            new Kernel(0, 1, new float[0]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Incorrect number of values.
+        try {
+            new Kernel(3, 3, new float[8]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Anchor out of kernel.
+        try {
+            new Kernel(3, 3, new float[9], new Point(3, 0));
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Kernel#getValues()}, {@link Kernel#get(int, int)}.
+     */
+    @Test
+    public void testImmutable() {
+        final float[] values = this.sobel.clone();
+        final Kernel kernel = new Kernel(3, 3, values);
+
+        values[0] = 100.0f;
+        Assert.assertEquals(-1.0f, kernel.get(0, 0), 0.0f);
+
+        kernel.getValues()[0] = 100.0f;
+        Assert.assertEquals(-1.0f, kernel.get(0, 0), 0.0f);
+
+        Assert.assertEquals(2.0f, kernel.get(2, 1), 0.0f);
+        Assert.assertEquals(0.0, kernel.getSum(), 0.0);
+    }
+
+    /**
+     * Test method for: {@link Kernel#isInteger()}, {@link Kernel#getIntValues()},
+     * {@link Kernel#getFixedPointValues(int)}.
+     */
+    @Test
+    public void testInteger() {
+        final Kernel integer = new Kernel(3, 3, this.sobel);
+        Assert.assertTrue(integer.isInteger());
+        Assert.assertArrayEquals(new int[] { -1, 0, 1, -2, 0, 2, -1, 0, 1 }, integer.getIntValues());
+
+        final Kernel real = new Kernel(2, 1, new float[] { 0.25f, 0.75f });
+        Assert.assertFalse(real.isInteger());
+        Assert.assertArrayEquals(new int[] { 4, 12 }, real.getFixedPointValues(4));
+        Assert.assertArrayEquals(new int[] { 1 << 12, 3 << 12 }, real.getFixedPointValues());
+    }
+
+    /**
+     * Test method for: {@link Kernel#isSeparable()}, {@link Kernel#getSeparableX()}, {@link Kernel#getSeparableY()}.
+     */
+    @Test
+    public void testSeparable() {
+        final Kernel sobel = new Kernel(3, 3, this.sobel);
+        Assert.assertTrue(sobel.isSeparable());
+
+        final float[] x = sobel.getSeparableX();
+        final float[] y = sobel.getSeparableY();
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 3; ++j) {
+                Assert.assertEquals(sobel.get(i, j), x[i] * y[j], 1e-5f);
+            }
+        }
+
+        Assert.assertFalse(new Kernel(3, 3, this.laplacian).isSeparable());
+
+        final Kernel box = Kernel.ones(5, 3);
+        Assert.assertTrue(box.isSeparable());
+        Assert.assertEquals(15.0, box.getSum(), 0.0);
+
+        final Kernel product = Kernel.separable(new float[] { 1.0f, 2.0f, 1.0f }, new float[] { -1.0f, 0.0f, 1.0f });
+        Assert.assertTrue(product.isSeparable());
+        Assert.assertEquals(-2.0f, product.get(1, 0), 0.0f);
+        Assert.assertEquals(1.0f, product.get(2, 2), 0.0f);
+    }
+
+    /**
+     * Test method for: {@link Kernel#fromMatrix(Matrix)}, {@link Kernel#equals(Object)}.
+     */
+    @Test
+    public void testFromMatrix() {
+        final Matrix matrix = new Matrix(new double[][] { { -1.0, 0.0, 1.0 }, { -2.0, 0.0, 2.0 }, { -1.0, 0.0, 1.0 } });
+        final Kernel kernel = Kernel.fromMatrix(matrix);
+
+        Assert.assertEquals(new Kernel(3, 3, this.sobel), kernel);
+        Assert.assertEquals(new Kernel(3, 3, this.sobel).hashCode(), kernel.hashCode());
+        Assert.assertNotEquals(new Kernel(3, 3, this.laplacian), kernel);
+    }
+
+    /**
+     * Test method for: {@link Image#convolve(Kernel, int)}.
+     */
+    @Test
+    public void testConvolve() {
+        final Image image = new Image(5, 5, 2);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                image.set(x, y, 0, x);
+                image.set(x, y, 1, 10 * y);
+            }
+        }
+        final Image aperture = image.makeSubImage(1, 1, 3, 3);
+
+        final Kernel sobel = new Kernel(3, 3, this.sobel);
+        Assert.assertEquals(8.0, aperture.convolve(sobel, 0), 0.0);
+        Assert.assertEquals(0.0, aperture.convolve(sobel, 1), 0.0);
+
+        final Kernel mean = new Kernel(3, 3, new float[] { 0.5f, 0.5f, 0.5f, 0.5f, 0.5f, 0.5f, 0.5f, 0.5f, 0.5f });
+        Assert.assertEquals(9.0 * 10.0, aperture.convolve(mean, 1), 1e-9);
+
+        // Incorrect size.
+        try {
+            image.convolve(sobel, 0);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+}
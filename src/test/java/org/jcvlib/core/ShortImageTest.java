@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link ShortImage}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ShortImageTest {
+
+    /**
+     * Test method for: {@link ShortImage#get(int, int, int)}, {@link ShortImage#set(int, int, int, int)}.
+     */
+    @Test
+    public void testSetGet() {
+        final ShortImage image = new ShortImage(30, 20, 2);
+
+        image.set(1, 2, 1, -1020);
+        Assert.assertEquals(-1020, image.get(1, 2, 1));
+
+        // Saturation.
+        image.set(2, 2, 0, 100000);
+        Assert.assertEquals(Short.MAX_VALUE, image.get(2, 2, 0));
+        image.set(3, 2, 0, -100000);
+        Assert.assertEquals(Short.MIN_VALUE, image.get(3, 2, 0));
+
+        try {
+            image.set(0, 20, 0, 0);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link ShortImage#makeSubImage(int, int, int, int)}, {@link ShortImage#makeChannel(int)},
+     * {@link ShortImage#copyTo(ShortImage)}, {@link ShortImage#toImage()}.
+     */
+    @Test
+    public void testViewsAndConvert() {
+        final Image image = new Image(40, 30, 3);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    image.set(x, y, channel, (x + 2 * y + 3 * channel) % 256);
+                }
+            }
+        }
+
+        final ShortImage shortImage = ShortImage.fromImage(image);
+        Assert.assertEquals(image, shortImage.toImage());
+
+        final ShortImage channel = shortImage.makeSubImage(10, 10, 20, 15).makeChannel(2);
+        Assert.assertEquals(image.get(12, 11, 2), channel.get(2, 1, 0));
+
+        final ShortImage copy = new ShortImage(20, 15, 1, Layout.COLUMN_MAJOR);
+        channel.copyTo(copy);
+        Assert.assertEquals(channel, copy);
+        Assert.assertEquals(image.makeSubImage(10, 10, 20, 15).makeChannel(2), copy.toImage());
+
+        // Negative values are truncated.
+        copy.fill(-5);
+        Assert.assertEquals(Color.MIN_VALUE, copy.toImage().get(0, 0, 0));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Color;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.image.filters.Filters;
+import org.jcvlib.image.filters.ThresholdAdaptive;
+
+/**
+ * Compare convolution of whole aperture for each pixel with {@link ThresholdAdaptive#MEAN} that uses running sums.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class AdaptiveThresholdBenchmark {
+
+    private static void thresholdByAperture(final Image image, final Image result, final int blockSize, final int C) {
+        final Kernel kernel = Kernel.ones(blockSize, blockSize);
+        final double n = blockSize * blockSize;
+        image.noneLinearFilter(result, blockSize, blockSize, kernel.getAnchor(), 1, Extrapolation.REPLICATE,
+                (aperture, value) -> {
+                    for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                        final int threshold = Math.max(JCV.round(aperture.convolveUnsafe(kernel, channel) / n) - C,
+                                Color.MIN_VALUE);
+                        final int current = aperture.get(kernel.getAnchor().getX(), kernel.getAnchor().getY(),
+                                channel);
+                        value.set(channel, current > threshold ? Color.MAX_VALUE : Color.MIN_VALUE);
+                    }
+                });
+    }
+
+    private static void run(final String name, final int width, final int height, final int blockSize) {
+        final Image image = new Image(width, height, 1);
+        final Image result = image.makeSame();
+
+        final double aperture = Benchmark.measure(name + ": aperture",
+                () -> thresholdByAperture(image, result, blockSize, 5));
+        final double mean = Benchmark.measure(name + ": ThresholdAdaptive.MEAN",
+                () -> Filters.adapriveThreshold(image, result, blockSize, ThresholdAdaptive.MEAN, 5));
+        Benchmark.printSpeedup(aperture, mean);
+    }
+
+    public static void main(final String[] args) {
+        run("A4 (75 dpi), block 15", 620, 877, 15);
+        run("A4 (75 dpi), block 51", 620, 877, 51);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.Filters;
+
+/**
+ * Compare convolution with kernel of ones and {@link Blur#BOX} that uses running sums.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class BoxBlurBenchmark {
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+
+        final Size size = new Size(kernelSize, kernelSize);
+        final Kernel kernel = Kernel.ones(kernelSize, kernelSize);
+
+        final double linear = Benchmark.measure(name + ": linearFilter", () -> Filters.linearFilter(image, result,
+                kernel, size.calculateN(), 0.0, Extrapolation.REPLICATE));
+        final double box = Benchmark.measure(name + ": Blur.BOX",
+                () -> Filters.blur(image, result, size, Blur.BOX, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(linear, box);
+    }
+
+    public static void main(final String[] args) {
+        run("720p, [5 x 5]", 1280, 720, 5);
+        run("720p, [31 x 31]", 1280, 720, 31);
+        run("720p, [61 x 61]", 1280, 720, 61);
+    }
+}
@@ -107,4 +107,37 @@ public class ColorConvertTest {
         final Image imgRGB = ColorConvert.fromHSVtoRGB(imgHSV);
         Assert.assertTrue(imgRGB.equals(this.imageRGB));
     }
+
+    /**
+     * Test method for: {@link ColorConvert#fromRGBtoGray(Image, Image)},
+     * {@link ColorConvert#fromGrayToRGB(Image, Image)}, {@link ColorConvert#fromRGBtoHSV(Image, Image)}.
+     */
+    @Test
+    public void testDestination() {
+        // Gray into layer of bigger frame.
+        final Image frame = new Image(this.imageRGB.getWidth() + 10, this.imageRGB.getHeight(), 2);
+        final Image gray = frame.makeSubImage(10, 0, this.imageRGB.getWidth(), this.imageRGB.getHeight())
+                .makeLayer(1, 1);
+        ColorConvert.fromRGBtoGray(this.imageRGB, gray);
+        Assert.assertEquals(ColorConvert.fromRGBtoGray(this.imageRGB), gray);
+        Assert.assertEquals(0, frame.get(0, 0, 1));
+
+        final Image rgb = this.imageRGB.makeSame();
+        ColorConvert.fromGrayToRGB(gray, rgb);
+        Assert.assertEquals(3, ColorConvert.fromGrayToRGB(gray).getNumOfChannels());
+        Assert.assertEquals(ColorConvert.fromGrayToRGB(gray), rgb);
+
+        // In-place.
+        final Image hsv = this.imageRGB.makeCopy();
+        ColorConvert.fromRGBtoHSV(hsv, hsv);
+        Assert.assertEquals(ColorConvert.fromRGBtoHSV(this.imageRGB), hsv);
+
+        // Incorrect number of channels of result.
+        try {
+            ColorConvert.fromRGBtoGray(this.imageRGB, this.imageRGB.makeSame());
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.FloatImage;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.image.filters.EdgeDetect;
+import org.jcvlib.image.filters.Filters;
+import org.jcvlib.image.filters.GradientMagnitude;
+
+/**
+ * Compare convolution of aperture by each derivative for each pixel with fused integer gradient of
+ * {@link Filters#edgeDetection(Image, Image, EdgeDetect, GradientMagnitude, double, Extrapolation)}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class EdgeDetectBenchmark {
+
+    //@formatter:off
+    private static final Kernel sobelX = new Kernel(3, 3, new float[] {
+        -1.0f,  0.0f,  1.0f,
+        -2.0f,  0.0f,  2.0f,
+        -1.0f,  0.0f,  1.0f
+    });
+
+    private static final Kernel sobelY = new Kernel(3, 3, new float[] {
+        -1.0f, -2.0f, -1.0f,
+         0.0f,  0.0f,  0.0f,
+         1.0f,  2.0f,  1.0f
+    });
+    //@formatter:on
+
+    private static void sobelByAperture(final Image image, final Image result) {
+        image.noneLinearFilter(result, 3, 3, sobelX.getAnchor(), 1, Extrapolation.REFLECT, (aperture, value) -> {
+            for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                final double gx = aperture.convolveUnsafe(sobelX, channel);
+                final double gy = aperture.convolveUnsafe(sobelY, channel);
+                value.set(channel, JCV.round(Math.sqrt(gx * gx + gy * gy)));
+            }
+        });
+    }
+
+    private static void run(final String name, final int width, final int height) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+        final FloatImage direction = new FloatImage(width, height, 3);
+
+        final double aperture = Benchmark.measure(name + ": aperture", () -> sobelByAperture(image, result));
+        final double l2 = Benchmark.measure(name + ": SOBEL, L2", () -> Filters.edgeDetection(image, result,
+                EdgeDetect.SOBEL, GradientMagnitude.L2, 1.0, Extrapolation.REFLECT));
+        Benchmark.printSpeedup(aperture, l2);
+        final double l1 = Benchmark.measure(name + ": SOBEL, L1", () -> Filters.edgeDetection(image, result,
+                EdgeDetect.SOBEL, GradientMagnitude.L1, 1.0, Extrapolation.REFLECT));
+        Benchmark.printSpeedup(aperture, l1);
+        final double withDirection = Benchmark.measure(name + ": SOBEL, L2 and direction",
+                () -> Filters.edgeDetection(image, result, direction, EdgeDetect.SOBEL, GradientMagnitude.L2, 1.0,
+                        Extrapolation.REFLECT));
+        Benchmark.printSpeedup(aperture, withDirection);
+    }
+
+    public static void main(final String[] args) {
+        run("VGA", 640, 480);
+        run("Full HD", 1920, 1080);
+    }
+}
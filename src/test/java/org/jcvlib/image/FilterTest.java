@@ -18,12 +18,27 @@
  */
 package org.jcvlib.image;
 
+import java.util.Arrays;
+
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.FloatImage;
 import org.jcvlib.core.Image;
 import org.jcvlib.core.ImageTest;
 import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.core.Point;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.EdgeDetect;
 import org.jcvlib.image.filters.Filters;
+import org.jcvlib.image.filters.GradientMagnitude;
+import org.jcvlib.image.filters.Morphology;
+import org.jcvlib.image.filters.Pipeline;
+import org.jcvlib.image.filters.Sharpen;
+import org.jcvlib.image.filters.StructuringElement;
+import org.jcvlib.image.filters.Threshold;
+import org.jcvlib.image.filters.ThresholdAdaptive;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -36,6 +51,78 @@ import Jama.Matrix;
  */
 public class FilterTest {
 
+    /**
+     * Filter that processes source image into result with given extrapolation method.
+     */
+    private interface Filter {
+
+        /**
+         * Process source image and put result into given image with same size and number of channels.
+         */
+        void apply(Image image, Image result, Extrapolation extrapolation);
+    }
+
+    /**
+     * Expected value of filter calculated directly from aperture of source image.
+     */
+    private interface Reference {
+
+        /**
+         * Calculate expected value of given position and channel.
+         */
+        int calculate(int x, int y, int channel, Extrapolation extrapolation);
+    }
+
+    /**
+     * Create sub-image with edges, plateaus and gradients. Values outside of sub-image are available only through
+     * extrapolation.
+     */
+    private static Image createImage(final int width, final int height, final int numOfChannels) {
+        final Image base = new Image(width + 5, height + 4, numOfChannels);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                for (int channel = 0; channel < base.getNumOfChannels(); ++channel) {
+                    switch (channel % 3) {
+                        case 0:
+                            base.set(x, y, channel, (37 * x + 11 * y * y) % 256);
+                            break;
+                        case 1:
+                            base.set(x, y, channel, (x * y) % 7 == 0 ? 255 : 100);
+                            break;
+                        default:
+                            base.set(x, y, channel, x < base.getWidth() / 2 ? (5 * x + 3 * y) % 256 : 200);
+                            break;
+                    }
+                }
+            }
+        }
+
+        return base.makeSubImage(3, 2, width, height);
+    }
+
+    /**
+     * Apply filter with each extrapolation method and compare all values of result with reference. Filtering in-place
+     * should give same result.
+     */
+    private static void assertMatchesReference(final Image image, final Filter filter, final Reference reference) {
+        for (final Extrapolation extrapolation : Extrapolation.values()) {
+            final Image result = image.makeSame();
+            filter.apply(image, result, extrapolation);
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        Assert.assertEquals(reference.calculate(x, y, channel, extrapolation),
+                                result.get(x, y, channel));
+                    }
+                }
+            }
+
+            final Image copy = image.makeCopy();
+            filter.apply(copy, copy, extrapolation);
+            Assert.assertEquals(result, copy);
+        }
+    }
+
     /**
      * Test method for: {@link Filters#linearFilter(Image, Matrix, double, double, Extrapolation)}.
      */
@@ -102,6 +189,635 @@ public class FilterTest {
         }
     }
 
+    /**
+     * Test method for: {@link Filters#linearFilter(Image, Image, Kernel, double, double, Extrapolation)} with large
+     * kernels (uses FFT).
+     */
+    @Test
+    public void testLinearFilterLargeKernel() {
+        final Image image = createImage(61, 43, 3);
+
+        // Integer kernels: exact result.
+        final float[] values = new float[21 * 17];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (7 * i) % 11 - 3;
+        }
+        final Kernel[] kernels = new Kernel[] { new Kernel(21, 17, values),
+                new Kernel(21, 17, values, new Point(2, 15)), Kernel.ones(7, 41), Kernel.ones(55, 5) };
+        for (final Kernel kernel : kernels) {
+            final double div = Math.max(kernel.getSum(), 1.0);
+            final Point anchor = kernel.getAnchor();
+            assertMatchesReference(image,
+                    (source, result, extrapolation) -> Filters.linearFilter(source, result, kernel, div, 10.0,
+                            extrapolation),
+                    (x, y, channel, extrapolation) -> {
+                        long sum = 0;
+                        for (int i = 0; i < kernel.getWidth(); ++i) {
+                            for (int j = 0; j < kernel.getHeight(); ++j) {
+                                sum += (long) kernel.get(i, j) * image.get(x - anchor.getX() + i,
+                                        y - anchor.getY() + j, channel, extrapolation);
+                            }
+                        }
+
+                        return Math.max(Math.min(JCV.round(sum / div + 10.0), Color.MAX_VALUE), Color.MIN_VALUE);
+                    });
+        }
+
+        // Non-integer kernel.
+        final float[] gaussian = new float[25];
+        for (int i = 0; i < gaussian.length; ++i) {
+            gaussian[i] = (float) Math.exp(-(i - 12) * (i - 12) / 50.0);
+        }
+        final Kernel kernel = Kernel.separable(gaussian, gaussian);
+        final Image result = Filters.linearFilter(image.makeChannel(1), kernel, kernel.getSum(), 0.0,
+                Extrapolation.REFLECT);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                double sum = 0.0;
+                for (int i = 0; i < kernel.getWidth(); ++i) {
+                    for (int j = 0; j < kernel.getHeight(); ++j) {
+                        sum += kernel.get(i, j) * image.get(x - 12 + i, y - 12 + j, 1, Extrapolation.REFLECT);
+                    }
+                }
+
+                Assert.assertEquals(sum / kernel.getSum(), result.get(x, y, 0), 0.5 + 1e-6);
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#linearFilter(Image, Image, Kernel, double, double, Extrapolation)},
+     * {@link Filters#separableFilter(Image, Kernel, double, double, Extrapolation)} and
+     * {@link Filters#blur(Image, Size, Blur, Extrapolation)} with kernel larger than image.
+     */
+    @Test
+    public void testKernelLargerThanImage() {
+        final Image image = new Image(1, 7, 2);
+        for (int y = 0; y < image.getHeight(); ++y) {
+            image.set(0, y, 0, 30 * y + 10);
+            image.set(0, y, 1, 250 - 20 * y);
+        }
+
+        final Kernel kernel = Kernel.ones(5, 5);
+        final Kernel large = Kernel.ones(41, 41);
+        for (final Extrapolation extrapolation : Extrapolation.values()) {
+            final Image[] results = new Image[] { Filters.linearFilter(image, kernel, 25.0, 0.0, extrapolation),
+                    Filters.separableFilter(image, kernel, 25.0, 0.0, extrapolation),
+                    Filters.blur(image, new Size(5, 5), Blur.BOX, extrapolation) };
+            final Image largeResult = Filters.linearFilter(image, large, 41.0 * 41.0, 0.0, extrapolation);
+
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    int sum = 0;
+                    for (int i = -2; i <= 2; ++i) {
+                        for (int j = -2; j <= 2; ++j) {
+                            sum += image.get(i, y + j, channel, extrapolation);
+                        }
+                    }
+                    for (final Image result : results) {
+                        Assert.assertEquals(sum / 25.0, result.get(0, y, channel), 0.5 + 1e-6);
+                    }
+
+                    int largeSum = 0;
+                    for (int i = -20; i <= 20; ++i) {
+                        for (int j = -20; j <= 20; ++j) {
+                            largeSum += image.get(i, y + j, channel, extrapolation);
+                        }
+                    }
+                    Assert.assertEquals(largeSum / (41.0 * 41.0), largeResult.get(0, y, channel), 0.5 + 1e-6);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#separableFilter(Image, Kernel, double, double, Extrapolation)}.
+     */
+    @Test
+    public void testSeparableFilter() {
+        final Image base = new Image(31, 23, 2);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                base.set(x, y, 0, (11 * x + 17 * y) % 256);
+                base.set(x, y, 1, (x * y) % 256);
+            }
+        }
+        final Image image = base.makeSubImage(3, 2, 25, 19);
+
+        final Kernel kernel = Kernel.separable(new float[] { 1.0f, 2.0f, 1.0f },
+                new float[] { 1.0f, 4.0f, 6.0f, 4.0f, 1.0f });
+        for (final Extrapolation extrapolation : Extrapolation.values()) {
+            final Image expected = Filters.linearFilter(image, kernel, 64.0, 1.0, extrapolation);
+            final Image result = Filters.separableFilter(image, kernel, 64.0, 1.0, extrapolation);
+
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        Assert.assertEquals(expected.get(x, y, channel), result.get(x, y, channel), 1);
+                    }
+                }
+            }
+        }
+
+        // Same result for 1-D matrices in any order.
+        final Matrix row = new Matrix(new double[][] { { 1.0, 2.0, 1.0 } });
+        final Matrix column = new Matrix(new double[][] { { 1.0 }, { 4.0 }, { 6.0 }, { 4.0 }, { 1.0 } });
+        Assert.assertEquals(Filters.separableFilter(image, row, column, 8.0, 0.0, Extrapolation.REFLECT),
+                Filters.separableFilter(image, column, row, 8.0, 0.0, Extrapolation.REFLECT));
+
+        // In-place.
+        final Image copy = image.makeCopy();
+        Filters.separableFilter(copy, copy, kernel, 64.0, 0.0, Extrapolation.REPLICATE);
+        Assert.assertEquals(Filters.separableFilter(image, kernel, 64.0, 0.0, Extrapolation.REPLICATE), copy);
+
+        // Not separable kernel.
+        try {
+            Filters.separableFilter(image, new Kernel(3, 3, new float[] { 0, 1, 0, 1, -4, 1, 0, 1, 0 }), 1.0, 0.0,
+                    Extrapolation.REFLECT);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#blur(Image, Image, Size, Blur, Extrapolation)} with {@link Blur#BOX}.
+     */
+    @Test
+    public void testBoxBlur() {
+        final Image base = new Image(37, 29, 3);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                for (int channel = 0; channel < base.getNumOfChannels(); ++channel) {
+                    base.set(x, y, channel, (31 * x + 7 * y * y + 90 * channel) % 256);
+                }
+            }
+        }
+        final Image image = base.makeSubImage(4, 3, 30, 21);
+
+        for (final Size size : new Size[] { new Size(1, 1), new Size(3, 5), new Size(9, 3), new Size(15, 15) }) {
+            for (final Extrapolation extrapolation : Extrapolation.values()) {
+                final Image expected = Filters.linearFilter(image,
+                        Kernel.ones(size.getWidth(), size.getHeight()), size.calculateN(), 0.0, extrapolation);
+
+                final Image result = image.makeSame();
+                Filters.blur(image, result, size, Blur.BOX, extrapolation);
+                Assert.assertEquals(expected, result);
+
+                // Source and result are same image.
+                final Image inPlace = image.makeCopy();
+                Filters.blur(inPlace, inPlace, size, Blur.BOX, extrapolation);
+                Assert.assertEquals(expected, inPlace);
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#blur(Image, Image, Size, Blur, Extrapolation)} with {@link Blur#MEDIAN}.
+     */
+    @Test
+    public void testMedianBlur() {
+        final Image image = createImage(29, 23, 3);
+
+        for (final Size size : new Size[] { new Size(1, 1), new Size(3, 3), new Size(5, 3), new Size(7, 7) }) {
+            // Sorted values of aperture.
+            final Point center = JCV.calculateCenter(size.getWidth(), size.getHeight());
+            final int[] values = new int[size.calculateN()];
+            assertMatchesReference(image,
+                    (source, result, extrapolation) -> Filters.blur(source, result, size, Blur.MEDIAN, extrapolation),
+                    (x, y, channel, extrapolation) -> {
+                        for (int i = 0; i < size.getWidth(); ++i) {
+                            for (int j = 0; j < size.getHeight(); ++j) {
+                                values[size.getWidth() * j + i] = image.get(x - center.getX() + i,
+                                        y - center.getY() + j, channel, extrapolation);
+                            }
+                        }
+                        Arrays.sort(values);
+
+                        return values[(values.length - 1) / 2];
+                    });
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#blur(Image, Image, Size, Blur, Extrapolation)} with {@link Blur#KUWAHARA}.
+     */
+    @Test
+    public void testKuwaharaBlur() {
+        final Image image = createImage(29, 23, 3);
+
+        for (final Size size : new Size[] { new Size(3, 3), new Size(5, 5), new Size(7, 3), new Size(3, 9),
+                new Size(11, 9) }) {
+            // Mean of quadrant with minimal variance (first quadrant wins on equal variance).
+            final Point center = JCV.calculateCenter(size.getWidth(), size.getHeight());
+            final int n = center.getX() * center.getY();
+            assertMatchesReference(image,
+                    (source, result, extrapolation) -> Filters.blur(source, result, size, Blur.KUWAHARA, extrapolation),
+                    (x, y, channel, extrapolation) -> {
+                        if (size.calculateN() <= 9) {
+                            return image.get(x, y, channel);
+                        }
+
+                        double minVariance = Double.MAX_VALUE;
+                        int minMean = 0;
+                        for (int quadrant = 0; quadrant < 4; ++quadrant) {
+                            final int startX = x - center.getX() + (quadrant % 2) * (center.getX() + 1);
+                            final int startY = y - center.getY() + (quadrant / 2) * (center.getY() + 1);
+
+                            double sum = 0.0;
+                            for (int i = 0; i < center.getX(); ++i) {
+                                for (int j = 0; j < center.getY(); ++j) {
+                                    sum += image.get(startX + i, startY + j, channel, extrapolation);
+                                }
+                            }
+                            final int mean = JCV.round(sum / n);
+
+                            double variance = 0.0;
+                            for (int i = 0; i < center.getX(); ++i) {
+                                for (int j = 0; j < center.getY(); ++j) {
+                                    final double value = mean
+                                            - image.get(startX + i, startY + j, channel, extrapolation);
+                                    variance += value * value;
+                                }
+                            }
+
+                            if (variance < minVariance) {
+                                minVariance = variance;
+                                minMean = mean;
+                            }
+                        }
+
+                        return minMean;
+                    });
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#morphology(Image, Image, Size, Morphology, int, Extrapolation)} with
+     * {@link Morphology#DILATE} and {@link Morphology#ERODE}.
+     */
+    @Test
+    public void testMorphologyRectangle() {
+        final Image image = createImage(27, 21, 2);
+
+        for (final Size size : new Size[] { new Size(1, 1), new Size(3, 3), new Size(5, 3), new Size(1, 9),
+                new Size(13, 11) }) {
+            for (final Morphology morphology : new Morphology[] { Morphology.DILATE, Morphology.ERODE }) {
+                // Maximum or minimum of aperture.
+                final Point center = JCV.calculateCenter(size.getWidth(), size.getHeight());
+                assertMatchesReference(image,
+                        (source, result, extrapolation) -> Filters.morphology(source, result, size, morphology, 1,
+                                extrapolation),
+                        (x, y, channel, extrapolation) -> {
+                            int max = Color.MIN_VALUE;
+                            int min = Color.MAX_VALUE;
+                            for (int i = 0; i < size.getWidth(); ++i) {
+                                for (int j = 0; j < size.getHeight(); ++j) {
+                                    final int value = image.get(x - center.getX() + i, y - center.getY() + j,
+                                            channel, extrapolation);
+                                    max = Math.max(max, value);
+                                    min = Math.min(min, value);
+                                }
+                            }
+
+                            return morphology == Morphology.DILATE ? max : min;
+                        });
+
+                // Fused iterations give same result as separate ones.
+                for (final Extrapolation extrapolation : Extrapolation.values()) {
+                    final Image expected = Filters.morphology(image, size, morphology, 1, extrapolation);
+                    for (int i = 1; i < 3; ++i) {
+                        Filters.morphology(expected, expected, size, morphology, 1, extrapolation);
+                    }
+                    Assert.assertEquals(expected, Filters.morphology(image, size, morphology, 3, extrapolation));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link StructuringElement}.
+     */
+    @Test
+    public void testStructuringElement() {
+        // Ellipse 5x5.
+        final StructuringElement ellipse = StructuringElement.ellipse(5, 5);
+        Assert.assertTrue(ellipse.toString().endsWith("..#..\n#####\n#####\n#####\n..#..\n"));
+        Assert.assertFalse(ellipse.isRectangle());
+        Assert.assertEquals(5, ellipse.getNumOfRuns());
+        Assert.assertEquals(new Point(2, 2), ellipse.getAnchor());
+
+        // Cross 3x5.
+        final StructuringElement cross = StructuringElement.cross(3, 5);
+        Assert.assertTrue(cross.get(1, 0));
+        Assert.assertFalse(cross.get(0, 0));
+        Assert.assertTrue(cross.get(0, 2));
+        Assert.assertEquals(5, cross.getNumOfRuns());
+
+        // Rectangle.
+        Assert.assertTrue(StructuringElement.rectangle(3, 7).isRectangle());
+        Assert.assertEquals(7, StructuringElement.rectangle(3, 7).getNumOfRuns());
+        final boolean[] ones = new boolean[9];
+        Arrays.fill(ones, true);
+        Assert.assertEquals(StructuringElement.rectangle(3, 3), new StructuringElement(3, 3, ones));
+
+        // Several runs into one row.
+        final StructuringElement custom = new StructuringElement(5, 1, new boolean[] { true, false, true, true, false },
+                new Point(0, 0));
+        Assert.assertEquals(2, custom.getNumOfRuns());
+        Assert.assertFalse(custom.isRectangle());
+
+        // Empty mask.
+        try {
+            new StructuringElement(2, 2, new boolean[4]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Wrong number of values.
+        try {
+            new StructuringElement(2, 2, new boolean[3]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Anchor out of element.
+        try {
+            StructuringElement.rectangle(3, 3, new Point(3, 1));
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#morphology(Image, Image, StructuringElement, Morphology, int, Extrapolation)}
+     * with {@link Morphology#DILATE} and {@link Morphology#ERODE}.
+     */
+    @Test
+    public void testMorphologyElement() {
+        final Image image = createImage(27, 21, 2);
+
+        final StructuringElement[] elements = new StructuringElement[] { StructuringElement.ellipse(7, 7),
+                StructuringElement.ellipse(11, 5), StructuringElement.cross(5, 5), StructuringElement.cross(9, 3),
+                new StructuringElement(4, 3, new boolean[] { true, false, false, true, false, true, true, false, true,
+                        false, true, true }, new Point(3, 0)),
+                StructuringElement.rectangle(4, 2, new Point(0, 1)) };
+        for (final StructuringElement element : elements) {
+            for (final Morphology morphology : new Morphology[] { Morphology.DILATE, Morphology.ERODE }) {
+                // Maximum or minimum of selected values.
+                final Point anchor = element.getAnchor();
+                assertMatchesReference(image,
+                        (source, result, extrapolation) -> Filters.morphology(source, result, element, morphology, 1,
+                                extrapolation),
+                        (x, y, channel, extrapolation) -> {
+                            int max = Color.MIN_VALUE;
+                            int min = Color.MAX_VALUE;
+                            for (int i = 0; i < element.getWidth(); ++i) {
+                                for (int j = 0; j < element.getHeight(); ++j) {
+                                    if (element.get(i, j)) {
+                                        final int value = image.get(x - anchor.getX() + i, y - anchor.getY() + j,
+                                                channel, extrapolation);
+                                        max = Math.max(max, value);
+                                        min = Math.min(min, value);
+                                    }
+                                }
+                            }
+
+                            return morphology == Morphology.DILATE ? max : min;
+                        });
+
+                // Several iterations.
+                for (final Extrapolation extrapolation : Extrapolation.values()) {
+                    final Image expected = Filters.morphology(image, element, morphology, 1, extrapolation);
+                    for (int i = 1; i < 3; ++i) {
+                        Filters.morphology(expected, expected, element, morphology, 1, extrapolation);
+                    }
+                    Assert.assertEquals(expected, Filters.morphology(image, element, morphology, 3, extrapolation));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#adapriveThreshold(Image, Image, int, ThresholdAdaptive, int, int)}.
+     */
+    @Test
+    public void testAdaptiveThreshold() {
+        final Image base = new Image(41, 33, 2);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                base.set(x, y, 0, (37 * x + 11 * y * y) % 256);
+                base.set(x, y, 1, (x / 4 + y / 3) % 2 == 0 ? 60 + x : 180 - y);
+            }
+        }
+        final Image image = base.makeSubImage(3, 2, 35, 27);
+
+        for (final int blockSize : new int[] { 1, 3, 7, 15 }) {
+            // Mean of aperture with same weights.
+            final Image meanBinary = Filters.adapriveThreshold(image, blockSize, ThresholdAdaptive.MEAN, 5, 200);
+            final Image meanInv = Filters.adapriveThreshold(image, blockSize, ThresholdAdaptive.MEAN_INV, 5, 200);
+            final int n = blockSize * blockSize;
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        int sum = 0;
+                        for (int i = 0; i < blockSize; ++i) {
+                            for (int j = 0; j < blockSize; ++j) {
+                                sum += image.get(x - blockSize / 2 + i, y - blockSize / 2 + j, channel,
+                                        Extrapolation.REPLICATE);
+                            }
+                        }
+                        final int threshold = Math.max((2 * sum + n) / (2 * n) - 5, Color.MIN_VALUE);
+                        final boolean isMore = image.get(x, y, channel) > threshold;
+
+                        Assert.assertEquals(isMore ? 200 : Color.MIN_VALUE, meanBinary.get(x, y, channel));
+                        Assert.assertEquals(isMore ? Color.MIN_VALUE : 200, meanInv.get(x, y, channel));
+                    }
+                }
+            }
+
+            // Mean of aperture with Gaussian weights.
+            final Image gaussian = Filters.blur(image, new Size(blockSize, blockSize), Blur.GAUSSIAN,
+                    Extrapolation.REPLICATE);
+            final Image gaussianBinary = Filters.adapriveThreshold(image, blockSize, ThresholdAdaptive.GAUSSIAN, 5);
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        final int threshold = Math.max(gaussian.get(x, y, channel) - 5, Color.MIN_VALUE);
+                        Assert.assertEquals(image.get(x, y, channel) > threshold ? Color.MAX_VALUE : Color.MIN_VALUE,
+                                gaussianBinary.get(x, y, channel));
+                    }
+                }
+            }
+
+            // In-place.
+            final Image copy = image.makeCopy();
+            Filters.adapriveThreshold(copy, copy, blockSize, ThresholdAdaptive.MEAN, 5, 200);
+            Assert.assertEquals(meanBinary, copy);
+        }
+
+        // Even size of block.
+        try {
+            Filters.adapriveThreshold(image, 4, ThresholdAdaptive.MEAN, 5);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#gradientFilter(Image, Image, FloatImage, Kernel, Kernel, GradientMagnitude,
+     * double, Extrapolation)}.
+     */
+    @Test
+    public void testGradientFilter() {
+        final Image base = new Image(31, 24, 2);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                base.set(x, y, 0, (37 * x + 11 * y * y) % 256);
+                base.set(x, y, 1, (x / 4 + y / 3) % 2 == 0 ? 40 : 210);
+            }
+        }
+        final Image image = base.makeSubImage(2, 3, 27, 19);
+
+        //@formatter:off
+        final Kernel sobelX = new Kernel(3, 3, new float[] {
+            -1.0f,  0.0f,  1.0f,
+            -2.0f,  0.0f,  2.0f,
+            -1.0f,  0.0f,  1.0f
+        });
+        final Kernel sobelY = new Kernel(3, 3, new float[] {
+            -1.0f, -2.0f, -1.0f,
+             0.0f,  0.0f,  0.0f,
+             1.0f,  2.0f,  1.0f
+        });
+        final Kernel fractionalX = new Kernel(3, 1, new float[] { -0.5f, 0.0f, 0.5f });
+        final Kernel fractionalY = new Kernel(3, 1, new float[] { 0.25f, -0.75f, 0.5f });
+        //@formatter:on
+
+        final Kernel[][] kernels = new Kernel[][] { { sobelX, sobelY }, { fractionalX, fractionalY } };
+        for (final Kernel[] kernel : kernels) {
+            for (final Extrapolation extrapolation : Extrapolation.values()) {
+                for (final GradientMagnitude magnitudeMethod : GradientMagnitude.values()) {
+                    final Image magnitude = image.makeSame();
+                    final FloatImage direction = new FloatImage(image.getWidth(), image.getHeight(),
+                            image.getNumOfChannels());
+                    Filters.gradientFilter(image, magnitude, direction, kernel[0], kernel[1], magnitudeMethod, 0.7,
+                            extrapolation);
+
+                    // Compare with convolution of aperture.
+                    final Point anchor = kernel[0].getAnchor();
+                    for (int x = 0; x < image.getWidth(); ++x) {
+                        for (int y = 0; y < image.getHeight(); ++y) {
+                            for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                                double gx = 0.0;
+                                double gy = 0.0;
+                                for (int i = 0; i < kernel[0].getWidth(); ++i) {
+                                    for (int j = 0; j < kernel[0].getHeight(); ++j) {
+                                        final int value = image.get(x - anchor.getX() + i, y - anchor.getY() + j,
+                                                channel, extrapolation);
+                                        gx += kernel[0].get(i, j) * value;
+                                        gy += kernel[1].get(i, j) * value;
+                                    }
+                                }
+
+                                final double g = magnitudeMethod == GradientMagnitude.L2 ? Math.sqrt(gx * gx + gy * gy)
+                                        : Math.abs(gx) + Math.abs(gy);
+                                Assert.assertEquals(Math.min(JCV.round(0.7 * g), Color.MAX_VALUE),
+                                        magnitude.get(x, y, channel));
+                                Assert.assertEquals(Math.atan2(gy, gx), direction.get(x, y, channel), 1e-5);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Edge detection uses same kernels and Euclidean norm by default.
+        final Image expected = Filters.gradientFilter(image, sobelX, sobelY, 1.0, Extrapolation.REFLECT);
+        Assert.assertEquals(expected, Filters.edgeDetection(image, EdgeDetect.SOBEL));
+
+        // In-place.
+        final Image copy = image.makeCopy();
+        Filters.edgeDetection(copy, copy, EdgeDetect.SOBEL, GradientMagnitude.L2, 1.0, Extrapolation.REFLECT);
+        Assert.assertEquals(expected, copy);
+
+        // Wrong size of image for direction.
+        try {
+            Filters.edgeDetection(image, image.makeSame(), new FloatImage(27, 18, 2), EdgeDetect.SOBEL,
+                    GradientMagnitude.L1, 1.0, Extrapolation.REFLECT);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#gaussianBlurRecursive(Image, double, double, Extrapolation)}.
+     */
+    @Test
+    public void testGaussianBlurRecursive() {
+        final Image image = new Image(80, 60, 2);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                image.set(x, y, 0, (x / 8 + y / 6) % 2 == 0 ? 30 : 220);
+                image.set(x, y, 1, 3 * x + y);
+            }
+        }
+
+        // Recursive filter approximates convolution with Gaussian kernel (about 3% on sharp edges).
+        for (final double sigma : new double[] { 3.0, 6.0 }) {
+            final int kernelSize = 2 * Filters.getKernelSize(sigma) + 1;
+            for (final Extrapolation extrapolation : Extrapolation.values()) {
+                final Image expected = Filters.gaussianBlur(image, new Size(kernelSize, kernelSize), sigma * sigma,
+                        sigma * sigma, extrapolation);
+                final Image result = Filters.gaussianBlurRecursive(image, sigma, sigma, extrapolation);
+
+                for (int x = 0; x < image.getWidth(); ++x) {
+                    for (int y = 0; y < image.getHeight(); ++y) {
+                        for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                            Assert.assertEquals(expected.get(x, y, channel), result.get(x, y, channel), 8);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Constant image is not changed.
+        final Image gray = new Image(30, 20, 1);
+        gray.fill(new Color(1, 117));
+        Assert.assertEquals(gray, Filters.gaussianBlurRecursive(gray, 7.5, 3.0, Extrapolation.REFLECT));
+
+        // Small sigma.
+        Assert.assertEquals(image, Filters.gaussianBlurRecursive(image, 0.1, 0.1, Extrapolation.REFLECT));
+
+        // In-place filtering.
+        final Image inPlace = image.makeCopy();
+        Filters.gaussianBlurRecursive(inPlace, inPlace, 4.0, 2.0, Extrapolation.REFLECT);
+        Assert.assertEquals(Filters.gaussianBlurRecursive(image, 4.0, 2.0, Extrapolation.REFLECT), inPlace);
+
+        // Narrow image with many channels.
+        final Image narrow = new Image(1, 40, 9);
+        narrow.fill(new Color(9, 53));
+        Assert.assertEquals(narrow, Filters.gaussianBlurRecursive(narrow, 3.0, 3.0, Extrapolation.REFLECT));
+        Assert.assertEquals(narrow, Filters.morphology(narrow, new Size(3, 5), Morphology.DILATE, 1,
+                Extrapolation.REPLICATE));
+
+        // Same blur as Gaussian.
+        final Image expected = Filters.blur(image, new Size(61, 61), Blur.GAUSSIAN);
+        final Image result = Filters.blur(image, new Size(61, 61), Blur.GAUSSIAN_RECURSIVE);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    Assert.assertEquals(expected.get(x, y, channel), result.get(x, y, channel), 8);
+                }
+            }
+        }
+    }
+
     /**
      * Test method for: {@link Filters#getGaussianKernel(int, double)}.
      */
@@ -179,4 +895,166 @@ public class FilterTest {
         Assert.assertEquals(kernelSize2 + 1, Filters.getKernelSize(sigma2), JCV.PRECISION);
         Assert.assertEquals(sigma2, Filters.getSigma(kernelSize2), JCV.PRECISION);
     }
+
+    /**
+     * Test method for: {@link Pipeline#run(Image, Image)}. Fused operations should give same result as methods of
+     * {@link Filters} called one by one.
+     */
+    @Test
+    public void testPipeline() {
+        final Image base = new Image(307, 211, 3);
+        for (int x = 0; x < base.getWidth(); ++x) {
+            for (int y = 0; y < base.getHeight(); ++y) {
+                base.set(x, y, 0, (37 * x + 11 * y * y) % 256);
+                base.set(x, y, 1, (x * y) % 7 == 0 ? 255 : 100);
+                base.set(x, y, 2, x < 150 ? 5 * x + 3 * y : 200);
+            }
+        }
+        // Sub-image with size that is not multiple of size of tiles.
+        final Image image = base.makeSubImage(3, 2, 301, 205);
+
+        final Kernel kernel = new Kernel(3, 5,
+                new float[] { 0.5f, 1.0f, 0.0f, -0.25f, 2.0f, 1.0f, 0.0f, 0.5f, 0.0f, 1.0f, 0.75f, -1.0f, 0.5f,
+                        0.0f, 0.25f },
+                new Point(0, 3));
+        final StructuringElement ellipse = StructuringElement.ellipse(5, 5);
+        final StructuringElement rectangle = StructuringElement.rectangle(4, 3, new Point(3, 0));
+        final int[] table = new int[Color.MAX_VALUE + 1];
+        for (int value = 0; value < table.length; ++value) {
+            table[value] = (value * value) / 200 + 10;
+        }
+
+        for (final Extrapolation extrapolation : Extrapolation.values()) {
+            // Blur and threshold.
+            final Pipeline blurThreshold = new Pipeline().blur(new Size(5, 5), Blur.GAUSSIAN, extrapolation)
+                    .threshold(100, Threshold.BINARY);
+            Assert.assertEquals(1, blurThreshold.getNumOfPasses());
+            Assert.assertEquals(
+                    Filters.threshold(Filters.blur(image, new Size(5, 5), Blur.GAUSSIAN, extrapolation), 100,
+                            Threshold.BINARY),
+                    blurThreshold.run(image));
+
+            // Chain of neighbor operations with anchors out of center and lookup tables.
+            final Pipeline chain = new Pipeline().lookup(table).linearFilter(kernel, 3.0, 20.0, extrapolation)
+                    .blur(new Size(3, 3), Blur.BOX, extrapolation).invert()
+                    .morphology(rectangle, Morphology.DILATE, extrapolation)
+                    .morphology(ellipse, Morphology.GRADIENT, extrapolation).threshold(30, Threshold.TRUNC);
+            Image expected = image.makeSame();
+            for (int x = 0; x < image.getWidth(); ++x) {
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                        expected.set(x, y, channel, table[image.get(x, y, channel)]);
+                    }
+                }
+            }
+            expected = Filters.linearFilter(expected, kernel, 3.0, 20.0, extrapolation);
+            expected = Filters.invert(Filters.blur(expected, new Size(3, 3), Blur.BOX, extrapolation));
+            Filters.morphology(expected, expected, rectangle, Morphology.DILATE, 1, extrapolation);
+            Filters.morphology(expected, expected, ellipse, Morphology.GRADIENT, 1, extrapolation);
+            expected = Filters.threshold(expected, 30, Threshold.TRUNC);
+            Assert.assertEquals(extrapolation == Extrapolation.WRAP ? 4 : 1, chain.getNumOfPasses());
+            Assert.assertEquals(expected, chain.run(image));
+
+            // Compound operations and operations on whole image.
+            final Pipeline compound = new Pipeline().sharpen(Sharpen.LAPLACIAN, extrapolation)
+                    .morphology(ellipse, Morphology.OPEN, extrapolation)
+                    .morphology(rectangle, Morphology.WHITE_TOP_HAT, extrapolation)
+                    .morphology(ellipse, Morphology.CLOSE, extrapolation).sharpen(Sharpen.MODERN, extrapolation);
+            expected = Filters.sharpen(image, Sharpen.LAPLACIAN, extrapolation);
+            Filters.morphology(expected, expected, ellipse, Morphology.OPEN, 1, extrapolation);
+            Filters.morphology(expected, expected, rectangle, Morphology.WHITE_TOP_HAT, 1, extrapolation);
+            Filters.morphology(expected, expected, ellipse, Morphology.CLOSE, 1, extrapolation);
+            expected = Filters.sharpen(expected, Sharpen.MODERN, extrapolation);
+            Assert.assertEquals(expected, compound.run(image));
+
+            // In-place.
+            final Image copy = image.makeCopy();
+            compound.run(copy, copy);
+            Assert.assertEquals(expected, copy);
+        }
+
+        // Image smaller than tile and pipeline without operations.
+        final Image small = image.makeSubImage(10, 20, 7, 5);
+        final Pipeline pipeline = new Pipeline().blur(new Size(3, 5), Blur.BOX, Extrapolation.REFLECT)
+                .morphology(StructuringElement.cross(5, 3), Morphology.ERODE, Extrapolation.REPLICATE);
+        Assert.assertEquals(Filters.morphology(Filters.blur(small, new Size(3, 5), Blur.BOX, Extrapolation.REFLECT),
+                StructuringElement.cross(5, 3), Morphology.ERODE, 1, Extrapolation.REPLICATE), pipeline.run(small));
+        Assert.assertEquals(small, new Pipeline().run(small));
+    }
+
+    /**
+     * Test method for: {@link Pipeline#lookup(int[])} and {@link Pipeline#threshold(int, Threshold, int)}.
+     */
+    @Test
+    public void testPipelineException() {
+        try {
+            new Pipeline().lookup(new int[10]);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            new Pipeline().threshold(300, Threshold.BINARY);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Filters#blur(Image, Image, Size, Blur, Extrapolation)},
+     * {@link Filters#linearFilter(Image, Image, Matrix, double, double, Extrapolation)}.
+     */
+    @Test
+    public void testDestination() {
+        final Image image = new Image(40, 30, 3);
+        for (int x = 0; x < image.getWidth(); ++x) {
+            for (int y = 0; y < image.getHeight(); ++y) {
+                for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                    image.set(x, y, channel, (7 * x + 13 * y + 50 * channel) % 256);
+                }
+            }
+        }
+
+        for (final Blur blur : Blur.values()) {
+            final Image expected = Filters.blur(image, new Size(5, 5), blur);
+
+            // Into sub-image.
+            final Image frame = new Image(60, 50, 3);
+            final Image view = frame.makeSubImage(10, 10, 40, 30);
+            Filters.blur(image, view, new Size(5, 5), blur);
+            Assert.assertEquals(expected, view);
+            Assert.assertEquals(0, frame.get(9, 9, 0));
+
+            // In-place.
+            final Image copy = image.makeCopy();
+            Filters.blur(copy, copy, new Size(5, 5), blur);
+            Assert.assertEquals(expected, copy);
+        }
+
+        final Matrix kernel = new Matrix(new double[][] { { 1.0, 2.0, 1.0 } });
+        final Image result = image.makeSame();
+        Filters.linearFilter(image, result, kernel, 4.0, 0.0, Extrapolation.REFLECT);
+        Assert.assertEquals(Filters.linearFilter(image, kernel, 4.0, 0.0, Extrapolation.REFLECT), result);
+
+        // Threshold reads the source image.
+        final Image binary = image.makeSame();
+        Filters.threshold(image, binary, 127, Threshold.BINARY);
+        Assert.assertEquals(Color.MAX_VALUE, binary.get(20, 0, 0));
+        Assert.assertEquals(Color.MIN_VALUE, binary.get(0, 0, 0));
+
+        // Morphology with several iterations in-place.
+        final Image closed = image.makeCopy();
+        Filters.morphology(closed, closed, new Size(3, 3), Morphology.CLOSE, 2, Extrapolation.REPLICATE);
+        Assert.assertEquals(Filters.morphology(image, new Size(3, 3), Morphology.CLOSE, 2), closed);
+
+        // Incorrect size of result.
+        try {
+            Filters.linearFilter(image, new Image(40, 31, 3), kernel, 4.0, 0.0, Extrapolation.REFLECT);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Filters;
+
+/**
+ * Compare separable (FIR) Gaussian blur {@link Filters#gaussianBlur(Image, Image, Size, double, double, Extrapolation)}
+ * with recursive (IIR) {@link Filters#gaussianBlurRecursive(Image, Image, double, double, Extrapolation)} for
+ * different <code>sigma</code> values.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class GaussianBlurBenchmark {
+
+    private static void run(final Image image, final double sigma) {
+        final Image result = image.makeSame();
+        final int kernelSize = Filters.getKernelSize(sigma);
+        final Size size = new Size(kernelSize, kernelSize);
+        final String name = "sigma = " + sigma + ", [" + kernelSize + " x " + kernelSize + "]";
+
+        final double fir = Benchmark.measure(name + ": FIR", () -> Filters.gaussianBlur(image, result, size,
+                sigma * sigma, sigma * sigma, Extrapolation.REFLECT));
+        final double iir = Benchmark.measure(name + ": IIR",
+                () -> Filters.gaussianBlurRecursive(image, result, sigma, sigma, Extrapolation.REFLECT));
+        Benchmark.printSpeedup(fir, iir);
+    }
+
+    public static void main(final String[] args) {
+        final Image image = new Image(1920, 1080, 3);
+        for (final double sigma : new double[] { 1.0, 2.0, 5.0, 10.0, 20.0, 40.0 }) {
+            run(image, sigma);
+        }
+    }
+}
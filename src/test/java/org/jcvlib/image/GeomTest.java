@@ -62,6 +62,23 @@ public class GeomTest {
         }
     }
 
+    /**
+     * Test method for: {@link Geometry#resize(Image, Image)}, {@link Geometry#reflect(Image, Image, Reflection)}.
+     */
+    @Test
+    public void testDestination() {
+        final Image frame = new Image(400, 300, 3);
+        final Image view = frame.makeSubImage(50, 40, 300, 240);
+        Geometry.resize(this.image, view);
+        Assert.assertEquals(Geometry.resize(this.image, view.getSize()), view);
+        Assert.assertEquals(0, frame.get(49, 39, 0));
+
+        // In-place.
+        final Image mirror = this.image.makeCopy();
+        Geometry.reflect(mirror, mirror, Reflection.HORIZONTAL);
+        Assert.assertEquals(Geometry.reflect(this.image, Reflection.HORIZONTAL), mirror);
+    }
+
     /**
      * Test method for: {@link Geometry#reflect(Image, Reflection)}.
      */
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Color;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Point;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.Filters;
+
+/**
+ * Compare mean and variance of sub-images of each aperture with {@link Blur#KUWAHARA} that uses prefix sums.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class KuwaharaBenchmark {
+
+    private static void kuwaharaByAperture(final Image image, final Image result, final Size size) {
+        final Point center = JCV.calculateCenter(size.getWidth(), size.getHeight());
+        image.noneLinearFilter(result, size.getWidth(), size.getHeight(), center, 1, Extrapolation.REPLICATE,
+                (aperture, value) -> {
+                    final Image[] windows = new Image[] {
+                            aperture.makeSubImage(0, 0, center.getX(), center.getY()),
+                            aperture.makeSubImage(center.getX() + 1, 0, center.getX(), center.getY()),
+                            aperture.makeSubImage(0, center.getY() + 1, center.getX(), center.getY()),
+                            aperture.makeSubImage(center.getX() + 1, center.getY() + 1, center.getX(),
+                                    center.getY()) };
+
+                    for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                        double minVariance = Double.MAX_VALUE;
+                        for (final Image window : windows) {
+                            final Color mean = Misc.calculateMean(window);
+                            double variance = 0.0;
+                            for (int x = 0; x < window.getWidth(); ++x) {
+                                for (int y = 0; y < window.getHeight(); ++y) {
+                                    final double diff = mean.get(channel) - window.get(x, y, channel);
+                                    variance += diff * diff;
+                                }
+                            }
+                            if (variance < minVariance) {
+                                minVariance = variance;
+                                value.set(channel, mean.get(channel));
+                            }
+                        }
+                    }
+                });
+    }
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+        final Size size = new Size(kernelSize, kernelSize);
+
+        final double aperture = Benchmark.measure(name + ": aperture", () -> kuwaharaByAperture(image, result, size));
+        final double prefix = Benchmark.measure(name + ": Blur.KUWAHARA",
+                () -> Filters.blur(image, result, size, Blur.KUWAHARA, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(aperture, prefix);
+    }
+
+    public static void main(final String[] args) {
+        run("VGA, [5 x 5]", 640, 480, 5);
+        run("VGA, [9 x 9]", 640, 480, 9);
+        run("1080p, [9 x 9]", 1920, 1080, 9);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.image.filters.Filters;
+
+/**
+ * Compare direct convolution for each pixel with {@link Filters#linearFilter(Image, Image, Kernel, double, double,
+ * Extrapolation)} that uses FFT for large kernels.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class LinearFilterBenchmark {
+
+    private static void convolveByAperture(final Image image, final Image result, final Kernel kernel,
+            final double div) {
+        image.noneLinearFilter(result, kernel.getWidth(), kernel.getHeight(), kernel.getAnchor(), 1,
+                Extrapolation.REPLICATE, (aperture, sum) -> {
+                    for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                        sum.set(channel, JCV.round(aperture.convolveUnsafe(kernel, channel) / div));
+                    }
+                });
+    }
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+        final Kernel kernel = Kernel.ones(kernelSize, kernelSize);
+        final double div = kernelSize * kernelSize;
+
+        final double aperture = Benchmark.measure(name + ": aperture",
+                () -> convolveByAperture(image, result, kernel, div));
+        final double linear = Benchmark.measure(name + ": linearFilter",
+                () -> Filters.linearFilter(image, result, kernel, div, 0.0, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(aperture, linear);
+    }
+
+    public static void main(final String[] args) {
+        run("VGA, [9 x 9]", 640, 480, 9);
+        run("VGA, [11 x 11]", 640, 480, 11);
+        run("VGA, [17 x 17]", 640, 480, 17);
+        run("VGA, [31 x 31]", 640, 480, 31);
+        run("VGA, [51 x 51]", 640, 480, 51);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import java.util.Arrays;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.Filters;
+import org.jcvlib.parallel.Parallel;
+
+/**
+ * Compare sorting of kernel values for each pixel with sliding histogram of {@link Blur#MEDIAN}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class MedianBlurBenchmark {
+
+    private static void medianBySort(final Image image, final Image result, final int kernelSize) {
+        final int half = kernelSize / 2;
+        Parallel.pixels(image, (x, y, worker) -> {
+            final int[] values = new int[kernelSize * kernelSize];
+            for (int channel = 0; channel < image.getNumOfChannels(); ++channel) {
+                for (int i = 0; i < kernelSize; ++i) {
+                    for (int j = 0; j < kernelSize; ++j) {
+                        values[kernelSize * j + i] = image.get(x - half + i, y - half + j, channel,
+                                Extrapolation.REPLICATE);
+                    }
+                }
+                Arrays.sort(values);
+                result.set(x, y, channel, values[(values.length - 1) / 2]);
+            }
+        });
+    }
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                for (int channel = 0; channel < 3; ++channel) {
+                    image.set(x, y, channel, (x * 31 + y * 17 + channel * 5) % 256);
+                }
+            }
+        }
+        final Image result = image.makeSame();
+        final Size size = new Size(kernelSize, kernelSize);
+
+        final double sort = Benchmark.measure(name + ": sort", () -> medianBySort(image, result, kernelSize));
+        final double histogram = Benchmark.measure(name + ": Blur.MEDIAN",
+                () -> Filters.blur(image, result, size, Blur.MEDIAN, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(sort, histogram);
+    }
+
+    public static void main(final String[] args) {
+        run("VGA, [3 x 3]", 640, 480, 3);
+        run("VGA, [7 x 7]", 640, 480, 7);
+        run("VGA, [15 x 15]", 640, 480, 15);
+    }
+}
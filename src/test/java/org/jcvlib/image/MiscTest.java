@@ -194,9 +194,12 @@ public class MiscTest {
          *    \|/
          *     +
          * +-------+
-         * |  1  3 |
+         * |  2  3 |
          * |  8 10 |
          * +-------+
+         *
+         * Blurred value of top left pixel is about 1.6, so it is rounded to 2. Earlier value 1 was given by rounding
+         * of result of horizontal pass before vertical one.
          */
         final Image imageHalf = Misc.buildPyramidDown(image);
 
@@ -205,7 +208,7 @@ public class MiscTest {
         Assert.assertEquals( 2, imageHalf.getHeight());
         Assert.assertEquals( 1, imageHalf.getNumOfChannels());
 
-        Assert.assertEquals( 1, imageHalf.get(0, 0, 0));
+        Assert.assertEquals( 2, imageHalf.get(0, 0, 0));
         Assert.assertEquals( 3, imageHalf.get(1, 0, 0));
         Assert.assertEquals( 8, imageHalf.get(0, 1, 0));
         Assert.assertEquals(10, imageHalf.get(1, 1, 0));
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Color;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.JCV;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Filters;
+import org.jcvlib.image.filters.Morphology;
+import org.jcvlib.image.filters.StructuringElement;
+
+/**
+ * Compare scan of whole aperture for each pixel with van Herk / Gil-Werman dilation of {@link Morphology#DILATE} for
+ * rectangle and ellipse structuring elements.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class MorphologyBenchmark {
+
+    private static void dilateByAperture(final Image image, final Image result, final Size size) {
+        image.noneLinearFilter(result, size.getWidth(), size.getHeight(),
+                JCV.calculateCenter(size.getWidth(), size.getHeight()), 1, Extrapolation.REPLICATE,
+                (aperture, max) -> {
+                    max.fill(Color.MIN_VALUE);
+                    for (int x = 0; x < aperture.getWidth(); ++x) {
+                        for (int y = 0; y < aperture.getHeight(); ++y) {
+                            for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                                max.set(channel, Math.max(max.get(channel), aperture.get(x, y, channel)));
+                            }
+                        }
+                    }
+                });
+    }
+
+    private static void dilateByMask(final Image image, final Image result, final StructuringElement element) {
+        image.noneLinearFilter(result, element.getWidth(), element.getHeight(), element.getAnchor(), 1,
+                Extrapolation.REPLICATE, (aperture, max) -> {
+                    max.fill(Color.MIN_VALUE);
+                    for (int x = 0; x < aperture.getWidth(); ++x) {
+                        for (int y = 0; y < aperture.getHeight(); ++y) {
+                            if (element.get(x, y)) {
+                                for (int channel = 0; channel < aperture.getNumOfChannels(); ++channel) {
+                                    max.set(channel, Math.max(max.get(channel), aperture.get(x, y, channel)));
+                                }
+                            }
+                        }
+                    }
+                });
+    }
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+        final Size size = new Size(kernelSize, kernelSize);
+
+        final double aperture = Benchmark.measure(name + ": aperture", () -> dilateByAperture(image, result, size));
+        final double decomposed = Benchmark.measure(name + ": Morphology.DILATE",
+                () -> Filters.morphology(image, result, size, Morphology.DILATE, 1, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(aperture, decomposed);
+    }
+
+    private static void runEllipse(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+        final StructuringElement element = StructuringElement.ellipse(kernelSize, kernelSize);
+
+        final double mask = Benchmark.measure(name + ": mask", () -> dilateByMask(image, result, element));
+        final double runs = Benchmark.measure(name + ": Morphology.DILATE",
+                () -> Filters.morphology(image, result, element, Morphology.DILATE, 1, Extrapolation.REPLICATE));
+        Benchmark.printSpeedup(mask, runs);
+    }
+
+    public static void main(final String[] args) {
+        run("VGA, [3 x 3]", 640, 480, 3);
+        run("VGA, [9 x 9]", 640, 480, 9);
+        run("VGA, [21 x 21]", 640, 480, 21);
+        runEllipse("VGA, ellipse [9 x 9]", 640, 480, 9);
+        runEllipse("VGA, ellipse [21 x 21]", 640, 480, 21);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.Filters;
+import org.jcvlib.image.filters.Morphology;
+import org.jcvlib.image.filters.Pipeline;
+import org.jcvlib.image.filters.Sharpen;
+import org.jcvlib.image.filters.StructuringElement;
+import org.jcvlib.image.filters.Threshold;
+
+/**
+ * Compare calls of {@link Filters} one by one with fused {@link Pipeline}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class PipelineBenchmark {
+
+    private static void run(final String name, final Image image, final Runnable filters, final Pipeline pipeline) {
+        final Image result = image.makeSame();
+
+        final double separate = Benchmark.measure(name + ": Filters", filters);
+        final double fused = Benchmark.measure(name + ": Pipeline", () -> pipeline.run(image, result));
+        Benchmark.printSpeedup(separate, fused);
+    }
+
+    public static void main(final String[] args) {
+        final Image image = new Image(1920, 1080, 3);
+        final Image result = image.makeSame();
+        final Size size = new Size(5, 5);
+        final StructuringElement element = StructuringElement.rectangle(3, 3);
+
+        PipelineBenchmark.run("1080p, Gaussian [5 x 5] and threshold", image, () -> {
+            Filters.blur(image, result, size, Blur.GAUSSIAN, Extrapolation.REPLICATE);
+            Filters.threshold(result, result, 100, Threshold.BINARY);
+        }, new Pipeline().blur(size, Blur.GAUSSIAN, Extrapolation.REPLICATE).threshold(100, Threshold.BINARY));
+
+        PipelineBenchmark.run("1080p, morphological gradient [3 x 3]", image,
+                () -> Filters.morphology(image, result, element, Morphology.GRADIENT, 1, Extrapolation.REPLICATE),
+                new Pipeline().morphology(element, Morphology.GRADIENT, Extrapolation.REPLICATE));
+
+        PipelineBenchmark.run("1080p, Laplacian sharpen", image,
+                () -> Filters.sharpen(image, result, Sharpen.LAPLACIAN, Extrapolation.REPLICATE),
+                new Pipeline().sharpen(Sharpen.LAPLACIAN, Extrapolation.REPLICATE));
+
+        PipelineBenchmark.run("1080p, box [3 x 3], open [3 x 3] and threshold", image, () -> {
+            Filters.blur(image, result, new Size(3, 3), Blur.BOX, Extrapolation.REPLICATE);
+            Filters.morphology(result, result, element, Morphology.OPEN, 1, Extrapolation.REPLICATE);
+            Filters.threshold(result, result, 100, Threshold.BINARY);
+        }, new Pipeline().blur(new Size(3, 3), Blur.BOX, Extrapolation.REPLICATE)
+                .morphology(element, Morphology.OPEN, Extrapolation.REPLICATE).threshold(100, Threshold.BINARY));
+    }
+}
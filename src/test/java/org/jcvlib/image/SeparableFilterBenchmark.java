@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 JcvLib Team Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * https://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.image;
+
+import org.jcvlib.Benchmark;
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Kernel;
+import org.jcvlib.image.filters.Filters;
+
+/**
+ * Compare full 2-D convolution of separable kernel with two 1-D passes of
+ * {@link Filters#separableFilter(Image, Image, Kernel, double, double, Extrapolation)}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class SeparableFilterBenchmark {
+
+    private static void run(final String name, final int width, final int height, final int kernelSize) {
+        final Image image = new Image(width, height, 3);
+        final Image result = image.makeSame();
+
+        final float[] vector = new float[kernelSize];
+        for (int i = 0; i < kernelSize; ++i) {
+            vector[i] = 1.0f + Math.min(i, kernelSize - 1 - i);
+        }
+        final Kernel kernel = Kernel.separable(vector, vector);
+        final double div = kernel.getSum();
+
+        final double linear = Benchmark.measure(name + ": linearFilter",
+                () -> Filters.linearFilter(image, result, kernel, div, 0.0, Extrapolation.REFLECT));
+        final double separable = Benchmark.measure(name + ": separableFilter",
+                () -> Filters.separableFilter(image, result, kernel, div, 0.0, Extrapolation.REFLECT));
+        Benchmark.printSpeedup(linear, separable);
+    }
+
+    public static void main(final String[] args) {
+        run("1080p, [5 x 5]", 1920, 1080, 5);
+        run("1080p, [15 x 15]", 1920, 1080, 15);
+    }
+}
@@ -20,10 +20,12 @@ package org.jcvlib.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import org.jcvlib.core.Color;
 import org.jcvlib.core.Histogram;
 import org.jcvlib.core.Image;
+import org.jcvlib.core.Layout;
 import org.jcvlib.image.ColorConvert;
 import org.junit.Assert;
 import org.junit.Test;
@@ -64,6 +66,108 @@ public class ImageRwTest {
         ImageRwTest.writeAndReadHistogramTest(image, "PNG");
     }
 
+    /**
+     * Test method for: {@link ImageRW#createMapped(File, int, int, int)}, {@link ImageRW#openMapped(File)}.
+     */
+    @Test
+    public void testMapped() throws IOException {
+        final Image image = ImageRwTest.init(150, 120, 3);
+
+        final File file = File.createTempFile("Test", ".raw");
+        file.deleteOnExit();
+
+        final Image mapped = ImageRW.createMapped(file, image.getWidth(), image.getHeight(), image.getNumOfChannels());
+        try {
+            Assert.assertEquals(image.getSize(), mapped.getSize());
+            Assert.assertEquals(image.getNumOfChannels(), mapped.getNumOfChannels());
+
+            image.copyTo(mapped);
+            mapped.makeSubImage(10, 20, 30, 40).makeChannel(1).fill(new Color(1, 77));
+            mapped.flush();
+
+            final Image opened = ImageRW.openMapped(file);
+            try {
+                Assert.assertEquals(mapped, opened);
+                Assert.assertEquals(77, opened.get(39, 59, 1));
+                Assert.assertEquals(image.get(40, 59, 1), opened.get(40, 59, 1));
+            } finally {
+                opened.close();
+            }
+        } finally {
+            mapped.close();
+        }
+
+        // Closed image can not be used, repeated closing does nothing.
+        mapped.close();
+        try {
+            mapped.get(0, 0, 0);
+            Assert.fail("Not thrown IllegalStateException!");
+        } catch (final IllegalStateException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Changes are kept into the file.
+        final Image reopened = ImageRW.openMapped(file);
+        try {
+            Assert.assertEquals(77, reopened.get(39, 59, 1));
+        } finally {
+            reopened.close();
+        }
+
+        // Not a raw image file.
+        final File wrongFile = File.createTempFile("Test", ".raw");
+        wrongFile.deleteOnExit();
+        try {
+            ImageRW.openMapped(wrongFile);
+            Assert.fail("Not thrown IOException!");
+        } catch (final IOException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test {@link MappedStorage} with values that cross boundaries of mapped regions.
+     */
+    @Test
+    public void testMappedRegions() throws IOException {
+        final Image image = ImageRwTest.init(50, 40, 3);
+
+        final File file = File.createTempFile("Test", ".raw");
+        file.deleteOnExit();
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(100 + 50 * 40 * 3);
+
+            // Regions with size 1 KB.
+            final MappedStorage storage = new MappedStorage(raf.getChannel(), 100, 50 * 40 * 3, 10);
+            try {
+                Assert.assertEquals(50 * 40 * 3, storage.getSize());
+
+                final Image mapped = new Image(storage, 50, 40, 3, Layout.ROW_MAJOR);
+                final int[] row = new int[50 * 3];
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    image.getRow(y, row);
+                    mapped.setRow(y, row);
+                }
+                Assert.assertEquals(image, mapped);
+
+                final byte[] bytes = new byte[2000];
+                storage.get(500, bytes, 0, bytes.length);
+                for (int i = 0; i < bytes.length; ++i) {
+                    Assert.assertEquals(storage.get(500 + i), bytes[i] & 0xFF);
+                }
+
+                bytes[1023 - 500] = 1;
+                bytes[1024 - 500] = 2;
+                storage.set(500, bytes, 0, bytes.length);
+                Assert.assertEquals(1, storage.get(1023));
+                Assert.assertEquals(2, storage.get(1024));
+            } finally {
+                storage.close();
+            }
+        }
+    }
+
     /**
      * Create and initialize new {@link JcvImage64F}.
      */
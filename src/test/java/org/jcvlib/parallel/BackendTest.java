@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.jcvlib.core.Image;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link Backend}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class BackendTest {
+
+    /**
+     * Test method for: {@link Backend#createContext(int, int)}.
+     */
+    @Test
+    public void testCreateContext() {
+        final Image image = new Image(64, 48, 1);
+
+        for (final Backend backend : Backend.values()) {
+            if (!backend.isSupported()) {
+                continue;
+            }
+
+            try (ExecutionContext context = backend.createContext(3, 64)) {
+                Assert.assertEquals(backend == Backend.CALLER_RUNS ? 1 : 3, context.getNumOfWorkers());
+                Assert.assertEquals(64, context.getMinSize());
+
+                final AtomicIntegerArray counters = new AtomicIntegerArray(image.getHeight());
+                context.execute(() -> Parallel.rows(image, (y, worker) -> {
+                    Assert.assertTrue(worker >= 0 && worker < context.getNumOfWorkers());
+                    counters.incrementAndGet(y);
+                }));
+
+                for (int y = 0; y < image.getHeight(); ++y) {
+                    Assert.assertEquals(1, counters.get(y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Backend#CALLER_RUNS}.
+     */
+    @Test
+    public void testCallerRuns() {
+        final Thread caller = Thread.currentThread();
+
+        try (ExecutionContext context = Backend.CALLER_RUNS.createContext(4, 1)) {
+            context.rows(new Image(10, 10, 1), (y, worker) -> {
+                Assert.assertSame(caller, Thread.currentThread());
+                Assert.assertEquals(0, worker);
+            });
+        }
+    }
+
+    /**
+     * Test method for: {@link ExecutionContext#close()}.
+     */
+    @Test
+    public void testClose() {
+        final ExecutionContext context = Backend.FIXED_THREAD_POOL.createContext(2, 1);
+        final ExecutionContext copy = context.withMinSize(10);
+        final ExecutorService executor = (ExecutorService) context.getExecutor();
+
+        // Copy does not own executor.
+        copy.close();
+        Assert.assertFalse(executor.isShutdown());
+
+        context.close();
+        Assert.assertTrue(executor.isShutdown());
+        Assert.assertTrue(context.isClosed());
+
+        // Closed context can not be used.
+        final Image image = new Image(10, 10, 1);
+        try {
+            context.rows(image, (y, worker) -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalStateException!");
+        } catch (final IllegalStateException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+        try {
+            context.execute(() -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalStateException!");
+        } catch (final IllegalStateException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        // Not closed context with shut down executor runs loops into calling thread.
+        final AtomicIntegerArray counters = new AtomicIntegerArray(image.getHeight());
+        context.withNumOfWorkers(4).rows(image, (y, worker) -> {
+            Assert.assertEquals(0, worker);
+            counters.incrementAndGet(y);
+        });
+        for (int y = 0; y < image.getHeight(); ++y) {
+            Assert.assertEquals(1, counters.get(y));
+        }
+
+        // Shared executors are not closed.
+        final ExecutionContext shared = Backend.COMMON_FORK_JOIN_POOL.createContext(2, 1);
+        shared.close();
+        Assert.assertFalse(((ExecutorService) shared.getExecutor()).isShutdown());
+    }
+
+    /**
+     * Test method for: {@link Backend#VIRTUAL_THREADS}.
+     */
+    @Test
+    public void testVirtualThreads() {
+        if (Backend.VIRTUAL_THREADS.isSupported()) {
+            Backend.VIRTUAL_THREADS.createContext(2, 1).close();
+        } else {
+            try {
+                Backend.VIRTUAL_THREADS.createContext(2, 1);
+                Assert.fail("Not thrown UnsupportedOperationException!");
+            } catch (final UnsupportedOperationException e) {
+                System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Test method for: {@link Backend#createContext(int, int)}.
+     */
+    @Test
+    public void testCreateContextException() {
+        try {
+            Backend.SHARED.createContext(0, 1);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            Backend.CALLER_RUNS.createContext(1, 0);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jcvlib.core.Extrapolation;
+import org.jcvlib.core.Image;
+import org.jcvlib.core.Size;
+import org.jcvlib.image.filters.Blur;
+import org.jcvlib.image.filters.Filters;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ExecutionContext}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ExecutionContextTest {
+
+    /**
+     * Test method for: {@link ExecutionContext#ExecutionContext(java.util.concurrent.Executor, int, int)}.
+     */
+    @Test
+    public void testCreateException() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            try {
+                new ExecutionContext(executor, 0, 1);
+                Assert.fail("Not thrown IllegalArgumentException!");
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+            }
+
+            try {
+                new ExecutionContext(executor, 1, 0);
+                Assert.fail("Not thrown IllegalArgumentException!");
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test method for: {@link ExecutionContext#execute(Runnable)}.
+     */
+    @Test
+    public void testExecute() {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final ExecutionContext context = new ExecutionContext(executor, 3, 100);
+            final ExecutionContext nested = context.withNumOfWorkers(2);
+            final Image image = new Image(100, 50, 1);
+            final AtomicIntegerArray counters = new AtomicIntegerArray(image.getHeight());
+
+            Assert.assertNotSame(context, ExecutionContext.getCurrent());
+            context.execute(() -> {
+                Assert.assertSame(context, ExecutionContext.getCurrent());
+                Assert.assertEquals(3, Parallel.getNumOfWorkers());
+                Assert.assertEquals(100, Parallel.getMinSize());
+
+                // Worker threads use same context.
+                Parallel.rows(image, (y, worker) -> {
+                    Assert.assertSame(context, ExecutionContext.getCurrent());
+                    Assert.assertTrue(worker >= 0 && worker < 3);
+                    counters.incrementAndGet(y);
+                });
+
+                nested.execute(() -> Assert.assertEquals(2, Parallel.getNumOfWorkers()));
+                Assert.assertSame(context, ExecutionContext.getCurrent());
+            });
+            Assert.assertNotSame(context, ExecutionContext.getCurrent());
+
+            for (int y = 0; y < image.getHeight(); ++y) {
+                Assert.assertEquals(1, counters.get(y));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Workers get continuous chunks of rows, so state of previous row can be reused.
+     */
+    @Test
+    public void testChunks() {
+        final ExecutionContext context = new ExecutionContext(4, 1);
+        final Image image = new Image(10, 1000, 1);
+        final int[] lastY = new int[context.getNumOfWorkers()];
+        final int[] restarts = new int[context.getNumOfWorkers()];
+        Arrays.fill(lastY, -2);
+
+        context.rows(image, (y, worker) -> {
+            if (lastY[worker] != y - 1) {
+                ++restarts[worker];
+            }
+            lastY[worker] = y;
+        });
+
+        // Not more than 4 chunks for each worker.
+        int sum = 0;
+        for (final int restart : restarts) {
+            sum += restart;
+        }
+        Assert.assertTrue(sum <= 4 * context.getNumOfWorkers());
+    }
+
+    /**
+     * Contexts of different threads do not change each other.
+     */
+    @Test
+    public void testIndependentContexts() throws InterruptedException {
+        final Image image = new Image(200, 200, 1);
+        final CountDownLatch started = new CountDownLatch(2);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        final Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; ++i) {
+            final ExecutionContext context = new ExecutionContext(i + 1, 1);
+            threads[i] = new Thread(() -> context.execute(() -> {
+                try {
+                    started.countDown();
+                    started.await();
+                    for (int n = 0; n < 100; ++n) {
+                        final int[] buffers = new int[Parallel.getNumOfWorkers()];
+                        Parallel.rows(image, (y, worker) -> ++buffers[worker]);
+                        Assert.assertEquals(context.getNumOfWorkers(), buffers.length);
+                    }
+                } catch (final Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            }));
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertNull(error.get());
+    }
+
+    /**
+     * Operations with per-worker buffers are not broken by changes of default context from other thread.
+     */
+    @Test
+    public void testChangeDefault() throws InterruptedException {
+        final int numOfWorkers = Parallel.getNumOfWorkers();
+        final int minSize = Parallel.getMinSize();
+        final AtomicBoolean isDone = new AtomicBoolean();
+        final Thread changer = new Thread(() -> {
+            for (int i = 0; !isDone.get(); ++i) {
+                Parallel.setNumOfWorkers(1 + i % 8);
+            }
+        });
+        try {
+            Parallel.setMinSize(1);
+            changer.start();
+
+            final Image image = new Image(64, 64, 3);
+            final Image result = image.makeSame();
+            for (int i = 0; i < 200; ++i) {
+                Filters.blur(image, result, new Size(5, 5), Blur.BOX, Extrapolation.REPLICATE);
+                Filters.blur(image, result, new Size(5, 5), Blur.KUWAHARA, Extrapolation.REPLICATE);
+            }
+        } finally {
+            isDone.set(true);
+            changer.join();
+            Parallel.setNumOfWorkers(numOfWorkers);
+            Parallel.setMinSize(minSize);
+        }
+    }
+
+    /**
+     * Loop is finished by calling thread, even if all threads of executor are busy.
+     */
+    @Test
+    public void testBusyExecutor() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            final Image image = new Image(10, 10, 1);
+            final AtomicIntegerArray counters = new AtomicIntegerArray(image.getHeight());
+            new ExecutionContext(executor, 4, 1).rows(image, (y, worker) -> counters.incrementAndGet(y));
+
+            for (int y = 0; y < image.getHeight(); ++y) {
+                Assert.assertEquals(1, counters.get(y));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Exceptions of workers are thrown into calling thread.
+     */
+    @Test
+    public void testWorkerException() {
+        final ExecutionContext context = new ExecutionContext(4, 1);
+        final Image image = new Image(10, 10, 1);
+
+        try {
+            context.rows(image, (y, worker) -> {
+                if (y == 7) {
+                    throw new IllegalStateException("Row " + y);
+                }
+            });
+            Assert.fail("Not thrown IllegalStateException!");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals("Row 7", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017 JcvLib Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This class is part of Java Computer Vision Library (JcvLib).
+ */
+package org.jcvlib.parallel;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.jcvlib.core.Image;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link Parallel}.
+ *
+ * @author Dmitry Zavodnikov (d.zavodnikov@gmail.com)
+ */
+public class ParallelTest {
+
+    /**
+     * Test method for: {@link Parallel#tiles(Image, int, int, TileLoop)}.
+     */
+    @Test
+    public void testTiles() {
+        final int numOfWorkers = Parallel.getNumOfWorkers();
+        final int minSize = Parallel.getMinSize();
+        try {
+            final int[][] sizes = { { 1, 1 }, { 7, 5 }, { 64, 64 }, { 300, 1 }, { 1, 300 }, { 301, 205 } };
+            for (final int workers : new int[] { 1, 4 }) {
+                Parallel.setNumOfWorkers(workers);
+                Parallel.setMinSize(1000);
+
+                for (final int[] size : sizes) {
+                    final Image image = new Image(301, 205, 1);
+                    final AtomicIntegerArray counters = new AtomicIntegerArray(image.getWidth() * image.getHeight());
+
+                    Parallel.tiles(image, size[0], size[1], (x, y, width, height, worker) -> {
+                        Assert.assertTrue(width >= 1 && width <= size[0]);
+                        Assert.assertTrue(height >= 1 && height <= size[1]);
+                        Assert.assertTrue(worker >= 0 && worker < workers);
+                        Assert.assertEquals(0, x % size[0]);
+                        Assert.assertEquals(0, y % size[1]);
+
+                        for (int j = y; j < y + height; ++j) {
+                            for (int i = x; i < x + width; ++i) {
+                                counters.incrementAndGet(image.getWidth() * j + i);
+                            }
+                        }
+                    });
+
+                    // Each value is processed exactly once.
+                    for (int i = 0; i < counters.length(); ++i) {
+                        Assert.assertEquals(1, counters.get(i));
+                    }
+                }
+            }
+        } finally {
+            Parallel.setNumOfWorkers(numOfWorkers);
+            Parallel.setMinSize(minSize);
+        }
+    }
+
+    /**
+     * Test method for: {@link Parallel#tiles(Image, int, int, TileLoop)}.
+     */
+    @Test
+    public void testTilesException() {
+        final Image image = new Image(10, 10, 1);
+
+        try {
+            Parallel.tiles(image, 0, 10, (x, y, width, height, worker) -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            Parallel.tiles(image, 10, -1, (x, y, width, height, worker) -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Parallel#indexes(int, int, IndexesLoop)}.
+     */
+    @Test
+    public void testIndexes() {
+        final int numOfWorkers = Parallel.getNumOfWorkers();
+        final int minSize = Parallel.getMinSize();
+        try {
+            for (final int workers : new int[] { 1, 4 }) {
+                Parallel.setNumOfWorkers(workers);
+                Parallel.setMinSize(1000);
+
+                for (final int numOfIndexes : new int[] { 0, 1, 7, 1000 }) {
+                    final AtomicIntegerArray counters = new AtomicIntegerArray(numOfIndexes);
+
+                    Parallel.indexes(numOfIndexes, 100, (index, worker) -> {
+                        Assert.assertTrue(worker >= 0 && worker < workers);
+                        counters.incrementAndGet(index);
+                    });
+
+                    // Each index is processed exactly once.
+                    for (int i = 0; i < counters.length(); ++i) {
+                        Assert.assertEquals(1, counters.get(i));
+                    }
+                }
+            }
+        } finally {
+            Parallel.setNumOfWorkers(numOfWorkers);
+            Parallel.setMinSize(minSize);
+        }
+
+        try {
+            Parallel.indexes(-1, 1, (index, worker) -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            Parallel.indexes(10, 0, (index, worker) -> {
+                // Do nothing.
+            });
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Test method for: {@link Parallel#getTileSize(int, int)}.
+     */
+    @Test
+    public void testGetTileSize() {
+        // Two buffers of 181 x 181 integer values fit into 256 KB.
+        Assert.assertEquals(181, Parallel.getTileSize(2, 0));
+        Assert.assertEquals(171, Parallel.getTileSize(2, 10));
+        Assert.assertEquals(128, Parallel.getTileSize(4, 0));
+        Assert.assertEquals(Parallel.MIN_TILE_SIZE, Parallel.getTileSize(4, 1000));
+
+        try {
+            Parallel.getTileSize(0, 0);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+
+        try {
+            Parallel.getTileSize(1, -1);
+            Assert.fail("Not thrown IllegalArgumentException!");
+        } catch (final IllegalArgumentException e) {
+            System.out.println("Exception message example:\n" + e.getMessage() + "\n");
+        }
+    }
+}